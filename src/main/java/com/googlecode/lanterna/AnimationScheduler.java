@@ -0,0 +1,291 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the periodic work behind animations and other timed effects, like {@code AnimatedLabel}s moving to the next
+ * frame, text blinking in the Swing/AWT terminal emulators and the screen flash of the terminal bell. Instead of each of
+ * these starting a timer thread of its own, they all share the threads of one {@code ScheduledExecutorService}, so the
+ * number of threads stays the same no matter how many animations are running.
+ * <p>
+ * Tasks that run at the same interval are coalesced into one frame: a single scheduled job runs all of them, one after
+ * the other, once per interval. An animation that has nothing to show, for example because its component is in a
+ * hidden window, can be paused; when every task of an interval is paused or cancelled the job is cancelled too, and
+ * it's scheduled again when one of them is resumed. When nothing at all is scheduled the thread of the default executor
+ * exits after a second, so an application without any running animations doesn't keep a thread around for them.
+ * <p>
+ * Lanterna uses the scheduler returned by {@link #getDefault()}, which you can replace with
+ * {@link #setDefault(AnimationScheduler)} before creating any animated components, for example with a scheduler running
+ * on virtual threads:
+ * <pre>
+ *     {@code
+ *     AnimationScheduler.setDefault(new AnimationScheduler(Thread.ofVirtual().name("Animation").factory()));
+ *     }
+ * </pre>
+ * Tasks run on the scheduler thread, not the GUI thread, so they should do as little as possible. Tasks that change a
+ * component should hand that over to the GUI thread with {@code TextGUIThread.invokeLater(..)}, so that it happens
+ * together with the rest of the GUI updates and any exception reaches the exception handler of that thread.
+ * @author Martin
+ */
+public class AnimationScheduler {
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger(1);
+    private static AnimationScheduler defaultScheduler = null;
+
+    /**
+     * Returns the scheduler used by all animations in lanterna, creating it the first time this is called unless one
+     * has been assigned through {@link #setDefault(AnimationScheduler)}
+     * @return Scheduler to use for animations
+     */
+    public static synchronized AnimationScheduler getDefault() {
+        if(defaultScheduler == null) {
+            defaultScheduler = new AnimationScheduler();
+        }
+        return defaultScheduler;
+    }
+
+    /**
+     * Replaces the scheduler used by all animations in lanterna. Animations that are already running will stay on the
+     * scheduler they were started on.
+     * @param scheduler Scheduler to use for animations from now on
+     */
+    public static synchronized void setDefault(AnimationScheduler scheduler) {
+        if(scheduler == null) {
+            throw new IllegalArgumentException("Cannot set the default AnimationScheduler to null");
+        }
+        defaultScheduler = scheduler;
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Map<Long, Frame> frames;
+
+    /**
+     * Creates a new scheduler running its tasks on a daemon thread of its own, which is started when needed and exits
+     * when nothing has been scheduled for a second
+     */
+    public AnimationScheduler() {
+        this(runnable -> {
+            Thread thread = new Thread(runnable, "LanternaAnimation-" + THREAD_COUNTER.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Creates a new scheduler running its tasks on a thread created by the supplied factory, which is started when
+     * needed and exits when nothing has been scheduled for a second. Use this to run the tasks on virtual threads,
+     * for example.
+     * @param threadFactory Factory to create the scheduler thread with
+     */
+    public AnimationScheduler(ThreadFactory threadFactory) {
+        this(createExecutor(threadFactory));
+    }
+
+    /**
+     * Creates a new scheduler running its tasks on an existing executor. The scheduler won't shut down the executor.
+     * @param executor Executor to run the tasks on
+     */
+    public AnimationScheduler(ScheduledExecutorService executor) {
+        this.executor = executor;
+        this.frames = new HashMap<>();
+    }
+
+    private static ScheduledExecutorService createExecutor(ThreadFactory threadFactory) {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, threadFactory);
+        executor.setKeepAliveTime(1, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    /**
+     * Runs a task repeatedly, once per interval, until the returned {@link Animation} is cancelled. All tasks with the
+     * same interval are run together, so the first run may come sooner than one interval from now. If the task throws
+     * an exception it is passed to the uncaught exception handler of the scheduler thread and the task keeps being
+     * scheduled.
+     * @param task Task to run
+     * @param intervalMillis How many milliseconds to wait between each run
+     * @return Handle to cancel the task with
+     */
+    public synchronized Animation schedule(Runnable task, long intervalMillis) {
+        if(intervalMillis <= 0) {
+            throw new IllegalArgumentException("Animation interval must be positive, got " + intervalMillis);
+        }
+        Frame frame = frames.get(intervalMillis);
+        if(frame == null) {
+            frame = new Frame(intervalMillis);
+            frames.put(intervalMillis, frame);
+        }
+        Animation animation = new Animation(frame, task);
+        frame.animations.add(animation);
+        frame.runningCount++;
+        frame.start();
+        return animation;
+    }
+
+    /**
+     * Runs a task once, after a delay
+     * @param task Task to run
+     * @param delayMillis How many milliseconds to wait before running the task
+     */
+    public void scheduleOnce(Runnable task, long delayMillis) {
+        executor.schedule(() -> runTask(task), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void cancel(Animation animation) {
+        Frame frame = animation.frame;
+        if(!frame.animations.remove(animation)) {
+            return;
+        }
+        if(!animation.paused) {
+            frame.runningCount--;
+        }
+        if(frame.animations.isEmpty() && frames.get(frame.intervalMillis) == frame) {
+            frames.remove(frame.intervalMillis);
+        }
+        if(frame.runningCount == 0) {
+            frame.stop();
+        }
+    }
+
+    private synchronized void setPaused(Animation animation, boolean paused) {
+        Frame frame = animation.frame;
+        if(animation.paused == paused || !frame.animations.contains(animation)) {
+            return;
+        }
+        animation.paused = paused;
+        if(paused) {
+            frame.runningCount--;
+            if(frame.runningCount == 0) {
+                frame.stop();
+            }
+        }
+        else {
+            frame.runningCount++;
+            frame.start();
+        }
+    }
+
+    private static void runTask(Runnable task) {
+        try {
+            task.run();
+        }
+        catch(RuntimeException e) {
+            // Don't let one failing task stop the others in the same frame
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Handle for a task scheduled with {@link #schedule(Runnable, long)}, used to stop it
+     */
+    public class Animation {
+        private final Frame frame;
+        private final Runnable task;
+        private volatile boolean paused;
+
+        private Animation(Frame frame, Runnable task) {
+            this.frame = frame;
+            this.task = task;
+            this.paused = false;
+        }
+
+        /**
+         * Stops running the task. If the task is running right now it will finish, but it won't be run again.
+         */
+        public void cancel() {
+            AnimationScheduler.this.cancel(this);
+        }
+
+        /**
+         * Stops running the task until {@link #resume()} is called, for example while the component it animates isn't
+         * shown. If no other task at the same interval is running, nothing is scheduled for the interval until then.
+         */
+        public void pause() {
+            setPaused(this, true);
+        }
+
+        /**
+         * Starts running a paused task again, from the next frame of its interval. Calling this on an animation that
+         * isn't paused, or that has been cancelled, does nothing.
+         */
+        public void resume() {
+            setPaused(this, false);
+        }
+
+        /**
+         * Returns {@code true} if the task has been paused through {@link #pause()} and not resumed since
+         * @return {@code true} if the task is paused
+         */
+        public boolean isPaused() {
+            return paused;
+        }
+    }
+
+    /**
+     * All tasks running at one interval, run one after the other by a single periodic job
+     */
+    private class Frame implements Runnable {
+        private final long intervalMillis;
+        private final List<Animation> animations;
+        // Number of animations that aren't paused, the job is only scheduled while this is above zero
+        private int runningCount;
+        private ScheduledFuture<?> future;
+
+        private Frame(long intervalMillis) {
+            this.intervalMillis = intervalMillis;
+            this.animations = new CopyOnWriteArrayList<>();
+            this.runningCount = 0;
+            this.future = null;
+        }
+
+        private void start() {
+            if(future == null) {
+                future = executor.scheduleAtFixedRate(this, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void stop() {
+            if(future != null) {
+                future.cancel(false);
+                future = null;
+            }
+        }
+
+        @Override
+        public void run() {
+            for(Animation animation: animations) {
+                if(!animation.paused) {
+                    runTask(animation.task);
+                }
+            }
+        }
+    }
+}
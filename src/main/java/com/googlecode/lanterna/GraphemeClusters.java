@@ -0,0 +1,248 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps what goes into a single terminal cell to an {@code int}, so text buffers can store cells in primitive arrays.
+ * A cell holds a grapheme cluster, which is what the user perceives as one character. Most of the time that's a single
+ * code point and then the code point itself is used as the character code, so a {@code char} is its own code. Clusters
+ * of more than one code point, like a letter followed by combining accents, an emoji with a skin tone modifier or a
+ * sequence of emoji joined with ZWJ, are interned the first time they are seen and given a negative code.
+ * <p>
+ * The table of interned clusters is shared by everything in the JVM, and the text may come from an untrusted source,
+ * like the clients of a telnet server, so both the table and the clusters in it are bounded. A cluster of more than 32
+ * code points is replaced by its first code point followed by U+FFFD (the replacement character). The table holds at
+ * most 65536 clusters; when it's full, a new cluster takes the place of one that hasn't been used recently. A cell that
+ * still holds the code of an evicted cluster is shown as U+FFFD, or as U+3013 (the geta mark) if the cluster was
+ * double-width, so the width of the cell never changes. Looking up a cluster, for example when a screen writes it to
+ * the terminal, counts as using it, so clusters that are on screen are the last to go.
+ * <p>
+ * To split a string into grapheme clusters, use {@link TerminalTextUtils#getGraphemeClusterEnd(CharSequence, int)}.
+ * @author Martin
+ */
+public final class GraphemeClusters {
+    private static final int MAX_CLUSTER_CODE_POINTS = 32;
+    private static final int MAX_CLUSTERS = 65536;
+
+    private static final String REPLACEMENT_CHARACTER = "\uFFFD";
+    private static final Table TABLE = new Table(MAX_CLUSTERS);
+
+    private GraphemeClusters() {
+    }
+
+    /**
+     * Returns the character code for a grapheme cluster inside a character sequence, interning the cluster if needed
+     * @param text Text the cluster is in
+     * @param start Index of the first {@code char} of the cluster
+     * @param end Index after the last {@code char} of the cluster
+     * @return The code point if the cluster is a single code point, otherwise the (negative) code of the cluster
+     * @throws IllegalArgumentException If the range is empty
+     */
+    public static int toCharacterCode(CharSequence text, int start, int end) {
+        if(end <= start) {
+            throw new IllegalArgumentException("Cannot get the character code of an empty grapheme cluster");
+        }
+        int codePoint = Character.codePointAt(text, start);
+        if(start + Character.charCount(codePoint) >= end) {
+            return codePoint;
+        }
+        if(end - start > MAX_CLUSTER_CODE_POINTS && Character.codePointCount(text, start, end) > MAX_CLUSTER_CODE_POINTS) {
+            return TABLE.intern(new String(Character.toChars(codePoint)) + REPLACEMENT_CHARACTER);
+        }
+        return TABLE.intern(text.subSequence(start, end).toString());
+    }
+
+    /**
+     * Returns the character code for a grapheme cluster, interning the cluster if needed
+     * @param cluster Grapheme cluster to get the code of
+     * @return The code point if the cluster is a single code point, otherwise the (negative) code of the cluster
+     * @throws IllegalArgumentException If the string is empty
+     */
+    public static int toCharacterCode(String cluster) {
+        return toCharacterCode(cluster, 0, cluster.length());
+    }
+
+    /**
+     * Checks if a character code stands for an interned grapheme cluster of more than one code point
+     * @param characterCode Character code to check
+     * @return {@code true} if the code refers to an interned cluster, {@code false} if it's a code point
+     */
+    public static boolean isCluster(int characterCode) {
+        return characterCode < 0;
+    }
+
+    /**
+     * Returns the text a character code stands for
+     * @param characterCode Character code to look up
+     * @return The code point or the grapheme cluster as a string, or a replacement if the cluster has been evicted
+     */
+    public static String toString(int characterCode) {
+        if(characterCode >= 0) {
+            if(characterCode < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                return String.valueOf((char)characterCode);
+            }
+            return new String(Character.toChars(characterCode));
+        }
+        return TABLE.getCluster(characterCode);
+    }
+
+    /**
+     * Appends the text a character code stands for to a {@link StringBuilder}
+     * @param builder Builder to append to
+     * @param characterCode Character code of the text to append
+     * @return The builder
+     */
+    public static StringBuilder appendTo(StringBuilder builder, int characterCode) {
+        if(characterCode >= 0) {
+            return builder.appendCodePoint(characterCode);
+        }
+        return builder.append(TABLE.getCluster(characterCode));
+    }
+
+    /**
+     * Checks if the code point or grapheme cluster a character code stands for is expected to take up two columns when
+     * printed to a terminal
+     * @param characterCode Character code to check
+     * @return {@code true} if it takes up two columns, {@code false} if it takes up one
+     */
+    public static boolean isDoubleWidth(int characterCode) {
+        if(characterCode >= 0) {
+            return CharacterWidths.getColumnWidth(characterCode) == 2;
+        }
+        return Table.isDoubleWidth(characterCode);
+    }
+
+    /**
+     * The interned clusters. The code of a cluster is the bitwise complement of its slot in the table, whether it's
+     * double-width and the generation of the slot, which goes up every time the slot is given to another cluster. The
+     * width is part of the code so that it's known even after the cluster has been evicted, and the generation tells
+     * an evicted cluster apart from the one that has taken its slot. Generations wrap around after 16384 evictions
+     * from the same slot. When the table is full, the slot to reuse is picked with the clock algorithm: the hand skips
+     * clusters that have been used since it last passed them.
+     */
+    static final class Table {
+        private static final int SLOT_BITS = 16;
+        private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+        private static final int DOUBLE_WIDTH_FLAG = 1 << SLOT_BITS;
+        private static final int GENERATION_SHIFT = SLOT_BITS + 1;
+        private static final int GENERATION_MASK = (1 << (31 - GENERATION_SHIFT)) - 1;
+
+        private static final String EVICTED = REPLACEMENT_CHARACTER;
+        private static final String EVICTED_DOUBLE_WIDTH = "\u3013";
+
+        private final int maxClusters;
+        private final Map<String, Entry> entriesByCluster;
+        private volatile Entry[] entries;
+        // Guarded by this
+        private int entryCount;
+        private int clockHand;
+
+        Table(int maxClusters) {
+            if(maxClusters < 1 || maxClusters > SLOT_MASK + 1) {
+                throw new IllegalArgumentException("A grapheme cluster table holds 1 to " + (SLOT_MASK + 1) + " clusters, got " + maxClusters);
+            }
+            this.maxClusters = maxClusters;
+            this.entriesByCluster = new ConcurrentHashMap<>();
+            this.entries = new Entry[Math.min(64, maxClusters)];
+            this.entryCount = 0;
+            this.clockHand = 0;
+        }
+
+        static boolean isDoubleWidth(int code) {
+            return (~code & DOUBLE_WIDTH_FLAG) != 0;
+        }
+
+        String getCluster(int code) {
+            Entry[] entries = this.entries;
+            int slot = ~code & SLOT_MASK;
+            Entry entry = slot < entries.length ? entries[slot] : null;
+            if(entry != null && entry.code == code) {
+                entry.used = true;
+                return entry.cluster;
+            }
+            return isDoubleWidth(code) ? EVICTED_DOUBLE_WIDTH : EVICTED;
+        }
+
+        int intern(String cluster) {
+            Entry entry = entriesByCluster.get(cluster);
+            if(entry != null) {
+                entry.used = true;
+                return entry.code;
+            }
+            synchronized(this) {
+                entry = entriesByCluster.get(cluster);
+                if(entry == null) {
+                    Entry[] newEntries = entries;
+                    int slot;
+                    int generation;
+                    if(entryCount < maxClusters) {
+                        if(entryCount == newEntries.length) {
+                            newEntries = Arrays.copyOf(newEntries, Math.min(maxClusters, entryCount * 2));
+                        }
+                        slot = entryCount++;
+                        generation = 0;
+                    }
+                    else {
+                        slot = evict(newEntries);
+                        generation = ((~newEntries[slot].code >>> GENERATION_SHIFT) + 1) & GENERATION_MASK;
+                    }
+                    int width = TerminalTextUtils.getGraphemeClusterWidth(cluster, 0, cluster.length());
+                    entry = new Entry(cluster, ~(slot | (width == 2 ? DOUBLE_WIDTH_FLAG : 0) | (generation << GENERATION_SHIFT)));
+                    newEntries[slot] = entry;
+                    // Publish the entry before the code, anyone who can see the code can also see the entry
+                    entries = newEntries;
+                    entriesByCluster.put(cluster, entry);
+                }
+                return entry.code;
+            }
+        }
+
+        private int evict(Entry[] entries) {
+            while(true) {
+                int slot = clockHand;
+                clockHand = (clockHand + 1) % entries.length;
+                Entry entry = entries[slot];
+                if(entry.used) {
+                    entry.used = false;
+                }
+                else {
+                    entriesByCluster.remove(entry.cluster);
+                    return slot;
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final String cluster;
+        private final int code;
+        // Set when the cluster is looked up, cleared when the clock hand passes, races only delay an eviction
+        private volatile boolean used;
+
+        private Entry(String cluster, int code) {
+            this.cluster = cluster;
+            this.code = code;
+            this.used = true;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+/**
+ * Rectangular area in 2-d terminal space, described by the position of its top-left corner and its size. This class is
+ * immutable and cannot change its internal state after creation.
+ *
+ * @author Martin
+ */
+public class TerminalRectangle {
+    private final TerminalPosition topLeft;
+    private final TerminalSize size;
+
+    /**
+     * Creates a new rectangle from the position of its top-left corner and its size
+     * @param topLeft Position of the top-left corner
+     * @param size Size of the rectangle
+     */
+    public TerminalRectangle(TerminalPosition topLeft, TerminalSize size) {
+        this.topLeft = topLeft;
+        this.size = size;
+    }
+
+    /**
+     * Creates a new rectangle from the column and row of its top-left corner and its width and height
+     * @param column Column of the top-left corner
+     * @param row Row of the top-left corner
+     * @param columns Width of the rectangle, in columns
+     * @param rows Height of the rectangle, in rows
+     */
+    public TerminalRectangle(int column, int row, int columns, int rows) {
+        this(new TerminalPosition(column, row), new TerminalSize(columns, rows));
+    }
+
+    /**
+     * @return Position of the top-left corner of this rectangle
+     */
+    public TerminalPosition getTopLeft() {
+        return topLeft;
+    }
+
+    /**
+     * @return Size of this rectangle
+     */
+    public TerminalSize getSize() {
+        return size;
+    }
+
+    /**
+     * @return Column of the left edge of this rectangle
+     */
+    public int getColumn() {
+        return topLeft.getColumn();
+    }
+
+    /**
+     * @return Row of the top edge of this rectangle
+     */
+    public int getRow() {
+        return topLeft.getRow();
+    }
+
+    /**
+     * @return Width of this rectangle, in columns
+     */
+    public int getColumns() {
+        return size.getColumns();
+    }
+
+    /**
+     * @return Height of this rectangle, in rows
+     */
+    public int getRows() {
+        return size.getRows();
+    }
+
+    /**
+     * @return {@code true} if this rectangle doesn't cover any cells, because it has zero width or height
+     */
+    public boolean isEmpty() {
+        return size.getColumns() == 0 || size.getRows() == 0;
+    }
+
+    /**
+     * Checks if a cell is inside this rectangle
+     * @param column Column of the cell
+     * @param row Row of the cell
+     * @return {@code true} if the cell is inside this rectangle
+     */
+    public boolean contains(int column, int row) {
+        return column >= getColumn() && column < getColumn() + getColumns() &&
+                row >= getRow() && row < getRow() + getRows();
+    }
+
+    /**
+     * Checks if this rectangle and another one have at least one cell in common
+     * @param other Other rectangle
+     * @return {@code true} if the two rectangles overlap
+     */
+    public boolean intersects(TerminalRectangle other) {
+        return !isEmpty() && !other.isEmpty() &&
+                getColumn() < other.getColumn() + other.getColumns() &&
+                other.getColumn() < getColumn() + getColumns() &&
+                getRow() < other.getRow() + other.getRows() &&
+                other.getRow() < getRow() + getRows();
+    }
+
+    /**
+     * Returns the area this rectangle and another one have in common
+     * @param other Other rectangle
+     * @return Overlapping area of the two rectangles, this will be empty if they don't overlap
+     */
+    public TerminalRectangle intersection(TerminalRectangle other) {
+        int left = Math.max(getColumn(), other.getColumn());
+        int top = Math.max(getRow(), other.getRow());
+        int right = Math.min(getColumn() + getColumns(), other.getColumn() + other.getColumns());
+        int bottom = Math.min(getRow() + getRows(), other.getRow() + other.getRows());
+        return new TerminalRectangle(left, top, Math.max(0, right - left), Math.max(0, bottom - top));
+    }
+
+    /**
+     * Returns the smallest rectangle that covers both this rectangle and another one. Empty rectangles are ignored.
+     * @param other Other rectangle
+     * @return Bounding rectangle of the two rectangles
+     */
+    public TerminalRectangle union(TerminalRectangle other) {
+        if(other.isEmpty()) {
+            return this;
+        }
+        if(isEmpty()) {
+            return other;
+        }
+        int left = Math.min(getColumn(), other.getColumn());
+        int top = Math.min(getRow(), other.getRow());
+        int right = Math.max(getColumn() + getColumns(), other.getColumn() + other.getColumns());
+        int bottom = Math.max(getRow() + getRows(), other.getRow() + other.getRows());
+        return new TerminalRectangle(left, top, right - left, bottom - top);
+    }
+
+    /**
+     * Returns a rectangle of the same size as this one, but moved
+     * @param deltaColumns How many columns to move the rectangle
+     * @param deltaRows How many rows to move the rectangle
+     * @return Moved rectangle
+     */
+    public TerminalRectangle withRelative(int deltaColumns, int deltaRows) {
+        if(deltaColumns == 0 && deltaRows == 0) {
+            return this;
+        }
+        return new TerminalRectangle(topLeft.withRelative(deltaColumns, deltaRows), size);
+    }
+
+    @Override
+    public String toString() {
+        return "{" + topLeft + ", " + size + "}";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) {
+            return true;
+        }
+        if (!(obj instanceof TerminalRectangle)) {
+            return false;
+        }
+
+        TerminalRectangle other = (TerminalRectangle) obj;
+        return topLeft.equals(other.topLeft)
+                && size.equals(other.size);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 53 * hash + topLeft.hashCode();
+        hash = 53 * hash + size.hashCode();
+        return hash;
+    }
+}
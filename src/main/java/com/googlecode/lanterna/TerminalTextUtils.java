@@ -20,7 +20,6 @@ package com.googlecode.lanterna;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 
 import com.googlecode.lanterna.graphics.StyleSet;
@@ -36,6 +35,9 @@ import com.googlecode.lanterna.screen.TabBehaviour;
  * @author Martin
  */
 public class TerminalTextUtils {
+    private static final int ZERO_WIDTH_JOINER = 0x200D;
+    private static final int ZERO_WIDTH_NON_JOINER = 0x200C;
+
     private TerminalTextUtils() {
     }
 
@@ -97,33 +99,157 @@ public class TerminalTextUtils {
      *
      */
     public static boolean isCharCJK(final char c) {
-        Character.UnicodeBlock unicodeBlock = Character.UnicodeBlock.of(c);
-        return (unicodeBlock == Character.UnicodeBlock.HIRAGANA)
-                || (unicodeBlock == Character.UnicodeBlock.KATAKANA)
-                || (unicodeBlock == Character.UnicodeBlock.KATAKANA_PHONETIC_EXTENSIONS)
-                || (unicodeBlock == Character.UnicodeBlock.HANGUL_COMPATIBILITY_JAMO)
-                || (unicodeBlock == Character.UnicodeBlock.HANGUL_JAMO)
-                || (unicodeBlock == Character.UnicodeBlock.HANGUL_SYLLABLES)
-                || (unicodeBlock == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS)
-                || (unicodeBlock == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A)
-                || (unicodeBlock == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B)
-                || (unicodeBlock == Character.UnicodeBlock.CJK_COMPATIBILITY_FORMS)
-                || (unicodeBlock == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS)
-                || (unicodeBlock == Character.UnicodeBlock.CJK_RADICALS_SUPPLEMENT)
-                || (unicodeBlock == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION)
-                || (unicodeBlock == Character.UnicodeBlock.ENCLOSED_CJK_LETTERS_AND_MONTHS)
-                || (unicodeBlock == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS && c < 0xFF61);    //The magic number here is the separating index between full-width and half-width
+        // The ranges of the Unicode blocks with CJK characters, checked directly since Character.UnicodeBlock.of() is slow
+        if(c < 0x1100) {
+            return false;
+        }
+        return c <= 0x11FF                      // Hangul Jamo
+                || (c >= 0x2E80 && c <= 0x2EFF) // CJK Radicals Supplement
+                || (c >= 0x3000 && c <= 0x30FF) // CJK Symbols and Punctuation, Hiragana, Katakana
+                || (c >= 0x3130 && c <= 0x318F) // Hangul Compatibility Jamo
+                || (c >= 0x31F0 && c <= 0x32FF) // Katakana Phonetic Extensions, Enclosed CJK Letters and Months
+                || (c >= 0x3400 && c <= 0x4DBF) // CJK Unified Ideographs Extension A
+                || (c >= 0x4E00 && c <= 0x9FFF) // CJK Unified Ideographs
+                || (c >= 0xAC00 && c <= 0xD7AF) // Hangul Syllables
+                || (c >= 0xF900 && c <= 0xFAFF) // CJK Compatibility Ideographs
+                || (c >= 0xFE30 && c <= 0xFE4F) // CJK Compatibility Forms
+                || (c >= 0xFF00 && c <= 0xFF60);   //Halfwidth and Fullwidth Forms, up to where the half-width ones start
     }
 
     /**
      * Checks if a character is expected to be taking up two columns if printed to a terminal. This will generally be
-     * {@code true} for CJK (Chinese, Japanese and Korean) characters.
+     * {@code true} for CJK (Chinese, Japanese and Korean) characters and emoji.
      * @param c Character to test if it's double-width when printed to a terminal
      * @return {@code true} if this character is expected to be taking up two columns when printed to the terminal,
      * otherwise {@code false}
+     * @see #getColumnWidth(int)
      */
     public static boolean isCharDoubleWidth(final char c) {
-        return isCharCJK(c);
+        return CharacterWidths.getColumnWidth(c) == 2;
+    }
+
+    /**
+     * Returns how many columns a code point is expected to take up when printed to a terminal. This is 2 for wide
+     * characters (East Asian Width {@code W} or {@code F} in the Unicode character database, which covers CJK
+     * characters and emoji), 0 for control characters and for combining marks and other characters that don't take up
+     * any space of their own and 1 for everything else. The answer comes from a table built once when the class is
+     * loaded, so this is cheap enough to call for every cell on the screen.
+     * <p>
+     * When text is put on the screen, zero-width characters are kept together with the character before them in the
+     * same cell, see {@link #getGraphemeClusterEnd(CharSequence, int)}.
+     * @param codePoint Code point to look up
+     * @return Number of columns the code point takes up, 0, 1 or 2
+     */
+    public static int getColumnWidth(int codePoint) {
+        return CharacterWidths.getColumnWidth(codePoint);
+    }
+
+    /**
+     * Finds where the grapheme cluster starting at an index in a text ends. A grapheme cluster is what the user
+     * perceives as one character and Lanterna puts each cluster in a cell of its own. This is a simplified version of
+     * the rules in Unicode Standard Annex #29 that covers what terminals commonly deal with: surrogate pairs, combining
+     * marks and other zero-width characters (except format characters like the zero-width space), variation
+     * selectors, emoji modifiers and tags, pairs of regional indicators (flags) and anything following a zero-width
+     * joiner. Nothing below U+0300 continues a cluster, so this is cheap for ASCII text.
+     * @param text Text to look in
+     * @param index Index of the first {@code char} of the cluster
+     * @return Index after the last {@code char} of the cluster
+     * @throws StringIndexOutOfBoundsException if the index is outside the text
+     */
+    public static int getGraphemeClusterEnd(CharSequence text, int index) {
+        int length = text.length();
+        char first = text.charAt(index);
+        if(index + 1 < length && first < 0x300 && text.charAt(index + 1) < 0x300) {
+            return index + 1;
+        }
+        int codePoint = Character.codePointAt(text, index);
+        int end = index + Character.charCount(codePoint);
+        if(CharacterWidths.getColumnWidth(codePoint) == 0 && codePoint < 0x300) {
+            // Control characters are always on their own
+            return end;
+        }
+        boolean openRegionalIndicator = isRegionalIndicator(codePoint);
+        boolean afterJoiner = codePoint == ZERO_WIDTH_JOINER;
+        while(end < length && text.charAt(end) >= 0x300) {
+            int next = Character.codePointAt(text, end);
+            if(openRegionalIndicator && isRegionalIndicator(next)) {
+                openRegionalIndicator = false;
+            }
+            else if(!afterJoiner && !isGraphemeExtender(next)) {
+                break;
+            }
+            afterJoiner = next == ZERO_WIDTH_JOINER;
+            end += Character.charCount(next);
+        }
+        return end;
+    }
+
+    /**
+     * Returns how many columns a grapheme cluster takes up when printed to a terminal. This is the sum of the widths of
+     * the code points in the cluster, not counting those joined in by a zero-width joiner, but at least one column (a
+     * lone combining mark still gets a cell) and at most two.
+     * @param text Text the cluster is in
+     * @param start Index of the first {@code char} of the cluster
+     * @param end Index after the last {@code char} of the cluster, as returned by
+     *            {@link #getGraphemeClusterEnd(CharSequence, int)}
+     * @return Number of columns the cluster takes up, 1 or 2
+     */
+    public static int getGraphemeClusterWidth(CharSequence text, int start, int end) {
+        if(end == start + 1) {
+            return CharacterWidths.getColumnWidth(text.charAt(start)) == 2 ? 2 : 1;
+        }
+        int width = 0;
+        boolean afterJoiner = false;
+        for(int i = start; i < end; ) {
+            int codePoint = Character.codePointAt(text, i);
+            if(!afterJoiner) {
+                width += CharacterWidths.getColumnWidth(codePoint);
+            }
+            afterJoiner = codePoint == ZERO_WIDTH_JOINER;
+            i += Character.charCount(codePoint);
+        }
+        return Math.max(1, Math.min(2, width));
+    }
+
+    /**
+     * Finds how much of a piece of text can be written one grapheme cluster per cell before running out of columns.
+     * Returns the index of the first cluster that would start at or after {@code availableColumnSpace} columns, so a
+     * double width character starting in the last available column is included. This is used to clip a run of text
+     * once instead of checking every cell.
+     * @param text Text to measure
+     * @param start Index in {@code text} where the run starts
+     * @param end Index in {@code text} where the run ends
+     * @param availableColumnSpace Number of columns available for the run
+     * @return Index in {@code text}, between {@code start} and {@code end}, where the run should be cut
+     */
+    public static int getRunEnd(CharSequence text, int start, int end, int availableColumnSpace) {
+        // No cluster is wider than two columns, so short runs always fit without having to look at them
+        if((long)(end - start) * 2 <= availableColumnSpace) {
+            return end;
+        }
+        int column = 0;
+        int index = start;
+        while(index < end && column < availableColumnSpace) {
+            int clusterEnd = Math.min(getGraphemeClusterEnd(text, index), end);
+            column += getGraphemeClusterWidth(text, index, clusterEnd);
+            index = clusterEnd;
+        }
+        return index;
+    }
+
+    private static boolean isRegionalIndicator(int codePoint) {
+        return codePoint >= 0x1F1E6 && codePoint <= 0x1F1FF;
+    }
+
+    private static boolean isGraphemeExtender(int codePoint) {
+        if(codePoint == ZERO_WIDTH_JOINER || codePoint == ZERO_WIDTH_NON_JOINER) {
+            return true;
+        }
+        if((codePoint >= 0x1F3FB && codePoint <= 0x1F3FF) || (codePoint >= 0xE0020 && codePoint <= 0xE007F)) {
+            // Emoji modifiers (skin tones) and tags
+            return true;
+        }
+        return CharacterWidths.getColumnWidth(codePoint) == 0 && Character.getType(codePoint) != Character.FORMAT;
     }
 
     /**
@@ -170,7 +296,8 @@ public class TerminalTextUtils {
      * be if printed in a terminal. If the string only contains non-CJK characters then the returned value will be same
      * as {@code stringCharacterIndex}, but if there are CJK characters the value will be different due to CJK
      * characters taking up two columns in width. If the character at the index in the string is a CJK character itself,
-     * the returned value will be the index of the left-side of character. The tab character is counted as four spaces.
+     * the returned value will be the index of the left-side of character, the same goes for an index inside a grapheme
+     * cluster. The tab character is counted as four spaces.
      * @param s String to translate the index from
      * @param stringCharacterIndex Index within the string to get the terminal column index of
      * @return Index of the character inside the String at {@code stringCharacterIndex} when it has been writted to a
@@ -186,7 +313,8 @@ public class TerminalTextUtils {
      * be if printed in a terminal. If the string only contains non-CJK characters then the returned value will be same
      * as {@code stringCharacterIndex}, but if there are CJK characters the value will be different due to CJK
      * characters taking up two columns in width. If the character at the index in the string is a CJK character itself,
-     * the returned value will be the index of the left-side of character.
+     * the returned value will be the index of the left-side of character, the same goes for an index inside a grapheme
+     * cluster.
      * @param s String to translate the index from
      * @param stringCharacterIndex Index within the string to get the terminal column index of
      * @param tabBehaviour The behavior to use when encountering the tab character
@@ -198,16 +326,20 @@ public class TerminalTextUtils {
      */
     public static int getColumnIndex(String s, int stringCharacterIndex, TabBehaviour tabBehaviour, int firstCharacterColumnPosition) throws StringIndexOutOfBoundsException {
         int index = 0;
-        for(int i = 0; i < stringCharacterIndex; i++) {
+        int i = 0;
+        while(i < stringCharacterIndex) {
             if(s.charAt(i) == '\t') {
                 index += tabBehaviour.getTabReplacement(firstCharacterColumnPosition).length();
+                i++;
+                continue;
             }
-            else {
-                if (isCharCJK(s.charAt(i))) {
-                    index++;
-                }
-                index++;
+            int clusterEnd = getGraphemeClusterEnd(s, i);
+            if(clusterEnd > stringCharacterIndex) {
+                // The index is inside this cluster, which starts on the column we have reached
+                break;
             }
+            index += getGraphemeClusterWidth(s, i, clusterEnd);
+            i = clusterEnd;
         }
         return index;
     }
@@ -227,13 +359,12 @@ public class TerminalTextUtils {
         int index = 0;
         int counter = 0;
         while(counter < columnIndex) {
-            if(isCharCJK(s.charAt(index++))) {
-                counter++;
-                if(counter == columnIndex) {
-                    return index - 1;
-                }
+            int clusterEnd = getGraphemeClusterEnd(s, index);
+            counter += getGraphemeClusterWidth(s, index, clusterEnd);
+            if(counter > columnIndex) {
+                return index;
             }
-            counter++;
+            index = clusterEnd;
         }
         return index;
     }
@@ -275,8 +406,9 @@ public class TerminalTextUtils {
         int column = 0;
         int index = 0;
         while(index < string.length() && column < fromColumn) {
-            char c = string.charAt(index++);
-            column += TerminalTextUtils.isCharCJK(c) ? 2 : 1;
+            int clusterEnd = getGraphemeClusterEnd(string, index);
+            column += getGraphemeClusterWidth(string, index, clusterEnd);
+            index = clusterEnd;
         }
         if(column > fromColumn) {
             bob.append(" ");
@@ -284,21 +416,23 @@ public class TerminalTextUtils {
         }
 
         while(availableColumnSpace > 0 && index < string.length()) {
-            char c = string.charAt(index++);
-            availableColumnSpace -= TerminalTextUtils.isCharCJK(c) ? 2 : 1;
+            int clusterEnd = getGraphemeClusterEnd(string, index);
+            availableColumnSpace -= getGraphemeClusterWidth(string, index, clusterEnd);
             if(availableColumnSpace < 0) {
                 bob.append(' ');
             }
             else {
-                bob.append(c);
+                bob.append(string, index, clusterEnd);
             }
+            index = clusterEnd;
         }
         return bob.toString();
     }
 
     /**
      * This method will calculate word wrappings given a number of lines of text and how wide the text can be printed.
-     * The result is a list of new rows where word-wrapping was applied.
+     * The result is a list of new rows where word-wrapping was applied. Use {@link TextLayout} instead if you also need
+     * the width of the rows or want to avoid wrapping the same text over and over.
      * @param maxWidth Maximum number of columns that can be used before word-wrapping is applied, if &lt;= 0 then the
      *                 lines will be returned unchanged
      * @param lines Input text
@@ -309,56 +443,7 @@ public class TerminalTextUtils {
         if(maxWidth <= 0) {
             return Arrays.asList(lines);
         }
-
-        List<String> result = new ArrayList<>();
-        LinkedList<String> linesToBeWrapped = new LinkedList<>(Arrays.asList(lines));
-        while(!linesToBeWrapped.isEmpty()) {
-            String row = linesToBeWrapped.removeFirst();
-            int rowWidth = getColumnWidth(row);
-            if(rowWidth <= maxWidth) {
-                result.add(row);
-            }
-            else {
-                //Now search in reverse and find the first possible line-break
-                final int characterIndexMax = getStringCharacterIndex(row, maxWidth);
-                int characterIndex = characterIndexMax;
-                while(characterIndex >= 0 &&
-                        !Character.isSpaceChar(row.charAt(characterIndex)) &&
-                        !isCharCJK(row.charAt(characterIndex))) {
-                    characterIndex--;
-                }
-                // right *after* a CJK is also a "nice" spot to break the line!
-                if (characterIndex >= 0 && characterIndex < characterIndexMax &&
-                      isCharCJK(row.charAt(characterIndex))) {
-                    characterIndex++; // with these conditions it fits!
-                }
-
-                if(characterIndex < 0) {
-                    //Failed! There was no 'nice' place to cut so just cut it at maxWidth
-                    characterIndex = Math.max(characterIndexMax, 1); // at least 1 char
-                    result.add(row.substring(0, characterIndex));
-                    linesToBeWrapped.addFirst(row.substring(characterIndex));
-                }
-                else {
-                    // characterIndex == 0 only happens, if either
-                    //   - first char is CJK and maxWidth==1   or
-                    //   - first char is whitespace
-                    // either way: put it in row before break to prevent infinite loop.
-                    characterIndex = Math.max( characterIndex, 1); // at least 1 char
-
-                    //Ok, split the row, add it to the result and continue processing the second half on a new line
-                    result.add(row.substring(0, characterIndex));
-                    while(characterIndex < row.length() &&
-                          Character.isSpaceChar(row.charAt(characterIndex))) {
-                        characterIndex++;
-                    }
-                    if (characterIndex < row.length()) { // only if rest contains non-whitespace
-                        linesToBeWrapped.addFirst(row.substring(characterIndex));
-                    }
-                }
-            }
-        }
-        return result;
+        return new ArrayList<>(TextLayout.wordWrap(maxWidth, lines).getLines());
     }
 
     private static Integer[] mapCodesToIntegerArray(String[] codes) {
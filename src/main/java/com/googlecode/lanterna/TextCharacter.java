@@ -18,32 +18,26 @@
  */
 package com.googlecode.lanterna;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumSet;
-import java.util.Objects;
+import java.util.List;
 
 /**
  * Represents a single character with additional metadata such as colors and modifiers. This class is immutable and
  * cannot be modified after creation.
+ * <p>
+ * The character is a grapheme cluster, which is usually a single {@code char} but can also be a code point outside the
+ * Basic Multilingual Plane (like most emoji) or a sequence of code points that are displayed together in one cell (like
+ * a letter with combining accents or an emoji with a skin tone modifier). Internally it's kept as an {@code int}
+ * character code, see {@link GraphemeClusters}, so a {@code TextCharacter} takes up the same amount of memory either way.
  * @author Martin
  */
 public class TextCharacter {
-    private static EnumSet<SGR> toEnumSet(SGR... modifiers) {
-        if(modifiers.length == 0) {
-            return EnumSet.noneOf(SGR.class);
-        }
-        else {
-            return EnumSet.copyOf(Arrays.asList(modifiers));
-        }
-    }
-
     public static final TextCharacter DEFAULT_CHARACTER = new TextCharacter(' ', TextColor.ANSI.DEFAULT, TextColor.ANSI.DEFAULT);
 
-    private final char character;
-    private final TextColor foregroundColor;
-    private final TextColor backgroundColor;
-    private final EnumSet<SGR> modifiers;  //This isn't immutable, but we should treat it as such and not expose it!
+    private final int character;
+    private final TextStyle style;
 
     /**
      * Creates a {@code ScreenCharacter} based on a supplied character, with default colors and no extra modifiers.
@@ -58,10 +52,7 @@ public class TextCharacter {
      * @param character screenCharacter to copy from
      */
     public TextCharacter(TextCharacter character) {
-        this(character.getCharacter(),
-                character.getForegroundColor(), 
-                character.getBackgroundColor(),
-                character.getModifiers().toArray(new SGR[0]));
+        this(character.character, character.style);
     }
 
     /**
@@ -78,10 +69,7 @@ public class TextCharacter {
             TextColor backgroundColor,
             SGR... styles) {
         
-        this(character, 
-                foregroundColor, 
-                backgroundColor, 
-                toEnumSet(styles));
+        this(checkCharacterCode(character), TextStyle.of(foregroundColor, backgroundColor, styles));
     }
 
     /**
@@ -97,31 +85,162 @@ public class TextCharacter {
             TextColor backgroundColor,
             EnumSet<SGR> modifiers) {
 
+        this(checkCharacterCode(character), TextStyle.of(foregroundColor, backgroundColor, modifiers));
+    }
+
+    /**
+     * Creates a new {@code TextCharacter} from a grapheme cluster, which is one or more code points that together are
+     * displayed as one character, with color information and optional modifiers.
+     * @param character Grapheme cluster to refer to, for example an emoji
+     * @param foregroundColor Foreground color the character has
+     * @param backgroundColor Background color the character has
+     * @param styles Optional list of modifiers to apply when drawing the character
+     * @throws IllegalArgumentException If the string is empty, contains more than one grapheme cluster or is a control
+     * character
+     * @see #fromString(String, TextColor, TextColor, SGR...)
+     */
+    public TextCharacter(
+            String character,
+            TextColor foregroundColor,
+            TextColor backgroundColor,
+            SGR... styles) {
+
+        this(checkCharacterCode(toCharacterCode(character)), TextStyle.of(foregroundColor, backgroundColor, styles));
+    }
+
+    /**
+     * Creates a new {@code TextCharacter} from a grapheme cluster, which is one or more code points that together are
+     * displayed as one character, with color information and a set of modifiers.
+     * @param character Grapheme cluster to refer to, for example an emoji
+     * @param foregroundColor Foreground color the character has
+     * @param backgroundColor Background color the character has
+     * @param modifiers Set of modifiers to apply when drawing the character
+     * @throws IllegalArgumentException If the string is empty, contains more than one grapheme cluster or is a control
+     * character
+     */
+    public TextCharacter(
+            String character,
+            TextColor foregroundColor,
+            TextColor backgroundColor,
+            EnumSet<SGR> modifiers) {
+
+        this(checkCharacterCode(toCharacterCode(character)), TextStyle.of(foregroundColor, backgroundColor, modifiers));
+    }
+
+    /**
+     * Creates a new {@code TextCharacter} from a character code that has already been checked and a style, use
+     * {@link TextStyle#toTextCharacter(int)} from outside this package
+     */
+    TextCharacter(int character, TextStyle style) {
+        this.character = character;
+        this.style = style;
+    }
+
+    /**
+     * Creates a {@code TextCharacter} from a character code, as returned by {@link #getCharacterCode()}. This is meant
+     * for text buffers that keep their content packed in primitive arrays.
+     * @param characterCode Code point or interned grapheme cluster code, see {@link GraphemeClusters}
+     * @param foregroundColor Foreground color the character has
+     * @param backgroundColor Background color the character has
+     * @param modifiers Set of modifiers to apply when drawing the character
+     * @return New {@code TextCharacter}
+     * @throws IllegalArgumentException If the code is for a control character
+     */
+    public static TextCharacter fromCharacterCode(
+            int characterCode,
+            TextColor foregroundColor,
+            TextColor backgroundColor,
+            EnumSet<SGR> modifiers) {
+
+        return TextStyle.of(foregroundColor, backgroundColor, modifiers).toTextCharacter(characterCode);
+    }
+
+    /**
+     * Splits a string into grapheme clusters and returns one {@code TextCharacter} with default colors and no
+     * modifiers for each. Please note that a double-width character still only gives one {@code TextCharacter}.
+     * @param string String to split
+     * @return Array with one {@code TextCharacter} per grapheme cluster in the string
+     * @throws IllegalArgumentException If the string contains a control character
+     */
+    public static TextCharacter[] fromString(String string) {
+        return fromString(string, TextColor.ANSI.DEFAULT, TextColor.ANSI.DEFAULT);
+    }
+
+    /**
+     * Splits a string into grapheme clusters and returns one {@code TextCharacter} with the specified colors and
+     * modifiers for each. Please note that a double-width character still only gives one {@code TextCharacter}.
+     * @param string String to split
+     * @param foregroundColor Foreground color the characters have
+     * @param backgroundColor Background color the characters have
+     * @param modifiers Optional list of modifiers to apply when drawing the characters
+     * @return Array with one {@code TextCharacter} per grapheme cluster in the string
+     * @throws IllegalArgumentException If the string contains a control character
+     */
+    public static TextCharacter[] fromString(
+            String string,
+            TextColor foregroundColor,
+            TextColor backgroundColor,
+            SGR... modifiers) {
+
+        TextStyle style = TextStyle.of(foregroundColor, backgroundColor, modifiers);
+        List<TextCharacter> result = new ArrayList<>(string.length());
+        for(int index = 0; index < string.length(); ) {
+            int clusterEnd = TerminalTextUtils.getGraphemeClusterEnd(string, index);
+            int characterCode = GraphemeClusters.toCharacterCode(string, index, clusterEnd);
+            result.add(style.toTextCharacter(characterCode));
+            index = clusterEnd;
+        }
+        return result.toArray(new TextCharacter[0]);
+    }
+
+    private static int toCharacterCode(String cluster) {
+        if(cluster.isEmpty() || TerminalTextUtils.getGraphemeClusterEnd(cluster, 0) != cluster.length()) {
+            throw new IllegalArgumentException("A TextCharacter must be exactly one grapheme cluster, got \"" + cluster + "\"");
+        }
+        return GraphemeClusters.toCharacterCode(cluster);
+    }
+
+    static int checkCharacterCode(int characterCode) {
         // Don't allow creating a TextCharacter containing a control character
         // For backward-compatibility, do allow tab for now
         // TODO: In lanterna 3.1, don't allow tab
-        if(TerminalTextUtils.isControlCharacter(character) && character != '\t') {
-            throw new IllegalArgumentException("Cannot create a TextCharacter from a control character (0x" + Integer.toHexString(character) + ")");
+        if(characterCode >= 0 && characterCode < Character.MIN_SUPPLEMENTARY_CODE_POINT &&
+                TerminalTextUtils.isControlCharacter((char)characterCode) && characterCode != '\t') {
+            throw new IllegalArgumentException("Cannot create a TextCharacter from a control character (0x" + Integer.toHexString(characterCode) + ")");
         }
+        return characterCode;
+    }
 
-        if(foregroundColor == null) {
-            foregroundColor = TextColor.ANSI.DEFAULT;
-        }
-        if(backgroundColor == null) {
-            backgroundColor = TextColor.ANSI.DEFAULT;
+    /**
+     * The actual character this TextCharacter represents. If it's a code point outside the Basic Multilingual Plane or
+     * a grapheme cluster of more than one code point, this is the first {@code char} of it, use
+     * {@link #getCharacterString()} to get all of it.
+     * @return character of the TextCharacter
+     */
+    public char getCharacter() {
+        if(character >= 0 && character < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            return (char)character;
         }
+        return GraphemeClusters.toString(character).charAt(0);
+    }
 
-        this.character = character;
-        this.foregroundColor = foregroundColor;
-        this.backgroundColor = backgroundColor;
-        this.modifiers = EnumSet.copyOf(modifiers);
+    /**
+     * Returns the whole grapheme cluster this TextCharacter represents, which is one or more code points that are
+     * displayed together in one cell
+     * @return The character of the TextCharacter as a string
+     */
+    public String getCharacterString() {
+        return GraphemeClusters.toString(character);
     }
 
     /**
-     * The actual character this TextCharacter represents
-     * @return character of the TextCharacter
+     * Returns the character code of this TextCharacter, which is the code point if it's a single code point and a
+     * negative code for grapheme clusters of more than one code point. Two TextCharacters have the same character code
+     * exactly when they have the same character, so text buffers can store the code instead of the TextCharacter.
+     * @return Character code of the TextCharacter
+     * @see GraphemeClusters
      */
-    public char getCharacter() {
+    public int getCharacterCode() {
         return character;
     }
 
@@ -130,7 +249,7 @@ public class TextCharacter {
      * @return Foreground color of this TextCharacter
      */
     public TextColor getForegroundColor() {
-        return foregroundColor;
+        return style.getForegroundColor();
     }
 
     /**
@@ -138,7 +257,15 @@ public class TextCharacter {
      * @return Background color of this TextCharacter
      */
     public TextColor getBackgroundColor() {
-        return backgroundColor;
+        return style.getBackgroundColor();
+    }
+
+    /**
+     * Returns the colors and modifiers of this TextCharacter
+     * @return Style of this TextCharacter
+     */
+    public TextStyle getStyle() {
+        return style;
     }
 
     /**
@@ -146,7 +273,17 @@ public class TextCharacter {
      * @return Set of active SGR codes
      */
     public EnumSet<SGR> getModifiers() {
-        return EnumSet.copyOf(modifiers);
+        return style.getModifiers();
+    }
+
+    /**
+     * Returns true if this TextCharacter has a particular modifier active. Unlike {@code getModifiers()}, this doesn't
+     * make a copy of the modifier set.
+     * @param modifier Modifier to check for
+     * @return {@code true} if this TextCharacter has the modifier active
+     */
+    public boolean hasModifier(SGR modifier) {
+        return style.hasModifier(modifier);
     }
 
     /**
@@ -154,7 +291,7 @@ public class TextCharacter {
      * @return {@code true} if this TextCharacter has the bold modifier active
      */
     public boolean isBold() {
-        return modifiers.contains(SGR.BOLD);
+        return style.hasModifier(SGR.BOLD);
     }
 
     /**
@@ -162,7 +299,7 @@ public class TextCharacter {
      * @return {@code true} if this TextCharacter has the reverse modifier active
      */
     public boolean isReversed() {
-        return modifiers.contains(SGR.REVERSE);
+        return style.hasModifier(SGR.REVERSE);
     }
 
     /**
@@ -170,7 +307,7 @@ public class TextCharacter {
      * @return {@code true} if this TextCharacter has the underline modifier active
      */
     public boolean isUnderlined() {
-        return modifiers.contains(SGR.UNDERLINE);
+        return style.hasModifier(SGR.UNDERLINE);
     }
 
     /**
@@ -178,7 +315,7 @@ public class TextCharacter {
      * @return {@code true} if this TextCharacter has the blink modifier active
      */
     public boolean isBlinking() {
-        return modifiers.contains(SGR.BLINK);
+        return style.hasModifier(SGR.BLINK);
     }
 
     /**
@@ -186,7 +323,7 @@ public class TextCharacter {
      * @return {@code true} if this TextCharacter has the bordered modifier active
      */
     public boolean isBordered() {
-        return modifiers.contains(SGR.BORDERED);
+        return style.hasModifier(SGR.BORDERED);
     }
 
     /**
@@ -194,7 +331,7 @@ public class TextCharacter {
      * @return {@code true} if this TextCharacter has the crossed-out modifier active
      */
     public boolean isCrossedOut() {
-        return modifiers.contains(SGR.CROSSED_OUT);
+        return style.hasModifier(SGR.CROSSED_OUT);
     }
 
     /**
@@ -202,7 +339,7 @@ public class TextCharacter {
      * @return {@code true} if this TextCharacter has the italic modifier active
      */
     public boolean isItalic() {
-        return modifiers.contains(SGR.ITALIC);
+        return style.hasModifier(SGR.ITALIC);
     }
 
     /**
@@ -215,7 +352,7 @@ public class TextCharacter {
         if(this.character == character) {
             return this;
         }
-        return new TextCharacter(character, foregroundColor, backgroundColor, modifiers);
+        return style.toTextCharacter(character);
     }
 
     /**
@@ -224,10 +361,10 @@ public class TextCharacter {
      * @return Copy of the TextCharacter with a different foreground color
      */
     public TextCharacter withForegroundColor(TextColor foregroundColor) {
-        if(this.foregroundColor == foregroundColor || this.foregroundColor.equals(foregroundColor)) {
+        if(style.getForegroundColor() == foregroundColor || style.getForegroundColor().equals(foregroundColor)) {
             return this;
         }
-        return new TextCharacter(character, foregroundColor, backgroundColor, modifiers);
+        return style.withForegroundColor(foregroundColor).toTextCharacter(character);
     }
 
     /**
@@ -236,10 +373,10 @@ public class TextCharacter {
      * @return Copy of the TextCharacter with a different background color
      */
     public TextCharacter withBackgroundColor(TextColor backgroundColor) {
-        if(this.backgroundColor == backgroundColor || this.backgroundColor.equals(backgroundColor)) {
+        if(style.getBackgroundColor() == backgroundColor || style.getBackgroundColor().equals(backgroundColor)) {
             return this;
         }
-        return new TextCharacter(character, foregroundColor, backgroundColor, modifiers);
+        return style.withBackgroundColor(backgroundColor).toTextCharacter(character);
     }
 
     /**
@@ -249,11 +386,11 @@ public class TextCharacter {
      * @return Copy of the TextCharacter with a different set of SGR modifiers
      */
     public TextCharacter withModifiers(Collection<SGR> modifiers) {
-        EnumSet<SGR> newSet = EnumSet.copyOf(modifiers);
-        if(modifiers.equals(newSet)) {
+        TextStyle newStyle = TextStyle.of(style.getForegroundColor(), style.getBackgroundColor(), modifiers);
+        if(newStyle.equals(style)) {
             return this;
         }
-        return new TextCharacter(character, foregroundColor, backgroundColor, newSet);
+        return newStyle.toTextCharacter(character);
     }
 
     /**
@@ -263,12 +400,10 @@ public class TextCharacter {
      * @return Copy of the TextCharacter with a new SGR modifier
      */
     public TextCharacter withModifier(SGR modifier) {
-        if(modifiers.contains(modifier)) {
+        if(style.hasModifier(modifier)) {
             return this;
         }
-        EnumSet<SGR> newSet = EnumSet.copyOf(this.modifiers);
-        newSet.add(modifier);
-        return new TextCharacter(character, foregroundColor, backgroundColor, newSet);
+        return style.withModifierBits(style.getModifierBits() | (1 << modifier.ordinal())).toTextCharacter(character);
     }
 
     /**
@@ -279,16 +414,14 @@ public class TextCharacter {
      * @return Copy of the TextCharacter without the SGR modifier
      */
     public TextCharacter withoutModifier(SGR modifier) {
-        if(!modifiers.contains(modifier)) {
+        if(!style.hasModifier(modifier)) {
             return this;
         }
-        EnumSet<SGR> newSet = EnumSet.copyOf(this.modifiers);
-        newSet.remove(modifier);
-        return new TextCharacter(character, foregroundColor, backgroundColor, newSet);
+        return style.withModifierBits(style.getModifierBits() & ~(1 << modifier.ordinal())).toTextCharacter(character);
     }
 
     public boolean isDoubleWidth() {
-        return TerminalTextUtils.isCharDoubleWidth(character);
+        return GraphemeClusters.isDoubleWidth(character);
     }
 
     @SuppressWarnings("SimplifiableIfStatement")
@@ -304,27 +437,19 @@ public class TextCharacter {
         if(this.character != other.character) {
             return false;
         }
-        if(!Objects.equals(this.foregroundColor, other.foregroundColor)) {
-            return false;
-        }
-        if(!Objects.equals(this.backgroundColor, other.backgroundColor)) {
-            return false;
-        }
-        return Objects.equals(this.modifiers, other.modifiers);
+        return this.style.equals(other.style);
     }
 
     @Override
     public int hashCode() {
         int hash = 7;
         hash = 37 * hash + this.character;
-        hash = 37 * hash + (this.foregroundColor != null ? this.foregroundColor.hashCode() : 0);
-        hash = 37 * hash + (this.backgroundColor != null ? this.backgroundColor.hashCode() : 0);
-        hash = 37 * hash + (this.modifiers != null ? this.modifiers.hashCode() : 0);
+        hash = 37 * hash + this.style.hashCode();
         return hash;
     }
 
     @Override
     public String toString() {
-        return "TextCharacter{" + "character=" + character + ", foregroundColor=" + foregroundColor + ", backgroundColor=" + backgroundColor + ", modifiers=" + modifiers + '}';
+        return "TextCharacter{" + "character=" + getCharacterString() + ", foregroundColor=" + getForegroundColor() + ", backgroundColor=" + getBackgroundColor() + ", modifiers=" + getModifiers() + '}';
     }
 }
@@ -0,0 +1,308 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A piece of text split into the lines it's drawn as, together with how many columns each line takes up. Create one
+ * with {@link #wordWrap(int, CharSequence...)}, which word-wraps the text in a single pass over it, or with
+ * {@link #getWordWrapped(int, String...)}, which also remembers the most recently used layouts so that laying out the
+ * same text at the same width again, like when a window with a lot of labels is resized back and forth, doesn't have to
+ * look at the text at all.
+ * <p>
+ * The text is wrapped the same way as {@link TerminalTextUtils#getWordWrappedText(int, String...)} does it: lines are
+ * broken at the last space, or after the last double width character, that fits; a word too long to fit on a line on
+ * its own is cut where the line ends; and spaces at the start of a continued line are dropped. Tabs are counted as four
+ * columns, like in {@link TerminalTextUtils#getColumnWidth(String)}.
+ * @author Martin
+ */
+public final class TextLayout {
+    private static final int CACHE_SIZE = 512;
+    private static final Map<CacheKey, TextLayout> CACHE = new LinkedHashMap<CacheKey, TextLayout>(CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CacheKey, TextLayout> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String[] lines;
+    private final int[] lineWidths;
+    private final int width;
+
+    private TextLayout(String[] lines, int[] lineWidths) {
+        this.lines = lines;
+        this.lineWidths = lineWidths;
+        int maxWidth = 0;
+        for(int lineWidth: lineWidths) {
+            maxWidth = Math.max(maxWidth, lineWidth);
+        }
+        this.width = maxWidth;
+    }
+
+    /**
+     * Returns the layout of some lines of text word-wrapped at a certain width, re-using the result from an earlier call
+     * with the same lines and width if it's still among the most recently used ones.
+     * @param maxWidth Maximum number of columns that can be used before word-wrapping is applied, if &lt;= 0 then the
+     *                 lines are kept as they are
+     * @param lines Input text
+     * @return Layout of the text, word-wrapped at {@code maxWidth}
+     */
+    public static TextLayout getWordWrapped(int maxWidth, String... lines) {
+        CacheKey key = new CacheKey(lines, maxWidth);
+        synchronized(CACHE) {
+            TextLayout layout = CACHE.get(key);
+            if(layout != null) {
+                return layout;
+            }
+        }
+        // Wrap outside the lock, if two threads do the same text at the same time they get equal layouts anyway
+        TextLayout layout = wordWrap(maxWidth, lines);
+        synchronized(CACHE) {
+            CACHE.put(new CacheKey(lines.clone(), maxWidth), layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Word-wraps some lines of text at a certain width. Each input line is gone through once from start to end, without
+     * creating any strings other than the resulting lines, and lines that don't need to be wrapped are used as they are
+     * if they are strings.
+     * @param maxWidth Maximum number of columns that can be used before word-wrapping is applied, if &lt;= 0 then the
+     *                 lines are kept as they are
+     * @param lines Input text
+     * @return Layout of the text, word-wrapped at {@code maxWidth}
+     */
+    public static TextLayout wordWrap(int maxWidth, CharSequence... lines) {
+        Builder builder = new Builder(lines.length);
+        for(CharSequence line: lines) {
+            if(maxWidth <= 0) {
+                builder.add(line, 0, line.length(), getWidth(line));
+            }
+            else {
+                wrapLine(line, maxWidth, builder);
+            }
+        }
+        return builder.build();
+    }
+
+    private static void wrapLine(CharSequence line, int maxWidth, Builder builder) {
+        int length = line.length();
+        int lineStart = 0;
+        while(true) {
+            // Go forward until we find the first character that doesn't fit, remembering the last place we could break
+            int column = 0;
+            int index = lineStart;
+            int breakIndex = -1;
+            int breakColumn = 0;
+            int breakClusterEnd = 0;
+            int breakClusterWidth = 0;
+            while(index < length) {
+                int clusterEnd = TerminalTextUtils.getGraphemeClusterEnd(line, index);
+                int clusterWidth = getClusterWidth(line, index, clusterEnd);
+                char c = line.charAt(index);
+                if(Character.isSpaceChar(c) || TerminalTextUtils.isCharDoubleWidth(c)) {
+                    breakIndex = index;
+                    breakColumn = column;
+                    breakClusterEnd = clusterEnd;
+                    breakClusterWidth = clusterWidth;
+                }
+                if(column + clusterWidth > maxWidth) {
+                    break;
+                }
+                column += clusterWidth;
+                index = clusterEnd;
+            }
+            if(index == length) {
+                builder.add(line, lineStart, length, column);
+                return;
+            }
+
+            int firstClusterEnd = TerminalTextUtils.getGraphemeClusterEnd(line, lineStart);
+            if(breakIndex < 0) {
+                // There was no 'nice' place to cut so just cut it at maxWidth, but take at least one character
+                if(index == lineStart) {
+                    builder.add(line, lineStart, firstClusterEnd, getClusterWidth(line, lineStart, firstClusterEnd));
+                    lineStart = firstClusterEnd;
+                }
+                else {
+                    builder.add(line, lineStart, index, column);
+                    lineStart = index;
+                }
+                continue;
+            }
+
+            int lineEnd;
+            int lineWidth;
+            if(Character.isSpaceChar(line.charAt(breakIndex)) || breakIndex == index) {
+                // Break before the space, or before a double width character that doesn't fit
+                lineEnd = breakIndex;
+                lineWidth = breakColumn;
+            }
+            else {
+                // Right after a double width character is also a 'nice' spot to break the line
+                lineEnd = breakClusterEnd;
+                lineWidth = breakColumn + breakClusterWidth;
+            }
+            if(lineEnd == lineStart) {
+                // Only happens for a space at the start or a double width character that is wider than maxWidth, put
+                // it on this line anyway so we keep moving forward
+                lineEnd = firstClusterEnd;
+                lineWidth = getClusterWidth(line, lineStart, firstClusterEnd);
+            }
+            builder.add(line, lineStart, lineEnd, lineWidth);
+            lineStart = lineEnd;
+            while(lineStart < length && Character.isSpaceChar(line.charAt(lineStart))) {
+                lineStart++;
+            }
+            if(lineStart == length) {
+                return;
+            }
+        }
+    }
+
+    private static int getWidth(CharSequence line) {
+        int width = 0;
+        for(int index = 0; index < line.length(); ) {
+            int clusterEnd = TerminalTextUtils.getGraphemeClusterEnd(line, index);
+            width += getClusterWidth(line, index, clusterEnd);
+            index = clusterEnd;
+        }
+        return width;
+    }
+
+    private static int getClusterWidth(CharSequence line, int start, int end) {
+        if(line.charAt(start) == '\t') {
+            return 4;
+        }
+        return TerminalTextUtils.getGraphemeClusterWidth(line, start, end);
+    }
+
+    /**
+     * Returns how many lines there are in this layout
+     * @return Number of lines
+     */
+    public int getLineCount() {
+        return lines.length;
+    }
+
+    /**
+     * Returns one of the lines in this layout
+     * @param index Index of the line, starting at 0
+     * @return The line at the index
+     */
+    public String getLine(int index) {
+        return lines[index];
+    }
+
+    /**
+     * Returns how many columns one of the lines in this layout takes up
+     * @param index Index of the line, starting at 0
+     * @return Width of the line at the index, in columns
+     */
+    public int getLineWidth(int index) {
+        return lineWidths[index];
+    }
+
+    /**
+     * Returns how many columns the widest line in this layout takes up. If the text was wrapped this can still be wider
+     * than the width it was wrapped at, if there was a double width character that wouldn't fit at all.
+     * @return Width of the widest line, in columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns all the lines in this layout as an unmodifiable list
+     * @return List of the lines
+     */
+    public List<String> getLines() {
+        return Collections.unmodifiableList(Arrays.asList(lines));
+    }
+
+    @Override
+    public String toString() {
+        return "TextLayout{" + "lines=" + Arrays.toString(lines) + ", width=" + width + '}';
+    }
+
+    private static class Builder {
+        private String[] lines;
+        private int[] lineWidths;
+        private int lineCount;
+
+        private Builder(int capacity) {
+            this.lines = new String[Math.max(capacity, 1)];
+            this.lineWidths = new int[lines.length];
+            this.lineCount = 0;
+        }
+
+        private void add(CharSequence text, int start, int end, int width) {
+            if(lineCount == lines.length) {
+                lines = Arrays.copyOf(lines, lineCount * 2);
+                lineWidths = Arrays.copyOf(lineWidths, lineCount * 2);
+            }
+            if(start == 0 && end == text.length()) {
+                lines[lineCount] = text.toString();
+            }
+            else {
+                lines[lineCount] = text.subSequence(start, end).toString();
+            }
+            lineWidths[lineCount] = width;
+            lineCount++;
+        }
+
+        private TextLayout build() {
+            return new TextLayout(Arrays.copyOf(lines, lineCount), Arrays.copyOf(lineWidths, lineCount));
+        }
+    }
+
+    private static class CacheKey {
+        private final String[] lines;
+        private final int maxWidth;
+        private final int hashCode;
+
+        private CacheKey(String[] lines, int maxWidth) {
+            this.lines = lines;
+            this.maxWidth = maxWidth;
+            this.hashCode = 31 * Arrays.hashCode(lines) + maxWidth;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if(this == obj) {
+                return true;
+            }
+            if(obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey)obj;
+            return maxWidth == other.maxWidth && hashCode == other.hashCode && Arrays.equals(lines, other.lines);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+import java.util.Collection;
+import java.util.EnumSet;
+
+/**
+ * The colors and modifiers a {@link TextCharacter} is drawn with. This class is immutable and instances are shared:
+ * {@code of(..)} returns the same object for the same combination of colors and modifiers as long as it's still in a
+ * small cache of recently used styles, so looking up the style of a string or a shape doesn't create anything once it
+ * has been drawn before. Each style also keeps the printable ASCII characters it has handed out through
+ * {@link #toTextCharacter(char)}, which lets text drawn in the same style over and over reuse the same
+ * {@code TextCharacter} objects.
+ * <p>
+ * Two styles are equal if they have the same colors and modifiers, also if one of them fell out of the cache in between
+ * and the other one was created later.
+ * @author Martin
+ */
+public final class TextStyle {
+    private static final SGR[] MODIFIERS = SGR.values();
+    private static final int CACHE_SIZE = 1024;
+    private static final TextStyle[] CACHE = new TextStyle[CACHE_SIZE];
+    private static final char FIRST_CACHED_CHARACTER = ' ';
+    private static final char LAST_CACHED_CHARACTER = '~';
+
+    public static final TextStyle DEFAULT = of(TextColor.ANSI.DEFAULT, TextColor.ANSI.DEFAULT, 0);
+
+    private final TextColor foregroundColor;
+    private final TextColor backgroundColor;
+    private final int modifiers;
+    private final int hashCode;
+    // Created and filled in as they are asked for; TextCharacter is immutable so a racing thread at worst creates a
+    // duplicate
+    private TextCharacter[] asciiCharacters;
+
+    private TextStyle(TextColor foregroundColor, TextColor backgroundColor, int modifiers, int hashCode) {
+        this.foregroundColor = foregroundColor;
+        this.backgroundColor = backgroundColor;
+        this.modifiers = modifiers;
+        this.hashCode = hashCode;
+        this.asciiCharacters = null;
+    }
+
+    /**
+     * Returns the style with a particular combination of colors and modifiers
+     * @param foregroundColor Foreground color of the style, {@code null} means the default color
+     * @param backgroundColor Background color of the style, {@code null} means the default color
+     * @param modifiers Modifiers of the style
+     * @return Style with the colors and modifiers specified
+     */
+    public static TextStyle of(TextColor foregroundColor, TextColor backgroundColor, Collection<SGR> modifiers) {
+        int modifierBits = 0;
+        if(!modifiers.isEmpty()) {
+            for(SGR modifier: MODIFIERS) {
+                if(modifiers.contains(modifier)) {
+                    modifierBits |= 1 << modifier.ordinal();
+                }
+            }
+        }
+        return of(foregroundColor, backgroundColor, modifierBits);
+    }
+
+    /**
+     * Returns the style with a particular combination of colors and modifiers
+     * @param foregroundColor Foreground color of the style, {@code null} means the default color
+     * @param backgroundColor Background color of the style, {@code null} means the default color
+     * @param modifiers Modifiers of the style
+     * @return Style with the colors and modifiers specified
+     */
+    public static TextStyle of(TextColor foregroundColor, TextColor backgroundColor, SGR... modifiers) {
+        int modifierBits = 0;
+        for(SGR modifier: modifiers) {
+            modifierBits |= 1 << modifier.ordinal();
+        }
+        return of(foregroundColor, backgroundColor, modifierBits);
+    }
+
+    /**
+     * Returns the style with a particular combination of colors and modifiers, where the modifiers are given as bits
+     * @param foregroundColor Foreground color of the style, {@code null} means the default color
+     * @param backgroundColor Background color of the style, {@code null} means the default color
+     * @param modifierBits Modifiers of the style, with bit {@code 1 << modifier.ordinal()} set for each active modifier
+     * @return Style with the colors and modifiers specified
+     * @see #getModifierBits()
+     */
+    public static TextStyle of(TextColor foregroundColor, TextColor backgroundColor, int modifierBits) {
+        if(foregroundColor == null) {
+            foregroundColor = TextColor.ANSI.DEFAULT;
+        }
+        if(backgroundColor == null) {
+            backgroundColor = TextColor.ANSI.DEFAULT;
+        }
+        // The default style is used more than any other, so it doesn't go through the cache where it could be replaced
+        if(DEFAULT != null && DEFAULT.hasSameValues(foregroundColor, backgroundColor, modifierBits)) {
+            return DEFAULT;
+        }
+        int hash = (31 * foregroundColor.hashCode() + backgroundColor.hashCode()) * 31 + modifierBits;
+        int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        TextStyle cached = CACHE[slot];
+        if(cached != null && cached.hasSameValues(foregroundColor, backgroundColor, modifierBits)) {
+            return cached;
+        }
+        TextStyle style = new TextStyle(foregroundColor, backgroundColor, modifierBits, hash);
+        CACHE[slot] = style;
+        return style;
+    }
+
+    private boolean hasSameValues(TextColor foregroundColor, TextColor backgroundColor, int modifiers) {
+        return this.modifiers == modifiers &&
+                (this.foregroundColor == foregroundColor || this.foregroundColor.equals(foregroundColor)) &&
+                (this.backgroundColor == backgroundColor || this.backgroundColor.equals(backgroundColor));
+    }
+
+    /**
+     * Returns a {@code TextCharacter} with this style. Printable ASCII characters are created once per style and
+     * then handed out again on every call, anything else creates a new {@code TextCharacter}.
+     * @param character Character to get in this style
+     * @return {@code TextCharacter} with the character and this style
+     * @throws IllegalArgumentException If the character is a control character
+     */
+    public TextCharacter toTextCharacter(char character) {
+        if(character < FIRST_CACHED_CHARACTER || character > LAST_CACHED_CHARACTER) {
+            return new TextCharacter(TextCharacter.checkCharacterCode(character), this);
+        }
+        TextCharacter[] characters = asciiCharacters;
+        if(characters == null) {
+            characters = new TextCharacter[LAST_CACHED_CHARACTER - FIRST_CACHED_CHARACTER + 1];
+            asciiCharacters = characters;
+        }
+        TextCharacter textCharacter = characters[character - FIRST_CACHED_CHARACTER];
+        if(textCharacter == null) {
+            textCharacter = new TextCharacter(character, this);
+            characters[character - FIRST_CACHED_CHARACTER] = textCharacter;
+        }
+        return textCharacter;
+    }
+
+    /**
+     * Returns a {@code TextCharacter} with this style from a character code, see
+     * {@link TextCharacter#getCharacterCode()}
+     * @param characterCode Code point or interned grapheme cluster code, see {@link GraphemeClusters}
+     * @return {@code TextCharacter} with the character and this style
+     * @throws IllegalArgumentException If the code is for a control character
+     */
+    public TextCharacter toTextCharacter(int characterCode) {
+        if(characterCode >= 0 && characterCode <= LAST_CACHED_CHARACTER) {
+            return toTextCharacter((char)characterCode);
+        }
+        return new TextCharacter(TextCharacter.checkCharacterCode(characterCode), this);
+    }
+
+    /**
+     * Foreground color of this style
+     * @return Foreground color of this style
+     */
+    public TextColor getForegroundColor() {
+        return foregroundColor;
+    }
+
+    /**
+     * Background color of this style
+     * @return Background color of this style
+     */
+    public TextColor getBackgroundColor() {
+        return backgroundColor;
+    }
+
+    /**
+     * Returns a set of all active modifiers in this style. The set is a copy and can be modified freely.
+     * @return Set of active SGR codes
+     */
+    public EnumSet<SGR> getModifiers() {
+        EnumSet<SGR> result = EnumSet.noneOf(SGR.class);
+        if(modifiers != 0) {
+            for(SGR modifier: MODIFIERS) {
+                if(hasModifier(modifier)) {
+                    result.add(modifier);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the active modifiers of this style as bits, bit {@code 1 << modifier.ordinal()} is set for each active
+     * modifier
+     * @return Active modifiers as bits
+     */
+    public int getModifierBits() {
+        return modifiers;
+    }
+
+    /**
+     * Returns true if this style has a particular modifier active
+     * @param modifier Modifier to check for
+     * @return {@code true} if this style has the modifier active
+     */
+    public boolean hasModifier(SGR modifier) {
+        return (modifiers & (1 << modifier.ordinal())) != 0;
+    }
+
+    /**
+     * Returns this style with a different foreground color
+     * @param foregroundColor Foreground color of the returned style
+     * @return Style with the foreground color specified and the same background color and modifiers as this one
+     */
+    public TextStyle withForegroundColor(TextColor foregroundColor) {
+        return of(foregroundColor, backgroundColor, modifiers);
+    }
+
+    /**
+     * Returns this style with a different background color
+     * @param backgroundColor Background color of the returned style
+     * @return Style with the background color specified and the same foreground color and modifiers as this one
+     */
+    public TextStyle withBackgroundColor(TextColor backgroundColor) {
+        return of(foregroundColor, backgroundColor, modifiers);
+    }
+
+    /**
+     * Returns this style with a different set of modifiers
+     * @param modifierBits Modifiers of the returned style as bits, see {@link #getModifierBits()}
+     * @return Style with the modifiers specified and the same colors as this one
+     */
+    public TextStyle withModifierBits(int modifierBits) {
+        if(modifierBits == modifiers) {
+            return this;
+        }
+        return of(foregroundColor, backgroundColor, modifierBits);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) {
+            return true;
+        }
+        if(obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        TextStyle other = (TextStyle)obj;
+        return hashCode == other.hashCode && hasSameValues(other.foregroundColor, other.backgroundColor, other.modifiers);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return "TextStyle{" + "foregroundColor=" + foregroundColor + ", backgroundColor=" + backgroundColor + ", modifiers=" + getModifiers() + '}';
+    }
+}
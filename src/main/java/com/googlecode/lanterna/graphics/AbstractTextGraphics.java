@@ -147,6 +147,11 @@ public abstract class AbstractTextGraphics implements TextGraphics {
 
     @Override
     public TextGraphics drawLine(TerminalPosition fromPoint, TerminalPosition toPoint, TextCharacter character) {
+        if(fromPoint.getRow() == toPoint.getRow() && !character.isDoubleWidth()) {
+            int fromColumn = Math.min(fromPoint.getColumn(), toPoint.getColumn());
+            int toColumn = Math.max(fromPoint.getColumn(), toPoint.getColumn());
+            return fillRow(fromColumn, fromPoint.getRow(), toColumn - fromColumn + 1, character);
+        }
         shapeRenderer.drawLine(fromPoint, toPoint, character);
         return this;
     }
@@ -190,7 +195,20 @@ public abstract class AbstractTextGraphics implements TextGraphics {
 
     @Override
     public TextGraphics drawRectangle(TerminalPosition topLeft, TerminalSize size, TextCharacter character) {
-        shapeRenderer.drawRectangle(topLeft, size, character);
+        if(character.isDoubleWidth() || size.getColumns() == 0 || size.getRows() == 0) {
+            shapeRenderer.drawRectangle(topLeft, size, character);
+            return this;
+        }
+        int leftColumn = topLeft.getColumn();
+        int rightColumn = leftColumn + size.getColumns() - 1;
+        int topRow = topLeft.getRow();
+        int bottomRow = topRow + size.getRows() - 1;
+        fillRow(leftColumn, topRow, size.getColumns(), character);
+        for(int row = topRow + 1; row < bottomRow; row++) {
+            setCharacter(leftColumn, row, character);
+            setCharacter(rightColumn, row, character);
+        }
+        fillRow(leftColumn, bottomRow, size.getColumns(), character);
         return this;
     }
 
@@ -201,7 +219,27 @@ public abstract class AbstractTextGraphics implements TextGraphics {
 
     @Override
     public TextGraphics fillRectangle(TerminalPosition topLeft, TerminalSize size, TextCharacter character) {
-        shapeRenderer.fillRectangle(topLeft, size, character);
+        for(int row = 0; row < size.getRows(); row++) {
+            fillRow(topLeft.getColumn(), topLeft.getRow() + row, size.getColumns(), character);
+        }
+        return this;
+    }
+
+    @Override
+    public TextGraphics fillRow(int column, int row, int length, TextCharacter character) {
+        final boolean characterDoubleWidth = character.isDoubleWidth();
+        for(int x = 0; x < length; x++) {
+            // Don't put a double-width character at the right edge of the area
+            if(characterDoubleWidth && x + 1 == length) {
+                setCharacter(column + x, row, character.withCharacter(' '));
+            }
+            else {
+                setCharacter(column + x, row, character);
+            }
+            if(characterDoubleWidth) {
+                x++;
+            }
+        }
         return this;
     }
 
@@ -261,13 +299,7 @@ public abstract class AbstractTextGraphics implements TextGraphics {
     @Override
     public TextGraphics putString(int column, int row, String string) {
         string = prepareStringForPut(column, string);
-        int offset = 0;
-        for(int i = 0; i < string.length(); i++) {
-            char character = string.charAt(i);
-            setCharacter(column + offset, row, newTextCharacter(character));
-            offset += getOffsetToNextCharacter(character);
-        }
-        return this;
+        return putRun(column, row, string, 0, string.length(), getCurrentStyle());
     }
 
     @Override
@@ -298,24 +330,45 @@ public abstract class AbstractTextGraphics implements TextGraphics {
         return this;
     }
 
+    @Override
+    public TextGraphics putRun(int column, int row, CharSequence text, TextStyle style) {
+        return putRun(column, row, text, 0, text.length(), style);
+    }
+
+    @Override
+    public TextGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        for(int i = start; i < end; ) {
+            int clusterEnd = Math.min(TerminalTextUtils.getGraphemeClusterEnd(text, i), end);
+            TextCharacter character = style.toTextCharacter(GraphemeClusters.toCharacterCode(text, i, clusterEnd));
+            setCharacter(column, row, character);
+            column += getOffsetToNextCharacter(character);
+            i = clusterEnd;
+        }
+        return this;
+    }
+
     @Override
     public synchronized TextGraphics putCSIStyledString(int column, int row, String string) {
         StyleSet.Set original = new StyleSet.Set(this);
         string = prepareStringForPut(column, string);
+        TextStyle style = getCurrentStyle();
         int offset = 0;
-        for(int i = 0; i < string.length(); i++) {
-            char character = string.charAt(i);
+        for(int i = 0; i < string.length(); ) {
             String controlSequence = TerminalTextUtils.getANSIControlSequenceAt(string, i);
             if(controlSequence != null) {
                 TerminalTextUtils.updateModifiersFromCSICode(controlSequence, this, original);
+                style = getCurrentStyle();
 
-                // Skip the control sequence, leaving one extra, since we'll add it when we loop
-                i += controlSequence.length() - 1;
+                // Skip the control sequence
+                i += controlSequence.length();
                 continue;
             }
 
-            setCharacter(column + offset, row, newTextCharacter(character));
+            int clusterEnd = TerminalTextUtils.getGraphemeClusterEnd(string, i);
+            TextCharacter character = style.toTextCharacter(GraphemeClusters.toCharacterCode(string, i, clusterEnd));
+            setCharacter(column + offset, row, character);
             offset += getOffsetToNextCharacter(character);
+            i = clusterEnd;
         }
 
         setStyleFrom(original);
@@ -346,8 +399,12 @@ public abstract class AbstractTextGraphics implements TextGraphics {
         return new SubTextGraphics(this, topLeftCorner, size);
     }
 
+    private TextStyle getCurrentStyle() {
+        return TextStyle.of(foregroundColor, backgroundColor, activeModifiers);
+    }
+
     private TextCharacter newTextCharacter(char character) {
-        return new TextCharacter(character, foregroundColor, backgroundColor, activeModifiers);
+        return getCurrentStyle().toTextCharacter(character);
     }
 
     private String prepareStringForPut(int column, String string) {
@@ -361,8 +418,8 @@ public abstract class AbstractTextGraphics implements TextGraphics {
         return string;
     }
 
-    private int getOffsetToNextCharacter(char character) {
-        if(TerminalTextUtils.isCharDoubleWidth(character)) {
+    private int getOffsetToNextCharacter(TextCharacter character) {
+        if(character.isDoubleWidth()) {
             //CJK characters are twice the normal characters in width, so next character position is two columns forward
             return 2;
         }
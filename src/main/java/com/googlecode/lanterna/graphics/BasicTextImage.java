@@ -20,10 +20,13 @@ package com.googlecode.lanterna.graphics;
 
 import java.util.Arrays;
 
+import com.googlecode.lanterna.GraphemeClusters;
 import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TerminalTextUtils;
 import com.googlecode.lanterna.TextCharacter;
 import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.TextStyle;
 
 /**
  * Simple implementation of TextImage that keeps the content as a two-dimensional TextCharacter array. Copy operations
@@ -152,6 +155,60 @@ public class BasicTextImage implements TextImage {
         }
     }
 
+    @Override
+    public void fillRow(int column, int row, int length, TextCharacter character) {
+        if(character == null) {
+            throw new IllegalArgumentException("Cannot call BasicTextImage.fillRow(..) with null character");
+        }
+        if(row < 0 || row >= buffer.length) {
+            return;
+        }
+        if(character.isDoubleWidth()) {
+            // Not common enough to be worth its own code path
+            for(int x = 0; x < length; x += 2) {
+                // Don't put a double-width character at the right edge of the area
+                setCharacterAt(column + x, row, x + 1 == length ? character.withCharacter(' ') : character);
+            }
+            return;
+        }
+        TextCharacter[] line = buffer[row];
+        int fromColumn = Math.max(column, 0);
+        int toColumn = Math.min(column + length, line.length);
+        if(fromColumn >= toColumn) {
+            return;
+        }
+        if(fromColumn > 0 && line[fromColumn - 1].isDoubleWidth()) {
+            line[fromColumn - 1] = line[fromColumn - 1].withCharacter(' ');
+        }
+        Arrays.fill(line, fromColumn, toColumn, character);
+    }
+
+    @Override
+    public void putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        if(row < 0 || row >= buffer.length) {
+            return;
+        }
+        TextCharacter[] line = buffer[row];
+        boolean firstCell = true;
+        for(int i = start; i < end && column < line.length; ) {
+            int clusterEnd = Math.min(TerminalTextUtils.getGraphemeClusterEnd(text, i), end);
+            TextCharacter character = style.toTextCharacter(GraphemeClusters.toCharacterCode(text, i, clusterEnd));
+            boolean doubleWidth = character.isDoubleWidth();
+            if(column >= 0) {
+                if(firstCell && column > 0 && line[column - 1].isDoubleWidth()) {
+                    line[column - 1] = line[column - 1].withCharacter(' ');
+                }
+                firstCell = false;
+                line[column] = character;
+                if(doubleWidth && column + 1 < line.length) {
+                    line[column + 1] = style.toTextCharacter(' ');
+                }
+            }
+            column += doubleWidth ? 2 : 1;
+            i = clusterEnd;
+        }
+    }
+
     @Override
     public TextCharacter getCharacterAt(TerminalPosition position) {
         if(position == null) {
@@ -280,6 +337,18 @@ public class BasicTextImage implements TextImage {
                 return this;
             }
 
+            @Override
+            public TextGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+                BasicTextImage.this.putRun(column, row, text, start, end, style);
+                return this;
+            }
+
+            @Override
+            public TextGraphics fillRow(int column, int row, int length, TextCharacter character) {
+                BasicTextImage.this.fillRow(column, row, length, character);
+                return this;
+            }
+
             @Override
             public TextCharacter getCharacter(int column, int row) {
                 return BasicTextImage.this.getCharacterAt(column, row);
@@ -336,7 +405,7 @@ public class BasicTextImage implements TextImage {
         sb.append('{').append(size.getColumns()).append('x').append(size.getRows()).append('}').append('\n');
         for (TextCharacter[] line : buffer) {
             for (TextCharacter tc : line) {
-                sb.append(tc.getCharacter());
+                sb.append(tc.getCharacterString());
             }
             sb.append('\n');
         }
@@ -251,6 +251,21 @@ class NullTextGraphics implements TextGraphics {
         return this;
     }
 
+    @Override
+    public TextGraphics putRun(int column, int row, CharSequence text, TextStyle style) {
+        return this;
+    }
+
+    @Override
+    public TextGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        return this;
+    }
+
+    @Override
+    public TextGraphics fillRow(int column, int row, int length, TextCharacter character) {
+        return this;
+    }
+
     @Override
     public TextCharacter getCharacter(int column, int row) {
         return null;
@@ -0,0 +1,692 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.graphics;
+
+import com.googlecode.lanterna.GraphemeClusters;
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TerminalTextUtils;
+import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.TextStyle;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link TextImage} that stores its content in primitive arrays instead of keeping one {@link TextCharacter}
+ * reference per cell. Every cell is stored as an {@code int} holding the character code (see
+ * {@link TextCharacter#getCharacterCode()}) and a {@code long} holding the foreground color, background color and SGR
+ * modifiers packed together, so the image costs the same amount of memory no matter how many different styles or
+ * grapheme clusters are drawn onto it.
+ * <p>
+ * {@code getCharacterAt(..)} still returns {@code TextCharacter} objects, which are served from a shared flyweight
+ * cache so that reading the same character and style repeatedly doesn't create new objects. Copying from one
+ * {@code PackedTextImage} to another and comparing two of them (see {@link #isRowEqual(PackedTextImage, int)} and
+ * {@link #countDifferences(PackedTextImage, int)}) operate directly on the arrays.
+ * <p>
+ * Colors are stored as numeric ids. ANSI colors and 24-bit RGB colors are encoded directly, any other color
+ * implementation is interned in a global table the first time it is seen.
+ * @author Martin
+ */
+public class PackedTextImage implements TextImage {
+    private static final int MODIFIER_BITS = 10;
+    private static final int COLOR_BITS = 26;
+    private static final long COLOR_MASK = (1L << COLOR_BITS) - 1;
+    private static final int FOREGROUND_SHIFT = MODIFIER_BITS;
+    private static final int BACKGROUND_SHIFT = MODIFIER_BITS + COLOR_BITS;
+    private static final int RGB_COLOR_FLAG = 1 << 24;
+    private static final int FIRST_INTERNED_COLOR_ID = 32;
+
+    private static final TextColor.ANSI[] ANSI_COLORS = TextColor.ANSI.values();
+    private static final Map<TextColor, Integer> INTERNED_COLOR_IDS = new ConcurrentHashMap<>();
+    private static volatile TextColor[] internedColors = new TextColor[16];
+
+    private static final int FLYWEIGHT_CACHE_SIZE = 4096;
+    private static final CachedCharacter[] FLYWEIGHT_CACHE = new CachedCharacter[FLYWEIGHT_CACHE_SIZE];
+
+    private final TerminalSize size;
+    private final int[][] characters;
+    private final long[][] styles;
+
+    /**
+     * Creates a new PackedTextImage with the specified size and fills it initially with space characters using the
+     * default foreground and background color
+     * @param columns Size of the image in number of columns
+     * @param rows Size of the image in number of rows
+     */
+    public PackedTextImage(int columns, int rows) {
+        this(new TerminalSize(columns, rows));
+    }
+
+    /**
+     * Creates a new PackedTextImage with the specified size and fills it initially with space characters using the
+     * default foreground and background color
+     * @param size Size to make the image
+     */
+    public PackedTextImage(TerminalSize size) {
+        this(size, TextCharacter.DEFAULT_CHARACTER);
+    }
+
+    /**
+     * Creates a new PackedTextImage with a given size and a TextCharacter to initially fill it with
+     * @param size Size of the image
+     * @param initialContent What character to set as the initial content
+     */
+    public PackedTextImage(TerminalSize size, TextCharacter initialContent) {
+        this(size, null, initialContent);
+    }
+
+    /**
+     * Creates a new PackedTextImage by copying the top-left region of another PackedTextImage. If the area to be copied
+     * is larger than the source image, a filler character is used.
+     * @param size Size to create the new PackedTextImage as (and size to copy from the source)
+     * @param toCopy Image to copy initial data from, or {@code null} to only use the filler
+     * @param initialContent Filler character to use if the source image is smaller than the requested size
+     */
+    private PackedTextImage(TerminalSize size, PackedTextImage toCopy, TextCharacter initialContent) {
+        if(size == null || initialContent == null) {
+            throw new IllegalArgumentException("Cannot create PackedTextImage with null " +
+                    (size == null ? "size" : "filler"));
+        }
+        this.size = size;
+
+        int rows = size.getRows();
+        int columns = size.getColumns();
+        int fillerCharacter = initialContent.getCharacterCode();
+        long fillerStyle = encodeStyle(initialContent);
+        characters = new int[rows][];
+        styles = new long[rows][];
+        for(int y = 0; y < rows; y++) {
+            characters[y] = new int[columns];
+            styles[y] = new long[columns];
+            int copied = 0;
+            if(toCopy != null && y < toCopy.characters.length) {
+                copied = Math.min(columns, toCopy.size.getColumns());
+                System.arraycopy(toCopy.characters[y], 0, characters[y], 0, copied);
+                System.arraycopy(toCopy.styles[y], 0, styles[y], 0, copied);
+            }
+            Arrays.fill(characters[y], copied, columns, fillerCharacter);
+            Arrays.fill(styles[y], copied, columns, fillerStyle);
+        }
+    }
+
+    @Override
+    public TerminalSize getSize() {
+        return size;
+    }
+
+    @Override
+    public void setAll(TextCharacter character) {
+        if(character == null) {
+            throw new IllegalArgumentException("Cannot call PackedTextImage.setAll(..) with null character");
+        }
+        long style = encodeStyle(character);
+        for(int y = 0; y < characters.length; y++) {
+            Arrays.fill(characters[y], character.getCharacterCode());
+            Arrays.fill(styles[y], style);
+        }
+    }
+
+    @Override
+    public PackedTextImage resize(TerminalSize newSize, TextCharacter filler) {
+        if(newSize == null || filler == null) {
+            throw new IllegalArgumentException("Cannot resize PackedTextImage with null " +
+                    (newSize == null ? "newSize" : "filler"));
+        }
+        if(newSize.equals(size)) {
+            return this;
+        }
+        return new PackedTextImage(newSize, this, filler);
+    }
+
+    @Override
+    public void setCharacterAt(TerminalPosition position, TextCharacter character) {
+        if(position == null) {
+            throw new IllegalArgumentException("Cannot call PackedTextImage.setCharacterAt(..) with null position");
+        }
+        setCharacterAt(position.getColumn(), position.getRow(), character);
+    }
+
+    @Override
+    public void setCharacterAt(int column, int row, TextCharacter character) {
+        if(character == null) {
+            throw new IllegalArgumentException("Cannot call PackedTextImage.setCharacterAt(..) with null character");
+        }
+        if(column < 0 || row < 0 || row >= characters.length || column >= size.getColumns()) {
+            return;
+        }
+        int[] characterRow = characters[row];
+        long[] styleRow = styles[row];
+        int c = character.getCharacterCode();
+        long style = encodeStyle(character);
+
+        // Double width character adjustments
+        if(column > 0 && isDoubleWidth(characterRow[column - 1])) {
+            characterRow[column - 1] = ' ';
+        }
+
+        // Assign the character at location we specified
+        characterRow[column] = c;
+        styleRow[column] = style;
+
+        // Double width character adjustments
+        if(isDoubleWidth(c) && column + 1 < characterRow.length) {
+            characterRow[column + 1] = ' ';
+            styleRow[column + 1] = style;
+        }
+    }
+
+    @Override
+    public void fillRow(int column, int row, int length, TextCharacter character) {
+        if(character == null) {
+            throw new IllegalArgumentException("Cannot call PackedTextImage.fillRow(..) with null character");
+        }
+        if(row < 0 || row >= characters.length) {
+            return;
+        }
+        if(character.isDoubleWidth()) {
+            // Not common enough to be worth its own code path
+            for(int x = 0; x < length; x += 2) {
+                // Don't put a double-width character at the right edge of the area
+                setCharacterAt(column + x, row, x + 1 == length ? character.withCharacter(' ') : character);
+            }
+            return;
+        }
+        int[] characterRow = characters[row];
+        int fromColumn = Math.max(column, 0);
+        int toColumn = Math.min(column + length, characterRow.length);
+        if(fromColumn >= toColumn) {
+            return;
+        }
+        if(fromColumn > 0 && isDoubleWidth(characterRow[fromColumn - 1])) {
+            characterRow[fromColumn - 1] = ' ';
+        }
+        Arrays.fill(characterRow, fromColumn, toColumn, character.getCharacterCode());
+        Arrays.fill(styles[row], fromColumn, toColumn, encodeStyle(character));
+    }
+
+    @Override
+    public void putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        if(row < 0 || row >= characters.length) {
+            return;
+        }
+        int[] characterRow = characters[row];
+        long[] styleRow = styles[row];
+        long packedStyle = encodeStyle(style);
+        boolean firstCell = true;
+        for(int i = start; i < end && column < characterRow.length; ) {
+            int clusterEnd = Math.min(TerminalTextUtils.getGraphemeClusterEnd(text, i), end);
+            int c = GraphemeClusters.toCharacterCode(text, i, clusterEnd);
+            // Same rule as for TextCharacter, tab is still allowed
+            if(c >= 0 && c < ' ' && c != '\t' || c == 0x7f) {
+                throw new IllegalArgumentException("Cannot put a control character (0x" + Integer.toHexString(c) + ") in a PackedTextImage");
+            }
+            boolean doubleWidth = isDoubleWidth(c);
+            if(column >= 0) {
+                if(firstCell && column > 0 && isDoubleWidth(characterRow[column - 1])) {
+                    characterRow[column - 1] = ' ';
+                }
+                firstCell = false;
+                characterRow[column] = c;
+                styleRow[column] = packedStyle;
+                if(doubleWidth && column + 1 < characterRow.length) {
+                    characterRow[column + 1] = ' ';
+                    styleRow[column + 1] = packedStyle;
+                }
+            }
+            column += doubleWidth ? 2 : 1;
+            i = clusterEnd;
+        }
+    }
+
+    @Override
+    public TextCharacter getCharacterAt(TerminalPosition position) {
+        if(position == null) {
+            throw new IllegalArgumentException("Cannot call PackedTextImage.getCharacterAt(..) with null position");
+        }
+        return getCharacterAt(position.getColumn(), position.getRow());
+    }
+
+    @Override
+    public TextCharacter getCharacterAt(int column, int row) {
+        if(column < 0 || row < 0 || row >= characters.length || column >= size.getColumns()) {
+            return null;
+        }
+        return toTextCharacter(characters[row][column], styles[row][column]);
+    }
+
+    /**
+     * Returns the raw character stored at a particular position in this image, without creating or looking up any
+     * {@code TextCharacter}. This is the character code as returned by {@link TextCharacter#getCharacterCode()}, use
+     * {@link GraphemeClusters} to turn it back into text. The position must be inside the image.
+     * @param column Column coordinate of the character
+     * @param row Row coordinate of the character
+     * @return Character stored at the specified position
+     */
+    public int getRawCharacterAt(int column, int row) {
+        return characters[row][column];
+    }
+
+    /**
+     * Returns the packed style (colors and modifiers) stored at a particular position in this image. Use the static
+     * {@code getForegroundColor(long)}, {@code getBackgroundColor(long)} and {@code hasModifier(long, SGR)} methods to
+     * take it apart. Two cells look the same if they have the same raw character and the same packed style. The
+     * position must be inside the image.
+     * @param column Column coordinate of the character
+     * @param row Row coordinate of the character
+     * @return Packed style stored at the specified position
+     */
+    public long getRawStyleAt(int column, int row) {
+        return styles[row][column];
+    }
+
+    /**
+     * Checks if a row in this image is identical to the same row in another image of the same size.
+     * @param other Image to compare with
+     * @param row Index of the row to compare
+     * @return {@code true} if all characters and styles on the row are the same in both images
+     */
+    public boolean isRowEqual(PackedTextImage other, int row) {
+        return Arrays.equals(characters[row], other.characters[row]) && Arrays.equals(styles[row], other.styles[row]);
+    }
+
+    /**
+     * Counts how many cells differ between this image and another image of the same size, stopping early once the
+     * limit has been reached.
+     * @param other Image to compare with
+     * @param limit Stop counting when this many differences have been found
+     * @return Number of different cells, at most {@code limit}
+     */
+    public int countDifferences(PackedTextImage other, int limit) {
+        if(!size.equals(other.size)) {
+            throw new IllegalArgumentException("Can only compare two PackedTextImages of the same size, " + size +
+                    " vs " + other.size);
+        }
+        int differences = 0;
+        for(int y = 0; y < characters.length; y++) {
+            if(isRowEqual(other, y)) {
+                continue;
+            }
+            int[] characterRow = characters[y];
+            int[] otherCharacterRow = other.characters[y];
+            long[] styleRow = styles[y];
+            long[] otherStyleRow = other.styles[y];
+            for(int x = 0; x < characterRow.length; x++) {
+                if(characterRow[x] != otherCharacterRow[x] || styleRow[x] != otherStyleRow[x]) {
+                    if(++differences >= limit) {
+                        return differences;
+                    }
+                }
+            }
+        }
+        return differences;
+    }
+
+    @Override
+    public void copyTo(TextImage destination) {
+        if(characters.length > 0) {
+            copyTo(destination, 0, characters.length, 0, size.getColumns(), 0, 0);
+        }
+    }
+
+    @Override
+    public void copyTo(
+            TextImage destination,
+            int startRowIndex,
+            int rows,
+            int startColumnIndex,
+            int columns,
+            int destinationRowOffset,
+            int destinationColumnOffset) {
+
+        // If the source image position is negative, offset the whole image
+        if(startColumnIndex < 0) {
+            destinationColumnOffset += -startColumnIndex;
+            columns += startColumnIndex;
+            startColumnIndex = 0;
+        }
+        if(startRowIndex < 0) {
+            destinationRowOffset += -startRowIndex;
+            rows += startRowIndex;
+            startRowIndex = 0;
+        }
+
+        // If the destination offset is negative, adjust the source start indexes
+        if(destinationColumnOffset < 0) {
+            startColumnIndex -= destinationColumnOffset;
+            columns += destinationColumnOffset;
+            destinationColumnOffset = 0;
+        }
+        if(destinationRowOffset < 0) {
+            startRowIndex -= destinationRowOffset;
+            rows += destinationRowOffset;
+            destinationRowOffset = 0;
+        }
+
+        //Make sure we can't copy more than is available
+        rows = Math.min(characters.length - startRowIndex, rows);
+        columns = rows > 0 ? Math.min(size.getColumns() - startColumnIndex, columns) : 0;
+
+        //Adjust target lengths as well
+        columns = Math.min(destination.getSize().getColumns() - destinationColumnOffset, columns);
+        rows = Math.min(destination.getSize().getRows() - destinationRowOffset, rows);
+
+        if(columns <= 0 || rows <= 0) {
+            return;
+        }
+
+        if(destination instanceof PackedTextImage) {
+            PackedTextImage packedDestination = (PackedTextImage)destination;
+            for(int y = 0; y < rows; y++) {
+                int targetRow = destinationRowOffset + y;
+                System.arraycopy(characters[startRowIndex + y], startColumnIndex, packedDestination.characters[targetRow], destinationColumnOffset, columns);
+                System.arraycopy(styles[startRowIndex + y], startColumnIndex, packedDestination.styles[targetRow], destinationColumnOffset, columns);
+
+                // If the character immediately to the left in the destination is double-width, then reset it
+                if(destinationColumnOffset > 0 && isDoubleWidth(packedDestination.characters[targetRow][destinationColumnOffset - 1])) {
+                    packedDestination.characters[targetRow][destinationColumnOffset - 1] = ' ';
+                }
+            }
+            return;
+        }
+
+        //Manually copy character by character
+        for(int y = startRowIndex; y < startRowIndex + rows; y++) {
+            for(int x = startColumnIndex; x < startColumnIndex + columns; x++) {
+                TextCharacter character = toTextCharacter(characters[y][x], styles[y][x]);
+                if (character.isDoubleWidth()) {
+                    // If we're about to put a double-width character, first reset the character next to it
+                    if (x + 1 < startColumnIndex + columns) {
+                        destination.setCharacterAt(
+                                x - startColumnIndex + destinationColumnOffset,
+                                y - startRowIndex + destinationRowOffset,
+                                character.withCharacter(' '));
+                    }
+                    // If the last character is a double-width character, it would exceed the dimension so reset it
+                    else if (x + 1 == startColumnIndex + columns) {
+                        character = character.withCharacter(' ');
+                    }
+                }
+                destination.setCharacterAt(
+                        x - startColumnIndex + destinationColumnOffset,
+                        y - startRowIndex + destinationRowOffset,
+                        character);
+                if (character.isDoubleWidth()) {
+                    x++;
+                }
+            }
+        }
+
+        // If the character immediately to the left in the destination is double-width, then reset it
+        if (destinationColumnOffset > 0) {
+            int destinationX = destinationColumnOffset - 1;
+            for(int y = startRowIndex; y < startRowIndex + rows; y++) {
+                int destinationY = y - startRowIndex + destinationRowOffset;
+                TextCharacter neighbour = destination.getCharacterAt(destinationX, destinationY);
+                if (neighbour.isDoubleWidth()) {
+                    destination.setCharacterAt(destinationX, destinationY, neighbour.withCharacter(' '));
+                }
+            }
+        }
+    }
+
+    @Override
+    public TextGraphics newTextGraphics() {
+        return new AbstractTextGraphics() {
+            @Override
+            public TextGraphics setCharacter(int columnIndex, int rowIndex, TextCharacter textCharacter) {
+                PackedTextImage.this.setCharacterAt(columnIndex, rowIndex, textCharacter);
+                return this;
+            }
+
+            @Override
+            public TextGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+                PackedTextImage.this.putRun(column, row, text, start, end, style);
+                return this;
+            }
+
+            @Override
+            public TextGraphics fillRow(int column, int row, int length, TextCharacter character) {
+                PackedTextImage.this.fillRow(column, row, length, character);
+                return this;
+            }
+
+            @Override
+            public TextCharacter getCharacter(int column, int row) {
+                return PackedTextImage.this.getCharacterAt(column, row);
+            }
+
+            @Override
+            public TerminalSize getSize() {
+                return size;
+            }
+        };
+    }
+
+    @Override
+    public void scrollLines(int firstLine, int lastLine, int distance) {
+        if (firstLine < 0) { firstLine = 0; }
+        if (lastLine >= size.getRows()) { lastLine = size.getRows() - 1; }
+        if (firstLine < lastLine) {
+            if (distance > 0) {
+                // scrolling up: start with first line as target:
+                int curLine = firstLine;
+                // copy lines from further "below":
+                for (; curLine <= lastLine - distance; curLine++) {
+                    characters[curLine] = characters[curLine + distance];
+                    styles[curLine] = styles[curLine + distance];
+                }
+                // blank out the remaining lines:
+                for (; curLine <= lastLine; curLine++) {
+                    newBlankLine(curLine);
+                }
+            }
+            else if (distance < 0) {
+                // scrolling down: start with last line as target:
+                int curLine = lastLine; distance = -distance;
+                // copy lines from further "above":
+                for (; curLine >= firstLine + distance; curLine--) {
+                    characters[curLine] = characters[curLine - distance];
+                    styles[curLine] = styles[curLine - distance];
+                }
+                // blank out the remaining lines:
+                for (; curLine >= firstLine; curLine--) {
+                    newBlankLine(curLine);
+                }
+            } /* else: distance == 0 => no-op */
+        }
+    }
+
+    private void newBlankLine(int row) {
+        characters[row] = new int[size.getColumns()];
+        styles[row] = new long[size.getColumns()];
+        Arrays.fill(characters[row], TextCharacter.DEFAULT_CHARACTER.getCharacterCode());
+        Arrays.fill(styles[row], encodeStyle(TextCharacter.DEFAULT_CHARACTER));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size.getRows()*(size.getColumns()+1)+50);
+        sb.append('{').append(size.getColumns()).append('x').append(size.getRows()).append('}').append('\n');
+        for (int[] line : characters) {
+            for (int c : line) {
+                GraphemeClusters.appendTo(sb, c);
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Checks if a raw character takes up two columns, in which case the cell after it is padding
+     * @param character Raw character
+     * @return {@code true} if the character is double-width
+     */
+    public static boolean isDoubleWidth(int character) {
+        return GraphemeClusters.isDoubleWidth(character);
+    }
+
+    /**
+     * Packs the colors and modifiers of a {@code TextCharacter} into the style format used by {@code PackedTextImage}
+     * @param character Character to take the colors and modifiers from
+     * @return Packed style value
+     */
+    public static long encodeStyle(TextCharacter character) {
+        return encodeStyle(character.getStyle());
+    }
+
+    /**
+     * Packs the colors and modifiers of a {@code TextStyle} into the style format used by {@code PackedTextImage}
+     * @param textStyle Style to pack
+     * @return Packed style value
+     */
+    public static long encodeStyle(TextStyle textStyle) {
+        return (long)textStyle.getModifierBits() |
+                ((long)getColorId(textStyle.getForegroundColor()) << FOREGROUND_SHIFT) |
+                ((long)getColorId(textStyle.getBackgroundColor()) << BACKGROUND_SHIFT);
+    }
+
+    /**
+     * Extracts the foreground color from a packed style
+     * @param style Packed style, as returned by {@code getRawStyleAt(..)}
+     * @return Foreground color of the style
+     */
+    public static TextColor getForegroundColor(long style) {
+        return getColor((int)((style >>> FOREGROUND_SHIFT) & COLOR_MASK));
+    }
+
+    /**
+     * Extracts the background color from a packed style
+     * @param style Packed style, as returned by {@code getRawStyleAt(..)}
+     * @return Background color of the style
+     */
+    public static TextColor getBackgroundColor(long style) {
+        return getColor((int)((style >>> BACKGROUND_SHIFT) & COLOR_MASK));
+    }
+
+    /**
+     * Checks if a packed style has a particular modifier active
+     * @param style Packed style, as returned by {@code getRawStyleAt(..)}
+     * @param modifier Modifier to check for
+     * @return {@code true} if the modifier is active in the style
+     */
+    public static boolean hasModifier(long style, SGR modifier) {
+        return (style & (1L << modifier.ordinal())) != 0;
+    }
+
+    /**
+     * Checks if two packed styles have the same foreground color
+     * @param style First packed style
+     * @param otherStyle Second packed style
+     * @return {@code true} if both styles have the same foreground color
+     */
+    public static boolean hasSameForegroundColor(long style, long otherStyle) {
+        return ((style ^ otherStyle) & (COLOR_MASK << FOREGROUND_SHIFT)) == 0;
+    }
+
+    /**
+     * Checks if two packed styles have the same background color
+     * @param style First packed style
+     * @param otherStyle Second packed style
+     * @return {@code true} if both styles have the same background color
+     */
+    public static boolean hasSameBackgroundColor(long style, long otherStyle) {
+        return ((style ^ otherStyle) & (COLOR_MASK << BACKGROUND_SHIFT)) == 0;
+    }
+
+    /**
+     * Returns a {@code TextCharacter} for a raw character and packed style. Recently used combinations are kept in a
+     * small shared cache so that calling this repeatedly for the same content returns the same object.
+     * @param character Raw character
+     * @param style Packed style
+     * @return {@code TextCharacter} with the character, colors and modifiers specified
+     */
+    public static TextCharacter toTextCharacter(int character, long style) {
+        int hash = character * 0x9E3779B1 ^ (int)(style ^ (style >>> 32));
+        int slot = (hash ^ (hash >>> 16)) & (FLYWEIGHT_CACHE_SIZE - 1);
+        CachedCharacter cached = FLYWEIGHT_CACHE[slot];
+        if(cached != null && cached.character == character && cached.style == style) {
+            return cached.textCharacter;
+        }
+        TextCharacter textCharacter = TextStyle.of(
+                getForegroundColor(style),
+                getBackgroundColor(style),
+                (int)(style & ((1L << MODIFIER_BITS) - 1))).toTextCharacter(character);
+        FLYWEIGHT_CACHE[slot] = new CachedCharacter(character, style, textCharacter);
+        return textCharacter;
+    }
+
+    private static int getColorId(TextColor color) {
+        if(color instanceof TextColor.ANSI) {
+            return ((TextColor.ANSI)color).ordinal();
+        }
+        else if(color.getClass() == TextColor.RGB.class) {
+            return RGB_COLOR_FLAG | (color.getRed() << 16) | (color.getGreen() << 8) | color.getBlue();
+        }
+        Integer id = INTERNED_COLOR_IDS.get(color);
+        if(id == null) {
+            id = internColor(color);
+        }
+        return id;
+    }
+
+    private static synchronized int internColor(TextColor color) {
+        Integer id = INTERNED_COLOR_IDS.get(color);
+        if(id != null) {
+            return id;
+        }
+        int index = INTERNED_COLOR_IDS.size();
+        if(FIRST_INTERNED_COLOR_ID + index >= RGB_COLOR_FLAG) {
+            throw new IllegalStateException("Too many distinct colors used in PackedTextImage");
+        }
+        TextColor[] colors = internedColors;
+        if(index == colors.length) {
+            colors = Arrays.copyOf(colors, colors.length * 2);
+        }
+        colors[index] = color;
+        internedColors = colors;
+        INTERNED_COLOR_IDS.put(color, FIRST_INTERNED_COLOR_ID + index);
+        return FIRST_INTERNED_COLOR_ID + index;
+    }
+
+    private static TextColor getColor(int id) {
+        if(id < ANSI_COLORS.length) {
+            return ANSI_COLORS[id];
+        }
+        else if((id & RGB_COLOR_FLAG) != 0) {
+            return new TextColor.RGB((id >> 16) & 0xff, (id >> 8) & 0xff, id & 0xff);
+        }
+        return internedColors[id - FIRST_INTERNED_COLOR_ID];
+    }
+
+    private static class CachedCharacter {
+        private final int character;
+        private final long style;
+        private final TextCharacter textCharacter;
+
+        private CachedCharacter(int character, long style, TextCharacter textCharacter) {
+            this.character = character;
+            this.style = style;
+            this.textCharacter = textCharacter;
+        }
+    }
+}
@@ -21,6 +21,8 @@ package com.googlecode.lanterna.graphics;
 import com.googlecode.lanterna.TextCharacter;
 import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TerminalTextUtils;
+import com.googlecode.lanterna.TextStyle;
 
 /**
  * This implementation of TextGraphics will take a 'proper' object and composite a view on top of it, by using a
@@ -54,6 +56,37 @@ class SubTextGraphics extends AbstractTextGraphics {
         return this;
     }
 
+    @Override
+    public TextGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        if(row < 0 || row >= writableAreaSize.getRows() || column >= writableAreaSize.getColumns()) {
+            return this;
+        }
+        if(column < 0) {
+            // Cut off on the left, this is rare enough to do one cell at a time
+            return super.putRun(column, row, text, start, end, style);
+        }
+        end = TerminalTextUtils.getRunEnd(text, start, end, writableAreaSize.getColumns() - column);
+        underlyingTextGraphics.putRun(topLeft.getColumn() + column, topLeft.getRow() + row, text, start, end, style);
+        return this;
+    }
+
+    @Override
+    public TextGraphics fillRow(int column, int row, int length, TextCharacter character) {
+        if(row < 0 || row >= writableAreaSize.getRows()) {
+            return this;
+        }
+        if(character.isDoubleWidth()) {
+            // Clipping could move the padding at the end, so do these one cell at a time
+            return super.fillRow(column, row, length, character);
+        }
+        int fromColumn = Math.max(column, 0);
+        int toColumn = Math.min(column + length, writableAreaSize.getColumns());
+        if(fromColumn < toColumn) {
+            underlyingTextGraphics.fillRow(topLeft.getColumn() + fromColumn, topLeft.getRow() + row, toColumn - fromColumn, character);
+        }
+        return this;
+    }
+
     @Override
     public TerminalSize getSize() {
         return writableAreaSize;
@@ -417,6 +417,64 @@ public interface TextGraphics extends StyleSet<TextGraphics> {
      */
     TextGraphics putCSIStyledString(TerminalPosition position, String string);
 
+    /**
+     * Puts a piece of text on one row with a given style, without looking at or changing the current colors and
+     * modifiers of this TextGraphics. Unlike {@code putString(..)} the text is put exactly as it is: it's not cut at
+     * newlines, tabs are not expanded and any other control character is an error. In return, implementations that
+     * can do it will clip, translate and store the whole run at once instead of going through
+     * {@code setCharacter(..)} for every cell, which makes this the cheaper way to draw labels, borders and table
+     * cells in a single style.
+     * @param column What column to put the first character at
+     * @param row What row to put the text at
+     * @param text Text to put on the screen
+     * @param style Colors and modifiers to use for the text
+     * @return Itself
+     * @throws IllegalArgumentException If the text contains a control character other than tab
+     */
+    default TextGraphics putRun(int column, int row, CharSequence text, TextStyle style) {
+        return putRun(column, row, text, 0, text.length(), style);
+    }
+
+    /**
+     * Puts part of a piece of text on one row with a given style, see {@link #putRun(int, int, CharSequence, TextStyle)}
+     * @param column What column to put the first character at
+     * @param row What row to put the text at
+     * @param text Text to take the characters from
+     * @param start Index in {@code text} of the first character to put
+     * @param end Index in {@code text} after the last character to put
+     * @param style Colors and modifiers to use for the text
+     * @return Itself
+     * @throws IllegalArgumentException If the text contains a control character other than tab
+     */
+    default TextGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        for(int i = start; i < end; ) {
+            int clusterEnd = Math.min(TerminalTextUtils.getGraphemeClusterEnd(text, i), end);
+            TextCharacter character = style.toTextCharacter(GraphemeClusters.toCharacterCode(text, i, clusterEnd));
+            setCharacter(column, row, character);
+            column += character.isDoubleWidth() ? 2 : 1;
+            i = clusterEnd;
+        }
+        return this;
+    }
+
+    /**
+     * Sets a number of cells on one row, starting at a position and going right, to the same character. This is the
+     * same as {@code fillRectangle(..)} with a height of one row, but implementations that can do it will clip,
+     * translate and fill the whole run at once.
+     * @param column What column to start at
+     * @param row What row to fill
+     * @param length How many columns to fill
+     * @param character Character to fill the cells with, including its colors and modifiers
+     * @return Itself
+     */
+    default TextGraphics fillRow(int column, int row, int length, TextCharacter character) {
+        for(int x = 0; x < length; x += character.isDoubleWidth() ? 2 : 1) {
+            // Don't put a double-width character at the right edge of the area
+            setCharacter(column + x, row, character.isDoubleWidth() && x + 1 == length ? character.withCharacter(' ') : character);
+        }
+        return this;
+    }
+
     /**
      * Returns the character at the specific position in the terminal. May return {@code null} if the TextGraphics
      * implementation doesn't support it or doesn't know what the character is.
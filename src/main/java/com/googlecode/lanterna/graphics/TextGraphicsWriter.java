@@ -73,20 +73,23 @@ public class TextGraphicsWriter implements StyleSet<TextGraphicsWriter> {
                     flush(wordpart,wordlen); wordlen = 0;
                     backend.setCharacter(cursorPosition, ch);
                     cursorPosition = cursorPosition.withRelativeColumn(1);
-                } else if (TerminalTextUtils.isCharCJK(ch)) {
-                    flush(wordpart, wordlen); wordlen = 0;
-                    linefeed(2);
-                    backend.setCharacter(cursorPosition, ch);
-                    cursorPosition = cursorPosition.withRelativeColumn(2);
                 } else {
-                    if (wrapBehaviour.keepWords()) {
+                    // Keep grapheme clusters (like emoji or letters with combining marks) together
+                    int clusterEnd = TerminalTextUtils.getGraphemeClusterEnd(string, i);
+                    if (TerminalTextUtils.getGraphemeClusterWidth(string, i, clusterEnd) == 2) {
+                        flush(wordpart, wordlen); wordlen = 0;
+                        linefeed(2);
+                        putCluster(string, i, clusterEnd);
+                        cursorPosition = cursorPosition.withRelativeColumn(2);
+                    } else if (wrapBehaviour.keepWords()) {
                         // TODO: if at end of line despite starting at col 0, then split word.
-                        wordpart.append(ch); wordlen++;
+                        wordpart.append(string, i, clusterEnd); wordlen++;
                     } else {
                         linefeed(1);
-                        backend.setCharacter(cursorPosition, ch);
+                        putCluster(string, i, clusterEnd);
                         cursorPosition = cursorPosition.withRelativeColumn(1);
                     }
+                    i = clusterEnd - 1;
                 }
             }
             linefeed(wordlen);
@@ -95,6 +98,13 @@ public class TextGraphicsWriter implements StyleSet<TextGraphicsWriter> {
         backend.setStyleFrom(originalStyle);
         return this;
     }
+    private void putCluster(String string, int clusterStart, int clusterEnd) {
+        if (clusterEnd == clusterStart + 1) {
+            backend.setCharacter(cursorPosition, string.charAt(clusterStart));
+        } else {
+            backend.putString(cursorPosition, string.substring(clusterStart, clusterEnd));
+        }
+    }
     private void linefeed(int lenToFit) {
         int curCol = cursorPosition.getColumn();
         int spaceLeft = backend.getSize().getColumns() - curCol;
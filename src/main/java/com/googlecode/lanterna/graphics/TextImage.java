@@ -18,9 +18,12 @@
  */
 package com.googlecode.lanterna.graphics;
 
+import com.googlecode.lanterna.GraphemeClusters;
 import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TerminalTextUtils;
 import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextStyle;
 
 /**
  * An 'image' build up of text characters with color and style information. These are completely in memory and not 
@@ -65,6 +68,45 @@ public interface TextImage extends Scrollable {
      * @param character What TextCharacter to assign at the specified position
      */
     void setCharacterAt(int column, int row, TextCharacter character);
+
+    /**
+     * Sets a number of cells on one row, starting at a position and going right, to the same TextCharacter. A double
+     * width character is put in every other cell and if there is a single cell left over at the end, it gets a space
+     * with the same colors and modifiers instead. Cells outside of the image are skipped.
+     * @param column Column coordinate of the first cell
+     * @param row Row coordinate of the cells
+     * @param length How many cells to set
+     * @param character What TextCharacter to assign to the cells
+     */
+    default void fillRow(int column, int row, int length, TextCharacter character) {
+        for(int x = 0; x < length; x += character.isDoubleWidth() ? 2 : 1) {
+            // Don't put a double-width character at the right edge of the area
+            setCharacterAt(column + x, row, character.isDoubleWidth() && x + 1 == length ? character.withCharacter(' ') : character);
+        }
+    }
+
+    /**
+     * Writes a piece of text into one row of the image, starting at a position and going right, with all of it in the
+     * same style. This gives the same result as calling {@code setCharacterAt(..)} for each grapheme cluster of the
+     * text in turn, moving two columns to the right after a double width one. The text is written as it is, tabs are
+     * not expanded and any other control character is an error. Cells outside of the image are skipped.
+     * @param column Column coordinate of the first character
+     * @param row Row coordinate of the text
+     * @param text Text to write
+     * @param start Index in {@code text} of the first character to write
+     * @param end Index in {@code text} after the last character to write
+     * @param style Colors and modifiers to write the text with
+     * @throws IllegalArgumentException If the text contains a control character other than tab
+     */
+    default void putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        for(int i = start; i < end; ) {
+            int clusterEnd = Math.min(TerminalTextUtils.getGraphemeClusterEnd(text, i), end);
+            TextCharacter character = style.toTextCharacter(GraphemeClusters.toCharacterCode(text, i, clusterEnd));
+            setCharacterAt(column, row, character);
+            column += character.isDoubleWidth() ? 2 : 1;
+            i = clusterEnd;
+        }
+    }
     
     /**
      * Sets the text image content to one specified character (including color and style)
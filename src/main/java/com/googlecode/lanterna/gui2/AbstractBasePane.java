@@ -23,6 +23,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalRectangle;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.graphics.Theme;
 import com.googlecode.lanterna.gui2.Interactable.Result;
@@ -68,6 +69,14 @@ public abstract class AbstractBasePane<T extends BasePane> implements BasePane {
         contentHolder.invalidate();
     }
 
+    @Override
+    public TerminalRectangle getDamagedArea() {
+        if(invalid) {
+            return new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, contentHolder.getSize());
+        }
+        return contentHolder.getDamagedArea();
+    }
+
     @Override
     public void draw(TextGUIGraphics graphics) {
         graphics.applyThemeStyle(getTheme().getDefinition(Window.class).getNormal());
@@ -301,7 +310,13 @@ public abstract class AbstractBasePane<T extends BasePane> implements BasePane {
         if(toFocus != null) {
             toFocus.onEnterFocus(direction, previous);
         }
-        invalidate();
+        // Only the components losing and gaining focus look any different
+        if(previous != null) {
+            previous.invalidate();
+        }
+        if(toFocus != null) {
+            toFocus.invalidate();
+        }
     }
 
     @Override
@@ -390,6 +405,20 @@ public abstract class AbstractBasePane<T extends BasePane> implements BasePane {
             menuBar.invalidate();
         }
 
+        @Override
+        public TerminalRectangle getDamagedArea() {
+            if(menuBar.isInvalid()) {
+                return new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, getSize());
+            }
+            return super.getDamagedArea();
+        }
+
+        @Override
+        protected TerminalPosition getComponentOffset() {
+            // With a menu bar, the component is drawn below it
+            return menuBar instanceof EmptyMenuBar ? TerminalPosition.TOP_LEFT_CORNER : null;
+        }
+
         @Override
         public void updateLookupMap(InteractableLookupMap interactableLookupMap) {
             super.updateLookupMap(interactableLookupMap);
@@ -20,6 +20,7 @@ package com.googlecode.lanterna.gui2;
 
 
 import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalRectangle;
 import com.googlecode.lanterna.TerminalSize;
 
 /**
@@ -59,6 +60,34 @@ public abstract class AbstractBorder extends AbstractComposite<Border> implement
         return this;
     }
 
+    @Override
+    public TerminalRectangle getDamagedArea() {
+        TerminalRectangle damagedArea = super.getDamagedArea();
+        if(damagedArea == null || getComponent() == null) {
+            return damagedArea;
+        }
+        // Lines drawn along the edge of the component are joined with the border, so if anything has changed there we
+        // need to draw the part of the border next to it again too
+        TerminalPosition offset = getWrappedComponentTopLeftOffset();
+        TerminalSize componentSize = getComponent().getSize();
+        if(damagedArea.getColumn() <= offset.getColumn() ||
+                damagedArea.getRow() <= offset.getRow() ||
+                damagedArea.getColumn() + damagedArea.getColumns() >= offset.getColumn() + componentSize.getColumns() ||
+                damagedArea.getRow() + damagedArea.getRows() >= offset.getRow() + componentSize.getRows()) {
+            damagedArea = new TerminalRectangle(
+                    damagedArea.getColumn() - 1,
+                    damagedArea.getRow() - 1,
+                    damagedArea.getColumns() + 2,
+                    damagedArea.getRows() + 2).intersection(new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, getSize()));
+        }
+        return damagedArea;
+    }
+
+    @Override
+    protected TerminalPosition getComponentOffset() {
+        return getWrappedComponentTopLeftOffset();
+    }
+
     @Override
     public TerminalPosition toBasePane(TerminalPosition position) {
         return super.toBasePane(position).withRelative(getWrappedComponentTopLeftOffset());
@@ -19,6 +19,7 @@
 package com.googlecode.lanterna.gui2;
 
 import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalRectangle;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.bundle.LanternaThemes;
 import com.googlecode.lanterna.graphics.Theme;
@@ -156,6 +157,7 @@ public abstract class AbstractComponent<T extends Component> implements Componen
     @Override
     public void invalidate() {
         invalid = true;
+        EventDrivenTextGUIThread.onInvalidated(getTextGUI());
     }
 
     @Override
@@ -182,6 +184,7 @@ public abstract class AbstractComponent<T extends Component> implements Componen
     @Override
     public final synchronized T setPreferredSize(TerminalSize explicitPreferredSize) {
         this.explicitPreferredSize = explicitPreferredSize;
+        invalidate();
         return self();
     }
 
@@ -215,6 +218,14 @@ public abstract class AbstractComponent<T extends Component> implements Componen
         return invalid;
     }
 
+    @Override
+    public TerminalRectangle getDamagedArea() {
+        if(!isInvalid()) {
+            return null;
+        }
+        return new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, getSize());
+    }
+
     @Override
     public final synchronized void draw(final TextGUIGraphics graphics) {
         //Delegate drawing the component to the renderer
@@ -23,6 +23,7 @@ import java.util.Collections;
 import java.util.List;
 
 import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalRectangle;
 import com.googlecode.lanterna.gui2.menu.MenuBar;
 import com.googlecode.lanterna.input.KeyStroke;
 
@@ -115,6 +116,32 @@ public abstract class AbstractComposite<T extends Container> extends AbstractCom
         return component != null && component.isInvalid();
     }
 
+    @Override
+    public TerminalRectangle getDamagedArea() {
+        if(!isInvalid()) {
+            return null;
+        }
+        TerminalPosition componentOffset = getComponentOffset();
+        if(super.isInvalid() || component == null || componentOffset == null) {
+            return new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, getSize());
+        }
+        TerminalRectangle componentArea = component.getDamagedArea();
+        if(componentArea == null) {
+            return null;
+        }
+        return componentArea.withRelative(componentOffset.getColumn(), componentOffset.getRow());
+    }
+
+    /**
+     * Returns where the encapsulated component is drawn, relative to the top-left corner of this composite. This is
+     * used to redraw only the part of the composite where the component has changed. The default implementation
+     * returns {@code null}, which means the whole composite is drawn again whenever the component has changed.
+     * @return Position of the component inside this composite, or {@code null} if it isn't known
+     */
+    protected TerminalPosition getComponentOffset() {
+        return null;
+    }
+
     @Override
     public void invalidate() {
         super.invalidate();
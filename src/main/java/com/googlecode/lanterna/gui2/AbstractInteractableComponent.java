@@ -139,7 +139,12 @@ public abstract class AbstractInteractableComponent<T extends AbstractInteractab
     @Override
     public final synchronized Result handleInput(KeyStroke keyStroke) {
         if(inputFilter == null || inputFilter.onInput(this, keyStroke)) {
-            return handleKeyStroke(keyStroke);
+            Result result = handleKeyStroke(keyStroke);
+            if(result == Result.HANDLED) {
+                // Assume that handling the input changed how the component looks
+                invalidate();
+            }
+            return result;
         }
         else {
             return Result.UNHANDLED;
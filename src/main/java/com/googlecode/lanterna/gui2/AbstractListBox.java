@@ -20,22 +20,40 @@ package com.googlecode.lanterna.gui2;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.TerminalTextUtils;
 import com.googlecode.lanterna.graphics.ThemeDefinition;
 import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
 import com.googlecode.lanterna.input.MouseAction;
 
 /**
- * Base class for several list box implementations, this will handle things like list of items and the scrollbar.
+ * Base class for several list box implementations, this will handle things like list of items and the scrollbar. The
+ * items are kept in a {@link ListBoxModel}, by default a {@link DefaultListBoxModel} that is modified through
+ * {@code addItem(..)}, {@code removeItem(..)} and {@code clearItems()}. With {@link #setModel(ListBoxModel)} the list
+ * box can show the items of another model instead, for example one that pages them in from a large or remote source;
+ * the list box then only reads the items it draws. See {@link DefaultListBoxRenderer} for how to avoid measuring every
+ * item to calculate the preferred size.
+ * <p>
+ * Typing characters selects the next item with a label starting with what was typed, characters typed less than a
+ * second apart and without other keys in between are combined. For large models,
+ * {@link #setPrefixIndexEnabled(boolean)} builds a sorted index of the labels so this doesn't have to look at every
+ * item.
  * @param <T> Should always be itself, see {@code AbstractComponent}
  * @param <V> Type of items this list box contains
  * @author Martin
  */
 public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extends AbstractInteractableComponent<T> {
-    private final List<V> items;
+    private static final long TYPE_AHEAD_TIMEOUT_MILLIS = 1000;
+
+    private final ListBoxModel.Listener<V> modelListener;
+    private final StringBuilder typeAhead;
+    private ListBoxModel<V> model;
+    private ListBoxPrefixIndex<V> prefixIndex;
+    private long lastTypeAheadTime;
     private int selectedIndex;
     private ListItemRenderer<V,T> listItemRenderer;
 
@@ -57,7 +75,13 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
      *             or if set to {@code null} will ask to be big enough to display all items.
      */
     protected AbstractListBox(TerminalSize size) {
-        this.items = new ArrayList<>();
+        this.modelListener = (changedModel, firstIndex, removedItems, addedItems) ->
+                onModelChanged(changedModel, firstIndex, removedItems, addedItems);
+        this.typeAhead = new StringBuilder();
+        this.model = new DefaultListBoxModel<>();
+        this.model.addListener(modelListener);
+        this.prefixIndex = null;
+        this.lastTypeAheadTime = 0;
         this.selectedIndex = -1;
         setPreferredSize(size);
         setListItemRenderer(createDefaultListItemRenderer());
@@ -101,6 +125,9 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
 
     @Override
     public synchronized Result handleKeyStroke(KeyStroke keyStroke) {
+        if(keyStroke.getKeyType() != KeyType.Character) {
+            typeAhead.setLength(0);
+        }
         try {
             switch(keyStroke.getKeyType()) {
                 case Tab:
@@ -116,14 +143,14 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
                     return Result.MOVE_FOCUS_LEFT;
 
                 case ArrowDown:
-                    if(items.isEmpty() || selectedIndex == items.size() - 1) {
+                    if(isEmpty() || selectedIndex == getItemCount() - 1) {
                         return Result.MOVE_FOCUS_DOWN;
                     }
                     selectedIndex++;
                     return Result.HANDLED;
 
                 case ArrowUp:
-                    if(items.isEmpty() || selectedIndex == 0) {
+                    if(isEmpty() || selectedIndex == 0) {
                         return Result.MOVE_FOCUS_UP;
                     }
                     selectedIndex--;
@@ -134,7 +161,7 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
                     return Result.HANDLED;
 
                 case End:
-                    selectedIndex = items.size() - 1;
+                    selectedIndex = getItemCount() - 1;
                     return Result.HANDLED;
 
                 case PageUp:
@@ -177,28 +204,156 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
     }
 
     private boolean selectByCharacter(Character character) {
-        character = Character.toLowerCase(character);
-        
-        int selectedIndex = getSelectedIndex();
-        for (int i = 0; i<getItemCount(); i++) {
-            int index = (selectedIndex + i + 1) % getItemCount();
+        if(System.currentTimeMillis() - lastTypeAheadTime > TYPE_AHEAD_TIMEOUT_MILLIS) {
+            typeAhead.setLength(0);
+        }
+        typeAhead.append(Character.toLowerCase(character));
+
+        // Typing the same character over and over cycles through the items starting with it, otherwise the current
+        // item is kept for as long as it matches what has been typed
+        String prefix = typeAhead.toString();
+        int index = -1;
+        if(!isRepeatedCharacter(prefix)) {
+            index = findItemByPrefix(prefix, selectedIndex);
+        }
+        if(index == -1) {
+            index = findItemByPrefix(prefix.substring(prefix.length() - 1), selectedIndex + 1);
+        }
+        // Measured from when the lookup is done, so that building the index doesn't count as a pause in typing
+        lastTypeAheadTime = System.currentTimeMillis();
+        if(index == -1) {
+            return false;
+        }
+        setSelectedIndex(index);
+        return true;
+    }
+
+    private int findItemByPrefix(String prefix, int fromIndex) {
+        int itemCount = getItemCount();
+        if(itemCount == 0) {
+            return -1;
+        }
+        if(prefixIndex != null) {
+            return prefixIndex.findNext(prefix, fromIndex);
+        }
+        for(int i = 0; i < itemCount; i++) {
+            int index = (fromIndex + i) % itemCount;
             V item = getItemAt(index);
             String label = item != null ? item.toString() : null;
-            if (label != null && label.length() > 0) {
-                char firstChar = Character.toLowerCase(label.charAt(0));
-                if (firstChar == character) {
-                    setSelectedIndex(index);
-                    return true;
-                }
+            if(label != null && label.regionMatches(true, 0, prefix, 0, prefix.length())) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isRepeatedCharacter(String string) {
+        for(int i = 1; i < string.length(); i++) {
+            if(string.charAt(i) != string.charAt(0)) {
+                return false;
             }
         }
-        
-        return false;
+        return true;
+    }
+
+    /**
+     * Turns the sorted index of item labels used when typing the start of a label on or off. Without the index, typing
+     * goes through the items one by one until it finds a match, which reads every item of the model if nothing
+     * matches. The index is built from all items the first time it's needed and again after the model has changed,
+     * so it's worth it for large models that don't change much.
+     * @param enabled {@code true} to use an index when looking up items by what was typed
+     * @return Itself
+     */
+    public synchronized T setPrefixIndexEnabled(boolean enabled) {
+        prefixIndex = enabled ? new ListBoxPrefixIndex<>(model) : null;
+        return self();
+    }
+
+    /**
+     * Returns {@code true} if typing the start of a label looks up the item through a sorted index of the labels
+     * @return {@code true} if the prefix index is enabled
+     * @see #setPrefixIndexEnabled(boolean)
+     */
+    public synchronized boolean isPrefixIndexEnabled() {
+        return prefixIndex != null;
+    }
+
+    /**
+     * Returns the model holding the items of this list box
+     * @return Model holding the items of this list box
+     */
+    public synchronized ListBoxModel<V> getModel() {
+        return model;
+    }
+
+    /**
+     * Makes the list box show the items of another model. If the new model isn't a {@link DefaultListBoxModel},
+     * items can't be added or removed through the list box any more, you modify the model instead and the list box
+     * follows along through the model's change events.
+     * @param model Model holding the items to show
+     * @return Itself
+     */
+    public synchronized T setModel(ListBoxModel<V> model) {
+        if(model == null) {
+            throw new IllegalArgumentException("Cannot set a null ListBoxModel");
+        }
+        ListBoxModel<V> oldModel = this.model;
+        oldModel.removeListener(modelListener);
+        this.model = model;
+        model.addListener(modelListener);
+        if(prefixIndex != null) {
+            prefixIndex = new ListBoxPrefixIndex<>(model);
+        }
+        selectedIndex = -1;
+        onModelChanged(model, 0, oldModel.getSize(), model.getSize());
+        return self();
+    }
+
+    private synchronized void onModelChanged(ListBoxModel<V> changedModel, int firstIndex, int removedItems, int addedItems) {
+        if(changedModel != model) {
+            return;
+        }
+        if(prefixIndex != null) {
+            prefixIndex.invalidate();
+        }
+        if(selectedIndex >= firstIndex + removedItems) {
+            selectedIndex += addedItems - removedItems;
+        }
+        else if(selectedIndex >= firstIndex + addedItems) {
+            selectedIndex = addedItems > 0 ? firstIndex + addedItems - 1 : firstIndex;
+        }
+        int itemCount = model.getSize();
+        if(selectedIndex >= itemCount) {
+            selectedIndex = itemCount - 1;
+        }
+        if(selectedIndex == -1 && itemCount > 0) {
+            selectedIndex = 0;
+        }
+        onItemsChanged(firstIndex, removedItems, addedItems);
+        invalidate();
+    }
+
+    /**
+     * Called when items in the model of this list box have been added, removed or modified, after the selected index
+     * has been adjusted. Subclasses that keep state for each item override this to keep it in line with the items.
+     * @param firstIndex Index of the first item that was changed
+     * @param removedItems Number of items, starting at {@code firstIndex}, that were removed or modified
+     * @param addedItems Number of items, starting at {@code firstIndex}, that were added or modified instead
+     */
+    protected void onItemsChanged(int firstIndex, int removedItems, int addedItems) {
+    }
+
+    private DefaultListBoxModel<V> getDefaultModel() {
+        if(!(model instanceof DefaultListBoxModel)) {
+            throw new UnsupportedOperationException("Cannot modify the items through a list box with a custom " +
+                    "ListBoxModel, modify the model instead");
+        }
+        return (DefaultListBoxModel<V>)model;
     }
     
     @Override
     protected synchronized void afterEnterFocus(FocusChangeDirection direction, Interactable previouslyInFocus) {
-        if(items.isEmpty()) {
+        if(isEmpty()) {
             return;
         }
 
@@ -206,7 +361,7 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
             selectedIndex = 0;
         }
         else if(direction == FocusChangeDirection.UP) {
-            selectedIndex = items.size() - 1;
+            selectedIndex = getItemCount() - 1;
         }
     }
 
@@ -214,17 +369,14 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
      * Adds one more item to the list box, at the end.
      * @param item Item to add to the list box
      * @return Itself
+     * @throws UnsupportedOperationException If the list box has a model that isn't a {@link DefaultListBoxModel}
      */
     public synchronized T addItem(V item) {
         if(item == null) {
             return self();
         }
 
-        items.add(item);
-        if(selectedIndex == -1) {
-            selectedIndex = 0;
-        }
-        invalidate();
+        getDefaultModel().addItem(item);
         return self();
     }
 
@@ -234,27 +386,19 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
      * @param index Index of the item to remove
      * @return The item that was removed
      * @throws IndexOutOfBoundsException if the index is out of bounds in regards to the list of items
+     * @throws UnsupportedOperationException If the list box has a model that isn't a {@link DefaultListBoxModel}
      */
     public synchronized V removeItem(int index) {
-        V existing = items.remove(index);
-        if(index < selectedIndex) {
-            selectedIndex--;
-        }
-        while(selectedIndex >= items.size()) {
-            selectedIndex--;
-        }
-        invalidate();
-        return existing;
+        return getDefaultModel().removeItem(index);
     }
 
     /**
      * Removes all items from the list box
      * @return Itself
+     * @throws UnsupportedOperationException If the list box has a model that isn't a {@link DefaultListBoxModel}
      */
     public synchronized T clearItems() {
-        items.clear();
-        selectedIndex = -1;
-        invalidate();
+        getDefaultModel().clear();
         return self();
     }
 
@@ -274,7 +418,15 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
      * @return Index of the item in the list box or -1 if the list box does not contain the item
      */
     public synchronized int indexOf(V item) {
-        return items.indexOf(item);
+        if(model instanceof DefaultListBoxModel) {
+            return ((DefaultListBoxModel<V>)model).indexOf(item);
+        }
+        for(int index = 0; index < model.getSize(); index++) {
+            if(Objects.equals(item, model.getItemAt(index))) {
+                return index;
+            }
+        }
+        return -1;
     }
 
     /**
@@ -285,7 +437,7 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
      * the list box
      */
     public synchronized V getItemAt(int index) {
-        return items.get(index);
+        return model.getItemAt(index);
     }
 
     /**
@@ -293,7 +445,7 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
      * @return {@code true} if the list box has no items, {@code false} otherwise
      */
     public synchronized boolean isEmpty() {
-        return items.isEmpty();
+        return model.getSize() == 0;
     }
 
     /**
@@ -301,15 +453,22 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
      * @return Number of items in the list box
      */
     public synchronized int getItemCount() {
-        return items.size();
+        return model.getSize();
     }
 
     /**
-     * Returns a copy of the items in the list box as a {@code List}
+     * Returns a copy of the items in the list box as a {@code List}. Note that this reads every item of the model.
      * @return Copy of all the items in this list box
      */
     public synchronized List<V> getItems() {
-        return new ArrayList<>(items);
+        if(model instanceof DefaultListBoxModel) {
+            return ((DefaultListBoxModel<V>)model).getItems();
+        }
+        List<V> items = new ArrayList<>(model.getSize());
+        for(int index = 0; index < model.getSize(); index++) {
+            items.add(model.getItemAt(index));
+        }
+        return items;
     }
 
     /**
@@ -324,8 +483,8 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
         if(selectedIndex < 0) {
             selectedIndex = 0;
         }
-        if(selectedIndex > items.size() - 1) {
-            selectedIndex = items.size() - 1;
+        if(selectedIndex > getItemCount() - 1) {
+            selectedIndex = getItemCount() - 1;
         }
         invalidate();
         return self();
@@ -351,18 +510,23 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
         if (selectedIndex == -1) {
             return null;
         } else {
-            return items.get(selectedIndex);
+            return model.getItemAt(selectedIndex);
         }
     }
 
     /**
-     * The default renderer for {@code AbstractListBox} and all its subclasses.
+     * The default renderer for {@code AbstractListBox} and all its subclasses. Only the items in view are read from the
+     * model when drawing. To figure out how wide the list box wants to be, the label of every item is measured by
+     * default; for large models, use {@link #setSampledItems(int)} or {@link #setFixedItemWidth(int)} instead.
      * @param <V> Type of the items the list box this renderer is for
      * @param <T> Type of list box
      */
     public static class DefaultListBoxRenderer<V, T extends AbstractListBox<V, T>> implements InteractableRenderer<T> {
         private final ScrollBar verticalScrollBar;
         private int scrollTopIndex;
+        private int visibleItemsOnLastDraw;
+        private int sampledItems;
+        private int fixedItemWidth;
 
         /**
          * Default constructor
@@ -370,6 +534,37 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
         public DefaultListBoxRenderer() {
             this.verticalScrollBar = new ScrollBar(Direction.VERTICAL);
             this.scrollTopIndex = 0;
+            this.visibleItemsOnLastDraw = 0;
+            this.sampledItems = 0;
+            this.fixedItemWidth = 0;
+        }
+
+        /**
+         * Limits how many items are measured when calculating the preferred width of the list box. By default the label
+         * of every item is measured, which gets expensive with a lot of items, especially if they are paged in from
+         * somewhere. With a sample size set, the list box is sized after the first {@code sampledItems} items and the
+         * items currently in view. Labels wider than the list box are cut off.
+         * @param sampledItems Number of items from the start of the list to size the list box after, or 0 to measure
+         *                     every item
+         */
+        public synchronized void setSampledItems(int sampledItems) {
+            if(sampledItems < 0) {
+                throw new IllegalArgumentException("sampledItems must be >= 0 but was " + sampledItems);
+            }
+            this.sampledItems = sampledItems;
+        }
+
+        /**
+         * Sets a fixed width for the item labels, so that no item needs to be measured to calculate the preferred
+         * width of the list box. One more column is added to this for the scrollbar. Labels wider than this are cut
+         * off.
+         * @param fixedItemWidth Width of the item labels in columns, or 0 to size the list box after the labels
+         */
+        public synchronized void setFixedItemWidth(int fixedItemWidth) {
+            if(fixedItemWidth < 0) {
+                throw new IllegalArgumentException("fixedItemWidth must be >= 0 but was " + fixedItemWidth);
+            }
+            this.fixedItemWidth = fixedItemWidth;
         }
 
         @Override
@@ -386,28 +581,45 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
         }
 
         @Override
-        public TerminalSize getPreferredSize(T listBox) {
+        public synchronized TerminalSize getPreferredSize(T listBox) {
+            int itemCount = listBox.getItemCount();
+            if(fixedItemWidth > 0) {
+                return new TerminalSize(fixedItemWidth + 1, itemCount);
+            }
             int maxWidth = 5;   //Set it to something...
-            int index = 0;
-            for (V item : listBox.getItems()) {
-                String itemString = listBox.getListItemRenderer().getLabel(listBox, index++, item);
+            if(sampledItems == 0) {
+                maxWidth = measureItems(listBox, 0, itemCount, maxWidth);
+            }
+            else {
+                // Only look at a sample from the top of the list and the items in view
+                maxWidth = measureItems(listBox, 0, Math.min(itemCount, sampledItems), maxWidth);
+                maxWidth = measureItems(listBox, Math.max(scrollTopIndex, sampledItems),
+                        Math.min(itemCount, scrollTopIndex + visibleItemsOnLastDraw), maxWidth);
+            }
+            return new TerminalSize(maxWidth + 1, itemCount);
+        }
+
+        private int measureItems(T listBox, int fromIndex, int toIndex, int maxWidth) {
+            for(int index = fromIndex; index < toIndex; index++) {
+                String itemString = listBox.getListItemRenderer().getLabel(listBox, index, listBox.getItemAt(index));
                 int stringLengthInColumns = TerminalTextUtils.getColumnWidth(itemString);
                 if (stringLengthInColumns > maxWidth) {
                     maxWidth = stringLengthInColumns;
                 }
             }
-            return new TerminalSize(maxWidth + 1, listBox.getItemCount());
+            return maxWidth;
         }
 
         @Override
-        public void drawComponent(TextGUIGraphics graphics, T listBox) {
+        public synchronized void drawComponent(TextGUIGraphics graphics, T listBox) {
             //update the page size, used for page up and page down keys
             ThemeDefinition themeDefinition = listBox.getTheme().getDefinition(AbstractListBox.class);
             int componentHeight = graphics.getSize().getRows();
             //int componentWidth = graphics.getSize().getColumns();
             int selectedIndex = listBox.getSelectedIndex();
-            List<V> items = listBox.getItems();
+            int itemCount = listBox.getItemCount();
             ListItemRenderer<V,T> listItemRenderer = listBox.getListItemRenderer();
+            visibleItemsOnLastDraw = componentHeight;
 
             if(selectedIndex != -1) {
                 if(selectedIndex < scrollTopIndex)
@@ -419,16 +631,16 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
             //Do we need to recalculate the scroll position?
             //This code would be triggered by resizing the window when the scroll
             //position is at the bottom
-            if(items.size() > componentHeight &&
-                    items.size() - scrollTopIndex < componentHeight) {
-                scrollTopIndex = items.size() - componentHeight;
+            if(itemCount > componentHeight &&
+                    itemCount - scrollTopIndex < componentHeight) {
+                scrollTopIndex = itemCount - componentHeight;
             }
 
             graphics.applyThemeStyle(themeDefinition.getNormal());
             graphics.fill(' ');
 
             TerminalSize itemSize = graphics.getSize().withRows(1);
-            for(int i = scrollTopIndex; i < items.size(); i++) {
+            for(int i = scrollTopIndex; i < itemCount; i++) {
                 if(i - scrollTopIndex >= componentHeight) {
                     break;
                 }
@@ -436,16 +648,16 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
                         graphics.newTextGraphics(new TerminalPosition(0, i - scrollTopIndex), itemSize),
                         listBox,
                         i,
-                        items.get(i),
+                        listBox.getItemAt(i),
                         selectedIndex == i,
                         listBox.isFocused());
             }
 
             graphics.applyThemeStyle(themeDefinition.getNormal());
-            if(items.size() > componentHeight) {
+            if(itemCount > componentHeight) {
                 verticalScrollBar.onAdded(listBox.getParent());
                 verticalScrollBar.setViewSize(componentHeight);
-                verticalScrollBar.setScrollMaximum(items.size());
+                verticalScrollBar.setScrollMaximum(itemCount);
                 verticalScrollBar.setScrollPosition(scrollTopIndex);
                 verticalScrollBar.draw(graphics.newTextGraphics(
                         new TerminalPosition(graphics.getSize().getColumns() - 1, 0),
@@ -461,7 +673,7 @@ public abstract class AbstractListBox<V, T extends AbstractListBox<V, T>> extend
                 graphics.putString(componentWidth - 1, componentHeight - 1, Symbols.ARROW_DOWN + "");
 
                 //Finally print the 'tick'
-                int scrollableSize = items.size() - componentHeight;
+                int scrollableSize = itemCount - componentHeight;
                 double position = (double)scrollTopIndex / ((double)scrollableSize);
                 int tickPosition = (int)(((double) componentHeight - 3.0) * position);
                 graphics.applyThemeStyle(themeDefinition.getInsensitive());
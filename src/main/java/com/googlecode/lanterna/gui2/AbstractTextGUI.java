@@ -28,6 +28,7 @@ import com.googlecode.lanterna.screen.Screen;
 import java.io.EOFException;
 import java.io.IOException;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -43,6 +44,7 @@ public abstract class AbstractTextGUI implements TextGUI {
     private boolean dirty;
     private TextGUIThread textGUIThread;
     private Theme guiTheme;
+    private volatile Queue<KeyStroke> inputQueue;
 
     /**
      * Constructor for {@code AbstractTextGUI} that requires a {@code Screen} and a factory for creating the GUI thread
@@ -58,6 +60,7 @@ public abstract class AbstractTextGUI implements TextGUI {
         this.blockingIO = false;
         this.dirty = false;
         this.guiTheme = LanternaThemes.getDefaultTheme();
+        this.inputQueue = null;
         this.textGUIThread = textGUIThreadFactory.createTextGUIThread(this);
     }
 
@@ -69,7 +72,7 @@ public abstract class AbstractTextGUI implements TextGUI {
      * @throws IOException In case of an I/O error while reading input
      */
     protected KeyStroke readKeyStroke() throws IOException {
-        return blockingIO ? screen.readInput() : pollInput();
+        return blockingIO && inputQueue == null ? screen.readInput() : pollInput();
     }
 
     /**
@@ -78,9 +81,23 @@ public abstract class AbstractTextGUI implements TextGUI {
      * @throws IOException In case of an I/O error while reading input
      */
     protected KeyStroke pollInput() throws IOException {
+        Queue<KeyStroke> inputQueue = this.inputQueue;
+        if(inputQueue != null) {
+            return inputQueue.poll();
+        }
         return screen.pollInput();
     }
 
+    /**
+     * Makes this text GUI take its input from a queue instead of reading it from the screen. This is used by
+     * {@link EventDrivenTextGUIThread}, which reads the screen input on a separate thread. While a queue is set, reading
+     * input never blocks, regardless of the blocking I/O setting.
+     * @param inputQueue Queue to take input from, or {@code null} to go back to reading input from the screen
+     */
+    void setInputQueue(Queue<KeyStroke> inputQueue) {
+        this.inputQueue = inputQueue;
+    }
+
     @Override
     public synchronized boolean processInput() throws IOException {
         boolean gotInput = false;
@@ -185,6 +202,7 @@ public abstract class AbstractTextGUI implements TextGUI {
      */
     protected void invalidate() {
         dirty = true;
+        EventDrivenTextGUIThread.onInvalidated(this);
     }
 
     /**
@@ -18,19 +18,21 @@
  */
 package com.googlecode.lanterna.gui2;
 
+import com.googlecode.lanterna.AnimationScheduler;
 import com.googlecode.lanterna.TerminalSize;
 
 import java.lang.ref.WeakReference;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * This is a special label that contains not just a single text to display but a number of frames that are cycled
- * through. The class will manage a timer on its own and ensure the label is updated and redrawn. There is a static
- * helper method available to create the classic "spinning bar": {@code createClassicSpinningLine()}
+ * through. The class will schedule the frame changes on the default {@link AnimationScheduler} and ensure the label is
+ * updated and redrawn on the GUI thread; while the window holding the label is hidden or not shown in any text GUI, the
+ * animation is paused on the current frame and resumes the next time the label is drawn. There is a static helper
+ * method available to create the classic "spinning bar": {@code createClassicSpinningLine()}
  */
 public class AnimatedLabel extends Label {
-    private static Timer TIMER = null;
-    private static final WeakHashMap<AnimatedLabel, TimerTask> SCHEDULED_TASKS = new WeakHashMap<>();
 
     /**
      * Creates a classic spinning bar which can be used to signal to the user that an operation in is process.
@@ -57,6 +59,7 @@ public class AnimatedLabel extends Label {
     private final List<String[]> frames;
     private TerminalSize combinedMaximumPreferredSize;
     private int currentFrame;
+    private AnimationScheduler.Animation animation;
 
     /**
      * Creates a new animated label, initially set to one frame. You will need to add more frames and call
@@ -69,6 +72,7 @@ public class AnimatedLabel extends Label {
         frames = new ArrayList<>();
         currentFrame = 0;
         combinedMaximumPreferredSize = TerminalSize.ZERO;
+        animation = null;
 
         String[] lines = splitIntoMultipleLines(firstFrameText);
         frames.add(lines);
@@ -109,71 +113,102 @@ public class AnimatedLabel extends Label {
         invalidate();
     }
 
+    @Override
+    protected synchronized void onBeforeDrawing() {
+        if(animation != null && animation.isPaused()) {
+            animation.resume();
+        }
+    }
+
     @Override
     public void onRemoved(Container container) {
         stopAnimation();
     }
 
     /**
-     * Starts the animation thread which will periodically call {@code nextFrame()} at the interval specified by the
+     * Starts the animation, which will periodically call {@code nextFrame()} at the interval specified by the
      * {@code millisecondsPerFrame} parameter. After all frames have been cycled through, it will start over from the
-     * first frame again.
+     * first frame again. If the label was already animated, the previous interval is replaced.
      * @param millisecondsPerFrame The interval in between every frame
      * @return Itself
      */
     public synchronized AnimatedLabel startAnimation(long millisecondsPerFrame) {
-        if(TIMER == null) {
-            TIMER = new Timer("AnimatedLabel");
-        }
-        AnimationTimerTask animationTimerTask = new AnimationTimerTask(this);
-        SCHEDULED_TASKS.put(this, animationTimerTask);
-        TIMER.scheduleAtFixedRate(animationTimerTask, millisecondsPerFrame, millisecondsPerFrame);
+        stopAnimation();
+        AnimationTask animationTask = new AnimationTask(this);
+        animation = AnimationScheduler.getDefault().schedule(animationTask, millisecondsPerFrame);
+        animationTask.animation = animation;
         return this;
     }
 
     /**
-     * Halts the animation thread and the label will stop at whatever was the current frame at the time when this was
-     * called
+     * Halts the animation and the label will stop at whatever was the current frame at the time when this was called
      * @return Itself
      */
     public synchronized AnimatedLabel stopAnimation() {
-        removeTaskFromTimer(this);
+        if(animation != null) {
+            animation.cancel();
+            animation = null;
+        }
         return this;
     }
 
-    private static synchronized void removeTaskFromTimer(AnimatedLabel animatedLabel) {
-        SCHEDULED_TASKS.get(animatedLabel).cancel();
-        SCHEDULED_TASKS.remove(animatedLabel);
-        canCloseTimer();
+    private synchronized void pauseAnimation() {
+        if(animation != null) {
+            animation.pause();
+            // The window may have been shown and drawn since the task looked, then nothing else would resume it
+            if(isShown()) {
+                animation.resume();
+            }
+        }
     }
 
-    private static synchronized void canCloseTimer() {
-        if(SCHEDULED_TASKS.isEmpty()) {
-            TIMER.cancel();
-            TIMER = null;
+    private boolean isShown() {
+        BasePane basePane = getBasePane();
+        if(basePane instanceof Window) {
+            Window window = (Window)basePane;
+            return window.isVisible() && window.getTextGUI() != null;
         }
+        return true;
     }
 
-    private static class AnimationTimerTask extends TimerTask {
+    private static class AnimationTask implements Runnable {
+        // The task doesn't keep the label from being garbage collected
         private final WeakReference<AnimatedLabel> labelRef;
+        private volatile AnimationScheduler.Animation animation;
+        // Set while a frame change is waiting for the GUI thread, so a GUI thread that falls behind doesn't pile them up
+        private final AtomicBoolean framePending;
 
-        private AnimationTimerTask(AnimatedLabel label) {
+        private AnimationTask(AnimatedLabel label) {
             this.labelRef = new WeakReference<>(label);
+            this.framePending = new AtomicBoolean(false);
         }
 
         @Override
         public void run() {
             AnimatedLabel animatedLabel = labelRef.get();
             if(animatedLabel == null) {
-                cancel();
-                canCloseTimer();
+                if(animation != null) {
+                    animation.cancel();
+                }
             }
             else {
                 if(animatedLabel.getBasePane() == null) {
                     animatedLabel.stopAnimation();
                 }
-                else {
-                    animatedLabel.nextFrame();
+                else if(!animatedLabel.isShown()) {
+                    animatedLabel.pauseAnimation();
+                }
+                else if(framePending.compareAndSet(false, true)) {
+                    try {
+                        animatedLabel.runOnGUIThreadIfExistsOtherwiseRunDirect(() -> {
+                            framePending.set(false);
+                            animatedLabel.nextFrame();
+                        });
+                    }
+                    catch(IllegalStateException e) {
+                        // The GUI thread isn't running, so nothing would draw the frame anyway
+                        framePending.set(false);
+                    }
                 }
             }
         }
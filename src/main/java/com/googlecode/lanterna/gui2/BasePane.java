@@ -19,6 +19,7 @@
 package com.googlecode.lanterna.gui2;
 
 import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalRectangle;
 import com.googlecode.lanterna.graphics.Theme;
 import com.googlecode.lanterna.gui2.menu.MenuBar;
 import com.googlecode.lanterna.input.KeyStroke;
@@ -64,6 +65,22 @@ public interface BasePane extends Composite {
      */
     void invalidate();
 
+    /**
+     * Returns the part of the root container that has to be redrawn, since only components inside this area have been
+     * invalidated. When the root container is drawn with a {@code TextGUIGraphics} clipped to this area, anything
+     * outside of it will be left as it was. The default implementation returns an area covering all of the root
+     * container if the pane is invalid, so everything is redrawn.
+     * @return Area that needs to be redrawn, relative to the top-left corner of the root container, or {@code null} if
+     * nothing needs to be redrawn
+     */
+    default TerminalRectangle getDamagedArea() {
+        if(!isInvalid()) {
+            return null;
+        }
+        // The size of the root container isn't known here, this is clipped to it when drawn
+        return new TerminalRectangle(0, 0, Short.MAX_VALUE, Short.MAX_VALUE);
+    }
+
     /**
      * Called by the GUI system to delegate a keyboard input event. The root container will decide what to do with this
      * input, usually sending it to one of its sub-components, but if it isn't able to find any handler for this input
@@ -25,11 +25,14 @@ import com.googlecode.lanterna.input.KeyStroke;
 import com.googlecode.lanterna.input.KeyType;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * This is a list box implementation where each item has its own checked state that can be toggled on and off
+ * This is a list box implementation where each item has its own checked state that can be toggled on and off. The
+ * checked states are kept by the list box itself and follow the items around as items are added to and removed from
+ * the model; items added to the model start out unchecked.
  * @author Martin
  */
 public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
@@ -46,7 +49,7 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
     }
 
     private final List<Listener> listeners;
-    private final List<Boolean> itemStatus;
+    private final BitSet itemStatus;
 
     /**
      * Creates a new {@code CheckBoxList} that is initially empty and has no hardcoded preferred size, so it will
@@ -64,7 +67,7 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
     public CheckBoxList(TerminalSize preferredSize) {
         super(preferredSize);
         this.listeners = new CopyOnWriteArrayList<>();
-        this.itemStatus = new ArrayList<>();
+        this.itemStatus = new BitSet();
     }
 
     @Override
@@ -72,22 +75,20 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
         return new CheckBoxListItemRenderer<>();
     }
 
-    @Override
-    public synchronized CheckBoxList<V> clearItems() {
-        itemStatus.clear();
-        return super.clearItems();
-    }
-
     @Override
     public CheckBoxList<V> addItem(V object) {
         return addItem(object, false);
     }
 
     @Override
-    public synchronized V removeItem(int index) {
-        V item = super.removeItem(index);
-        itemStatus.remove(index);
-        return item;
+    protected void onItemsChanged(int firstIndex, int removedItems, int addedItems) {
+        // Move the checked states after the changed items so they stay with their items
+        int shiftFrom = firstIndex + removedItems;
+        BitSet shifted = itemStatus.get(shiftFrom, Math.max(shiftFrom, itemStatus.length()));
+        itemStatus.clear(firstIndex, Math.max(firstIndex, itemStatus.length()));
+        for(int i = shifted.nextSetBit(0); i >= 0; i = shifted.nextSetBit(i + 1)) {
+            itemStatus.set(firstIndex + addedItems + i);
+        }
     }
 
     /**
@@ -97,8 +98,11 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
      * @return Itself
      */
     public synchronized CheckBoxList<V> addItem(V object, boolean checkedState) {
-        itemStatus.add(checkedState);
-        return super.addItem(object);
+        super.addItem(object);
+        if(object != null && checkedState) {
+            itemStatus.set(getItemCount() - 1);
+        }
+        return self();
     }
 
     /**
@@ -109,10 +113,11 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
      * {@code false} depending on checked state of the item
      */
     public synchronized Boolean isChecked(V object) {
-        if(indexOf(object) == -1)
+        int index = indexOf(object);
+        if(index == -1)
             return null;
 
-        return itemStatus.get(indexOf(object));
+        return itemStatus.get(index);
     }
 
     /**
@@ -123,7 +128,7 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
      * {@code false} depending on checked state of the item at that index
      */
     public synchronized Boolean isChecked(int index) {
-        if(index < 0 || index >= itemStatus.size())
+        if(index < 0 || index >= getItemCount())
             return null;
 
         return itemStatus.get(index);
@@ -145,6 +150,7 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
 
     private void setChecked(final int index, final boolean checked) {
         itemStatus.set(index, checked);
+        invalidate();
         runOnGUIThreadIfExistsOtherwiseRunDirect(() -> {
             for(Listener listener: listeners) {
                 listener.onStatusChanged(index, checked);
@@ -158,10 +164,8 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
      */
     public synchronized List<V> getCheckedItems() {
         List<V> result = new ArrayList<>();
-        for(int i = 0; i < itemStatus.size(); i++) {
-            if(itemStatus.get(i)) {
-                result.add(getItemAt(i));
-            }
+        for(int i = itemStatus.nextSetBit(0); i >= 0; i = itemStatus.nextSetBit(i + 1)) {
+            result.add(getItemAt(i));
         }
         return result;
     }
@@ -216,7 +220,7 @@ public class CheckBoxList<V> extends AbstractListBox<V, CheckBoxList<V>> {
         @Override
         public String getLabel(CheckBoxList<V> listBox, int index, V item) {
             String check = " ";
-            List<Boolean> itemStatus = listBox.itemStatus;
+            BitSet itemStatus = listBox.itemStatus;
             if(itemStatus.get(index))
                 check = "x";
 
@@ -0,0 +1,92 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalRectangle;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TerminalTextUtils;
+import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextStyle;
+import com.googlecode.lanterna.graphics.AbstractTextGraphics;
+import com.googlecode.lanterna.graphics.TextGraphics;
+
+/**
+ * TextGraphics that drops everything drawn outside of an area of the underlying TextGraphics, without moving the
+ * coordinate system like {@code newTextGraphics(..)} does.
+ * @author Martin
+ */
+class ClippedTextGraphics extends AbstractTextGraphics {
+    private final TextGraphics underlyingTextGraphics;
+    private final TerminalRectangle clipArea;
+
+    ClippedTextGraphics(TextGraphics underlyingTextGraphics, TerminalRectangle clipArea) {
+        this.underlyingTextGraphics = underlyingTextGraphics;
+        this.clipArea = clipArea;
+    }
+
+    @Override
+    public TextGraphics setCharacter(int columnIndex, int rowIndex, TextCharacter textCharacter) {
+        if(clipArea.contains(columnIndex, rowIndex)) {
+            underlyingTextGraphics.setCharacter(columnIndex, rowIndex, textCharacter);
+        }
+        return this;
+    }
+
+    @Override
+    public TextGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        int clipRight = clipArea.getColumn() + clipArea.getColumns();
+        if(row < clipArea.getRow() || row >= clipArea.getRow() + clipArea.getRows() || column >= clipRight) {
+            return this;
+        }
+        if(column < clipArea.getColumn()) {
+            // Cut off on the left, this is rare enough to do one cell at a time
+            return super.putRun(column, row, text, start, end, style);
+        }
+        end = TerminalTextUtils.getRunEnd(text, start, end, clipRight - column);
+        underlyingTextGraphics.putRun(column, row, text, start, end, style);
+        return this;
+    }
+
+    @Override
+    public TextGraphics fillRow(int column, int row, int length, TextCharacter character) {
+        if(row < clipArea.getRow() || row >= clipArea.getRow() + clipArea.getRows()) {
+            return this;
+        }
+        if(character.isDoubleWidth()) {
+            // Clipping could move the padding at the end, so do these one cell at a time
+            return super.fillRow(column, row, length, character);
+        }
+        int fromColumn = Math.max(column, clipArea.getColumn());
+        int toColumn = Math.min(column + length, clipArea.getColumn() + clipArea.getColumns());
+        if(fromColumn < toColumn) {
+            underlyingTextGraphics.fillRow(fromColumn, row, toColumn - fromColumn, character);
+        }
+        return this;
+    }
+
+    @Override
+    public TerminalSize getSize() {
+        return underlyingTextGraphics.getSize();
+    }
+
+    @Override
+    public TextCharacter getCharacter(int column, int row) {
+        return underlyingTextGraphics.getCharacter(column, row);
+    }
+}
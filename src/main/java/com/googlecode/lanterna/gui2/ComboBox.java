@@ -263,6 +263,7 @@ public class ComboBox<V> extends AbstractInteractableComponent<ComboBox<V>> {
         if(readOnly) {
             dropDownFocused = true;
         }
+        invalidate();
         return this;
     }
 
@@ -684,7 +685,7 @@ public class ComboBox<V> extends AbstractInteractableComponent<ComboBox<V>> {
             }
             if(columnsToInputPosition - textVisibleLeftPosition + 1 == editableArea &&
                     comboBox.getText().length() > textInputPosition &&
-                    TerminalTextUtils.isCharCJK(comboBox.getText().charAt(textInputPosition))) {
+                    TerminalTextUtils.isCharDoubleWidth(comboBox.getText().charAt(textInputPosition))) {
                 textVisibleLeftPosition++;
             }
 
@@ -19,6 +19,7 @@
 package com.googlecode.lanterna.gui2;
 
 import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalRectangle;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.graphics.Theme;
 import com.googlecode.lanterna.graphics.ThemeDefinition;
@@ -172,6 +173,21 @@ public interface Component extends TextGUIElement {
      * this as a hint to layout the child components again.
      */
     void invalidate();
+
+    /**
+     * Returns the part of this component that has to be redrawn because it, or something inside it, has been
+     * invalidated. Most components will return their whole area when they are invalid, but containers can return just
+     * the area of the child components that have changed and will then only redraw those (and anything else they
+     * overlap) next time they are drawn. The default implementation returns the whole component if it's invalid.
+     * @return Area that needs to be redrawn, relative to the top-left corner of this component, or {@code null} if the
+     * component isn't invalid
+     */
+    default TerminalRectangle getDamagedArea() {
+        if(!isInvalid()) {
+            return null;
+        }
+        return new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, getSize());
+    }
     
     /**
      * Takes a border object and moves this component inside it and then returns it again. This makes it easy to quickly
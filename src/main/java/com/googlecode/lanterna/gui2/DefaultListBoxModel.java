@@ -0,0 +1,190 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * {@link ListBoxModel} that keeps its items in a list. This is the model a list box uses unless you give it another
+ * one; the {@code addItem(..)} and {@code removeItem(..)} methods of the list box end up here. Listeners are notified
+ * after the model has been modified, outside of the lock on the model.
+ * @param <V> Type of the items in the model
+ * @author Martin
+ */
+public class DefaultListBoxModel<V> implements ListBoxModel<V> {
+    private final List<V> items;
+    private final List<Listener<V>> listeners;
+
+    /**
+     * Creates a new model without any items
+     */
+    public DefaultListBoxModel() {
+        this.items = new ArrayList<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * Creates a new model holding a copy of the supplied items
+     * @param items Items to put in the model
+     */
+    public DefaultListBoxModel(Collection<? extends V> items) {
+        this.items = new ArrayList<>(items);
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    @Override
+    public synchronized int getSize() {
+        return items.size();
+    }
+
+    @Override
+    public synchronized V getItemAt(int index) {
+        return items.get(index);
+    }
+
+    /**
+     * Returns the index of the first occurrence of an item in the model
+     * @param item Item to look for
+     * @return Index of the item, or -1 if the model doesn't contain it
+     */
+    public synchronized int indexOf(V item) {
+        return items.indexOf(item);
+    }
+
+    /**
+     * Returns a copy of the items in the model
+     * @return Copy of the items in the model
+     */
+    public synchronized List<V> getItems() {
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * Adds an item at the end of the model
+     * @param item Item to add
+     * @return Itself
+     */
+    public DefaultListBoxModel<V> addItem(V item) {
+        int index;
+        synchronized(this) {
+            index = items.size();
+            items.add(item);
+        }
+        fireItemsChanged(index, 0, 1);
+        return this;
+    }
+
+    /**
+     * Inserts items into the model
+     * @param index Where to insert the items, the items at this index and after are moved down
+     * @param newItems Items to insert
+     * @return Itself
+     */
+    public DefaultListBoxModel<V> insertItems(int index, Collection<? extends V> newItems) {
+        synchronized(this) {
+            items.addAll(index, newItems);
+        }
+        fireItemsChanged(index, 0, newItems.size());
+        return this;
+    }
+
+    /**
+     * Replaces the item at a specific index
+     * @param index Index of the item to replace
+     * @param item New item
+     * @return The item that was replaced
+     */
+    public V setItem(int index, V item) {
+        V oldItem;
+        synchronized(this) {
+            oldItem = items.set(index, item);
+        }
+        fireItemsChanged(index, 1, 1);
+        return oldItem;
+    }
+
+    /**
+     * Removes the item at a specific index
+     * @param index Index of the item to remove
+     * @return The item that was removed
+     */
+    public V removeItem(int index) {
+        V oldItem;
+        synchronized(this) {
+            oldItem = items.remove(index);
+        }
+        fireItemsChanged(index, 1, 0);
+        return oldItem;
+    }
+
+    /**
+     * Replaces all items in the model
+     * @param newItems Items the model should hold from now on
+     * @return Itself
+     */
+    public DefaultListBoxModel<V> setItems(Collection<? extends V> newItems) {
+        int oldSize;
+        synchronized(this) {
+            oldSize = items.size();
+            items.clear();
+            items.addAll(newItems);
+        }
+        fireItemsChanged(0, oldSize, newItems.size());
+        return this;
+    }
+
+    /**
+     * Removes all items from the model
+     * @return Itself
+     */
+    public DefaultListBoxModel<V> clear() {
+        int oldSize;
+        synchronized(this) {
+            oldSize = items.size();
+            items.clear();
+        }
+        fireItemsChanged(0, oldSize, 0);
+        return this;
+    }
+
+    @Override
+    public void addListener(Listener<V> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(Listener<V> listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notifies the listeners of a change to the items
+     * @param firstIndex Index of the first item that was changed
+     * @param removedItems Number of items that were removed or modified
+     * @param addedItems Number of items that were added or modified instead
+     */
+    protected void fireItemsChanged(int firstIndex, int removedItems, int addedItems) {
+        for(Listener<V> listener: listeners) {
+            listener.onItemsChanged(this, firstIndex, removedItems, addedItems);
+        }
+    }
+}
@@ -13,10 +13,16 @@ import java.util.EnumSet;
 public class DefaultTextGUIGraphics implements TextGUIGraphics {
     private final TextGUI textGUI;
     private final TextGraphics backend;
+    private final TerminalRectangle clipArea;
 
     DefaultTextGUIGraphics(TextGUI textGUI, TextGraphics backend) {
+        this(textGUI, backend, null);
+    }
+
+    private DefaultTextGUIGraphics(TextGUI textGUI, TextGraphics backend, TerminalRectangle clipArea) {
         this.backend = backend;
         this.textGUI = textGUI;
+        this.clipArea = clipArea;
     }
 
     @Override
@@ -26,7 +32,27 @@ public class DefaultTextGUIGraphics implements TextGUIGraphics {
 
     @Override
     public DefaultTextGUIGraphics newTextGraphics(TerminalPosition topLeftCorner, TerminalSize size) throws IllegalArgumentException {
-        return new DefaultTextGUIGraphics(textGUI, backend.newTextGraphics(topLeftCorner, size));
+        TerminalRectangle subClipArea = null;
+        if(clipArea != null) {
+            subClipArea = clipArea
+                    .withRelative(-topLeftCorner.getColumn(), -topLeftCorner.getRow())
+                    .intersection(new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, size));
+        }
+        return new DefaultTextGUIGraphics(textGUI, backend.newTextGraphics(topLeftCorner, size), subClipArea);
+    }
+
+    @Override
+    public TerminalRectangle getClipArea() {
+        if(clipArea != null) {
+            return clipArea;
+        }
+        return new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, getSize());
+    }
+
+    @Override
+    public DefaultTextGUIGraphics newClippedTextGraphics(TerminalRectangle clipArea) {
+        TerminalRectangle newClipArea = getClipArea().intersection(clipArea);
+        return new DefaultTextGUIGraphics(textGUI, new ClippedTextGraphics(backend, newClipArea), newClipArea);
     }
 
     @Override
@@ -106,18 +132,34 @@ public class DefaultTextGUIGraphics implements TextGUIGraphics {
 
     @Override
     public DefaultTextGUIGraphics fill(char c) {
-        backend.fill(c);
+        if(clipArea != null) {
+            // Only fill what's inside the clip area instead of going through every character of the whole area
+            backend.fillRectangle(clipArea.getTopLeft(), clipArea.getSize(), c);
+        }
+        else {
+            backend.fill(c);
+        }
         return this;
     }
 
     @Override
     public DefaultTextGUIGraphics fillRectangle(TerminalPosition topLeft, TerminalSize size, char character) {
+        if(clipArea != null) {
+            TerminalRectangle area = clipArea.intersection(new TerminalRectangle(topLeft, size));
+            topLeft = area.getTopLeft();
+            size = area.getSize();
+        }
         backend.fillRectangle(topLeft, size, character);
         return this;
     }
 
     @Override
     public DefaultTextGUIGraphics fillRectangle(TerminalPosition topLeft, TerminalSize size, TextCharacter character) {
+        if(clipArea != null) {
+            TerminalRectangle area = clipArea.intersection(new TerminalRectangle(topLeft, size));
+            topLeft = area.getTopLeft();
+            size = area.getSize();
+        }
         backend.fillRectangle(topLeft, size, character);
         return this;
     }
@@ -260,6 +302,24 @@ public class DefaultTextGUIGraphics implements TextGUIGraphics {
         return this;
     }
 
+    @Override
+    public DefaultTextGUIGraphics putRun(int column, int row, CharSequence text, TextStyle style) {
+        backend.putRun(column, row, text, style);
+        return this;
+    }
+
+    @Override
+    public DefaultTextGUIGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        backend.putRun(column, row, text, start, end, style);
+        return this;
+    }
+
+    @Override
+    public DefaultTextGUIGraphics fillRow(int column, int row, int length, TextCharacter character) {
+        backend.fillRow(column, row, length, character);
+        return this;
+    }
+
     @Override
     public TextCharacter getCharacter(int column, int row) {
         return backend.getCharacter(column, row);
@@ -0,0 +1,339 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import com.googlecode.lanterna.screen.Screen;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.Terminal;
+import com.googlecode.lanterna.terminal.TerminalResizeListener;
+import com.googlecode.lanterna.terminal.ansi.NIOTelnetTerminal;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of TextGUIThread that runs the GUI event processing on a dedicated thread, like
+ * {@link SeparateTextGUIThread}, but instead of polling for work every millisecond it sleeps until there is something
+ * to do. The GUI thread is woken up when:
+ * <ul>
+ *     <li>Input arrives from the terminal</li>
+ *     <li>A task is scheduled through {@code invokeLater(..)} or {@code invokeAndWait(..)}</li>
+ *     <li>A component, window or the GUI itself is invalidated from another thread</li>
+ *     <li>The terminal is resized (if the GUI is using a {@link TerminalScreen})</li>
+ * </ul>
+ * An idle GUI therefore uses no CPU at all, which matters when a single JVM runs many GUIs, for example one per
+ * connection of a telnet server. If you change the state of the GUI from another thread in some other way that should
+ * cause a redraw, call {@link #wakeUp()} afterwards.
+ * <p>
+ * Input is read by a second daemon thread which blocks on the screen and hands each {@code KeyStroke} over to the GUI
+ * thread, so input handling still happens on the GUI thread only. Because a blocking read can't be cancelled, this input
+ * thread will stay blocked after the GUI has been stopped until one more key (or EOF) arrives, and that key is then
+ * discarded. This requires the {@code TextGUI} to extend {@link AbstractTextGUI}, for other implementations the thread
+ * falls back to checking for input every millisecond. When the GUI is running on a {@link NIOTelnetTerminal}, no input
+ * thread is needed at all; the terminal tells us when there is input to read.
+ * <p>
+ * Here is an example of how to use this {@code TextGUIThread}:
+ * <pre>
+ *     {@code
+ *     MultiWindowTextGUI textGUI = new MultiWindowTextGUI(new EventDrivenTextGUIThread.Factory(), screen);
+ *     // ... add components ...
+ *     ((AsynchronousTextGUIThread)textGUI.getGUIThread()).start();
+ *     // ... this thread will continue while the GUI runs on a separate thread ...
+ *     }
+ * </pre>
+ * @see TextGUIThread
+ * @see SeparateTextGUIThread
+ * @author Martin
+ */
+public class EventDrivenTextGUIThread extends AbstractTextGUIThread implements AsynchronousTextGUIThread {
+    private volatile State state;
+    private final Thread textGUIThread;
+    private final Thread inputThread;
+    private final CountDownLatch waitLatch;
+    private final BlockingQueue<KeyStroke> inputQueue;
+    private final TerminalResizeListener resizeListener;
+    private final Runnable inputListener;
+    private final boolean pollForInput;
+    private final Object wakeUpLock;
+    private boolean wakeUpPending;  // Guarded by wakeUpLock
+
+    private EventDrivenTextGUIThread(TextGUI textGUI) {
+        super(textGUI);
+        this.waitLatch = new CountDownLatch(1);
+        this.inputQueue = new LinkedBlockingQueue<>();
+        this.wakeUpLock = new Object();
+        this.wakeUpPending = false;
+        this.resizeListener = new TerminalResizeListener() {
+            @Override
+            public void onResized(Terminal terminal, TerminalSize newSize) {
+                wakeUp();
+            }
+        };
+        this.inputListener = this::wakeUp;
+        this.textGUIThread = new Thread("LanternaGUI") {
+            @Override
+            public void run() {
+                mainGUILoop();
+            }
+        };
+        if(getNIOTelnetTerminal() != null) {
+            this.inputThread = null;
+            this.pollForInput = false;
+        }
+        else if(textGUI instanceof AbstractTextGUI) {
+            this.pollForInput = false;
+            this.inputThread = new Thread("LanternaGUI-input") {
+                @Override
+                public void run() {
+                    inputLoop();
+                }
+            };
+            this.inputThread.setDaemon(true);
+        }
+        else {
+            this.inputThread = null;
+            this.pollForInput = true;
+        }
+        state = State.CREATED;
+    }
+
+    @Override
+    public void start() {
+        state = State.STARTED;
+        Screen screen = textGUI.getScreen();
+        if(screen instanceof TerminalScreen) {
+            ((TerminalScreen)screen).getTerminal().addResizeListener(resizeListener);
+        }
+        NIOTelnetTerminal telnetTerminal = getNIOTelnetTerminal();
+        if(telnetTerminal != null) {
+            telnetTerminal.addInputListener(inputListener);
+        }
+        if(inputThread != null) {
+            ((AbstractTextGUI)textGUI).setInputQueue(inputQueue);
+            inputThread.start();
+        }
+        textGUIThread.start();
+    }
+
+    @Override
+    public void stop() {
+        if(state != State.STARTED) {
+            return;
+        }
+
+        state = State.STOPPING;
+        wakeUp();
+    }
+
+    @Override
+    public void waitForStop() throws InterruptedException {
+        waitLatch.await();
+    }
+
+    @Override
+    public void waitForStop(long time, TimeUnit unit) throws InterruptedException {
+        waitLatch.await(time, unit);
+    }
+
+    @Override
+    public State getState() {
+        return state;
+    }
+
+    @Override
+    public Thread getThread() {
+        return textGUIThread;
+    }
+
+    @Override
+    public void invokeLater(Runnable runnable) throws IllegalStateException {
+        if(state != State.STARTED) {
+            throw new IllegalStateException("Cannot schedule " + runnable + " for execution on the TextGUIThread " +
+                    "because the thread is in " + state + " state");
+        }
+        super.invokeLater(runnable);
+        wakeUp();
+    }
+
+    /**
+     * Wakes up the GUI thread if it is sleeping, so that it checks for input, scheduled tasks and if the GUI needs to be
+     * redrawn. This is done automatically for everything listed in the class description, call this method if you have
+     * changed something else from outside the GUI thread that should make the GUI redraw.
+     */
+    public void wakeUp() {
+        synchronized(wakeUpLock) {
+            wakeUpPending = true;
+            wakeUpLock.notifyAll();
+        }
+    }
+
+    /**
+     * Blocks the calling thread until {@link #wakeUp()} has been called since the last time this method returned. This
+     * is used by the GUI thread itself, both in its main loop and when it runs a nested event loop while waiting for a
+     * modal window to close.
+     */
+    void waitForWakeUp() {
+        synchronized(wakeUpLock) {
+            if(pollForInput && !wakeUpPending) {
+                // No input thread to wake us up, fall back to checking for input regularly
+                try {
+                    wakeUpLock.wait(1);
+                }
+                catch(InterruptedException ignored) {}
+            }
+            while(!wakeUpPending && !pollForInput) {
+                try {
+                    wakeUpLock.wait();
+                }
+                catch(InterruptedException ignored) {}
+            }
+            wakeUpPending = false;
+        }
+    }
+
+    /**
+     * Wakes up the GUI thread of a text GUI if it's an {@code EventDrivenTextGUIThread} and this isn't called on the GUI
+     * thread itself, which will check if the GUI needs to be redrawn anyway before going back to sleep. This is called
+     * when something is invalidated.
+     * @param textGUI Text GUI that was invalidated, can be {@code null}
+     */
+    static void onInvalidated(TextGUI textGUI) {
+        if(textGUI == null) {
+            return;
+        }
+        TextGUIThread guiThread = textGUI.getGUIThread();
+        if(guiThread instanceof EventDrivenTextGUIThread && guiThread.getThread() != Thread.currentThread()) {
+            ((EventDrivenTextGUIThread)guiThread).wakeUp();
+        }
+    }
+
+    private NIOTelnetTerminal getNIOTelnetTerminal() {
+        Screen screen = textGUI.getScreen();
+        if(screen instanceof TerminalScreen && ((TerminalScreen)screen).getTerminal() instanceof NIOTelnetTerminal) {
+            return (NIOTelnetTerminal)((TerminalScreen)screen).getTerminal();
+        }
+        return null;
+    }
+
+    private void inputLoop() {
+        Screen screen = textGUI.getScreen();
+        while(state == State.STARTED) {
+            try {
+                KeyStroke keyStroke = screen.readInput();
+                if(keyStroke == null) {
+                    continue;
+                }
+                if(state != State.STARTED) {
+                    break;
+                }
+                inputQueue.add(keyStroke);
+                wakeUp();
+                if(keyStroke.getKeyType() == KeyType.EOF) {
+                    break;
+                }
+            }
+            catch(IOException e) {
+                if(exceptionHandler.onIOException(e)) {
+                    stop();
+                    break;
+                }
+            }
+            catch(RuntimeException e) {
+                if(exceptionHandler.onRuntimeException(e)) {
+                    stop();
+                    break;
+                }
+            }
+        }
+    }
+
+    private void mainGUILoop() {
+        try {
+            //Draw initial screen, after this only draw when the GUI is marked as invalid
+            try {
+                textGUI.updateScreen();
+            }
+            catch(IOException e) {
+                exceptionHandler.onIOException(e);
+            }
+            catch(RuntimeException e) {
+                exceptionHandler.onRuntimeException(e);
+            }
+            while(state == State.STARTED) {
+                try {
+                    if (!processEventsAndUpdate()) {
+                        waitForWakeUp();
+                    }
+                }
+                catch(EOFException e) {
+                    stop();
+                    if (textGUI instanceof WindowBasedTextGUI) {
+                        // Close all windows on EOF
+                        for (Window window: ((WindowBasedTextGUI) textGUI).getWindows()) {
+                            window.close();
+                        }
+                    }
+                    break; //Break out quickly from the main loop
+                }
+                catch(IOException e) {
+                    if(exceptionHandler.onIOException(e)) {
+                        stop();
+                        break;
+                    }
+                }
+                catch(RuntimeException e) {
+                    if(exceptionHandler.onRuntimeException(e)) {
+                        stop();
+                        break;
+                    }
+                }
+            }
+        }
+        finally {
+            Screen screen = textGUI.getScreen();
+            if(screen instanceof TerminalScreen) {
+                ((TerminalScreen)screen).getTerminal().removeResizeListener(resizeListener);
+            }
+            NIOTelnetTerminal telnetTerminal = getNIOTelnetTerminal();
+            if(telnetTerminal != null) {
+                telnetTerminal.removeInputListener(inputListener);
+            }
+            state = State.STOPPED;
+            waitLatch.countDown();
+        }
+    }
+
+
+    /**
+     * Factory class for creating EventDrivenTextGUIThread objects
+     */
+    public static class Factory implements TextGUIThreadFactory {
+        @Override
+        public TextGUIThread createTextGUIThread(TextGUI textGUI) {
+            return new EventDrivenTextGUIThread(textGUI);
+        }
+    }
+}
@@ -0,0 +1,806 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.AnimationScheduler;
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TerminalTextUtils;
+import com.googlecode.lanterna.graphics.ThemeDefinition;
+import com.googlecode.lanterna.input.KeyStroke;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read-only component that shows the content of a text file, meant for log files and other files that are much larger
+ * than what you would want to load into a {@code TextBox}. The file is read a piece at a time instead of into the heap and
+ * a background thread indexes where the lines start, so the viewer can be shown right away and the line count grows
+ * as the indexing goes on. Only the lines in view are decoded when the component is drawn.
+ * <p>
+ * Apart from scrolling with the arrow keys, page up/down, home and end, these keys are recognized while the viewer has
+ * focus:
+ * <ul>
+ *     <li>{@code /} and {@code ?} start an incremental search forward and backward; the view moves to the first match
+ *     while you type, enter accepts it and escape goes back to where the search started. Matches are shown in
+ *     reverse and if there are none the search prompt is shown in reverse instead. A search in lower case ignores the
+ *     case of ASCII letters.</li>
+ *     <li>{@code n} and {@code N} go to the next and previous match of the last search</li>
+ *     <li>{@code :} followed by a line number and enter jumps to that line</li>
+ *     <li>{@code F} toggles following the end of the file, like {@code tail -f}; the file isn't checked for new lines
+ *     while the window holding the viewer is hidden</li>
+ * </ul>
+ * Searches run on a background thread of the viewer's own, one at a time; starting a new search cancels the one
+ * running. The file is kept open until {@link #close()} is called.
+ * @author Martin
+ */
+public class FileViewer extends AbstractInteractableComponent<FileViewer> implements Closeable {
+    private static final long FOLLOW_INTERVAL_MILLIS = 500;
+
+    private final IndexedTextFile file;
+    private final Charset charset;
+    private final AtomicInteger searchGeneration;
+    private final ExecutorService searchWorker;
+
+    private volatile IOException readError;
+    private int topLine;
+    private int leftColumn;
+    private boolean following;
+    private AnimationScheduler.Animation followAnimation;
+    private String searchQuery;
+    private boolean searchForward;
+    private boolean searchFailed;
+    private long matchOffset;
+    private int matchLine;
+    private StringBuilder promptInput;
+    private char promptCharacter;
+    private int promptOriginLine;
+    private boolean promptOriginFollowing;
+    private String promptOriginQuery;
+
+    /**
+     * Creates a viewer for a UTF-8 encoded file
+     * @param file File to show
+     * @throws IOException If the file couldn't be opened
+     */
+    public FileViewer(File file) throws IOException {
+        this(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates a viewer for a file in a specific character set. Only character sets where a line feed is encoded as a
+     * single byte, like UTF-8, ISO-8859-1 and other ASCII-compatible character sets, are supported.
+     * @param file File to show
+     * @param charset Character set of the file
+     * @throws IOException If the file couldn't be opened
+     * @throws IllegalArgumentException If the character set doesn't encode a line feed as a single byte
+     */
+    public FileViewer(File file, Charset charset) throws IOException {
+        this.file = new IndexedTextFile(file, charset, this::invalidate);
+        this.charset = charset;
+        this.searchGeneration = new AtomicInteger();
+        this.searchWorker = IndexedTextFile.newWorker("LanternaFileViewerSearch");
+        this.readError = null;
+        this.topLine = 0;
+        this.leftColumn = 0;
+        this.following = false;
+        this.followAnimation = null;
+        this.searchQuery = "";
+        this.searchForward = true;
+        this.searchFailed = false;
+        this.matchOffset = -1;
+        this.matchLine = -1;
+        this.promptInput = null;
+    }
+
+    @Override
+    protected InteractableRenderer<FileViewer> createDefaultRenderer() {
+        return new DefaultFileViewerRenderer();
+    }
+
+    /**
+     * Returns the number of lines in the file. While the file is still being indexed, this is the number of lines found
+     * so far.
+     * @return Number of lines in the file
+     */
+    public int getLineCount() {
+        return file.getLineCount();
+    }
+
+    /**
+     * Returns {@code true} while the file is being indexed in the background, either because it was just opened or
+     * because more data was appended to it while following
+     * @return {@code true} if the file is being indexed
+     */
+    public boolean isIndexing() {
+        return file.isIndexing();
+    }
+
+    /**
+     * Returns the length of the longest line found so far, counted in bytes and capped at 64 KB. Lines longer than
+     * that are cut off when shown.
+     * @return Length of the longest line found so far
+     */
+    public int getLongestLine() {
+        return file.getLongestLine();
+    }
+
+    /**
+     * Returns the error from the last attempt to read lines from the file, or if that went fine, the error that stopped
+     * the indexing of the file. The renderer shows this instead of the lines. Errors can be temporary, like when the
+     * file has just been truncated, so reading is tried again every time the viewer is drawn.
+     * @return The error or {@code null} if there is none
+     */
+    public IOException getError() {
+        IOException error = readError;
+        return error != null ? error : file.getIndexingError();
+    }
+
+    /**
+     * Decodes lines of the file, ready to be drawn: tabs are expanded to the next multiple of eight columns and other
+     * control characters are replaced with {@code '?'}. If the file can't be read, no lines are returned and
+     * {@link #getError()} tells why.
+     * @param firstLine Index of the first line to return
+     * @param count Maximum number of lines to return
+     * @return The lines, fewer than {@code count} if the file ends before that
+     */
+    public List<String> getLines(int firstLine, int count) {
+        List<String> lines;
+        try {
+            lines = file.getLines(firstLine, count);
+            readError = null;
+        }
+        catch(IOException e) {
+            readError = e;
+            // If the file has shrunk, this starts reading it over
+            refreshFile();
+            return new ArrayList<>();
+        }
+        for(int i = 0; i < lines.size(); i++) {
+            lines.set(i, toDisplayText(lines.get(i)));
+        }
+        return lines;
+    }
+
+    /**
+     * Returns the index of the first line in view
+     * @return Index of the first line in view
+     */
+    public synchronized int getTopLine() {
+        int maxTopLine = Math.max(0, file.getLineCount() - getViewRows());
+        if(following) {
+            return maxTopLine;
+        }
+        return Math.min(topLine, maxTopLine);
+    }
+
+    /**
+     * Scrolls the view so that a line is at the top, or as close to the top as possible. If the line hasn't been
+     * indexed yet, the view keeps moving down while the indexing goes on until the line is reached. This turns off
+     * following the end of the file.
+     * @param line Index of the line to jump to
+     * @return Itself
+     */
+    public synchronized FileViewer jumpToLine(int line) {
+        following = false;
+        topLine = Math.max(0, line);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Returns the first column in view, which is larger than zero if the view has been scrolled horizontally
+     * @return Index of the first column in view
+     */
+    public synchronized int getLeftColumn() {
+        return leftColumn;
+    }
+
+    /**
+     * Returns {@code true} if the view is following the end of the file
+     * @return {@code true} if the view is following the end of the file
+     */
+    public synchronized boolean isFollowing() {
+        return following;
+    }
+
+    /**
+     * Turns following the end of the file on or off. While following, the file is checked for new data twice a
+     * second and the view is kept at the last lines, like {@code tail -f}. If the file shrinks, as it does when a log
+     * file is rotated by truncating it, it's read again from the start. Scrolling up stops following.
+     * @param following {@code true} to follow the end of the file
+     * @return Itself
+     */
+    public synchronized FileViewer setFollowing(boolean following) {
+        this.following = following;
+        if(following) {
+            refreshFile();
+            startFollowing();
+        }
+        else {
+            stopFollowing();
+        }
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Returns the text that was last searched for, or what is being typed in the search prompt. The renderer highlights
+     * where this appears in view.
+     * @return Current search text, empty if there is none
+     */
+    public synchronized String getSearchQuery() {
+        return searchQuery;
+    }
+
+    /**
+     * Returns what to show in the prompt at the bottom of the component, which is the search text or line number being
+     * typed after {@code /}, {@code ?} or {@code :}
+     * @return Prompt text, or {@code null} if no prompt is open
+     */
+    public synchronized String getPrompt() {
+        if(promptInput == null) {
+            return null;
+        }
+        return promptCharacter + promptInput.toString();
+    }
+
+    /**
+     * Returns {@code true} if the last search didn't find anything
+     * @return {@code true} if the last search didn't find anything
+     */
+    public synchronized boolean isSearchFailed() {
+        return searchFailed;
+    }
+
+    /**
+     * Searches forward from the top of the view for a text. The search runs in the background and scrolls the view
+     * to the first match it finds, if the match isn't already in view. Only the part of the file that has been indexed
+     * is searched.
+     * @param query Text to search for, if it's all lower case the case of ASCII letters is ignored
+     * @return Itself
+     */
+    public synchronized FileViewer search(String query) {
+        searchQuery = query;
+        searchForward = true;
+        startSearch(getTopLineStart(), true);
+        return this;
+    }
+
+    /**
+     * Searches for the next match of the last search, in the same direction as that search. The search starts after the
+     * current match if it's in view, otherwise from the top of the view.
+     * @return Itself
+     */
+    public synchronized FileViewer findNext() {
+        return findMatch(searchForward);
+    }
+
+    /**
+     * Searches for the next match of the last search, in the opposite direction of that search
+     * @return Itself
+     */
+    public synchronized FileViewer findPrevious() {
+        return findMatch(!searchForward);
+    }
+
+    /**
+     * Stops following the file and closes it, the viewer can't show any more lines after this
+     * @throws IOException If there was an error closing the file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        stopFollowing();
+        searchGeneration.incrementAndGet();
+        searchWorker.shutdown();
+        file.close();
+    }
+
+    @Override
+    public synchronized void onAdded(Container container) {
+        super.onAdded(container);
+        if(following) {
+            startFollowing();
+        }
+    }
+
+    @Override
+    public synchronized void onRemoved(Container container) {
+        stopFollowing();
+        super.onRemoved(container);
+    }
+
+    @Override
+    protected synchronized void onBeforeDrawing() {
+        if(followAnimation != null && followAnimation.isPaused()) {
+            followAnimation.resume();
+        }
+    }
+
+    @Override
+    public Result handleKeyStroke(KeyStroke keyStroke) {
+        if(promptInput != null) {
+            return handlePromptKeyStroke(keyStroke);
+        }
+        switch(keyStroke.getKeyType()) {
+            case ArrowUp:
+                scrollBy(-1);
+                return Result.HANDLED;
+            case ArrowDown:
+                scrollBy(1);
+                return Result.HANDLED;
+            case PageUp:
+                scrollBy(-getViewRows());
+                return Result.HANDLED;
+            case PageDown:
+                scrollBy(getViewRows());
+                return Result.HANDLED;
+            case ArrowLeft:
+                leftColumn = Math.max(0, leftColumn - 1);
+                return Result.HANDLED;
+            case ArrowRight:
+                leftColumn = Math.min(leftColumn + 1, Math.max(0, file.getLongestLine() - 1));
+                return Result.HANDLED;
+            case Home:
+                jumpToLine(0);
+                return Result.HANDLED;
+            case End:
+                refreshFile();
+                topLine = Math.max(0, file.getLineCount() - getViewRows());
+                return Result.HANDLED;
+            case Character:
+                if(keyStroke.isCtrlDown() || keyStroke.isAltDown()) {
+                    break;
+                }
+                switch(keyStroke.getCharacter()) {
+                    case '/':
+                    case '?':
+                    case ':':
+                        openPrompt(keyStroke.getCharacter());
+                        return Result.HANDLED;
+                    case 'n':
+                        findNext();
+                        return Result.HANDLED;
+                    case 'N':
+                        findPrevious();
+                        return Result.HANDLED;
+                    case 'F':
+                        setFollowing(!following);
+                        return Result.HANDLED;
+                    default:
+                }
+                break;
+            default:
+        }
+        return super.handleKeyStroke(keyStroke);
+    }
+
+    private Result handlePromptKeyStroke(KeyStroke keyStroke) {
+        switch(keyStroke.getKeyType()) {
+            case Character:
+                char character = keyStroke.getCharacter();
+                if(promptCharacter == ':' && (character < '0' || character > '9')) {
+                    return Result.HANDLED;
+                }
+                promptInput.append(character);
+                break;
+            case Backspace:
+                if(promptInput.length() > 0) {
+                    promptInput.setLength(promptInput.length() - 1);
+                }
+                break;
+            case Enter:
+                if(promptCharacter == ':' && promptInput.length() > 0) {
+                    long line = promptInput.length() > 10 ? Integer.MAX_VALUE : Long.parseLong(promptInput.toString());
+                    jumpToLine((int)Math.min(Integer.MAX_VALUE, line) - 1);
+                }
+                promptInput = null;
+                return Result.HANDLED;
+            case Escape:
+                if(promptCharacter != ':') {
+                    searchGeneration.incrementAndGet();
+                    searchQuery = promptOriginQuery;
+                    searchFailed = false;
+                    matchOffset = -1;
+                    topLine = promptOriginLine;
+                    following = promptOriginFollowing;
+                }
+                promptInput = null;
+                return Result.HANDLED;
+            default:
+                return Result.HANDLED;
+        }
+        if(promptCharacter != ':') {
+            searchQuery = promptInput.toString();
+            topLine = promptOriginLine;
+            following = false;
+            startSearch(getLineStart(promptOriginLine), searchForward);
+        }
+        return Result.HANDLED;
+    }
+
+    private void openPrompt(char character) {
+        promptInput = new StringBuilder();
+        promptCharacter = character;
+        promptOriginLine = getTopLine();
+        promptOriginFollowing = following;
+        promptOriginQuery = searchQuery;
+        if(character != ':') {
+            searchForward = character == '/';
+        }
+        invalidate();
+    }
+
+    private int getViewRows() {
+        return Math.max(1, getSize().getRows() - (promptInput != null ? 1 : 0));
+    }
+
+    private void scrollBy(int lines) {
+        int currentTopLine = getTopLine();
+        if(lines < 0) {
+            following = false;
+        }
+        topLine = (int)Math.max(0, Math.min(Integer.MAX_VALUE, (long)currentTopLine + lines));
+        invalidate();
+    }
+
+    private FileViewer findMatch(boolean forward) {
+        long from;
+        int currentTopLine = getTopLine();
+        if(matchOffset >= 0 && matchLine >= currentTopLine && matchLine < currentTopLine + getViewRows()) {
+            from = forward ? matchOffset + 1 : matchOffset;
+        }
+        else {
+            from = getTopLineStart();
+        }
+        startSearch(from, forward);
+        return this;
+    }
+
+    private void startSearch(final long from, final boolean forward) {
+        final int generation = searchGeneration.incrementAndGet();
+        final String query = searchQuery;
+        searchFailed = false;
+        invalidate();
+        if(query.isEmpty()) {
+            matchOffset = -1;
+            return;
+        }
+        if(searchWorker.isShutdown()) {
+            return;
+        }
+        final boolean ignoreCase = isIgnoringCase(query);
+        final byte[] pattern = query.getBytes(charset);
+        searchWorker.execute(() -> {
+            if(searchGeneration.get() != generation) {
+                // Replaced by a later search before it got started
+                return;
+            }
+            long match;
+            try {
+                match = file.find(pattern, ignoreCase, from, forward, () -> searchGeneration.get() != generation);
+            }
+            catch(IOException e) {
+                match = -1;
+            }
+            onSearchFinished(generation, match);
+        });
+    }
+
+    private synchronized void onSearchFinished(int generation, long match) {
+        if(generation != searchGeneration.get()) {
+            return;
+        }
+        if(match < 0) {
+            searchFailed = true;
+        }
+        else {
+            int line;
+            try {
+                line = file.getLineOfOffset(match);
+            }
+            catch(IOException e) {
+                searchFailed = true;
+                invalidate();
+                return;
+            }
+            matchOffset = match;
+            matchLine = line;
+            int currentTopLine = getTopLine();
+            if(line < currentTopLine || line >= currentTopLine + getViewRows()) {
+                following = false;
+                topLine = line;
+            }
+        }
+        invalidate();
+    }
+
+    private long getTopLineStart() {
+        return getLineStart(getTopLine());
+    }
+
+    private long getLineStart(int line) {
+        if(line >= file.getLineCount()) {
+            return file.getIndexedLength();
+        }
+        try {
+            return file.getLineStart(line);
+        }
+        catch(IOException e) {
+            readError = e;
+            return 0;
+        }
+    }
+
+    private void refreshFile() {
+        try {
+            file.refresh();
+        }
+        catch(IOException ignore) {
+            // Keep showing what we have, we'll try again the next time
+        }
+    }
+
+    private void startFollowing() {
+        if(followAnimation == null) {
+            FollowTask followTask = new FollowTask(this);
+            followAnimation = AnimationScheduler.getDefault().schedule(followTask, FOLLOW_INTERVAL_MILLIS);
+            followTask.animation = followAnimation;
+        }
+    }
+
+    private void stopFollowing() {
+        if(followAnimation != null) {
+            followAnimation.cancel();
+            followAnimation = null;
+        }
+    }
+
+    private synchronized void pauseFollowing() {
+        if(followAnimation != null) {
+            followAnimation.pause();
+            // The window may have been shown and drawn since the task looked, then nothing else would resume it
+            if(isShown()) {
+                followAnimation.resume();
+            }
+        }
+    }
+
+    private boolean isShown() {
+        BasePane basePane = getBasePane();
+        if(basePane instanceof Window) {
+            Window window = (Window)basePane;
+            return window.isVisible() && window.getTextGUI() != null;
+        }
+        return true;
+    }
+
+    private static boolean isIgnoringCase(String query) {
+        for(int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if(c >= 'A' && c <= 'Z') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(String line, String query, int fromIndex, boolean ignoreCase) {
+        if(!ignoreCase) {
+            return line.indexOf(query, fromIndex);
+        }
+        for(int i = fromIndex; i <= line.length() - query.length(); i++) {
+            if(line.regionMatches(true, i, query, 0, query.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String toDisplayText(String line) {
+        StringBuilder bob = null;
+        for(int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if(c < ' ' || c == 0x7f) {
+                if(bob == null) {
+                    bob = new StringBuilder(line.length() + 16).append(line, 0, i);
+                }
+                if(c == '\t') {
+                    do {
+                        bob.append(' ');
+                    }
+                    while(bob.length() % 8 != 0);
+                }
+                else {
+                    bob.append('?');
+                }
+            }
+            else if(bob != null) {
+                bob.append(c);
+            }
+        }
+        return bob == null ? line : bob.toString();
+    }
+
+    private static class FollowTask implements Runnable {
+        // The task doesn't keep the viewer from being garbage collected
+        private final WeakReference<FileViewer> viewerRef;
+        private volatile AnimationScheduler.Animation animation;
+
+        private FollowTask(FileViewer viewer) {
+            this.viewerRef = new WeakReference<>(viewer);
+        }
+
+        @Override
+        public void run() {
+            FileViewer viewer = viewerRef.get();
+            if(viewer == null) {
+                if(animation != null) {
+                    animation.cancel();
+                }
+            }
+            else if(!viewer.isShown()) {
+                // Polling resumes when the viewer is drawn again
+                viewer.pauseFollowing();
+            }
+            else {
+                viewer.refreshFile();
+            }
+        }
+    }
+
+    /**
+     * This is the default file viewer renderer that is used if you don't override anything. It fills the component
+     * with the theme style of a read-only {@code TextBox}, draws the lines in view on top of it with the matches of the
+     * current search in reverse and adds a vertical scrollbar when the file has more lines than fit. If a prompt is
+     * open, it takes up the bottom row. An error reading the file is shown in reverse below the lines.
+     */
+    public static class DefaultFileViewerRenderer implements InteractableRenderer<FileViewer> {
+        private static final TerminalSize PREFERRED_SIZE = new TerminalSize(80, 24);
+
+        private final ScrollBar verticalScrollBar;
+
+        /**
+         * Default constructor
+         */
+        public DefaultFileViewerRenderer() {
+            verticalScrollBar = new ScrollBar(Direction.VERTICAL);
+        }
+
+        @Override
+        public TerminalPosition getCursorLocation(FileViewer component) {
+            String prompt = component.getPrompt();
+            if(prompt == null) {
+                return null;
+            }
+            TerminalSize size = component.getSize();
+            return new TerminalPosition(
+                    Math.min(TerminalTextUtils.getColumnWidth(prompt), size.getColumns() - 1),
+                    size.getRows() - 1);
+        }
+
+        @Override
+        public TerminalSize getPreferredSize(FileViewer component) {
+            return PREFERRED_SIZE;
+        }
+
+        @Override
+        public void drawComponent(TextGUIGraphics graphics, FileViewer component) {
+            TerminalSize size = graphics.getSize();
+            if(size.getRows() == 0 || size.getColumns() == 0) {
+                return;
+            }
+            ThemeDefinition themeDefinition = component.getThemeDefinition();
+            if(component.isFocused()) {
+                graphics.applyThemeStyle(themeDefinition.getSelected());
+            }
+            else {
+                graphics.applyThemeStyle(themeDefinition.getInsensitive());
+            }
+            graphics.fill(themeDefinition.getCharacter("FILL", ' '));
+
+            String prompt = component.getPrompt();
+            int textRows = size.getRows() - (prompt != null ? 1 : 0);
+            int textColumns = size.getColumns();
+            int lineCount = component.getLineCount();
+            boolean drawVerticalScrollBar = lineCount > textRows && textRows > 0 && textColumns > 1;
+            if(drawVerticalScrollBar) {
+                textColumns--;
+            }
+
+            int topLine = component.getTopLine();
+            int leftColumn = component.getLeftColumn();
+            String query = component.getSearchQuery();
+            boolean ignoreCase = isIgnoringCase(query);
+            List<String> lines = component.getLines(topLine, textRows);
+            for(int row = 0; row < lines.size(); row++) {
+                String line = lines.get(row);
+                graphics.putString(0, row, TerminalTextUtils.fitString(line, leftColumn, textColumns));
+                if(!query.isEmpty()) {
+                    drawMatches(graphics, row, line, query, ignoreCase, leftColumn, textColumns);
+                }
+            }
+
+            IOException error = component.getError();
+            if(error != null && textRows > 0) {
+                graphics.enableModifiers(SGR.REVERSE);
+                graphics.putString(0, Math.min(lines.size(), textRows - 1), TerminalTextUtils.fitString(
+                        "Cannot read the file: " + error.getMessage(), textColumns));
+                graphics.disableModifiers(SGR.REVERSE);
+            }
+
+            if(prompt != null) {
+                if(component.isSearchFailed()) {
+                    graphics.enableModifiers(SGR.REVERSE);
+                }
+                graphics.putString(0, size.getRows() - 1, TerminalTextUtils.fitString(prompt, size.getColumns()));
+                graphics.disableModifiers(SGR.REVERSE);
+            }
+
+            if(drawVerticalScrollBar) {
+                verticalScrollBar.onAdded(component.getParent());
+                verticalScrollBar.setViewSize(textRows);
+                verticalScrollBar.setScrollMaximum(lineCount);
+                verticalScrollBar.setScrollPosition(topLine);
+                verticalScrollBar.draw(graphics.newTextGraphics(
+                        new TerminalPosition(size.getColumns() - 1, 0),
+                        new TerminalSize(1, textRows)));
+            }
+        }
+
+        private void drawMatches(
+                TextGUIGraphics graphics,
+                int row,
+                String line,
+                String query,
+                boolean ignoreCase,
+                int leftColumn,
+                int textColumns) {
+
+            int index = indexOf(line, query, 0, ignoreCase);
+            int column = 0;
+            int columnIndex = 0;
+            while(index >= 0) {
+                column += TerminalTextUtils.getColumnWidth(line.substring(columnIndex, index));
+                int endColumn = column + TerminalTextUtils.getColumnWidth(line.substring(index, index + query.length()));
+                if(column >= leftColumn + textColumns) {
+                    break;
+                }
+                int fromColumn = Math.max(column, leftColumn);
+                if(endColumn > fromColumn) {
+                    graphics.enableModifiers(SGR.REVERSE);
+                    graphics.putString(fromColumn - leftColumn, row, TerminalTextUtils.fitString(
+                            line, fromColumn, Math.min(endColumn, leftColumn + textColumns) - fromColumn));
+                    graphics.disableModifiers(SGR.REVERSE);
+                }
+                columnIndex = index;
+                index = indexOf(line, query, index + query.length(), ignoreCase);
+            }
+        }
+    }
+}
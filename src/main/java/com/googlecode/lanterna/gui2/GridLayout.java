@@ -33,6 +33,10 @@ import java.util.*;
  * components, you assign {@code LayoutData} to these components using the different static methods in this class
  * ({@code createLayoutData(..)}). You can set components to span both rows and columns, as well as defining how to
  * distribute the available space.
+ * <p>
+ * The layout remembers what it worked out for the components it was last asked about and only looks at what has changed
+ * since then, so give each container its own {@code GridLayout}. An instance shared by several containers still lays
+ * them out correctly, but has to start over every time it goes from one container to another.
  */
 public class GridLayout implements LayoutManager {
     /**
@@ -231,6 +235,26 @@ public class GridLayout implements LayoutManager {
 
     private boolean changed;
 
+    // What was worked out from the components the last time we looked at them, so that when only some of them have
+    // changed, we don't have to go through the whole grid again
+    private final LayoutCache layoutCache;
+    private Component[][] table;
+    private Map<Component, TerminalPosition> tableCells;
+    private List<SpanningComponent> horizontallySpanningComponents;
+    private List<SpanningComponent> verticallySpanningComponents;
+    private Set<Integer> expandableColumns;
+    private Set<Integer> expandableRows;
+    private int[] singleSpanColumnWidths;
+    private int[] singleSpanRowHeights;
+    private final Set<Component> componentsChangedSinceLayout;
+
+    // Where the components were placed by the last call to doLayout
+    private TerminalSize laidOutArea;
+    private int[] laidOutColumnWidths;
+    private int[] laidOutRowHeights;
+    private final Map<Component, TerminalPosition> laidOutPositions;
+    private final Map<Component, TerminalSize> laidOutSizes;
+
     /**
      * Creates a new {@code GridLayout} with the specified number of columns. Initially, this layout will have a
      * horizontal spacing of 1 and vertical spacing of 0, with a left and right margin of 1.
@@ -245,6 +269,11 @@ public class GridLayout implements LayoutManager {
         this.leftMarginSize = 1;
         this.rightMarginSize = 1;
         this.changed = true;
+        this.layoutCache = new LayoutCache();
+        this.componentsChangedSinceLayout = Collections.newSetFromMap(new IdentityHashMap<Component, Boolean>());
+        this.laidOutArea = null;
+        this.laidOutPositions = new IdentityHashMap<>();
+        this.laidOutSizes = new IdentityHashMap<>();
     }
 
     /**
@@ -393,16 +422,15 @@ public class GridLayout implements LayoutManager {
                     topMarginSize + bottomMarginSize);
         }
 
-        Component[][] table = buildTable(components);
-        table = eliminateUnusedRowsAndColumns(table);
+        updateCache(components);
 
         //Figure out each column first, this can be done independently of the row heights
         int preferredWidth = 0;
         int preferredHeight = 0;
-        for(int width: getPreferredColumnWidths(table)) {
+        for(int width: getPreferredColumnWidths()) {
             preferredWidth += width;
         }
-        for(int height: getPreferredRowHeights(table)) {
+        for(int height: getPreferredRowHeights()) {
             preferredHeight += height;
         }
         preferredSize = preferredSize.withRelative(preferredWidth, preferredHeight);
@@ -413,29 +441,24 @@ public class GridLayout implements LayoutManager {
 
     @Override
     public void doLayout(TerminalSize area, List<Component> components) {
-        //Sanity check, if the area is way too small, just return
-        Component[][] table = buildTable(components);
-        table = eliminateUnusedRowsAndColumns(table);
+        updateCache(components);
 
+        //Sanity check, if the area is way too small, just return
         if(area.equals(TerminalSize.ZERO) ||
                 table.length == 0 ||
                 area.getColumns() <= leftMarginSize + rightMarginSize + ((table[0].length - 1) * horizontalSpacing) ||
                 area.getRows() <= bottomMarginSize + topMarginSize + ((table.length - 1) * verticalSpacing)) {
+            laidOutArea = null;
             changed = false;
             return;
         }
 
         //Adjust area to the margins
+        TerminalSize fullArea = area;
         area = area.withRelative(-leftMarginSize - rightMarginSize, -topMarginSize - bottomMarginSize);
 
-        Map<Component, TerminalSize> sizeMap = new IdentityHashMap<>();
-        Map<Component, TerminalPosition> positionMap = new IdentityHashMap<>();
-
         //Figure out each column first, this can be done independently of the row heights
-        int[] columnWidths = getPreferredColumnWidths(table);
-
-        //Take notes of which columns we can expand if the usable area is larger than what the components want
-        Set<Integer> expandableColumns = getExpandableColumns(table);
+        int[] columnWidths = getPreferredColumnWidths();
 
         //Next, start shrinking to make sure it fits the size of the area we are trying to lay out on.
         //Notice we subtract the horizontalSpacing to take the space between components into account
@@ -448,156 +471,186 @@ public class GridLayout implements LayoutManager {
         }
 
         //Now repeat for rows
-        int[] rowHeights = getPreferredRowHeights(table);
-        Set<Integer> expandableRows = getExpandableRows(table);
+        int[] rowHeights = getPreferredRowHeights();
         TerminalSize areaWithoutVerticalSpacing = area.withRelativeRows(-verticalSpacing * (table.length - 1));
         int totalHeight = shrinkHeightToFitArea(areaWithoutVerticalSpacing, rowHeights);
         while(areaWithoutVerticalSpacing.getRows() > totalHeight && !expandableRows.isEmpty()) {
             totalHeight = grabExtraVerticalSpace(areaWithoutVerticalSpacing, rowHeights, expandableRows, totalHeight);
         }
 
-        //Ok, all constraints are in place, we can start placing out components. To simplify, do it horizontally first
-        //and vertically after
-        TerminalPosition tableCellTopLeft = TerminalPosition.TOP_LEFT_CORNER;
-        for(int y = 0; y < table.length; y++) {
-            tableCellTopLeft = tableCellTopLeft.withColumn(0);
-            for(int x = 0; x < table[y].length; x++) {
-                Component component = table[y][x];
-                if(component != null && !positionMap.containsKey(component)) {
-                    GridLayoutData layoutData = getLayoutData(component);
-                    TerminalSize size = component.getPreferredSize();
-                    TerminalPosition position = tableCellTopLeft;
-
-                    int availableHorizontalSpace = 0;
-                    int availableVerticalSpace = 0;
-                    for (int i = 0; i < layoutData.horizontalSpan && x + i < columnWidths.length; i++) {
-                        availableHorizontalSpace += columnWidths[x + i] + (i > 0 ? horizontalSpacing : 0);
-                    }
-                    for (int i = 0; i < layoutData.verticalSpan; i++) {
-                        availableVerticalSpace += rowHeights[y + i]  + (i > 0 ? verticalSpacing : 0);
-                    }
-
-                    //Make sure to obey the size restrictions
-                    size = size.withColumns(Math.min(size.getColumns(), availableHorizontalSpace));
-                    size = size.withRows(Math.min(size.getRows(), availableVerticalSpace));
-
-                    switch (layoutData.horizontalAlignment) {
-                        case CENTER:
-                            position = position.withRelativeColumn((availableHorizontalSpace - size.getColumns()) / 2);
-                            break;
-                        case END:
-                            position = position.withRelativeColumn(availableHorizontalSpace - size.getColumns());
-                            break;
-                        case FILL:
-                            size = size.withColumns(availableHorizontalSpace);
-                            break;
-                        default:
-                            break;
-                    }
-                    switch (layoutData.verticalAlignment) {
-                        case CENTER:
-                            position = position.withRelativeRow((availableVerticalSpace - size.getRows()) / 2);
-                            break;
-                        case END:
-                            position = position.withRelativeRow(availableVerticalSpace - size.getRows());
-                            break;
-                        case FILL:
-                            size = size.withRows(availableVerticalSpace);
-                            break;
-                        default:
-                            break;
+        if(!changed &&
+                fullArea.equals(laidOutArea) &&
+                Arrays.equals(columnWidths, laidOutColumnWidths) &&
+                Arrays.equals(rowHeights, laidOutRowHeights)) {
+            //The cells are all the same as last time, so only the components that want a different size now need to be
+            //placed again
+            for(Component component: componentsChangedSinceLayout) {
+                TerminalPosition cell = tableCells.get(component);
+                placeComponent(component, cell.getColumn(), cell.getRow(), getCellTopLeft(cell, columnWidths, rowHeights), columnWidths, rowHeights);
+            }
+        }
+        else {
+            //Ok, all constraints are in place, we can start placing out components. To simplify, do it horizontally
+            //first and vertically after
+            laidOutPositions.clear();
+            laidOutSizes.clear();
+            TerminalPosition tableCellTopLeft = TerminalPosition.TOP_LEFT_CORNER;
+            for(int y = 0; y < table.length; y++) {
+                tableCellTopLeft = tableCellTopLeft.withColumn(0);
+                for(int x = 0; x < table[y].length; x++) {
+                    Component component = table[y][x];
+                    if(component != null && !laidOutPositions.containsKey(component)) {
+                        placeComponent(component, x, y, tableCellTopLeft, columnWidths, rowHeights);
                     }
-
-                    sizeMap.put(component, size);
-                    positionMap.put(component, position);
+                    tableCellTopLeft = tableCellTopLeft.withRelativeColumn(columnWidths[x] + horizontalSpacing);
                 }
-                tableCellTopLeft = tableCellTopLeft.withRelativeColumn(columnWidths[x] + horizontalSpacing);
+                tableCellTopLeft = tableCellTopLeft.withRelativeRow(rowHeights[y] + verticalSpacing);
             }
-            tableCellTopLeft = tableCellTopLeft.withRelativeRow(rowHeights[y] + verticalSpacing);
         }
+        componentsChangedSinceLayout.clear();
+        laidOutArea = fullArea;
+        laidOutColumnWidths = columnWidths;
+        laidOutRowHeights = rowHeights;
 
-        //Apply the margins here
         for(Component component: components) {
-            component.setPosition(positionMap.get(component).withRelative(leftMarginSize, topMarginSize));
-            component.setSize(sizeMap.get(component));
+            TerminalPosition position = laidOutPositions.get(component);
+            TerminalSize size = laidOutSizes.get(component);
+            if(!position.equals(component.getPosition())) {
+                component.setPosition(position);
+            }
+            if(!size.equals(component.getSize())) {
+                component.setSize(size);
+            }
         }
         this.changed = false;
     }
 
-    private int[] getPreferredColumnWidths(Component[][] table) {
-        //actualNumberOfColumns may be different from this.numberOfColumns since some columns may have been eliminated
-        int actualNumberOfColumns = table[0].length;
-        int[] columnWidths = new int[actualNumberOfColumns];
+    private void placeComponent(Component component, int x, int y, TerminalPosition position, int[] columnWidths, int[] rowHeights) {
+        GridLayoutData layoutData = getLayoutData(component);
+        TerminalSize size = layoutCache.getPreferredSize(component);
 
-        //Start by letting all span = 1 columns take what they need
-        for(Component[] row: table) {
-            for(int i = 0; i < actualNumberOfColumns; i++) {
-                Component component = row[i];
-                if(component == null) {
-                    continue;
-                }
-                GridLayoutData layoutData = getLayoutData(component);
-                if (layoutData.horizontalSpan == 1) {
-                    columnWidths[i] = Math.max(columnWidths[i], component.getPreferredSize().getColumns());
-                }
-            }
+        int availableHorizontalSpace = 0;
+        int availableVerticalSpace = 0;
+        for (int i = 0; i < layoutData.horizontalSpan && x + i < columnWidths.length; i++) {
+            availableHorizontalSpace += columnWidths[x + i] + (i > 0 ? horizontalSpacing : 0);
+        }
+        for (int i = 0; i < layoutData.verticalSpan; i++) {
+            availableVerticalSpace += rowHeights[y + i]  + (i > 0 ? verticalSpacing : 0);
         }
 
-        //Next, do span > 1 and enlarge if necessary
-        for(Component[] row: table) {
-            for(int i = 0; i < actualNumberOfColumns; ) {
-                Component component = row[i];
-                if(component == null) {
-                    i++;
-                    continue;
-                }
-                GridLayoutData layoutData = getLayoutData(component);
-                int horizontalSpan = Math.min(layoutData.horizontalSpan, actualNumberOfColumns - i);
-                if(horizontalSpan > 1) {
-                    int accumWidth = 0;
-                    for(int j = i; j < i + horizontalSpan; j++) {
-                        accumWidth += columnWidths[j];
-                    }
+        //Make sure to obey the size restrictions
+        size = size.withColumns(Math.min(size.getColumns(), availableHorizontalSpace));
+        size = size.withRows(Math.min(size.getRows(), availableVerticalSpace));
 
-                    int preferredWidth = component.getPreferredSize().getColumns();
-                    if(preferredWidth > accumWidth) {
-                        int columnOffset = 0;
-                        do {
-                            columnWidths[i + columnOffset++]++;
-                            accumWidth++;
-                            if(columnOffset == horizontalSpan) {
-                                columnOffset = 0;
-                            }
-                        }
-                        while(preferredWidth > accumWidth);
-                    }
-                }
-                i += horizontalSpan;
+        switch (layoutData.horizontalAlignment) {
+            case CENTER:
+                position = position.withRelativeColumn((availableHorizontalSpace - size.getColumns()) / 2);
+                break;
+            case END:
+                position = position.withRelativeColumn(availableHorizontalSpace - size.getColumns());
+                break;
+            case FILL:
+                size = size.withColumns(availableHorizontalSpace);
+                break;
+            default:
+                break;
+        }
+        switch (layoutData.verticalAlignment) {
+            case CENTER:
+                position = position.withRelativeRow((availableVerticalSpace - size.getRows()) / 2);
+                break;
+            case END:
+                position = position.withRelativeRow(availableVerticalSpace - size.getRows());
+                break;
+            case FILL:
+                size = size.withRows(availableVerticalSpace);
+                break;
+            default:
+                break;
+        }
+
+        //Apply the margins here
+        laidOutSizes.put(component, size);
+        laidOutPositions.put(component, position.withRelative(leftMarginSize, topMarginSize));
+    }
+
+    private TerminalPosition getCellTopLeft(TerminalPosition cell, int[] columnWidths, int[] rowHeights) {
+        int column = cell.getColumn() * horizontalSpacing;
+        for(int x = 0; x < cell.getColumn(); x++) {
+            column += columnWidths[x];
+        }
+        int row = cell.getRow() * verticalSpacing;
+        for(int y = 0; y < cell.getRow(); y++) {
+            row += rowHeights[y];
+        }
+        return new TerminalPosition(column, row);
+    }
+
+    /**
+     * Brings the table and everything worked out from it up to date with the components. If the components and their
+     * layout data are the same as last time, only the columns and rows of the components that want a different size now
+     * are looked at again.
+     */
+    private void updateCache(List<Component> components) {
+        List<Component> changedComponents = layoutCache.update(components);
+        if(changedComponents == null) {
+            buildCache(components);
+            return;
+        }
+        for(Component component: changedComponents) {
+            TerminalPosition cell = tableCells.get(component);
+            GridLayoutData layoutData = getLayoutData(component);
+            if(layoutData.horizontalSpan == 1) {
+                singleSpanColumnWidths[cell.getColumn()] = getSingleSpanColumnWidth(cell.getColumn());
             }
+            if(layoutData.verticalSpan == 1) {
+                singleSpanRowHeights[cell.getRow()] = getSingleSpanRowHeight(cell.getRow());
+            }
+            componentsChangedSinceLayout.add(component);
         }
-        return columnWidths;
     }
 
-    private int[] getPreferredRowHeights(Component[][] table) {
+    private void buildCache(List<Component> components) {
+        table = eliminateUnusedRowsAndColumns(buildTable(components));
+        tableCells = new IdentityHashMap<>();
+        horizontallySpanningComponents = new ArrayList<>();
+        verticallySpanningComponents = new ArrayList<>();
+        expandableColumns = getExpandableColumns(table);
+        expandableRows = getExpandableRows(table);
+        laidOutArea = null;
+        componentsChangedSinceLayout.clear();
+        if(table.length == 0) {
+            singleSpanColumnWidths = new int[0];
+            singleSpanRowHeights = new int[0];
+            return;
+        }
+
+        int actualNumberOfColumns = table[0].length;
         int numberOfRows = table.length;
-        int[] rowHeights = new int[numberOfRows];
+        for(int y = 0; y < numberOfRows; y++) {
+            for(int x = 0; x < actualNumberOfColumns; x++) {
+                if(table[y][x] != null && !tableCells.containsKey(table[y][x])) {
+                    tableCells.put(table[y][x], new TerminalPosition(x, y));
+                }
+            }
+        }
 
-        //Start by letting all span = 1 rows take what they need
-        int rowIndex = 0;
+        //Components spanning more than one column or row are looked at in the same order as they would be if we went
+        //through the whole table, since that decides how the extra space they need is shared
         for(Component[] row: table) {
-            for(Component component : row) {
+            for(int i = 0; i < actualNumberOfColumns; ) {
+                Component component = row[i];
                 if(component == null) {
+                    i++;
                     continue;
                 }
-                GridLayoutData layoutData = getLayoutData(component);
-                if(layoutData.verticalSpan == 1) {
-                    rowHeights[rowIndex] = Math.max(rowHeights[rowIndex], component.getPreferredSize().getRows());
+                int horizontalSpan = Math.min(getLayoutData(component).horizontalSpan, actualNumberOfColumns - i);
+                if(horizontalSpan > 1) {
+                    horizontallySpanningComponents.add(new SpanningComponent(component, i, horizontalSpan));
                 }
+                i += horizontalSpan;
             }
-            rowIndex++;
         }
-
-        //Next, do span > 1 and enlarge if necessary
         for(int x = 0; x < numberOfColumns; x++) {
             for(int y = 0; y < numberOfRows; ) {
                 if(x >= table[y].length) {
@@ -609,27 +662,98 @@ public class GridLayout implements LayoutManager {
                     y++;
                     continue;
                 }
-                GridLayoutData layoutData = getLayoutData(component);
-                if(layoutData.verticalSpan > 1) {
-                    int accumulatedHeight = 0;
-                    for(int i = y; i < y + layoutData.verticalSpan; i++) {
-                        accumulatedHeight += rowHeights[i];
+                int verticalSpan = getLayoutData(component).verticalSpan;
+                if(verticalSpan > 1) {
+                    verticallySpanningComponents.add(new SpanningComponent(component, y, verticalSpan));
+                }
+                y += verticalSpan;
+            }
+        }
+
+        singleSpanColumnWidths = new int[actualNumberOfColumns];
+        for(int x = 0; x < actualNumberOfColumns; x++) {
+            singleSpanColumnWidths[x] = getSingleSpanColumnWidth(x);
+        }
+        singleSpanRowHeights = new int[numberOfRows];
+        for(int y = 0; y < numberOfRows; y++) {
+            singleSpanRowHeights[y] = getSingleSpanRowHeight(y);
+        }
+    }
+
+    private int getSingleSpanColumnWidth(int column) {
+        int width = 0;
+        for(Component[] row: table) {
+            Component component = row[column];
+            if(component != null && getLayoutData(component).horizontalSpan == 1) {
+                width = Math.max(width, layoutCache.getPreferredSize(component).getColumns());
+            }
+        }
+        return width;
+    }
+
+    private int getSingleSpanRowHeight(int row) {
+        int height = 0;
+        for(Component component: table[row]) {
+            if(component != null && getLayoutData(component).verticalSpan == 1) {
+                height = Math.max(height, layoutCache.getPreferredSize(component).getRows());
+            }
+        }
+        return height;
+    }
+
+    private int[] getPreferredColumnWidths() {
+        //Start by letting all span = 1 columns take what they need
+        int[] columnWidths = singleSpanColumnWidths.clone();
+
+        //Next, do span > 1 and enlarge if necessary
+        for(SpanningComponent spanningComponent: horizontallySpanningComponents) {
+            int i = spanningComponent.index;
+            int horizontalSpan = spanningComponent.span;
+            int accumWidth = 0;
+            for(int j = i; j < i + horizontalSpan; j++) {
+                accumWidth += columnWidths[j];
+            }
+
+            int preferredWidth = layoutCache.getPreferredSize(spanningComponent.component).getColumns();
+            if(preferredWidth > accumWidth) {
+                int columnOffset = 0;
+                do {
+                    columnWidths[i + columnOffset++]++;
+                    accumWidth++;
+                    if(columnOffset == horizontalSpan) {
+                        columnOffset = 0;
                     }
+                }
+                while(preferredWidth > accumWidth);
+            }
+        }
+        return columnWidths;
+    }
+
+    private int[] getPreferredRowHeights() {
+        //Start by letting all span = 1 rows take what they need
+        int[] rowHeights = singleSpanRowHeights.clone();
+
+        //Next, do span > 1 and enlarge if necessary
+        for(SpanningComponent spanningComponent: verticallySpanningComponents) {
+            int y = spanningComponent.index;
+            int verticalSpan = spanningComponent.span;
+            int accumulatedHeight = 0;
+            for(int i = y; i < y + verticalSpan; i++) {
+                accumulatedHeight += rowHeights[i];
+            }
 
-                    int preferredHeight = component.getPreferredSize().getRows();
-                    if(preferredHeight > accumulatedHeight) {
-                        int rowOffset = 0;
-                        do {
-                            rowHeights[y + rowOffset++]++;
-                            accumulatedHeight++;
-                            if(rowOffset == layoutData.verticalSpan) {
-                                rowOffset = 0;
-                            }
-                        }
-                        while(preferredHeight > accumulatedHeight);
+            int preferredHeight = layoutCache.getPreferredSize(spanningComponent.component).getRows();
+            if(preferredHeight > accumulatedHeight) {
+                int rowOffset = 0;
+                do {
+                    rowHeights[y + rowOffset++]++;
+                    accumulatedHeight++;
+                    if(rowOffset == verticalSpan) {
+                        rowOffset = 0;
                     }
                 }
-                y += layoutData.verticalSpan;
+                while(preferredHeight > accumulatedHeight);
             }
         }
         return rowHeights;
@@ -852,4 +976,19 @@ public class GridLayout implements LayoutManager {
             return DEFAULT;
         }
     }
+
+    /**
+     * A component spanning more than one column or row, with the first of them and how many it spans
+     */
+    private static class SpanningComponent {
+        private final Component component;
+        private final int index;
+        private final int span;
+
+        private SpanningComponent(Component component, int index, int span) {
+            this.component = component;
+            this.index = index;
+            this.span = span;
+        }
+    }
 }
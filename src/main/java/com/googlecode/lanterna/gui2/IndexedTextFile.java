@@ -0,0 +1,481 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Read-only view of a text file of any size, used by {@link FileViewer}. Only the parts of the file that are looked at
+ * are read, with positional reads on a {@code FileChannel}, so the file never has to fit on the heap. A background
+ * thread walks through the file and records where every {@value #LINES_PER_CHECKPOINT}th line starts; finding the
+ * start of any other line means scanning forward from the closest of these checkpoints. The index grows while the
+ * thread is running, so the file can be looked at right away and {@link #refresh()} picks up data appended to it later.
+ * Each file has a single indexing thread, which exits when it has been idle for a second.
+ * <p>
+ * The file isn't memory-mapped, since a mapping turns reading past the end of a file that has been truncated, like a log
+ * file rotated with copytruncate, into a SIGBUS that the JVM reports as an {@code InternalError} at some later point.
+ * Instead, reading lines that are no longer in the file fails with an {@code IOException} until {@link #refresh()} has
+ * noticed the file is shorter and started over.
+ * <p>
+ * Lines are separated by {@code '\n'} bytes, which is why only character sets that encode a line feed as that single
+ * byte are supported. A trailing {@code '\r'} is removed from every line.
+ */
+final class IndexedTextFile implements Closeable {
+    static final int LINES_PER_CHECKPOINT = 512;
+    static final int MAX_DECODED_LINE_LENGTH = 64 * 1024;
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    private static final long NOTIFY_INTERVAL_NANOS = 100_000_000L;
+
+    private final FileChannel channel;
+    private final Charset charset;
+    private final Runnable changeListener;
+    private final ExecutorService indexer;
+    private final byte[] scanBuffer;
+
+    private long[] checkpoints;
+    private int checkpointCount;
+    private boolean atLineStart;
+    private long currentLineStart;
+    private int cachedLine;
+    private long cachedLineStart;
+    private int generation;
+    private boolean indexing;
+    private IOException indexingError;
+
+    private volatile long length;
+    private volatile long indexedLength;
+    private volatile int lineCount;
+    private volatile int longestLine;
+    private volatile boolean closed;
+
+    /**
+     * Opens a file and starts indexing it in the background
+     * @param file File to open
+     * @param charset Character set of the file, this needs to encode {@code '\n'} as a single byte
+     * @param changeListener Called from the indexing thread as more of the file becomes available
+     * @throws IOException If the file couldn't be opened
+     */
+    IndexedTextFile(File file, Charset charset, Runnable changeListener) throws IOException {
+        if(!Arrays.equals("\n".getBytes(charset), new byte[] { '\n' })) {
+            throw new IllegalArgumentException("Cannot read files in " + charset + ", the character set needs to " +
+                    "encode a line feed as a single byte");
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.charset = charset;
+        this.changeListener = changeListener;
+        this.indexer = newWorker("LanternaFileIndexer");
+        this.scanBuffer = new byte[SCAN_BUFFER_SIZE];
+        resetIndex();
+        refresh();
+    }
+
+    /**
+     * Checks if the file has changed size and, if so, indexes whatever was appended to it. If the file has become
+     * shorter, for example by log rotation, the index is thrown away and built again from the start.
+     * @throws IOException If the size of the file couldn't be read
+     */
+    synchronized void refresh() throws IOException {
+        if(closed) {
+            return;
+        }
+        long size = channel.size();
+        if(size < length) {
+            resetIndex();
+            changeListener.run();
+        }
+        length = size;
+        if(!indexing && indexedLength < size) {
+            // An indexing job of an earlier generation may still be running, it will notice and stop before this starts
+            final int indexerGeneration = generation;
+            indexing = true;
+            indexer.execute(() -> index(indexerGeneration));
+        }
+    }
+
+    /**
+     * Creates an executor that runs jobs one at a time on a daemon thread, which is started when needed and exits after
+     * being idle for a second
+     * @param threadName Name of the thread
+     * @return The new executor
+     */
+    static ExecutorService newWorker(String threadName) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns {@code true} while the background thread is still working through the file
+     * @return {@code true} if the file hasn't been fully indexed yet
+     */
+    synchronized boolean isIndexing() {
+        return indexing;
+    }
+
+    /**
+     * Returns the error that stopped the background indexing, if any
+     * @return The error that stopped the indexing or {@code null}
+     */
+    synchronized IOException getIndexingError() {
+        return indexingError;
+    }
+
+    /**
+     * Returns the number of lines found so far, this grows while the file is being indexed
+     * @return Number of lines found so far
+     */
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * Returns the length in bytes of the longest line found so far, capped at {@link #MAX_DECODED_LINE_LENGTH}
+     * @return Length of the longest line found so far
+     */
+    int getLongestLine() {
+        return longestLine;
+    }
+
+    /**
+     * Returns how many bytes of the file have been indexed so far
+     * @return Number of bytes indexed
+     */
+    long getIndexedLength() {
+        return indexedLength;
+    }
+
+    /**
+     * Returns the offset in the file where a line starts
+     * @param line Index of the line, must be less than {@link #getLineCount()}
+     * @return Offset in bytes of the first character of the line
+     * @throws IOException If the file couldn't be read
+     */
+    synchronized long getLineStart(int line) throws IOException {
+        if(line < 0 || line >= lineCount) {
+            throw new IndexOutOfBoundsException("Line " + line + " is out of bounds, there are " + lineCount + " lines");
+        }
+        int checkpoint = line / LINES_PER_CHECKPOINT;
+        int fromLine = checkpoint * LINES_PER_CHECKPOINT;
+        long offset = checkpoints[checkpoint];
+        if(cachedLine <= line && cachedLine / LINES_PER_CHECKPOINT == checkpoint) {
+            fromLine = cachedLine;
+            offset = cachedLineStart;
+        }
+        offset = skipLines(offset, line - fromLine);
+        cachedLine = line;
+        cachedLineStart = offset;
+        return offset;
+    }
+
+    /**
+     * Returns the index of the line containing a byte in the file
+     * @param offset Offset of the byte, must be less than {@link #getIndexedLength()}
+     * @return Index of the line the byte is part of
+     * @throws IOException If the file couldn't be read
+     */
+    synchronized int getLineOfOffset(long offset) throws IOException {
+        int low = 0;
+        int high = checkpointCount - 1;
+        while(low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if(checkpoints[middle] <= offset) {
+                low = middle;
+            }
+            else {
+                high = middle - 1;
+            }
+        }
+        int line = low * LINES_PER_CHECKPOINT;
+        long position = checkpoints[low];
+        while(position < offset) {
+            int read = read(position, scanBuffer, (int)Math.min(scanBuffer.length, offset - position));
+            if(read <= 0) {
+                break;
+            }
+            for(int i = 0; i < read; i++) {
+                if(scanBuffer[i] == '\n') {
+                    line++;
+                }
+            }
+            position += read;
+        }
+        return line;
+    }
+
+    /**
+     * Decodes a range of lines. Lines longer than {@link #MAX_DECODED_LINE_LENGTH} bytes are cut off at that length.
+     * @param firstLine Index of the first line to decode
+     * @param count Maximum number of lines to decode, fewer are returned if the file ends before that
+     * @return The decoded lines, without line terminators
+     * @throws IOException If the file couldn't be read
+     */
+    synchronized List<String> getLines(int firstLine, int count) throws IOException {
+        List<String> lines = new ArrayList<>(Math.max(0, Math.min(count, lineCount - firstLine)));
+        if(firstLine < 0 || firstLine >= lineCount) {
+            return lines;
+        }
+        long start = getLineStart(firstLine);
+        long end = indexedLength;
+        for(int line = firstLine; line < firstLine + count && line < lineCount; line++) {
+            long lineEnd = findLineEnd(start, end);
+            int decodeLength = (int)Math.min(lineEnd - start, MAX_DECODED_LINE_LENGTH);
+            byte[] bytes = decodeLength <= scanBuffer.length ? scanBuffer : new byte[decodeLength];
+            int read = read(start, bytes, decodeLength);
+            if(lineEnd - start == read && read > 0 && bytes[read - 1] == '\r') {
+                read--;
+            }
+            lines.add(new String(bytes, 0, read, charset));
+            cachedLine = line;
+            cachedLineStart = start;
+            start = lineEnd + 1;
+        }
+        return lines;
+    }
+
+    /**
+     * Searches the indexed part of the file for a sequence of bytes. When searching forward, the first match starting
+     * at or after {@code from} is returned, when searching backward the last match starting before {@code from}.
+     * @param pattern Bytes to look for, when ignoring case the ASCII letters in here must be in lower case
+     * @param ignoreCase If {@code true}, ASCII letters match both their lower and upper case
+     * @param from Offset in the file to start searching from
+     * @param forward Direction to search in
+     * @param cancelled Checked every now and then, the search gives up if it returns {@code true}
+     * @return Offset in the file of the match, or {@code -1} if there was no match
+     * @throws IOException If the file couldn't be read
+     */
+    long find(byte[] pattern, boolean ignoreCase, long from, boolean forward, BooleanSupplier cancelled)
+            throws IOException {
+        if(pattern.length == 0) {
+            return -1;
+        }
+        long limit = indexedLength;
+        byte[] buffer = new byte[SCAN_BUFFER_SIZE + pattern.length];
+        byte first = pattern[0];
+        byte otherFirst = ignoreCase && first >= 'a' && first <= 'z' ? (byte)(first - ('a' - 'A')) : first;
+        if(forward) {
+            long position = Math.max(0, from);
+            while(position + pattern.length <= limit && !cancelled.getAsBoolean()) {
+                int read = read(position, buffer, (int)Math.min(buffer.length, limit - position));
+                int last = read - pattern.length;
+                for(int i = 0; i <= last; i++) {
+                    if((buffer[i] == first || buffer[i] == otherFirst) && matches(buffer, i, pattern, ignoreCase)) {
+                        return position + i;
+                    }
+                }
+                if(last < 0) {
+                    break;
+                }
+                position += last + 1;
+            }
+        }
+        else {
+            long end = Math.min(limit, from - 1 + pattern.length);
+            while(!cancelled.getAsBoolean()) {
+                long start = Math.max(0, end - buffer.length);
+                if(end - start < pattern.length) {
+                    break;
+                }
+                int read = read(start, buffer, (int)(end - start));
+                for(int i = read - pattern.length; i >= 0; i--) {
+                    if((buffer[i] == first || buffer[i] == otherFirst) && matches(buffer, i, pattern, ignoreCase)) {
+                        return start + i;
+                    }
+                }
+                if(start == 0) {
+                    break;
+                }
+                end = start + pattern.length - 1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        generation++;
+        indexing = false;
+        indexer.shutdown();
+        channel.close();
+    }
+
+    private static boolean matches(byte[] buffer, int offset, byte[] pattern, boolean ignoreCase) {
+        for(int i = 0; i < pattern.length; i++) {
+            byte b = buffer[offset + i];
+            if(ignoreCase && b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            }
+            if(b != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void index(int indexerGeneration) {
+        byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+        long lastNotification = System.nanoTime();
+        try {
+            while(true) {
+                long position;
+                int toRead;
+                synchronized(this) {
+                    if(generation != indexerGeneration) {
+                        return;
+                    }
+                    position = indexedLength;
+                    toRead = (int)Math.min(buffer.length, length - position);
+                    if(toRead <= 0) {
+                        indexing = false;
+                        break;
+                    }
+                }
+                int read = read(position, buffer, toRead);
+                synchronized(this) {
+                    if(generation != indexerGeneration) {
+                        return;
+                    }
+                    addToIndex(buffer, position, read);
+                }
+                if(System.nanoTime() - lastNotification > NOTIFY_INTERVAL_NANOS) {
+                    changeListener.run();
+                    lastNotification = System.nanoTime();
+                }
+            }
+        }
+        catch(IOException e) {
+            synchronized(this) {
+                if(generation != indexerGeneration) {
+                    return;
+                }
+                indexingError = e;
+                indexing = false;
+            }
+        }
+        changeListener.run();
+    }
+
+    private void addToIndex(byte[] buffer, long position, int read) {
+        int lines = lineCount;
+        int longest = longestLine;
+        for(int i = 0; i < read; i++) {
+            if(atLineStart) {
+                if(lines % LINES_PER_CHECKPOINT == 0) {
+                    if(checkpointCount == checkpoints.length) {
+                        checkpoints = Arrays.copyOf(checkpoints, checkpointCount * 2);
+                    }
+                    checkpoints[checkpointCount++] = position + i;
+                }
+                lines++;
+                currentLineStart = position + i;
+                atLineStart = false;
+            }
+            if(buffer[i] == '\n') {
+                longest = (int)Math.max(longest, Math.min(position + i - currentLineStart, MAX_DECODED_LINE_LENGTH));
+                atLineStart = true;
+            }
+        }
+        if(!atLineStart) {
+            longest = (int)Math.max(longest, Math.min(position + read - currentLineStart, MAX_DECODED_LINE_LENGTH));
+        }
+        longestLine = longest;
+        lineCount = lines;
+        indexedLength = position + read;
+    }
+
+    private void resetIndex() {
+        generation++;
+        indexing = false;
+        indexingError = null;
+        checkpoints = new long[16];
+        checkpointCount = 0;
+        atLineStart = true;
+        currentLineStart = 0;
+        cachedLine = Integer.MAX_VALUE;
+        cachedLineStart = 0;
+        length = 0;
+        indexedLength = 0;
+        lineCount = 0;
+        longestLine = 0;
+    }
+
+    private long skipLines(long offset, int lines) throws IOException {
+        long end = indexedLength;
+        while(lines > 0 && offset < end) {
+            int read = read(offset, scanBuffer, (int)Math.min(scanBuffer.length, end - offset));
+            if(read <= 0) {
+                break;
+            }
+            for(int i = 0; i < read; i++) {
+                if(scanBuffer[i] == '\n' && --lines == 0) {
+                    return offset + i + 1;
+                }
+            }
+            offset += read;
+        }
+        return offset;
+    }
+
+    private long findLineEnd(long start, long end) throws IOException {
+        long position = start;
+        while(position < end) {
+            int read = read(position, scanBuffer, (int)Math.min(scanBuffer.length, end - position));
+            if(read <= 0) {
+                break;
+            }
+            for(int i = 0; i < read; i++) {
+                if(scanBuffer[i] == '\n') {
+                    return position + i;
+                }
+            }
+            position += read;
+        }
+        return end;
+    }
+
+    private int read(long offset, byte[] buffer, int byteCount) throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, 0, byteCount);
+        while(target.hasRemaining()) {
+            if(channel.read(target, offset + target.position()) < 0) {
+                // Everything asked for was indexed, so it was in the file before
+                throw new IOException("The file has been truncated");
+            }
+        }
+        return byteCount;
+    }
+}
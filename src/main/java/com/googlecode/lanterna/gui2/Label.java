@@ -22,10 +22,10 @@ import com.googlecode.lanterna.TerminalTextUtils;
 import com.googlecode.lanterna.SGR;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.TextLayout;
 import com.googlecode.lanterna.graphics.ThemeDefinition;
 
 import java.util.EnumSet;
-import java.util.List;
 
 /**
  * Label is a simple read-only text display component. It supports customized colors and multi-line text.
@@ -113,18 +113,11 @@ public class Label extends AbstractComponent<Label> {
         }
         currentBounds = currentBounds.withRows(lines.length);
         if(labelWidth == null || labelWidth == 0) {
-            int preferredWidth = 0;
-            for(String line : lines) {
-                int lineWidth = TerminalTextUtils.getColumnWidth(line);
-                if(preferredWidth < lineWidth) {
-                    preferredWidth = lineWidth;
-                }
-            }
-            currentBounds = currentBounds.withColumns(preferredWidth);
+            currentBounds = currentBounds.withColumns(TextLayout.getWordWrapped(0, lines).getWidth());
         }
         else {
-            List<String> wordWrapped = TerminalTextUtils.getWordWrappedText(labelWidth, lines);
-            currentBounds = currentBounds.withColumns(labelWidth).withRows(wordWrapped.size());
+            TextLayout wordWrapped = TextLayout.getWordWrapped(labelWidth, lines);
+            currentBounds = currentBounds.withColumns(labelWidth).withRows(wordWrapped.getLineCount());
         }
         return currentBounds;
     }
@@ -138,6 +131,7 @@ public class Label extends AbstractComponent<Label> {
      */
     public synchronized Label setForegroundColor(TextColor foregroundColor) {
         this.foregroundColor = foregroundColor;
+        invalidate();
         return this;
     }
 
@@ -160,6 +154,7 @@ public class Label extends AbstractComponent<Label> {
      */
     public synchronized Label setBackgroundColor(TextColor backgroundColor) {
         this.backgroundColor = backgroundColor;
+        invalidate();
         return this;
     }
 
@@ -210,6 +205,7 @@ public class Label extends AbstractComponent<Label> {
      */
     public synchronized Label setLabelWidth(Integer labelWidth) {
         this.labelWidth = labelWidth;
+        invalidate();
         return this;
     }
 
@@ -251,21 +247,21 @@ public class Label extends AbstractComponent<Label> {
                     graphics.enableModifiers(sgr);
                 }
 
-                String[] linesToDraw;
+                TextLayout linesToDraw;
                 if(component.getLabelWidth() == null) {
-                    linesToDraw = component.lines;
+                    linesToDraw = TextLayout.getWordWrapped(0, component.lines);
                 }
                 else {
-                    linesToDraw = TerminalTextUtils.getWordWrappedText(graphics.getSize().getColumns(), component.lines).toArray(new String[0]);
+                    linesToDraw = TextLayout.getWordWrapped(graphics.getSize().getColumns(), component.lines);
                 }
 
-                for(int row = 0; row < Math.min(graphics.getSize().getRows(), linesToDraw.length); row++) {
-                    String line = linesToDraw[row];
-                    if(graphics.getSize().getColumns() >= labelSize.getColumns()) {
+                int availableColumns = graphics.getSize().getColumns();
+                for(int row = 0; row < Math.min(graphics.getSize().getRows(), linesToDraw.getLineCount()); row++) {
+                    String line = linesToDraw.getLine(row);
+                    if(availableColumns >= labelSize.getColumns() || linesToDraw.getLineWidth(row) <= availableColumns) {
                         graphics.putString(0, row, line);
                     }
                     else {
-                        int availableColumns = graphics.getSize().getColumns();
                         String fitString = TerminalTextUtils.fitString(line, availableColumns);
                         graphics.putString(0, row, fitString);
                     }
@@ -0,0 +1,117 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the components a layout manager was last asked to lay out, together with their layout data and
+ * preferred sizes, so that the layout manager can tell what has changed since then and reuse what it calculated last
+ * time for everything else. Each time something has changed, the version number of the cache goes up; layout managers
+ * can compare it to the version their cached results are based on.
+ * @author Martin
+ */
+class LayoutCache {
+    private final List<Component> components;
+    private final List<LayoutData> layoutData;
+    private final Map<Component, TerminalSize> preferredSizes;
+    private int version;
+
+    LayoutCache() {
+        this.components = new ArrayList<>();
+        this.layoutData = new ArrayList<>();
+        this.preferredSizes = new IdentityHashMap<>();
+        this.version = 0;
+    }
+
+    /**
+     * Compares the components with what they were like the last time this method was called and updates the cache.
+     * This asks each component for its preferred size once, after this call the layout manager should use
+     * {@link #getPreferredSize(Component)} instead.
+     * @param components Components to lay out
+     * @return The components that are the same as last time but have a different preferred size, which is empty if
+     * nothing has changed, or {@code null} if the components or their layout data are not the same as last time
+     */
+    List<Component> update(List<Component> components) {
+        // Version 0 means nothing has been cached yet, not even an empty list of components
+        if(version == 0 || !hasSameComponents(components)) {
+            this.components.clear();
+            this.layoutData.clear();
+            this.preferredSizes.clear();
+            for(Component component: components) {
+                this.components.add(component);
+                this.layoutData.add(component.getLayoutData());
+                this.preferredSizes.put(component, component.getPreferredSize());
+            }
+            version++;
+            return null;
+        }
+
+        List<Component> changedComponents = Collections.emptyList();
+        for(Component component: components) {
+            TerminalSize preferredSize = component.getPreferredSize();
+            if(!preferredSize.equals(preferredSizes.put(component, preferredSize))) {
+                if(changedComponents.isEmpty()) {
+                    changedComponents = new ArrayList<>();
+                }
+                changedComponents.add(component);
+            }
+        }
+        if(!changedComponents.isEmpty()) {
+            version++;
+        }
+        return changedComponents;
+    }
+
+    /**
+     * Returns the preferred size a component had the last time {@link #update(List)} was called
+     * @param component Component to get the preferred size of
+     * @return Preferred size of the component
+     */
+    TerminalSize getPreferredSize(Component component) {
+        return preferredSizes.get(component);
+    }
+
+    /**
+     * Returns a number that changes every time {@link #update(List)} finds that something is different
+     * @return Current version of the cache
+     */
+    int getVersion() {
+        return version;
+    }
+
+    private boolean hasSameComponents(List<Component> components) {
+        if(components.size() != this.components.size()) {
+            return false;
+        }
+        for(int i = 0; i < components.size(); i++) {
+            Component component = components.get(i);
+            if(component != this.components.get(i) || component.getLayoutData() != layoutData.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -28,6 +28,10 @@ import java.util.Map;
 
 /**
  * Simple layout manager the puts all components on a single line, either horizontally or vertically.
+ * <p>
+ * The layout remembers where it put the components last time and puts them there again if nothing has changed, so give
+ * each container its own {@code LinearLayout}. An instance shared by several containers still lays them out correctly,
+ * but has to start over every time it goes from one container to another.
  */
 public class LinearLayout implements LayoutManager {
     /**
@@ -113,6 +117,16 @@ public class LinearLayout implements LayoutManager {
     private int spacing;
     private boolean changed;
 
+    // Results from the last time we looked at the components, which can be used again if they haven't changed
+    private final LayoutCache layoutCache;
+    private TerminalSize cachedPreferredSize;
+    private int cachedPreferredSizeVersion;
+    private TerminalSize laidOutArea;
+    private int laidOutVersion;
+    private boolean laidOutWithOldNonFlexLayout;
+    private final Map<Component, TerminalPosition> laidOutPositions;
+    private final Map<Component, TerminalSize> laidOutSizes;
+
     /**
      * Default constructor, creates a vertical {@code LinearLayout}
      */
@@ -128,6 +142,11 @@ public class LinearLayout implements LayoutManager {
         this.direction = direction;
         this.spacing = direction == Direction.HORIZONTAL ? 1 : 0;
         this.changed = true;
+        this.layoutCache = new LayoutCache();
+        this.cachedPreferredSize = null;
+        this.laidOutArea = null;
+        this.laidOutPositions = new IdentityHashMap<>();
+        this.laidOutSizes = new IdentityHashMap<>();
     }
 
     /**
@@ -139,6 +158,7 @@ public class LinearLayout implements LayoutManager {
     public LinearLayout setSpacing(int spacing) {
         this.spacing = spacing;
         this.changed = true;
+        this.cachedPreferredSize = null;
         return this;
     }
 
@@ -153,19 +173,24 @@ public class LinearLayout implements LayoutManager {
 
     @Override
     public TerminalSize getPreferredSize(List<Component> components) {
-        if(direction == Direction.VERTICAL) {
-            return getPreferredSizeVertically(components);
-        }
-        else {
-            return getPreferredSizeHorizontally(components);
+        layoutCache.update(components);
+        if(cachedPreferredSize == null || cachedPreferredSizeVersion != layoutCache.getVersion()) {
+            if(direction == Direction.VERTICAL) {
+                cachedPreferredSize = getPreferredSizeVertically(components);
+            }
+            else {
+                cachedPreferredSize = getPreferredSizeHorizontally(components);
+            }
+            cachedPreferredSizeVersion = layoutCache.getVersion();
         }
+        return cachedPreferredSize;
     }
 
     private TerminalSize getPreferredSizeVertically(List<Component> components) {
         int maxWidth = 0;
         int height = 0;
         for(Component component: components) {
-            TerminalSize preferredSize = component.getPreferredSize();
+            TerminalSize preferredSize = layoutCache.getPreferredSize(component);
             if(maxWidth < preferredSize.getColumns()) {
                 maxWidth = preferredSize.getColumns();
             }
@@ -179,7 +204,7 @@ public class LinearLayout implements LayoutManager {
         int maxHeight = 0;
         int width = 0;
         for(Component component: components) {
-            TerminalSize preferredSize = component.getPreferredSize();
+            TerminalSize preferredSize = layoutCache.getPreferredSize(component);
             if(maxHeight < preferredSize.getRows()) {
                 maxHeight = preferredSize.getRows();
             }
@@ -196,8 +221,22 @@ public class LinearLayout implements LayoutManager {
 
     @Override
     public void doLayout(TerminalSize area, List<Component> components) {
+        layoutCache.update(components);
+        boolean useOldNonFlexLayout = Boolean.getBoolean("com.googlecode.lanterna.gui2.LinearLayout.useOldNonFlexLayout");
+        if(!changed &&
+                area.equals(laidOutArea) &&
+                laidOutVersion == layoutCache.getVersion() &&
+                laidOutWithOldNonFlexLayout == useOldNonFlexLayout) {
+            // Nothing has changed since last time, so the components go where we put them then
+            for(Component component: components) {
+                component.setPosition(laidOutPositions.get(component));
+                component.setSize(laidOutSizes.get(component));
+            }
+            return;
+        }
+
         if(direction == Direction.VERTICAL) {
-            if (Boolean.getBoolean("com.googlecode.lanterna.gui2.LinearLayout.useOldNonFlexLayout")) {
+            if (useOldNonFlexLayout) {
                 doVerticalLayout(area, components);
             }
             else {
@@ -205,13 +244,22 @@ public class LinearLayout implements LayoutManager {
             }
         }
         else {
-            if (Boolean.getBoolean("com.googlecode.lanterna.gui2.LinearLayout.useOldNonFlexLayout")) {
+            if (useOldNonFlexLayout) {
                 doHorizontalLayout(area, components);
             }
             else {
                 doFlexibleHorizontalLayout(area, components);
             }
         }
+        laidOutArea = area;
+        laidOutVersion = layoutCache.getVersion();
+        laidOutWithOldNonFlexLayout = useOldNonFlexLayout;
+        laidOutPositions.clear();
+        laidOutSizes.clear();
+        for(Component component: components) {
+            laidOutPositions.put(component, component.getPosition());
+            laidOutSizes.put(component, component.getSize());
+        }
         this.changed = false;
     }
 
@@ -231,7 +279,7 @@ public class LinearLayout implements LayoutManager {
                     alignment = ((LinearLayoutData)layoutData).alignment;
                 }
 
-                TerminalSize preferredSize = component.getPreferredSize();
+                TerminalSize preferredSize = layoutCache.getPreferredSize(component);
                 TerminalSize decidedSize = new TerminalSize(
                         Math.min(availableHorizontalSpace, preferredSize.getColumns()),
                         Math.min(remainingVerticalSpace, preferredSize.getRows()));
@@ -275,7 +323,7 @@ public class LinearLayout implements LayoutManager {
                 alignment = ((LinearLayoutData)layoutData).alignment;
             }
 
-            TerminalSize preferredSize = component.getPreferredSize();
+            TerminalSize preferredSize = layoutCache.getPreferredSize(component);
             TerminalSize fittingSize = new TerminalSize(
                     Math.min(availableHorizontalSpace, preferredSize.getColumns()),
                     preferredSize.getRows());
@@ -379,7 +427,7 @@ public class LinearLayout implements LayoutManager {
                     alignment = ((LinearLayoutData)layoutData).alignment;
                 }
 
-                TerminalSize preferredSize = component.getPreferredSize();
+                TerminalSize preferredSize = layoutCache.getPreferredSize(component);
                 TerminalSize decidedSize = new TerminalSize(
                         Math.min(remainingHorizontalSpace, preferredSize.getColumns()),
                         Math.min(availableVerticalSpace, preferredSize.getRows()));
@@ -423,7 +471,7 @@ public class LinearLayout implements LayoutManager {
                 alignment = ((LinearLayoutData)layoutData).alignment;
             }
 
-            TerminalSize preferredSize = component.getPreferredSize();
+            TerminalSize preferredSize = layoutCache.getPreferredSize(component);
             TerminalSize fittingSize = new TerminalSize(
                     preferredSize.getColumns(),
                     Math.min(availableVerticalSpace, preferredSize.getRows()));
@@ -0,0 +1,72 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+/**
+ * The items shown by a list box ({@link AbstractListBox} and its subclasses). By default a list box keeps its items in
+ * a {@link DefaultListBoxModel}, which is what {@code addItem(..)} and {@code removeItem(..)} modify, but you can give
+ * a list box a model of your own through {@link AbstractListBox#setModel(ListBoxModel)}. The list box only asks the
+ * model for the number of items and for the items it draws, so an implementation can page items in from a large or
+ * remote source instead of keeping them all in memory.
+ * @param <V> Type of the items in the model
+ * @author Martin
+ */
+public interface ListBoxModel<V> {
+    /**
+     * Listener that is notified when items in a {@link ListBoxModel} are added, removed or modified
+     * @param <V> Type of the items in the model
+     */
+    interface Listener<V> {
+        /**
+         * Called when items in the model have been added, removed or modified
+         * @param model Model that was modified
+         * @param firstIndex Index of the first item that was changed
+         * @param removedItems Number of items, starting at {@code firstIndex}, that were there before the change and
+         *                     have been removed or modified
+         * @param addedItems Number of items, starting at {@code firstIndex}, that have been added or modified instead
+         */
+        void onItemsChanged(ListBoxModel<V> model, int firstIndex, int removedItems, int addedItems);
+    }
+
+    /**
+     * Returns the number of items in the model
+     * @return Number of items in the model
+     */
+    int getSize();
+
+    /**
+     * Returns the item at a specific index
+     * @param index Index of the item
+     * @return The item at the index
+     * @throws IndexOutOfBoundsException If the index is less than zero or not less than {@link #getSize()}
+     */
+    V getItemAt(int index);
+
+    /**
+     * Adds a listener that is notified whenever the items in the model change
+     * @param listener Listener to add
+     */
+    void addListener(Listener<V> listener);
+
+    /**
+     * Removes a listener added through {@link #addListener(Listener)}
+     * @param listener Listener to remove
+     */
+    void removeListener(Listener<V> listener);
+}
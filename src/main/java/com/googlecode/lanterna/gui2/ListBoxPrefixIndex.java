@@ -0,0 +1,107 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Sorted index of the labels of the items in a {@link ListBoxModel}, used by {@link AbstractListBox} to find the item
+ * to select when the user types the start of a label without going through all items. The index is built the first
+ * time it's needed after the model has changed, which means reading every item once.
+ * @param <V> Type of the items in the model
+ */
+final class ListBoxPrefixIndex<V> {
+    private final ListBoxModel<V> model;
+    private String[] labels;
+    private int[] indices;
+
+    ListBoxPrefixIndex(ListBoxModel<V> model) {
+        this.model = model;
+        this.labels = null;
+        this.indices = null;
+    }
+
+    /**
+     * Drops the index, it will be built again on the next lookup
+     */
+    synchronized void invalidate() {
+        labels = null;
+        indices = null;
+    }
+
+    /**
+     * Finds the first item, at or after an index, with a label starting with a prefix. If there is no such item after
+     * the index, the search wraps around to the start of the model.
+     * @param prefix Start of the label to look for, in lower case
+     * @param fromIndex Index to start searching from
+     * @return Index of the item, or -1 if no label starts with the prefix
+     */
+    synchronized int findNext(String prefix, int fromIndex) {
+        if(labels == null) {
+            build();
+        }
+        int low = 0;
+        int high = labels.length;
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(labels[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        int next = -1;
+        int first = -1;
+        for(int i = low; i < labels.length && labels[i].startsWith(prefix); i++) {
+            int index = indices[i];
+            if(index >= fromIndex && (next == -1 || index < next)) {
+                next = index;
+            }
+            if(first == -1 || index < first) {
+                first = index;
+            }
+        }
+        return next != -1 ? next : first;
+    }
+
+    private void build() {
+        int size = model.getSize();
+        final String[] itemLabels = new String[size];
+        Integer[] order = new Integer[size];
+        int count = 0;
+        for(int index = 0; index < size; index++) {
+            V item = model.getItemAt(index);
+            String label = item != null ? item.toString() : null;
+            if(label != null) {
+                itemLabels[index] = label.toLowerCase(Locale.ROOT);
+                order[count++] = index;
+            }
+        }
+        // The sort is stable, so items with the same label stay in index order
+        Arrays.sort(order, 0, count, (a, b) -> itemLabels[a].compareTo(itemLabels[b]));
+        labels = new String[count];
+        indices = new int[count];
+        for(int i = 0; i < count; i++) {
+            indices[i] = order[i];
+            labels[i] = itemLabels[order[i]];
+        }
+    }
+}
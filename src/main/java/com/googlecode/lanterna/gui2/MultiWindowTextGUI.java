@@ -18,8 +18,10 @@
  */
 package com.googlecode.lanterna.gui2;
 
+import com.googlecode.lanterna.TerminalRectangle;
 import com.googlecode.lanterna.graphics.BasicTextImage;
 import com.googlecode.lanterna.graphics.TextImage;
+import com.googlecode.lanterna.graphics.Theme;
 import com.googlecode.lanterna.input.KeyStroke;
 import com.googlecode.lanterna.input.KeyType;
 import com.googlecode.lanterna.screen.Screen;
@@ -46,9 +48,14 @@ public class MultiWindowTextGUI extends AbstractTextGUI implements WindowBasedTe
     private final WindowManager windowManager;
     private final BasePane backgroundPane;
     private final List<Window> windows;
-    private final IdentityHashMap<Window, TextImage> windowRenderBufferCache;
+    private final IdentityHashMap<Window, WindowRenderBuffer> windowRenderBufferCache;
     private final WindowPostRenderer postRenderer;
 
+    private TextImage backgroundRenderBuffer;
+    private List<Window> lastVisibleWindows;
+    private TerminalSize lastScreenSize;
+    private Theme lastTheme;
+
     private Window activeWindow;
     private boolean hadWindowAtSomePoint;
     private boolean eofWhenNoWindows;
@@ -193,6 +200,7 @@ public class MultiWindowTextGUI extends AbstractTextGUI implements WindowBasedTe
         this.backgroundPane.setComponent(background);
         this.windows = new LinkedList<>();
         this.windowRenderBufferCache = new IdentityHashMap<>();
+        this.lastVisibleWindows = Collections.emptyList();
         this.postRenderer = postRenderer;
         this.eofWhenNoWindows = false;
         this.hadWindowAtSomePoint = false;
@@ -251,54 +259,248 @@ public class MultiWindowTextGUI extends AbstractTextGUI implements WindowBasedTe
 
     @Override
     protected synchronized void drawGUI(TextGUIGraphics graphics) {
-        drawBackgroundPane(graphics);
-        getWindowManager().prepareWindows(this, Collections.unmodifiableList(windows), graphics.getSize());
+        // The screen's back buffer keeps what we drew last time, so only the areas that have changed since then are
+        // composited again. Windows are drawn to buffers of their own, which are only redrawn when they need to be.
+        TerminalSize screenSize = graphics.getSize();
+        boolean fullRedraw = !screenSize.equals(lastScreenSize) || getTheme() != lastTheme;
+        if(fullRedraw || backgroundPane.isInvalid()) {
+            if(backgroundRenderBuffer == null || !backgroundRenderBuffer.getSize().equals(screenSize)) {
+                backgroundRenderBuffer = new BasicTextImage(screenSize);
+            }
+            backgroundPane.draw(new DefaultTextGUIGraphics(this, backgroundRenderBuffer.newTextGraphics()));
+            fullRedraw = true;
+        }
+        lastScreenSize = screenSize;
+        lastTheme = getTheme();
+        getWindowManager().prepareWindows(this, Collections.unmodifiableList(windows), screenSize);
+
+        List<TerminalRectangle> damagedAreas = new ArrayList<>();
+        List<Window> visibleWindows = new ArrayList<>();
         for(Window window: windows) {
-            if (window.isVisible()) {
-                // First draw windows to a buffer, then copy it to the real destination. This is to make physical off-screen
-                // drawing work better. Store the buffers in a cache so we don't have to re-create them every time.
-                TextImage textImage = windowRenderBufferCache.get(window);
-                if (textImage == null || !textImage.getSize().equals(window.getDecoratedSize())) {
-                    textImage = new BasicTextImage(window.getDecoratedSize());
-                    windowRenderBufferCache.put(window, textImage);
+            if(window.isVisible()) {
+                visibleWindows.add(window);
+            }
+        }
+
+        // Purge the render buffer cache from windows that have been removed or hidden, what was behind them is exposed
+        Iterator<Map.Entry<Window, WindowRenderBuffer>> iterator = windowRenderBufferCache.entrySet().iterator();
+        while(iterator.hasNext()) {
+            Map.Entry<Window, WindowRenderBuffer> entry = iterator.next();
+            if(!visibleWindows.contains(entry.getKey())) {
+                addDamagedArea(damagedAreas, entry.getValue().footprint);
+                iterator.remove();
+            }
+        }
+
+        // If the order of the windows has changed, everything from the first window that was moved and up needs to be
+        // composited again where it is overlapping other windows
+        int firstRestackedWindow = getFirstRestackedWindow(visibleWindows);
+        for(int index = 0; index < visibleWindows.size(); index++) {
+            Window window = visibleWindows.get(index);
+            WindowRenderBuffer renderBuffer = windowRenderBufferCache.get(window);
+            if(renderBuffer == null) {
+                renderBuffer = new WindowRenderBuffer();
+                windowRenderBufferCache.put(window, renderBuffer);
+            }
+            WindowDecorationRenderer decorationRenderer = null;
+            if(!window.getHints().contains(Window.Hint.NO_DECORATIONS)) {
+                decorationRenderer = getWindowManager().getWindowDecorationRenderer(window);
+            }
+            WindowPostRenderer windowPostRenderer = getPostRenderer(window);
+            TerminalRectangle footprint = getFootprint(window, windowPostRenderer, screenSize);
+            TerminalRectangle oldFootprint = renderBuffer.footprint;
+            boolean active = window == activeWindow;
+            boolean moved = !footprint.equals(oldFootprint) ||
+                    getRendererClass(windowPostRenderer) != getRendererClass(renderBuffer.postRenderer) ||
+                    index >= firstRestackedWindow;
+
+            if(renderBuffer.image == null ||
+                    !renderBuffer.image.getSize().equals(window.getDecoratedSize()) ||
+                    window.getTheme() != renderBuffer.theme ||
+                    getRendererClass(decorationRenderer) != renderBuffer.decorationRendererClass ||
+                    (decorationRenderer != null && active != renderBuffer.active)) {
+
+                drawWindow(window, renderBuffer, decorationRenderer, null);
+                renderBuffer.theme = window.getTheme();
+                renderBuffer.decorationRendererClass = getRendererClass(decorationRenderer);
+                renderBuffer.active = active;
+                moved = true;
+            }
+            else if(window.isInvalid()) {
+                // Only draw the part of the window that has changed again
+                TerminalRectangle redrawnArea = drawWindow(window, renderBuffer, decorationRenderer, window.getDamagedArea());
+                if(!moved) {
+                    TerminalPosition position = window.getPosition();
+                    addDamagedArea(damagedAreas, redrawnArea.withRelative(position.getColumn(), position.getRow()));
                 }
-                TextGUIGraphics windowGraphics = new DefaultTextGUIGraphics(this, textImage.newTextGraphics());
-                TextGUIGraphics insideWindowDecorationsGraphics = windowGraphics;
-                TerminalPosition contentOffset = TerminalPosition.TOP_LEFT_CORNER;
-                if (!window.getHints().contains(Window.Hint.NO_DECORATIONS)) {
-                    WindowDecorationRenderer decorationRenderer = getWindowManager().getWindowDecorationRenderer(window);
-                    insideWindowDecorationsGraphics = decorationRenderer.draw(this, windowGraphics, window);
-                    contentOffset = decorationRenderer.getOffset(window);
+            }
+            if(moved) {
+                addDamagedArea(damagedAreas, footprint);
+                if(oldFootprint != null && !oldFootprint.equals(footprint)) {
+                    addDamagedArea(damagedAreas, oldFootprint);
                 }
+            }
+            renderBuffer.footprint = footprint;
+            renderBuffer.postRenderer = windowPostRenderer;
+        }
+        lastVisibleWindows = visibleWindows;
 
-                window.draw(insideWindowDecorationsGraphics);
-                window.setContentOffset(contentOffset);
-                if (windowGraphics != insideWindowDecorationsGraphics) {
-                    Borders.joinLinesWithFrame(windowGraphics);
-                }
+        if(fullRedraw) {
+            damagedAreas.clear();
+            damagedAreas.add(new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, screenSize));
+        }
+        TerminalRectangle screenArea = new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, screenSize);
+        for(TerminalRectangle damagedArea: damagedAreas) {
+            damagedArea = damagedArea.intersection(screenArea);
+            if(!damagedArea.isEmpty()) {
+                composite(graphics, damagedArea, visibleWindows);
+            }
+        }
+    }
 
-                graphics.drawImage(window.getPosition(), textImage);
+    /**
+     * Draws a window to its render buffer, either all of it or just the part that has been damaged
+     * @param window Window to draw
+     * @param renderBuffer Render buffer of the window
+     * @param decorationRenderer Decoration renderer to use, or {@code null} if the window has no decorations
+     * @param damagedArea Area inside the decorations to draw again, or {@code null} to draw the whole window
+     * @return Area of the render buffer that was drawn
+     */
+    private TerminalRectangle drawWindow(
+            Window window,
+            WindowRenderBuffer renderBuffer,
+            WindowDecorationRenderer decorationRenderer,
+            TerminalRectangle damagedArea) {
+
+        // First draw windows to a buffer, then copy it to the real destination. This is to make physical off-screen
+        // drawing work better, and it lets us copy the window again without redrawing it if it hasn't changed.
+        if (renderBuffer.image == null || !renderBuffer.image.getSize().equals(window.getDecoratedSize())) {
+            renderBuffer.image = new BasicTextImage(window.getDecoratedSize());
+        }
+        TextGUIGraphics windowGraphics = new DefaultTextGUIGraphics(this, renderBuffer.image.newTextGraphics());
+        TerminalPosition contentOffset = TerminalPosition.TOP_LEFT_CORNER;
+        if (decorationRenderer != null) {
+            contentOffset = decorationRenderer.getOffset(window);
+        }
+        if (damagedArea != null) {
+            // Everything outside the damaged area is left as it is in the buffer. Lines drawn along the edge of the
+            // window's content are joined with the decorations, so if that's where the damage is we need to include
+            // the decorations next to it too.
+            TerminalSize contentSize = window.getSize();
+            if (decorationRenderer != null && (
+                    damagedArea.getColumn() <= 0 ||
+                    damagedArea.getRow() <= 0 ||
+                    damagedArea.getColumn() + damagedArea.getColumns() >= contentSize.getColumns() ||
+                    damagedArea.getRow() + damagedArea.getRows() >= contentSize.getRows())) {
+                damagedArea = new TerminalRectangle(
+                        damagedArea.getColumn() - 1,
+                        damagedArea.getRow() - 1,
+                        damagedArea.getColumns() + 2,
+                        damagedArea.getRows() + 2);
+            }
+            windowGraphics = windowGraphics.newClippedTextGraphics(damagedArea.withRelative(contentOffset.getColumn(), contentOffset.getRow()));
+        }
+        TextGUIGraphics insideWindowDecorationsGraphics = windowGraphics;
+        if (decorationRenderer != null) {
+            insideWindowDecorationsGraphics = decorationRenderer.draw(this, windowGraphics, window);
+        }
 
-                if(!window.getHints().contains(Window.Hint.NO_POST_RENDERING)) {
-                    if (window.getPostRenderer() != null) {
-                        window.getPostRenderer().postRender(graphics, this, window);
-                    }
-                    else if (postRenderer != null) {
-                        postRenderer.postRender(graphics, this, window);
-                    }
-                    else if (getTheme().getWindowPostRenderer() != null) {
-                        getTheme().getWindowPostRenderer().postRender(graphics, this, window);
-                    }
+        window.draw(insideWindowDecorationsGraphics);
+        window.setContentOffset(contentOffset);
+        if (windowGraphics != insideWindowDecorationsGraphics) {
+            Borders.joinLinesWithFrame(windowGraphics);
+        }
+        return windowGraphics.getClipArea();
+    }
+
+    private void composite(TextGUIGraphics graphics, TerminalRectangle area, List<Window> visibleWindows) {
+        graphics.drawImage(area.getTopLeft(), backgroundRenderBuffer, area.getTopLeft(), area.getSize());
+        TextGUIGraphics clippedGraphics = null;
+        for(Window window: visibleWindows) {
+            WindowRenderBuffer renderBuffer = windowRenderBufferCache.get(window);
+            if(!renderBuffer.footprint.intersects(area)) {
+                continue;
+            }
+            TerminalPosition position = window.getPosition();
+            TerminalRectangle visibleArea = new TerminalRectangle(position, renderBuffer.image.getSize()).intersection(area);
+            if(!visibleArea.isEmpty()) {
+                graphics.drawImage(
+                        visibleArea.getTopLeft(),
+                        renderBuffer.image,
+                        visibleArea.getTopLeft().withRelative(-position.getColumn(), -position.getRow()),
+                        visibleArea.getSize());
+            }
+            if(renderBuffer.postRenderer != null) {
+                if(clippedGraphics == null) {
+                    clippedGraphics = graphics.newClippedTextGraphics(area);
                 }
+                renderBuffer.postRenderer.postRender(clippedGraphics, this, window);
+            }
+        }
+    }
+
+    private int getFirstRestackedWindow(List<Window> visibleWindows) {
+        int oldIndex = 0;
+        for(int index = 0; index < visibleWindows.size(); index++) {
+            Window window = visibleWindows.get(index);
+            if(!windowRenderBufferCache.containsKey(window)) {
+                // New window, it's drawn anyway
+                continue;
             }
+            while(oldIndex < lastVisibleWindows.size() && !windowRenderBufferCache.containsKey(lastVisibleWindows.get(oldIndex))) {
+                oldIndex++;
+            }
+            if(oldIndex == lastVisibleWindows.size() || lastVisibleWindows.get(oldIndex) != window) {
+                return index;
+            }
+            oldIndex++;
+        }
+        return visibleWindows.size();
+    }
+
+    private WindowPostRenderer getPostRenderer(Window window) {
+        if(window.getHints().contains(Window.Hint.NO_POST_RENDERING)) {
+            return null;
+        }
+        else if (window.getPostRenderer() != null) {
+            return window.getPostRenderer();
+        }
+        else if (postRenderer != null) {
+            return postRenderer;
         }
+        return getTheme().getWindowPostRenderer();
+    }
 
-        // Purge the render buffer cache from windows that have been removed
-        windowRenderBufferCache.keySet().retainAll(windows);
+    private TerminalRectangle getFootprint(Window window, WindowPostRenderer windowPostRenderer, TerminalSize screenSize) {
+        TerminalRectangle bounds = new TerminalRectangle(window.getPosition(), window.getDecoratedSize());
+        if(windowPostRenderer == null) {
+            return bounds;
+        }
+        else if(windowPostRenderer instanceof WindowShadowRenderer) {
+            // The shadow goes at most two columns to the right of and one row below the window
+            return new TerminalRectangle(bounds.getTopLeft(), bounds.getSize().withRelative(2, 1));
+        }
+        // We can't tell where other post renderers will draw, so assume it could be anywhere
+        return new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, screenSize);
     }
 
-    private void drawBackgroundPane(TextGUIGraphics graphics) {
-        backgroundPane.draw(new DefaultTextGUIGraphics(this, graphics));
+    private static Class<?> getRendererClass(Object renderer) {
+        // The window manager may hand out a new decoration renderer every time, so compare the type of the renderers
+        return renderer != null ? renderer.getClass() : null;
+    }
+
+    private static void addDamagedArea(List<TerminalRectangle> damagedAreas, TerminalRectangle area) {
+        if(area == null || area.isEmpty()) {
+            return;
+        }
+        // Merge overlapping areas so that no part of the screen is composited more than once
+        for(int index = 0; index < damagedAreas.size(); index++) {
+            if(damagedAreas.get(index).intersects(area)) {
+                area = area.union(damagedAreas.remove(index));
+                index = -1;
+            }
+        }
+        damagedAreas.add(area);
     }
 
     @Override
@@ -422,31 +624,47 @@ public class MultiWindowTextGUI extends AbstractTextGUI implements WindowBasedTe
             setActiveWindow(null);
         }
         invalidate();
+        notifyAll();
         return this;
     }
 
     @Override
     public void waitForWindowToClose(Window window) {
-        while(window.getTextGUI() != null) {
-            boolean sleep = true;
-            TextGUIThread guiThread = getGUIThread();
-            if(Thread.currentThread() == guiThread.getThread()) {
-                try {
-                    sleep = !guiThread.processEventsAndUpdate();
-                }
-                catch(EOFException ignore) {
-                    //The GUI has closed so allow exit
-                    break;
-                }
-                catch(IOException e) {
-                    throw new RuntimeException("Unexpected IOException while waiting for window to close", e);
+        TextGUIThread guiThread = getGUIThread();
+        if(Thread.currentThread() != guiThread.getThread()) {
+            // removeWindow(..) will notify us when the window is gone
+            synchronized(this) {
+                while(window.getTextGUI() != null) {
+                    try {
+                        wait();
+                    }
+                    catch(InterruptedException ignore) {}
                 }
             }
-            if(sleep) {
-                try {
-                    Thread.sleep(1);
+            return;
+        }
+        while(window.getTextGUI() != null) {
+            boolean sleep;
+            try {
+                sleep = !guiThread.processEventsAndUpdate();
+            }
+            catch(EOFException ignore) {
+                //The GUI has closed so allow exit
+                break;
+            }
+            catch(IOException e) {
+                throw new RuntimeException("Unexpected IOException while waiting for window to close", e);
+            }
+            if(sleep && window.getTextGUI() != null) {
+                if(guiThread instanceof EventDrivenTextGUIThread) {
+                    ((EventDrivenTextGUIThread)guiThread).waitForWakeUp();
+                }
+                else {
+                    try {
+                        Thread.sleep(1);
+                    }
+                    catch(InterruptedException ignore) {}
                 }
-                catch(InterruptedException ignore) {}
             }
         }
     }
@@ -552,4 +770,16 @@ public class MultiWindowTextGUI extends AbstractTextGUI implements WindowBasedTe
         }
         return windows.get(index);
     }
+
+    /**
+     * What we know about a window from the last time it was drawn, so that we can tell if it needs to be drawn again
+     */
+    private static class WindowRenderBuffer {
+        private TextImage image;
+        private TerminalRectangle footprint;
+        private Theme theme;
+        private Class<?> decorationRendererClass;
+        private WindowPostRenderer postRenderer;
+        private boolean active;
+    }
 }
@@ -18,8 +18,11 @@
  */
 package com.googlecode.lanterna.gui2;
 
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalRectangle;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.graphics.Theme;
 import com.googlecode.lanterna.input.KeyStroke;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -39,8 +42,15 @@ public class Panel extends AbstractComponent<Panel> implements Container {
     private final List<Component> components;
     private LayoutManager layoutManager;
     private TerminalSize cachedPreferredSize;
+    private Theme cachedPreferredSizeTheme;
     private TextColor fillColorOverride;
 
+    // What the components looked like when they were last laid out, to tell if they need to be laid out again
+    private TerminalSize laidOutSize;
+    private final List<TerminalSize> laidOutPreferredSizes;
+    private final List<LayoutData> laidOutLayoutData;
+    private final List<TerminalRectangle> laidOutAreas;
+
     /**
      * Default constructor, creates a new panel with no child components and by default set to a vertical
      * {@code LinearLayout} layout manager.
@@ -56,6 +66,11 @@ public class Panel extends AbstractComponent<Panel> implements Container {
         this.components = new ArrayList<>();
         this.layoutManager = layoutManager;
         this.cachedPreferredSize = null;
+        this.cachedPreferredSizeTheme = null;
+        this.laidOutSize = null;
+        this.laidOutPreferredSizes = new ArrayList<>();
+        this.laidOutLayoutData = new ArrayList<>();
+        this.laidOutAreas = new ArrayList<>();
     }
 
     /**
@@ -192,6 +207,7 @@ public class Panel extends AbstractComponent<Panel> implements Container {
      */
     public void setFillColorOverride(TextColor fillColor) {
         this.fillColorOverride = fillColor;
+        invalidate();
     }
 
     /**
@@ -245,13 +261,14 @@ public class Panel extends AbstractComponent<Panel> implements Container {
         public TerminalSize getPreferredSize(Panel component) {
             synchronized(components) {
                 cachedPreferredSize = layoutManager.getPreferredSize(components);
+                cachedPreferredSizeTheme = getTheme();
             }
             return cachedPreferredSize;
         }
 
         @Override
         public void drawComponent(TextGUIGraphics graphics, Panel panel) {
-            if(isInvalid()) {
+            if(isLayoutStale(graphics.getSize())) {
                 layout(graphics.getSize());
             }
 
@@ -264,10 +281,15 @@ public class Panel extends AbstractComponent<Panel> implements Container {
                 graphics.fill(' ');
             }
 
+            // Only the components inside the clip area need to be drawn again, but invalid components are always drawn so
+            // that they are no longer invalid afterwards
+            TerminalRectangle clipArea = graphics.getClipArea();
             synchronized(components) {
                 for(Component child: components) {
-                    TextGUIGraphics componentGraphics = graphics.newTextGraphics(child.getPosition(), child.getSize());
-                    child.draw(componentGraphics);
+                    if(child.isInvalid() || clipArea.intersects(new TerminalRectangle(child.getPosition(), child.getSize()))) {
+                        TextGUIGraphics componentGraphics = graphics.newTextGraphics(child.getPosition(), child.getSize());
+                        child.draw(componentGraphics);
+                    }
                 }
             }
         }
@@ -275,12 +297,24 @@ public class Panel extends AbstractComponent<Panel> implements Container {
 
     @Override
     public TerminalSize calculatePreferredSize() {
-        if(cachedPreferredSize != null && !isInvalid()) {
+        if(cachedPreferredSize != null && !isInvalid() && cachedPreferredSizeTheme == getTheme()) {
             return cachedPreferredSize;
         }
         return super.calculatePreferredSize();
     }
 
+    @Override
+    public void invalidate() {
+        super.invalidate();
+
+        synchronized(components) {
+            //Propagate
+            for(Component component: components) {
+                component.invalidate();
+            }
+        }
+    }
+
     @Override
     public boolean isInvalid() {
         synchronized(components) {
@@ -291,7 +325,35 @@ public class Panel extends AbstractComponent<Panel> implements Container {
             }
         }
         return super.isInvalid() || layoutManager.hasChanged();
-    }    
+    }
+
+    @Override
+    public TerminalRectangle getDamagedArea() {
+        TerminalRectangle wholeArea = new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, getSize());
+        if(super.isInvalid() || layoutManager.hasChanged()) {
+            return wholeArea;
+        }
+        TerminalRectangle damagedArea = null;
+        synchronized(components) {
+            for(int index = 0; index < components.size(); index++) {
+                Component component = components.get(index);
+                if(hasMoved(index, component)) {
+                    return wholeArea;
+                }
+                TerminalRectangle componentArea = component.getDamagedArea();
+                if(componentArea == null) {
+                    continue;
+                }
+                if(isLayoutStale(index, component)) {
+                    // The layout will change, so any of the components could end up somewhere else
+                    return wholeArea;
+                }
+                componentArea = componentArea.withRelative(component.getPosition().getColumn(), component.getPosition().getRow());
+                damagedArea = damagedArea == null ? componentArea : damagedArea.union(componentArea);
+            }
+        }
+        return damagedArea;
+    }
 
     @Override
     public Interactable nextFocus(Interactable fromThis) {
@@ -397,21 +459,45 @@ public class Panel extends AbstractComponent<Panel> implements Container {
         }
     }
 
-    @Override
-    public void invalidate() {
-        super.invalidate();
-
+    private boolean isLayoutStale(TerminalSize size) {
+        if(super.isInvalid() || layoutManager.hasChanged() || !size.equals(laidOutSize)) {
+            return true;
+        }
         synchronized(components) {
-            //Propagate
-            for(Component component: components) {
-                component.invalidate();
+            for(int index = 0; index < components.size(); index++) {
+                Component component = components.get(index);
+                if(hasMoved(index, component) || (component.isInvalid() && isLayoutStale(index, component))) {
+                    return true;
+                }
             }
         }
+        return false;
+    }
+
+    private boolean hasMoved(int index, Component component) {
+        // Components can be moved around without going through the layout manager, for example with AbsoluteLayout
+        return index >= laidOutAreas.size() ||
+                !laidOutAreas.get(index).equals(new TerminalRectangle(component.getPosition(), component.getSize()));
+    }
+
+    private boolean isLayoutStale(int index, Component component) {
+        return index >= laidOutPreferredSizes.size() ||
+                !component.getPreferredSize().equals(laidOutPreferredSizes.get(index)) ||
+                component.getLayoutData() != laidOutLayoutData.get(index);
     }
 
     private void layout(TerminalSize size) {
         synchronized(components) {
             layoutManager.doLayout(size, components);
+            laidOutSize = size;
+            laidOutPreferredSizes.clear();
+            laidOutLayoutData.clear();
+            laidOutAreas.clear();
+            for(Component component: components) {
+                laidOutPreferredSizes.add(component.getPreferredSize());
+                laidOutLayoutData.add(component.getLayoutData());
+                laidOutAreas.add(new TerminalRectangle(component.getPosition(), component.getSize()));
+            }
         }
     }
 }
@@ -96,15 +96,13 @@ public class RadioBoxList<V> extends AbstractListBox<V, RadioBoxList<V>> {
     }
 
     @Override
-    public synchronized V removeItem(int index) {
-        V item = super.removeItem(index);
-        if(index < checkedIndex) {
-            checkedIndex--;
+    protected void onItemsChanged(int firstIndex, int removedItems, int addedItems) {
+        if(checkedIndex >= firstIndex + removedItems) {
+            checkedIndex += addedItems - removedItems;
         }
         while(checkedIndex >= getItemCount()) {
             checkedIndex--;
         }
-        return item;
     }
 
     @Override
@@ -117,6 +117,7 @@ public class ScrollBar extends AbstractComponent<ScrollBar> {
      */
     public ScrollBar setViewSize(int viewSize) {
         this.viewSize = viewSize;
+        invalidate();
         return this;
     }
 
@@ -19,6 +19,8 @@
 package com.googlecode.lanterna.gui2;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
@@ -27,6 +29,7 @@ import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.TerminalTextUtils;
 import com.googlecode.lanterna.graphics.ThemeDefinition;
 import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
 import com.googlecode.lanterna.input.MouseAction;
 
 /**
@@ -36,6 +39,11 @@ import com.googlecode.lanterna.input.MouseAction;
  * <p>
  * Size-wise, a {@code TextBox} should be hard-coded to a particular size, it's not good at guessing how large it should
  * be. You can do this through the constructor.
+ * <p>
+ * The text is stored in a document that can insert, remove and look up lines in logarithmic time and keeps track of
+ * the width of each line, so a multi-line {@code TextBox} stays responsive even with many thousands of lines in it.
+ * Characters typed by the user go into a buffer for the current line which is written back to the document when the
+ * text is read or the caret leaves the line, so typing or pasting a long line doesn't copy the line for every character.
  */
 public class TextBox extends AbstractInteractableComponent<TextBox> {
 
@@ -55,16 +63,19 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
         ;
     }
 
-    private final List<String> lines;
+    private final TextDocument document;
     private final Style style;
 
+    // Line the user is typing on, not yet written back to the document, and its row
+    private StringBuilder editBuffer;
+    private int editBufferRow;
+
     private TerminalPosition caretPosition;
     private boolean caretWarp;
     private boolean readOnly;
     private boolean horizontalFocusSwitching;
     private boolean verticalFocusSwitching;
     private final int maxLineLength;
-    private int longestRow;
     private Character mask;
     private Pattern validationPattern;
 
@@ -128,7 +139,9 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
      * @param style Style to use for this {@code TextBox}, instead of auto-detecting
      */
     public TextBox(TerminalSize preferredSize, String initialContent, Style style) {
-        this.lines = new ArrayList<>();
+        this.document = new TextDocument();
+        this.editBuffer = null;
+        this.editBufferRow = -1;
         this.style = style;
         this.readOnly = false;
         this.caretWarp = false;
@@ -136,7 +149,6 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
         this.horizontalFocusSwitching = (style == Style.SINGLE_LINE);
         this.caretPosition = TerminalPosition.TOP_LEFT_CORNER;
         this.maxLineLength = -1;
-        this.longestRow = 1;    //To fit the cursor
         this.mask = null;
         this.validationPattern = null;
         setText(initialContent);
@@ -145,7 +157,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
         this.caretPosition = TerminalPosition.TOP_LEFT_CORNER.withColumn(getLine(0).length());
 
         if (preferredSize == null) {
-            preferredSize = new TerminalSize(Math.max(10, longestRow), lines.size());
+            preferredSize = new TerminalSize(Math.max(10, getLongestRow()), getLineCount());
         }
         setPreferredSize(preferredSize);
     }
@@ -161,7 +173,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
      */
     public synchronized TextBox setValidationPattern(Pattern validationPattern) {
         if(validationPattern != null) {
-            for(String line: lines) {
+            for(String line: getDocument().getLines(0, document.getLineCount())) {
                 if(!validated(line)) {
                     throw new IllegalStateException("TextBox validation pattern " + validationPattern + " does not match existing content");
                 }
@@ -181,16 +193,23 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
         if (split.length == 0) {
             split = new String[] { "" };
         }
-        lines.clear();
-        longestRow = 1;
+        List<String> newLines = new ArrayList<>(split.length);
         for(String line : split) {
-            addLine(line);
+            newLines.addAll(splitLines(line));
+        }
+        for(String line : newLines) {
+            if(!validated(line)) {
+                throw new IllegalStateException("TextBox validation pattern " + validationPattern + " does not match the supplied text");
+            }
         }
-        if(caretPosition.getRow() > lines.size() - 1) {
-            caretPosition = caretPosition.withRow(lines.size() - 1);
+        editBuffer = null;
+        document.clear();
+        document.addLines(newLines);
+        if(caretPosition.getRow() > document.getLineCount() - 1) {
+            caretPosition = caretPosition.withRow(document.getLineCount() - 1);
         }
-        if(caretPosition.getColumn() > lines.get(caretPosition.getRow()).length()) {
-            caretPosition = caretPosition.withColumn(lines.get(caretPosition.getRow()).length());
+        if(caretPosition.getColumn() > document.getLine(caretPosition.getRow()).length()) {
+            caretPosition = caretPosition.withColumn(document.getLine(caretPosition.getRow()).length());
         }
         invalidate();
         return this;
@@ -207,36 +226,90 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
      * @return Itself
      */
     public synchronized TextBox addLine(String line) {
+        List<String> newLines = splitLines(line);
+        if(!validated(newLines.get(newLines.size() - 1))) {
+            throw new IllegalStateException("TextBox validation pattern " + validationPattern + " does not match the supplied text");
+        }
+        getDocument().addLines(newLines);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Inserts text at the position of the caret, as one edit, and moves the caret to the end of the inserted text. For
+     * multi-line {@code TextBox}:es, any \n in the text starts a new line. This is much faster than feeding the text
+     * through {@code handleInput(..)} one character at a time when inserting a lot of text, like when pasting.
+     * @param text Text to insert at the caret
+     * @return Itself
+     * @throws IllegalStateException If the validation pattern doesn't match the lines resulting from the insertion
+     */
+    public synchronized TextBox insertText(String text) {
+        List<String> newLines = splitLines(text);
+        TextDocument document = getDocument();
+        int row = caretPosition.getRow();
+        String line = document.getLine(row);
+        int column = Math.min(caretPosition.getColumn(), line.length());
+        int lastIndex = newLines.size() - 1;
+        int caretColumn = (lastIndex == 0 ? column : 0) + newLines.get(lastIndex).length();
+        newLines.set(0, line.substring(0, column) + newLines.get(0));
+        newLines.set(lastIndex, newLines.get(lastIndex) + line.substring(column));
+        for(String newLine: newLines) {
+            if(!validated(newLine)) {
+                throw new IllegalStateException("TextBox validation pattern " + validationPattern + " does not match the supplied text");
+            }
+        }
+        document.setLine(row, newLines.get(0));
+        document.insertLines(row + 1, newLines.subList(1, newLines.size()));
+        caretPosition = caretPosition.withRow(row + lastIndex).withColumn(caretColumn);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Splits text into lines at each \n if this is a multi-line {@code TextBox}, dropping all other control characters
+     */
+    private List<String> splitLines(String text) {
+        List<String> result = new ArrayList<>();
         StringBuilder bob = new StringBuilder();
-        for(int i = 0; i < line.length(); i++) {
-            char c = line.charAt(i);
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
             if(c == '\n' && style == Style.MULTI_LINE) {
-                String string = bob.toString();
-                int lineWidth = TerminalTextUtils.getColumnWidth(string);
-                lines.add(string);
-                if(longestRow < lineWidth + 1) {
-                    longestRow = lineWidth + 1;
-                }
-                addLine(line.substring(i + 1));
-                return this;
+                result.add(bob.toString());
+                bob.setLength(0);
             }
-            else if(Character.isISOControl(c)) {
-                continue;
+            else if(!Character.isISOControl(c)) {
+                bob.append(c);
             }
-
-            bob.append(c);
         }
-        String string = bob.toString();
-        if(!validated(string)) {
-            throw new IllegalStateException("TextBox validation pattern " + validationPattern + " does not match the supplied text");
-        }
-        int lineWidth = TerminalTextUtils.getColumnWidth(string);
-        lines.add(string);
-        if(longestRow < lineWidth + 1) {
-            longestRow = lineWidth + 1;
+        result.add(bob.toString());
+        return result;
+    }
+
+    /**
+     * Returns the document with the text of this {@code TextBox}, after writing back anything the user has typed into
+     * the edit buffer
+     */
+    private TextDocument getDocument() {
+        if(editBuffer != null) {
+            document.setLine(editBufferRow, editBuffer.toString());
+            editBuffer = null;
         }
-        invalidate();
-        return this;
+        return document;
+    }
+
+    /**
+     * Returns the width of the longest line plus one, to fit the cursor after it
+     */
+    private synchronized int getLongestRow() {
+        return getDocument().getMaxLineWidth() + 1;
+    }
+
+    private synchronized int getColumnIndex(int row, int characterIndex) {
+        return getDocument().getColumnIndex(row, characterIndex);
+    }
+
+    private synchronized boolean isSingleColumnLine(int row) {
+        return getDocument().isSingleColumnLine(row);
     }
 
     /**
@@ -259,10 +332,10 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
             }
         }
 
-        if (lineIndex < 0 || lineIndex >= lines.size()) {
-            throw new ArrayIndexOutOfBoundsException("Invalid line index for TextBox with " + lines.size() + " lines: " + lineIndex);
+        if (lineIndex < 0 || lineIndex >= getLineCount()) {
+            throw new ArrayIndexOutOfBoundsException("Invalid line index for TextBox with " + getLineCount() + " lines: " + lineIndex);
         }
-        lines.remove(lineIndex);
+        getDocument().removeLines(lineIndex, lineIndex + 1);
         if (caretPosition.getRow() == lineIndex) {
             // Validate the caret can still stay in this position
             setCaretPosition(caretPosition.getRow(), caretPosition.getColumn());
@@ -328,16 +401,17 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
         if(line < 0) {
             line = 0;
         }
-        else if(line >= lines.size()) {
-            line = lines.size() - 1;
+        else if(line >= getLineCount()) {
+            line = getLineCount() - 1;
         }
         if(column < 0) {
             column = 0;
         }
-        else if(column > lines.get(line).length()) {
-            column = lines.get(line).length();
+        else if(column > getLine(line).length()) {
+            column = getLine(line).length();
         }
         caretPosition = caretPosition.withRow(line).withColumn(column);
+        invalidate();
         return this;
     }
 
@@ -347,11 +421,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
      * @return The text inside this {@code TextBox}
      */
     public synchronized String getText() {
-        StringBuilder bob = new StringBuilder(lines.get(0));
-        for(int i = 1; i < lines.size(); i++) {
-            bob.append("\n").append(lines.get(i));
-        }
-        return bob.toString();
+        return getDocument().getText();
     }
 
     /**
@@ -384,7 +454,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
      * @return Itself
      */
     public TextBox setMask(Character mask) {
-        if(mask != null && TerminalTextUtils.isCharCJK(mask)) {
+        if(mask != null && TerminalTextUtils.isCharDoubleWidth(mask)) {
             throw new IllegalArgumentException("Cannot use a CJK character as a mask");
         }
         this.mask = mask;
@@ -468,7 +538,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
      * @throws IndexOutOfBoundsException if the row index is less than zero or too large
      */
     public synchronized String getLine(int index) {
-        return lines.get(index);
+        return getDocument().getLine(index);
     }
 
     /**
@@ -476,7 +546,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
      * @return Number of lines of text currently in this TextBox
      */
     public synchronized int getLineCount() {
-        return lines.size();
+        return document.getLineCount();
     }
 
     @Override
@@ -489,13 +559,28 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
         if(readOnly) {
             return handleKeyStrokeReadOnly(keyStroke);
         }
-        String line = lines.get(caretPosition.getRow());
+        if(keyStroke.getKeyType() == KeyType.Character && validationPattern == null) {
+            // Without a validation pattern we don't need to see the whole line after each character, so keep typing into
+            // the edit buffer
+            int row = caretPosition.getRow();
+            if(editBuffer == null || editBufferRow != row) {
+                editBuffer = new StringBuilder(getDocument().getLine(row));
+                editBufferRow = row;
+            }
+            if(maxLineLength == -1 || maxLineLength > editBuffer.length() + 1) {
+                editBuffer.insert(caretPosition.getColumn(), keyStroke.getCharacter().charValue());
+                caretPosition = caretPosition.withRelativeColumn(1);
+            }
+            return Result.HANDLED;
+        }
+        TextDocument document = getDocument();
+        String line = document.getLine(caretPosition.getRow());
         switch(keyStroke.getKeyType()) {
             case Character:
                 if(maxLineLength == -1 || maxLineLength > line.length() + 1) {
                     line = line.substring(0, caretPosition.getColumn()) + keyStroke.getCharacter() + line.substring(caretPosition.getColumn());
                     if(validated(line)) {
-                        lines.set(caretPosition.getRow(), line);
+                        document.setLine(caretPosition.getRow(), line);
                         caretPosition = caretPosition.withRelativeColumn(1);
                     }
                 }
@@ -504,17 +589,17 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 if(caretPosition.getColumn() > 0) {
                     line = line.substring(0, caretPosition.getColumn() - 1) + line.substring(caretPosition.getColumn());
                     if(validated(line)) {
-                        lines.set(caretPosition.getRow(), line);
+                        document.setLine(caretPosition.getRow(), line);
                         caretPosition = caretPosition.withRelativeColumn(-1);
                     }
                 }
                 else if(style == Style.MULTI_LINE && caretPosition.getRow() > 0) {
-                    String concatenatedLines = lines.get(caretPosition.getRow() - 1) + line;
+                    String concatenatedLines = document.getLine(caretPosition.getRow() - 1) + line;
                     if(validated(concatenatedLines)) {
-                        lines.remove(caretPosition.getRow());
+                        document.removeLines(caretPosition.getRow(), caretPosition.getRow() + 1);
                         caretPosition = caretPosition.withRelativeRow(-1);
-                        caretPosition = caretPosition.withColumn(lines.get(caretPosition.getRow()).length());
-                        lines.set(caretPosition.getRow(), concatenatedLines);
+                        caretPosition = caretPosition.withColumn(document.getLine(caretPosition.getRow()).length());
+                        document.setLine(caretPosition.getRow(), concatenatedLines);
                     }
                 }
                 return Result.HANDLED;
@@ -522,14 +607,14 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 if(caretPosition.getColumn() < line.length()) {
                     line = line.substring(0, caretPosition.getColumn()) + line.substring(caretPosition.getColumn() + 1);
                     if(validated(line)) {
-                        lines.set(caretPosition.getRow(), line);
+                        document.setLine(caretPosition.getRow(), line);
                     }
                 }
-                else if(style == Style.MULTI_LINE && caretPosition.getRow() < lines.size() - 1) {
-                    String concatenatedLines = line + lines.get(caretPosition.getRow() + 1);
+                else if(style == Style.MULTI_LINE && caretPosition.getRow() < document.getLineCount() - 1) {
+                    String concatenatedLines = line + document.getLine(caretPosition.getRow() + 1);
                     if(validated(concatenatedLines)) {
-                        lines.set(caretPosition.getRow(), concatenatedLines);
-                        lines.remove(caretPosition.getRow() + 1);
+                        document.setLine(caretPosition.getRow(), concatenatedLines);
+                        document.removeLines(caretPosition.getRow() + 1, caretPosition.getRow() + 2);
                     }
                 }
                 return Result.HANDLED;
@@ -539,17 +624,17 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 }
                 else if(style == Style.MULTI_LINE && caretWarp && caretPosition.getRow() > 0) {
                     caretPosition = caretPosition.withRelativeRow(-1);
-                    caretPosition = caretPosition.withColumn(lines.get(caretPosition.getRow()).length());
+                    caretPosition = caretPosition.withColumn(document.getLine(caretPosition.getRow()).length());
                 }
                 else if(horizontalFocusSwitching) {
                     return Result.MOVE_FOCUS_LEFT;
                 }
                 return Result.HANDLED;
             case ArrowRight:
-                if(caretPosition.getColumn() < lines.get(caretPosition.getRow()).length()) {
+                if(caretPosition.getColumn() < document.getLine(caretPosition.getRow()).length()) {
                     caretPosition = caretPosition.withRelativeColumn(1);
                 }
-                else if(style == Style.MULTI_LINE && caretWarp && caretPosition.getRow() < lines.size() - 1) {
+                else if(style == Style.MULTI_LINE && caretWarp && caretPosition.getRow() < document.getLineCount() - 1) {
                     caretPosition = caretPosition.withRelativeRow(1);
                     caretPosition = caretPosition.withColumn(0);
                 }
@@ -559,10 +644,10 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 return Result.HANDLED;
             case ArrowUp:
                 if(caretPosition.getRow() > 0) {
-                    int trueColumnPosition = TerminalTextUtils.getColumnIndex(lines.get(caretPosition.getRow()), caretPosition.getColumn());
+                    int trueColumnPosition = document.getColumnIndex(caretPosition.getRow(), caretPosition.getColumn());
                     caretPosition = caretPosition.withRelativeRow(-1);
-                    line = lines.get(caretPosition.getRow());
-                    if(trueColumnPosition > TerminalTextUtils.getColumnWidth(line)) {
+                    line = document.getLine(caretPosition.getRow());
+                    if(trueColumnPosition > document.getLineWidth(caretPosition.getRow())) {
                         caretPosition = caretPosition.withColumn(line.length());
                     }
                     else {
@@ -574,11 +659,11 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 }
                 return Result.HANDLED;
             case ArrowDown:
-                if(caretPosition.getRow() < lines.size() - 1) {
-                    int trueColumnPosition = TerminalTextUtils.getColumnIndex(lines.get(caretPosition.getRow()), caretPosition.getColumn());
+                if(caretPosition.getRow() < document.getLineCount() - 1) {
+                    int trueColumnPosition = document.getColumnIndex(caretPosition.getRow(), caretPosition.getColumn());
                     caretPosition = caretPosition.withRelativeRow(1);
-                    line = lines.get(caretPosition.getRow());
-                    if(trueColumnPosition > TerminalTextUtils.getColumnWidth(line)) {
+                    line = document.getLine(caretPosition.getRow());
+                    if(trueColumnPosition > document.getLineWidth(caretPosition.getRow())) {
                         caretPosition = caretPosition.withColumn(line.length());
                     }
                     else {
@@ -599,8 +684,8 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 String newLine = line.substring(caretPosition.getColumn());
                 String oldLine = line.substring(0, caretPosition.getColumn());
                 if(validated(newLine) && validated(oldLine)) {
-                    lines.set(caretPosition.getRow(), oldLine);
-                    lines.add(caretPosition.getRow() + 1, newLine);
+                    document.setLine(caretPosition.getRow(), oldLine);
+                    document.insertLines(caretPosition.getRow() + 1, Collections.singletonList(newLine));
                     caretPosition = caretPosition.withColumn(0).withRelativeRow(1);
                 }
                 return Result.HANDLED;
@@ -609,11 +694,11 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 return Result.HANDLED;
             case PageDown:
                 caretPosition = caretPosition.withRelativeRow(getSize().getRows());
-                if(caretPosition.getRow() > lines.size() - 1) {
-                    caretPosition = caretPosition.withRow(lines.size() - 1);
+                if(caretPosition.getRow() > document.getLineCount() - 1) {
+                    caretPosition = caretPosition.withRow(document.getLineCount() - 1);
                 }
-                if(lines.get(caretPosition.getRow()).length() < caretPosition.getColumn()) {
-                    caretPosition = caretPosition.withColumn(lines.get(caretPosition.getRow()).length());
+                if(document.getLine(caretPosition.getRow()).length() < caretPosition.getColumn()) {
+                    caretPosition = caretPosition.withColumn(document.getLine(caretPosition.getRow()).length());
                 }
                 return Result.HANDLED;
             case PageUp:
@@ -621,8 +706,8 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 if(caretPosition.getRow() < 0) {
                     caretPosition = caretPosition.withRow(0);
                 }
-                if(lines.get(caretPosition.getRow()).length() < caretPosition.getColumn()) {
-                    caretPosition = caretPosition.withColumn(lines.get(caretPosition.getRow()).length());
+                if(document.getLine(caretPosition.getRow()).length() < caretPosition.getColumn()) {
+                    caretPosition = caretPosition.withColumn(document.getLine(caretPosition.getRow()).length());
                 }
                 return Result.HANDLED;
             case MouseEvent:
@@ -632,7 +717,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 MouseAction mouseAction = (MouseAction) keyStroke;
                 int newCaretPositionColumn = mouseAction.getPosition().getColumn() - getGlobalPosition().getColumn();
                 int newCaretPositionRow = mouseAction.getPosition().getRow() - getGlobalPosition().getRow();
-                String newActiveLine = lines.get(newCaretPositionRow);
+                String newActiveLine = document.getLine(newCaretPositionRow);
                 if (newCaretPositionColumn > newActiveLine.length()) {
                     caretPosition = caretPosition.with(new TerminalPosition(newActiveLine.length(), newCaretPositionRow));
                 } else {
@@ -658,7 +743,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 getRenderer().setViewTopLeft(getRenderer().getViewTopLeft().withRelativeColumn(-1));
                 return Result.HANDLED;
             case ArrowRight:
-                if(getRenderer().getViewTopLeft().getColumn() + getSize().getColumns() == longestRow && horizontalFocusSwitching) {
+                if(getRenderer().getViewTopLeft().getColumn() + getSize().getColumns() == getLongestRow() && horizontalFocusSwitching) {
                     return Result.MOVE_FOCUS_RIGHT;
                 }
                 getRenderer().setViewTopLeft(getRenderer().getViewTopLeft().withRelativeColumn(1));
@@ -670,7 +755,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 getRenderer().setViewTopLeft(getRenderer().getViewTopLeft().withRelativeRow(-1));
                 return Result.HANDLED;
             case ArrowDown:
-                if(getRenderer().getViewTopLeft().getRow() + getSize().getRows() == lines.size() && verticalFocusSwitching) {
+                if(getRenderer().getViewTopLeft().getRow() + getSize().getRows() == getLineCount() && verticalFocusSwitching) {
                     return Result.MOVE_FOCUS_DOWN;
                 }
                 getRenderer().setViewTopLeft(getRenderer().getViewTopLeft().withRelativeRow(1));
@@ -764,14 +849,14 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
             caretPosition = caretPosition.withColumn(Math.min(caretPosition.getColumn(), line.length()));
 
             return caretPosition
-                    .withColumn(TerminalTextUtils.getColumnIndex(line, caretPosition.getColumn()))
+                    .withColumn(component.getColumnIndex(caretPosition.getRow(), caretPosition.getColumn()))
                     .withRelativeColumn(-viewTopLeft.getColumn())
                     .withRelativeRow(-viewTopLeft.getRow());
         }
 
         @Override
         public TerminalSize getPreferredSize(TextBox component) {
-            return new TerminalSize(component.longestRow, component.lines.size());
+            return new TerminalSize(component.getLongestRow(), component.getLineCount());
         }
 
         /**
@@ -793,11 +878,12 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
             boolean drawVerticalScrollBar = false;
             boolean drawHorizontalScrollBar = false;
             int textBoxLineCount = component.getLineCount();
+            int longestRow = component.getLongestRow();
             if(!hideScrollBars && textBoxLineCount > realTextArea.getRows() && realTextArea.getColumns() > 1) {
                 realTextArea = realTextArea.withRelativeColumns(-1);
                 drawVerticalScrollBar = true;
             }
-            if(!hideScrollBars && component.longestRow > realTextArea.getColumns() && realTextArea.getRows() > 1) {
+            if(!hideScrollBars && longestRow > realTextArea.getColumns() && realTextArea.getRows() > 1) {
                 realTextArea = realTextArea.withRelativeRows(-1);
                 drawHorizontalScrollBar = true;
                 if(textBoxLineCount > realTextArea.getRows() && !drawVerticalScrollBar) {
@@ -821,7 +907,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
             if(drawHorizontalScrollBar) {
                 horizontalScrollBar.onAdded(component.getParent());
                 horizontalScrollBar.setViewSize(realTextArea.getColumns());
-                horizontalScrollBar.setScrollMaximum(component.longestRow - 1);
+                horizontalScrollBar.setScrollMaximum(longestRow - 1);
                 horizontalScrollBar.setScrollPosition(viewTopLeft.getColumn());
                 horizontalScrollBar.draw(graphics.newTextGraphics(
                         new TerminalPosition(0, graphics.getSize().getRows() - 1),
@@ -831,8 +917,9 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
 
         private void drawTextArea(TextGUIGraphics graphics, TextBox component) {
             TerminalSize textAreaSize = graphics.getSize();
-            if(viewTopLeft.getColumn() + textAreaSize.getColumns() > component.longestRow) {
-                viewTopLeft = viewTopLeft.withColumn(component.longestRow - textAreaSize.getColumns());
+            int longestRow = component.getLongestRow();
+            if(viewTopLeft.getColumn() + textAreaSize.getColumns() > longestRow) {
+                viewTopLeft = viewTopLeft.withColumn(longestRow - textAreaSize.getColumns());
                 if(viewTopLeft.getColumn() < 0) {
                     viewTopLeft = viewTopLeft.withColumn(0);
                 }
@@ -874,7 +961,7 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 caretPosition = caretPosition.withColumn(Math.min(caretPosition.getColumn(), caretLine.length()));
 
                 //Adjust the view if necessary
-                int trueColumnPosition = TerminalTextUtils.getColumnIndex(caretLine, caretPosition.getColumn());
+                int trueColumnPosition = component.getColumnIndex(caretPosition.getRow(), caretPosition.getColumn());
                 if (trueColumnPosition < viewTopLeft.getColumn()) {
                     viewTopLeft = viewTopLeft.withColumn(trueColumnPosition);
                 }
@@ -891,27 +978,40 @@ public class TextBox extends AbstractInteractableComponent<TextBox> {
                 //Additional corner-case for CJK characters
                 if(trueColumnPosition - viewTopLeft.getColumn() == graphics.getSize().getColumns() - 1) {
                     if(caretLine.length() > caretPosition.getColumn() &&
-                            TerminalTextUtils.isCharCJK(caretLine.charAt(caretPosition.getColumn()))) {
+                            TerminalTextUtils.isCharDoubleWidth(caretLine.charAt(caretPosition.getColumn()))) {
                         viewTopLeft = viewTopLeft.withRelativeColumn(1);
                     }
                 }
             }
 
+            int lineCount = component.getLineCount();
             for (int row = 0; row < textAreaSize.getRows(); row++) {
                 int rowIndex = row + viewTopLeft.getRow();
-                if(rowIndex >= component.lines.size()) {
-                    continue;
-                }
-                String line = component.lines.get(rowIndex);
-                if(component.getMask() != null) {
-                    StringBuilder builder = new StringBuilder();
-                    for(int i = 0; i < line.length(); i++) {
-                        builder.append(component.getMask());
-                    }
-                    line = builder.toString();
+                if(rowIndex >= lineCount) {
+                    break;
                 }
-                graphics.putString(0, row, TerminalTextUtils.fitString(line, viewTopLeft.getColumn(), textAreaSize.getColumns()));
+                graphics.putString(0, row, getVisiblePart(component, rowIndex, viewTopLeft.getColumn(), textAreaSize.getColumns()));
+            }
+        }
+
+        /**
+         * Returns the part of a line that is visible when the view starts at {@code fromColumn}, without looking at more
+         * of the line than necessary
+         */
+        private String getVisiblePart(TextBox component, int rowIndex, int fromColumn, int columns) {
+            String line = component.getLine(rowIndex);
+            Character mask = component.getMask();
+            if(mask != null) {
+                // Mask characters are always one column wide
+                char[] maskedLine = new char[Math.max(0, Math.min(line.length() - fromColumn, columns))];
+                Arrays.fill(maskedLine, mask);
+                return new String(maskedLine);
+            }
+            if(component.isSingleColumnLine(rowIndex)) {
+                int beginIndex = Math.min(fromColumn, line.length());
+                return line.substring(beginIndex, Math.min(beginIndex + columns, line.length()));
             }
+            return TerminalTextUtils.fitString(line, fromColumn, columns);
         }
     }
 }
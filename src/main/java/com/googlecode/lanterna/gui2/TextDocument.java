@@ -0,0 +1,352 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalTextUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class stores the lines of text inside a {@link TextBox}. The lines are kept in a randomized balanced tree (a
+ * treap) ordered by line index, so looking up, replacing, inserting and removing lines takes logarithmic time no matter
+ * how many lines there are, and inserting many lines at once only takes time proportional to the number of new lines.
+ * <p>
+ * Each node caches how many columns its line takes up when printed and whether every character in it is one column
+ * wide, and each subtree keeps the widest line in it, so finding the longest line doesn't need to look at every line.
+ * The full text is built once when asked for and then cached until the document is modified. This class is not thread
+ * safe, {@link TextBox} takes care of the locking.
+ */
+class TextDocument {
+    private Node root;
+    private String text;
+    private int seed;
+
+    TextDocument() {
+        this.root = null;
+        this.text = null;
+        this.seed = 0x2545F491;
+    }
+
+    int getLineCount() {
+        return size(root);
+    }
+
+    String getLine(int index) {
+        return getNode(index).line;
+    }
+
+    /**
+     * Returns the lines from {@code fromIndex} (inclusive) to {@code toIndex} (exclusive)
+     */
+    List<String> getLines(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        List<String> lines = new ArrayList<>(toIndex - fromIndex);
+        collect(root, 0, fromIndex, toIndex, lines);
+        return lines;
+    }
+
+    /**
+     * Returns how many columns the line takes up when printed, as calculated by
+     * {@link TerminalTextUtils#getColumnWidth(String)}
+     */
+    int getLineWidth(int index) {
+        return getNode(index).width;
+    }
+
+    /**
+     * Returns {@code true} if every character on the line takes up exactly one column, meaning that character indexes
+     * and column indexes on the line are the same
+     */
+    boolean isSingleColumnLine(int index) {
+        return getNode(index).singleColumn;
+    }
+
+    /**
+     * Same as {@link TerminalTextUtils#getColumnIndex(String, int)} for a line in the document, but without looking at
+     * the characters if they are all one column wide
+     */
+    int getColumnIndex(int index, int characterIndex) {
+        Node node = getNode(index);
+        if(node.singleColumn) {
+            if(characterIndex < 0 || characterIndex > node.line.length()) {
+                throw new StringIndexOutOfBoundsException(characterIndex);
+            }
+            return characterIndex;
+        }
+        return TerminalTextUtils.getColumnIndex(node.line, characterIndex);
+    }
+
+    /**
+     * Returns the width of the widest line, in columns
+     */
+    int getMaxLineWidth() {
+        return root == null ? 0 : root.maxWidth;
+    }
+
+    /**
+     * Returns all lines joined together with \n as separator
+     */
+    String getText() {
+        if(text == null) {
+            StringBuilder bob = new StringBuilder((int)Math.min(Integer.MAX_VALUE - 8, root == null ? 0 : root.characters + 1));
+            appendText(root, bob);
+            if(bob.length() > 0) {
+                // Remove the separator after the last line
+                bob.setLength(bob.length() - 1);
+            }
+            text = bob.toString();
+        }
+        return text;
+    }
+
+    void setLine(int index, String line) {
+        if(index < 0 || index >= getLineCount()) {
+            throw new IndexOutOfBoundsException("Invalid line index for document with " + getLineCount() + " lines: " + index);
+        }
+        setLine(root, index, line);
+        text = null;
+    }
+
+    void addLines(List<String> lines) {
+        insertLines(getLineCount(), lines);
+    }
+
+    void insertLines(int index, List<String> lines) {
+        checkRange(index, index);
+        if(lines.isEmpty()) {
+            return;
+        }
+        Node[] parts = split(root, index);
+        root = merge(merge(parts[0], build(lines)), parts[1]);
+        text = null;
+    }
+
+    void removeLines(int fromIndex, int toIndex) {
+        checkRange(fromIndex, toIndex);
+        if(fromIndex == toIndex) {
+            return;
+        }
+        Node[] head = split(root, fromIndex);
+        Node[] tail = split(head[1], toIndex - fromIndex);
+        root = merge(head[0], tail[1]);
+        text = null;
+    }
+
+    void clear() {
+        root = null;
+        text = null;
+    }
+
+    private void checkRange(int fromIndex, int toIndex) {
+        if(fromIndex < 0 || toIndex > getLineCount() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("Invalid line range for document with " + getLineCount() + " lines: " +
+                    fromIndex + " to " + toIndex);
+        }
+    }
+
+    private Node getNode(int index) {
+        if(index < 0 || index >= getLineCount()) {
+            throw new IndexOutOfBoundsException("Invalid line index for document with " + getLineCount() + " lines: " + index);
+        }
+        Node node = root;
+        while(true) {
+            int leftSize = size(node.left);
+            if(index < leftSize) {
+                node = node.left;
+            }
+            else if(index == leftSize) {
+                return node;
+            }
+            else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    private void setLine(Node node, int index, String line) {
+        int leftSize = size(node.left);
+        if(index < leftSize) {
+            setLine(node.left, index, line);
+        }
+        else if(index == leftSize) {
+            node.setLine(line);
+        }
+        else {
+            setLine(node.right, index - leftSize - 1, line);
+        }
+        node.update();
+    }
+
+    private void collect(Node node, int offset, int fromIndex, int toIndex, List<String> lines) {
+        if(node == null || offset >= toIndex || offset + node.size <= fromIndex) {
+            return;
+        }
+        collect(node.left, offset, fromIndex, toIndex, lines);
+        int index = offset + size(node.left);
+        if(index >= fromIndex && index < toIndex) {
+            lines.add(node.line);
+        }
+        collect(node.right, index + 1, fromIndex, toIndex, lines);
+    }
+
+    private void appendText(Node node, StringBuilder bob) {
+        if(node == null) {
+            return;
+        }
+        appendText(node.left, bob);
+        bob.append(node.line).append('\n');
+        appendText(node.right, bob);
+    }
+
+    /**
+     * Splits a tree into one tree with the first {@code count} lines and one with the rest
+     */
+    private Node[] split(Node node, int count) {
+        if(node == null) {
+            return new Node[] { null, null };
+        }
+        int leftSize = size(node.left);
+        if(count <= leftSize) {
+            Node[] parts = split(node.left, count);
+            node.left = parts[1];
+            node.update();
+            parts[1] = node;
+            return parts;
+        }
+        else {
+            Node[] parts = split(node.right, count - leftSize - 1);
+            node.right = parts[0];
+            node.update();
+            parts[0] = node;
+            return parts;
+        }
+    }
+
+    /**
+     * Joins two trees, with all lines of the first tree coming before the lines of the second
+     */
+    private Node merge(Node first, Node second) {
+        if(first == null) {
+            return second;
+        }
+        if(second == null) {
+            return first;
+        }
+        if(first.priority > second.priority) {
+            first.right = merge(first.right, second);
+            first.update();
+            return first;
+        }
+        else {
+            second.left = merge(first, second.left);
+            second.update();
+            return second;
+        }
+    }
+
+    /**
+     * Builds a tree out of a list of lines in linear time, by keeping the right-most path of the tree on a stack
+     */
+    private Node build(List<String> lines) {
+        Node[] rightPath = new Node[lines.size()];
+        int depth = 0;
+        for(String line: lines) {
+            Node node = new Node(line, nextPriority());
+            Node lastPopped = null;
+            while(depth > 0 && rightPath[depth - 1].priority < node.priority) {
+                lastPopped = rightPath[--depth];
+                // Nodes are taken off the path bottom-up, so their subtrees are already complete
+                lastPopped.update();
+            }
+            node.left = lastPopped;
+            if(depth > 0) {
+                rightPath[depth - 1].right = node;
+            }
+            rightPath[depth++] = node;
+        }
+        while(depth > 1) {
+            rightPath[--depth].update();
+        }
+        rightPath[0].update();
+        return rightPath[0];
+    }
+
+    private int nextPriority() {
+        // xorshift, we only need the priorities to be spread out, not unpredictable
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static class Node {
+        private String line;
+        private int width;
+        private boolean singleColumn;
+        private final int priority;
+        private Node left;
+        private Node right;
+        private int size;
+        private int maxWidth;
+        // Number of characters in all lines of the subtree, including the separators between them
+        private long characters;
+
+        private Node(String line, int priority) {
+            this.priority = priority;
+            setLine(line);
+            update();
+        }
+
+        private void setLine(String line) {
+            this.line = line;
+            this.singleColumn = true;
+            for(int i = 0; i < line.length() && singleColumn; i++) {
+                char c = line.charAt(i);
+                // Anything from U+0300 up may be wide, zero-width, part of a surrogate pair or join the character
+                // before it, while below that only tabs and control characters aren't one column wide
+                if(c >= 0x300 || TerminalTextUtils.getColumnWidth(c) != 1) {
+                    singleColumn = false;
+                }
+            }
+            this.width = singleColumn ? line.length() : TerminalTextUtils.getColumnWidth(line);
+        }
+
+        private void update() {
+            size = 1;
+            maxWidth = width;
+            characters = line.length();
+            if(left != null) {
+                size += left.size;
+                maxWidth = Math.max(maxWidth, left.maxWidth);
+                characters += left.characters + 1;
+            }
+            if(right != null) {
+                size += right.size;
+                maxWidth = Math.max(maxWidth, right.maxWidth);
+                characters += right.characters + 1;
+            }
+        }
+    }
+}
@@ -39,6 +39,30 @@ public interface TextGUIGraphics extends ThemedTextGraphics, TextGraphics {
     @Override
     TextGUIGraphics newTextGraphics(TerminalPosition topLeftCorner, TerminalSize size) throws IllegalArgumentException;
 
+    /**
+     * Returns the part of this {@code TextGUIGraphics} that is being drawn, anything drawn outside of it is discarded.
+     * This is normally the whole area, but when only some of the components in a window have changed, the GUI system
+     * will only redraw the area around them. Components can use this to skip drawing what won't show up anyway, but
+     * everything inside the area has to be drawn since it may have been cleared. The default implementation returns the
+     * whole area.
+     * @return Area being drawn, relative to the top-left corner of this {@code TextGUIGraphics}
+     */
+    default TerminalRectangle getClipArea() {
+        return new TerminalRectangle(TerminalPosition.TOP_LEFT_CORNER, getSize());
+    }
+
+    /**
+     * Creates a new {@code TextGUIGraphics} with the same coordinate system as this one, but which discards everything
+     * drawn outside of an area. The new object's clip area is the part of this area which is also inside the clip area
+     * of this {@code TextGUIGraphics}. The default implementation doesn't clip at all and returns a
+     * {@code TextGUIGraphics} covering the whole area of this one, which is correct but means everything is drawn.
+     * @param clipArea Area to limit drawing to, relative to the top-left corner of this {@code TextGUIGraphics}
+     * @return New {@code TextGUIGraphics} that only draws inside the area
+     */
+    default TextGUIGraphics newClippedTextGraphics(TerminalRectangle clipArea) {
+        return newTextGraphics(TerminalPosition.TOP_LEFT_CORNER, getSize());
+    }
+
     @Override
     TextGUIGraphics applyThemeStyle(ThemeStyle themeStyle);
 
@@ -141,6 +165,24 @@ public interface TextGUIGraphics extends ThemedTextGraphics, TextGraphics {
     @Override
     TextGUIGraphics putCSIStyledString(TerminalPosition position, String string);
 
+    @Override
+    default TextGUIGraphics putRun(int column, int row, CharSequence text, TextStyle style) {
+        ThemedTextGraphics.super.putRun(column, row, text, style);
+        return this;
+    }
+
+    @Override
+    default TextGUIGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        ThemedTextGraphics.super.putRun(column, row, text, start, end, style);
+        return this;
+    }
+
+    @Override
+    default TextGUIGraphics fillRow(int column, int row, int length, TextCharacter character) {
+        ThemedTextGraphics.super.fillRow(column, row, length, character);
+        return this;
+    }
+
     @Override
     TextGUIGraphics setStyleFrom(StyleSet<?> source);
 
@@ -38,22 +38,22 @@ public class WindowShadowRenderer implements WindowPostRenderer {
         TerminalSize decoratedWindowSize = window.getDecoratedSize();
         ThemeDefinition themeDefinition = window.getTheme().getDefinition(WindowShadowRenderer.class);
         textGraphics.applyThemeStyle(themeDefinition.getNormal());
-        char filler = themeDefinition.getCharacter("FILLER", ' ');
+        String filler = String.valueOf(themeDefinition.getCharacter("FILLER", ' '));
         boolean useDoubleWidth = themeDefinition.getBooleanProperty("DOUBLE_WIDTH", true);
         boolean useTransparency = themeDefinition.getBooleanProperty("TRANSPARENT", false);
 
         TerminalPosition lowerLeft = windowPosition.withRelativeColumn(useDoubleWidth ? 2 : 1).withRelativeRow(decoratedWindowSize.getRows());
         TerminalPosition lowerRight = lowerLeft.withRelativeColumn(decoratedWindowSize.getColumns() - (useDoubleWidth ? 3 : 2));
         for(int column = lowerLeft.getColumn(); column <= lowerRight.getColumn() + 1; column++) {
-            char characterToDraw = filler;
+            String characterToDraw = filler;
             if(useTransparency) {
                 TextCharacter tc = textGraphics.getCharacter(column, lowerLeft.getRow());
                 if (tc != null) {
-                    characterToDraw = tc.getCharacter();
+                    characterToDraw = tc.getCharacterString();
                 }
             }
-            textGraphics.setCharacter(column, lowerLeft.getRow(), characterToDraw);
-            if (TerminalTextUtils.isCharDoubleWidth(characterToDraw)) {
+            textGraphics.putString(column, lowerLeft.getRow(), characterToDraw);
+            if (TerminalTextUtils.getColumnWidth(characterToDraw) == 2) {
                 column++;
             }
         }
@@ -62,15 +62,15 @@ public class WindowShadowRenderer implements WindowPostRenderer {
         TerminalPosition upperRight = lowerRight.withRelativeRow(-decoratedWindowSize.getRows() + 1);
         boolean hasDoubleWidthShadow = false;
         for(int row = upperRight.getRow(); row < lowerRight.getRow(); row++) {
-            char characterToDraw = filler;
+            String characterToDraw = filler;
             if(useTransparency) {
                 TextCharacter tc = textGraphics.getCharacter(upperRight.getColumn(), row);
                 if (tc != null) {
-                    characterToDraw = tc.getCharacter();
+                    characterToDraw = tc.getCharacterString();
                 }
             }
-            textGraphics.setCharacter(upperRight.getColumn(), row, characterToDraw);
-            if (TerminalTextUtils.isCharDoubleWidth(characterToDraw)) {
+            textGraphics.putString(upperRight.getColumn(), row, characterToDraw);
+            if (TerminalTextUtils.getColumnWidth(characterToDraw) == 2) {
                 hasDoubleWidthShadow = true;
             }
         }
@@ -80,17 +80,17 @@ public class WindowShadowRenderer implements WindowPostRenderer {
             //Fill the remaining hole
             upperRight = upperRight.withRelativeColumn(1);
             for(int row = upperRight.getRow(); row <= lowerRight.getRow(); row++) {
-                char characterToDraw = filler;
+                String characterToDraw = filler;
                 if(useTransparency) {
                     TextCharacter tc = textGraphics.getCharacter(upperRight.getColumn(), row);
                     if (tc != null && !tc.isDoubleWidth()) {
-                        characterToDraw = tc.getCharacter();
+                        characterToDraw = tc.getCharacterString();
                     }
                 }
                 TextCharacter neighbour = textGraphics.getCharacter(upperRight.getColumn() - 1, row);
                 // Only need to draw this is the character to the left isn't double-width
                 if (neighbour != null && !neighbour.isDoubleWidth()) {
-                    textGraphics.setCharacter(upperRight.getColumn(), row, characterToDraw);
+                    textGraphics.putString(upperRight.getColumn(), row, characterToDraw);
                 }
             }
         }
@@ -52,9 +52,13 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
 
     //So that we don't have to recalculate the size every time. This still isn't optimal but shouganai.
     private TerminalSize cachedSize;
+    private int cachedSizeVersion;
     private final List<Integer> preferredColumnSizes;
     private final List<Integer> preferredRowSizes;
+    private int rowSizesOffset;    // Index of the row the first element in preferredRowSizes is for
     private final Set<Integer> expandableColumns;
+    private final List<Integer> fixedColumnSizes;
+    private int sampledRows;
     private int headerSizeInRows;
     private boolean allowPartialColumn;
 
@@ -82,7 +86,10 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
 
         preferredColumnSizes = new ArrayList<>();
         preferredRowSizes = new ArrayList<>();
+        rowSizesOffset = 0;
         expandableColumns = new TreeSet<>();
+        fixedColumnSizes = new ArrayList<>();
+        sampledRows = 0;
         headerSizeInRows = 0;
     }
 
@@ -136,6 +143,35 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
         this.expandableColumns.addAll(expandableColumns);
     }
 
+    /**
+     * Sets a fixed width for the columns of the table, where the first element in the list is the width of the first
+     * column and so on. Columns with a fixed width are not widened to fit their header label or cells, the cells are
+     * only asked for their size to figure out the height of the rows. Use {@code null} for the columns that should be
+     * sized after their content as usual.
+     * @param fixedColumnSizes Widths of the columns, an empty list will size all columns after their content
+     */
+    public synchronized void setFixedColumnSizes(List<Integer> fixedColumnSizes) {
+        this.fixedColumnSizes.clear();
+        this.fixedColumnSizes.addAll(fixedColumnSizes);
+    }
+
+    /**
+     * Limits how many rows are measured when calculating the size of the columns and rows. By default every cell in
+     * the table model is asked for its size whenever the table has changed, which works fine for smaller tables but
+     * gets expensive with a lot of rows, especially if the rows are paged in from a {@link TableDataProvider}. With a
+     * sample size set, the columns are sized after the header labels, the first {@code sampledRows} rows and the rows
+     * currently in view, and only the rows in view are measured for their height while the rest of the rows are
+     * assumed to be one line tall. Cells wider than their column are cut off.
+     * @param sampledRows Number of rows from the start of the table to size the columns after, or 0 to measure every
+     *                    row
+     */
+    public synchronized void setSampledRows(int sampledRows) {
+        if(sampledRows < 0) {
+            throw new IllegalArgumentException("sampledRows must be >= 0 but was " + sampledRows);
+        }
+        this.sampledRows = sampledRows;
+    }
+
     @Override
     public boolean isScrollBarsHidden() {
         return scrollBarsHidden;
@@ -191,8 +227,8 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
 
     @Override
     public synchronized TerminalSize getPreferredSize(Table<V> table) {
-        //Quick bypass if the table hasn't changed
-        if(!table.isInvalid() && cachedSize != null) {
+        //Quick bypass if the table hasn't changed, the layout will ask several times before the table is drawn
+        if(cachedSize != null && (!table.isInvalid() || table.getVersion() == cachedSizeVersion)) {
             return cachedSize;
         }
 
@@ -205,22 +241,24 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
         int visibleRows = table.getVisibleRows();
         int selectedRow = table.getSelectedRow();
         int selectedColumn = table.getSelectedColumn();
-        List<List<V>> rows = tableModel.getRows();
+        List<List<V>> rows = tableModel.getSnapshot();
+        int rowCount = rows.size();
+        int columnCount = tableModel.getColumnCount();
         List<String> columnHeaders = tableModel.getColumnLabels();
         TableHeaderRenderer<V> tableHeaderRenderer = table.getTableHeaderRenderer();
-        TableCellRenderer<V> tableCellRenderer = table.getTableCellRenderer();
 
         if(visibleColumns == 0) {
-            visibleColumns = tableModel.getColumnCount();
+            visibleColumns = columnCount;
         }
         if(visibleRows == 0) {
-            visibleRows = tableModel.getRowCount();
+            visibleRows = rowCount;
         }
 
         preferredColumnSizes.clear();
         preferredRowSizes.clear();
+        rowSizesOffset = 0;
 
-        if(tableModel.getColumnCount() == 0) {
+        if(columnCount == 0) {
             return TerminalSize.ZERO;
         }
 
@@ -239,63 +277,34 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
             viewTopRow = Math.max(0, selectedRow - visibleRows + 1);
         }
 
-        // If there are no rows, base the column sizes off of the column labels
-        if(rows.size() == 0) {
-            for(int columnIndex = 0; columnIndex < columnHeaders.size(); columnIndex++) {
-                int columnSize = tableHeaderRenderer.getPreferredSize(table, columnHeaders.get(columnIndex), columnIndex).getColumns();
-                if(preferredColumnSizes.size() == columnIndex) {
-                    preferredColumnSizes.add(columnSize);
-                }
-                else {
-                    if(preferredColumnSizes.get(columnIndex) < columnSize) {
-                        preferredColumnSizes.set(columnIndex, columnSize);
-                    }
-                }
+        // Start with the column labels, then widen the columns to fit the cells
+        headerSizeInRows = 0;
+        for(int columnIndex = 0; columnIndex < columnCount; columnIndex++) {
+            TerminalSize headerSize = tableHeaderRenderer.getPreferredSize(table, columnHeaders.get(columnIndex), columnIndex);
+            Integer fixedColumnSize = getFixedColumnSize(columnIndex);
+            preferredColumnSizes.add(fixedColumnSize != null ? fixedColumnSize : headerSize.getColumns());
+            if(headerSizeInRows < headerSize.getRows()) {
+                headerSizeInRows = headerSize.getRows();
             }
         }
 
-        for(int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
-            List<V> row = rows.get(rowIndex);
-            for(int columnIndex = 0; columnIndex < row.size(); columnIndex++) {
-                V cell = row.get(columnIndex);
-                int columnSize = tableCellRenderer.getPreferredSize(table, cell, columnIndex, rowIndex).getColumns();
-                if(preferredColumnSizes.size() == columnIndex) {
-                    preferredColumnSizes.add(columnSize);
-                }
-                else {
-                    if(preferredColumnSizes.get(columnIndex) < columnSize) {
-                        preferredColumnSizes.set(columnIndex, columnSize);
-                    }
-                }
-            }
-
-            //Do the headers too, on the first iteration
-            if(rowIndex == 0) {
-                for(int columnIndex = 0; columnIndex < row.size(); columnIndex++) {
-                    int columnSize = tableHeaderRenderer.getPreferredSize(table, columnHeaders.get(columnIndex), columnIndex).getColumns();
-                    if(preferredColumnSizes.size() == columnIndex) {
-                        preferredColumnSizes.add(columnSize);
-                    }
-                    else {
-                        if(preferredColumnSizes.get(columnIndex) < columnSize) {
-                            preferredColumnSizes.set(columnIndex, columnSize);
-                        }
-                    }
-                }
+        if(sampledRows == 0) {
+            for(int rowIndex = 0; rowIndex < rowCount; rowIndex++) {
+                preferredRowSizes.add(measureRow(table, rows, rowIndex, true));
             }
         }
-
-        for(int columnIndex = 0; columnIndex < columnHeaders.size(); columnIndex++) {
-            for(int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
-                V cell = rows.get(rowIndex).get(columnIndex);
-                int rowSize = tableCellRenderer.getPreferredSize(table, cell, columnIndex, rowIndex).getRows();
-                if(preferredRowSizes.size() == rowIndex) {
-                    preferredRowSizes.add(rowSize);
-                }
-                else {
-                    if(preferredRowSizes.get(rowIndex) < rowSize) {
-                        preferredRowSizes.set(rowIndex, rowSize);
-                    }
+        else {
+            // Only look at the rows in view and a sample from the top of the table, the rows in view are the only ones
+            // we need the height of
+            int measuredRows = table.getVisibleRows() > 0 ? visibleRows : sampledRows;
+            int measuredRowsEnd = Math.min(rowCount, viewTopRow + measuredRows);
+            rowSizesOffset = viewTopRow;
+            for(int rowIndex = viewTopRow; rowIndex < measuredRowsEnd; rowIndex++) {
+                preferredRowSizes.add(measureRow(table, rows, rowIndex, true));
+            }
+            for(int rowIndex = 0; rowIndex < Math.min(rowCount, sampledRows); rowIndex++) {
+                if(rowIndex < viewTopRow || rowIndex >= measuredRowsEnd) {
+                    measureColumns(table, rows, rowIndex);
                 }
             }
         }
@@ -314,21 +323,15 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
         }
 
         if (table.getVisibleRows() == 0) {
-            for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
-                preferredRowSize += preferredRowSizes.get(rowIndex);
+            // Rows that weren't measured count as one line each
+            preferredRowSize += rowCount - preferredRowSizes.size();
+            for (Integer rowSize : preferredRowSizes) {
+                preferredRowSize += rowSize;
             }
         }
         else {
-            for (int rowIndex = viewTopRow; rowIndex < Math.min(rows.size(), viewTopRow + visibleRows); rowIndex++) {
-                preferredRowSize += preferredRowSizes.get(rowIndex);
-            }
-        }
-
-        headerSizeInRows = 0;
-        for(int columnIndex = 0; columnIndex < columnHeaders.size(); columnIndex++) {
-            int headerRows = tableHeaderRenderer.getPreferredSize(table, columnHeaders.get(columnIndex), columnIndex).getRows();
-            if(headerSizeInRows < headerRows) {
-                headerSizeInRows = headerRows;
+            for (int rowIndex = viewTopRow; rowIndex < Math.min(rowCount, viewTopRow + visibleRows); rowIndex++) {
+                preferredRowSize += getRowSize(table, rows, rowIndex);
             }
         }
         preferredRowSize += headerSizeInRows;
@@ -337,8 +340,8 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
             preferredRowSize++;    //Spacing between header and body
         }
         if(cellVerticalBorderStyle != TableCellBorderStyle.None) {
-            if(!rows.isEmpty()) {
-                preferredRowSize += Math.min(rows.size(), visibleRows) - 1; //Vertical space between cells
+            if(rowCount > 0) {
+                preferredRowSize += Math.min(rowCount, visibleRows) - 1; //Vertical space between cells
             }
         }
         if(isHorizontallySpaced()) {
@@ -353,15 +356,75 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
             // table will need to force scrollbars or not. We might think that we don't need a horizontal scrollbar here but
             // it might turn out that we need it.
             preferredColumnSize++;
-            if (visibleColumns < tableModel.getColumnCount()) {
+            if (visibleColumns < columnCount) {
                 preferredRowSize++;
             }
         }
 
         cachedSize = new TerminalSize(preferredColumnSize, preferredRowSize);
+        cachedSizeVersion = table.getVersion();
         return cachedSize;
     }
 
+    private Integer getFixedColumnSize(int columnIndex) {
+        return columnIndex < fixedColumnSizes.size() ? fixedColumnSizes.get(columnIndex) : null;
+    }
+
+    /**
+     * Widens the columns that don't have a fixed size to fit the cells of a row
+     */
+    private void measureColumns(Table<V> table, List<List<V>> rows, int rowIndex) {
+        TableCellRenderer<V> tableCellRenderer = table.getTableCellRenderer();
+        List<V> row = rows.get(rowIndex);
+        for(int columnIndex = 0; columnIndex < preferredColumnSizes.size(); columnIndex++) {
+            if(getFixedColumnSize(columnIndex) == null) {
+                V cell = getCell(row, columnIndex);
+                int columnSize = tableCellRenderer.getPreferredSize(table, cell, columnIndex, rowIndex).getColumns();
+                if(preferredColumnSizes.get(columnIndex) < columnSize) {
+                    preferredColumnSizes.set(columnIndex, columnSize);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the height of a row by asking for the size of each of its cells, optionally also widening the columns
+     * that don't have a fixed size to fit the cells
+     */
+    private int measureRow(Table<V> table, List<List<V>> rows, int rowIndex, boolean updateColumnSizes) {
+        TableCellRenderer<V> tableCellRenderer = table.getTableCellRenderer();
+        List<V> row = rows.get(rowIndex);
+        int rowSize = 0;
+        for(int columnIndex = 0; columnIndex < preferredColumnSizes.size(); columnIndex++) {
+            V cell = getCell(row, columnIndex);
+            TerminalSize cellSize = tableCellRenderer.getPreferredSize(table, cell, columnIndex, rowIndex);
+            if(updateColumnSizes && getFixedColumnSize(columnIndex) == null && preferredColumnSizes.get(columnIndex) < cellSize.getColumns()) {
+                preferredColumnSizes.set(columnIndex, cellSize.getColumns());
+            }
+            if(rowSize < cellSize.getRows()) {
+                rowSize = cellSize.getRows();
+            }
+        }
+        return rowSize;
+    }
+
+    /**
+     * Returns the height of a row, measuring it if it's outside of the rows measured when calculating the preferred
+     * size
+     */
+    private int getRowSize(Table<V> table, List<List<V>> rows, int rowIndex) {
+        int index = rowIndex - rowSizesOffset;
+        if(index >= 0 && index < preferredRowSizes.size()) {
+            return preferredRowSizes.get(index);
+        }
+        return measureRow(table, rows, rowIndex, false);
+    }
+
+    private V getCell(List<V> row, int columnIndex) {
+        // Rows shorter than the number of columns are treated as having empty cells at the end
+        return columnIndex < row.size() ? row.get(columnIndex) : null;
+    }
+
     @Override
     public TerminalPosition getCursorLocation(Table<V> component) {
         return null;
@@ -382,6 +445,9 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
             getPreferredSize(table);
         }
 
+        // Work with a snapshot of the rows, so other threads can keep modifying the model while we draw
+        List<List<V>> rows = table.getTableModel().getSnapshot();
+
         int headerSizeIncludingBorder = headerSizeInRows + headerVerticalBorderStyle.getSize();
         int selectedColumn = table.getSelectedColumn();
         int selectedRow = table.getSelectedRow();
@@ -393,22 +459,22 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
         if(viewTopRow > selectedRow) {
             viewTopRow = selectedRow;
         }
-        if (viewTopRow >= table.getTableModel().getRowCount()) {
-            viewTopRow = Math.max(0, table.getTableModel().getRowCount() - 1);
+        if (viewTopRow >= rows.size()) {
+            viewTopRow = Math.max(0, rows.size() - 1);
         }
 
         TerminalSize areaWithoutScrollBars = area.withRelativeRows(-headerSizeIncludingBorder);
         int preferredVisibleRows = table.getVisibleRows();
         if(preferredVisibleRows == 0) {
-            preferredVisibleRows = table.getTableModel().getRowCount();
+            preferredVisibleRows = rows.size();
         }
         int preferredVisibleColumns = table.getVisibleColumns();
         if(preferredVisibleColumns == 0) {
             preferredVisibleColumns = table.getTableModel().getColumnCount();
         }
 
-        int visibleRows = calculateVisibleRows(areaWithoutScrollBars, viewTopRow, preferredVisibleRows);
-        boolean needVerticalScrollBar = !scrollBarsHidden && visibleRows < table.getTableModel().getRowCount();
+        int visibleRows = calculateVisibleRows(table, rows, areaWithoutScrollBars, viewTopRow, preferredVisibleRows);
+        boolean needVerticalScrollBar = !scrollBarsHidden && visibleRows < rows.size();
         if(needVerticalScrollBar) {
             areaWithoutScrollBars = areaWithoutScrollBars.withRelativeColumns(-verticalScrollBar.getPreferredSize().getColumns());
         }
@@ -418,8 +484,8 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
             areaWithoutScrollBars = areaWithoutScrollBars.withRelativeRows(-horizontalScrollBar.getPreferredSize().getRows());
 
             // As we have now a horizontal scrollbar, we need to re-evaluate how many rows are visible
-            visibleRows = calculateVisibleRows(areaWithoutScrollBars, viewTopRow, preferredVisibleRows);
-            if(!needVerticalScrollBar && visibleRows < table.getTableModel().getRowCount()) {
+            visibleRows = calculateVisibleRows(table, rows, areaWithoutScrollBars, viewTopRow, preferredVisibleRows);
+            if(!needVerticalScrollBar && visibleRows < rows.size()) {
                 // Previously we didn't need a scrollbar but now we do because the horizontal scrollbar took one row
                 needVerticalScrollBar = true;
                 areaWithoutScrollBars = areaWithoutScrollBars.withRelativeColumns(-verticalScrollBar.getPreferredSize().getColumns());
@@ -436,7 +502,7 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
         }
         while(viewTopRow <= selectedRow - visibleRows) {
             viewTopRow = Math.max(0, selectedRow - visibleRows + 1);
-            visibleRows = calculateVisibleRows(areaWithoutScrollBars, viewTopRow, preferredVisibleRows);
+            visibleRows = calculateVisibleRows(table, rows, areaWithoutScrollBars, viewTopRow, preferredVisibleRows);
         }
 
         int renderColumns;
@@ -453,6 +519,7 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
                         // Can't use areaWithoutScrollBars here because we need to draw the scrollbar too!
                         area.withRelativeRows(-headerSizeIncludingBorder)),
                 table,
+                rows,
                 columnSizes,
                 visibleRows,
                 visibleColumns,
@@ -463,15 +530,15 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
         visibleRowsOnLastDraw = visibleRows;
     }
 
-    private int calculateVisibleRows(TerminalSize area, int viewTopRow, int preferredVisibleRows) {
+    private int calculateVisibleRows(Table<V> table, List<List<V>> rows, TerminalSize area, int viewTopRow, int preferredVisibleRows) {
         int remainingVerticalSpace = area.getRows();
         int visibleRows = 0;
         int borderAdjustment = cellVerticalBorderStyle.getSize();
-        for (int row = viewTopRow; row < preferredRowSizes.size(); row++) {
+        for (int row = viewTopRow; row < rows.size(); row++) {
             if (preferredVisibleRows == visibleRows) {
                 break;
             }
-            int rowSize = preferredRowSizes.get(row) + borderAdjustment;
+            int rowSize = getRowSize(table, rows, row) + borderAdjustment;
             if (remainingVerticalSpace < rowSize) {
                 break;
             }
@@ -580,6 +647,7 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
     private void drawRows(
             TextGUIGraphics graphics,
             Table<V> table,
+            List<List<V>> rows,
             List<Integer> columnSizes,
             int visibleRows,
             int visibleColumns,
@@ -591,7 +659,6 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
         TerminalSize area = graphics.getSize();
         TableCellRenderer<V> tableCellRenderer = table.getTableCellRenderer();
         TableModel<V> tableModel = table.getTableModel();
-        List<List<V>> rows = tableModel.getRows();
         int viewTopRow = table.getRenderer().getViewTopRow();
         int viewLeftColumn = table.getRenderer().getViewLeftColumn();
 
@@ -653,6 +720,7 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
         int topPosition = 0;
         for(int rowIndex = viewTopRow; rowIndex < Math.min(viewTopRow + visibleRows, rows.size()); rowIndex++) {
             int leftPosition = 0;
+            int rowSize = getRowSize(table, rows, rowIndex);
             List<V> row = rows.get(rowIndex);
             for(int columnIndex = viewLeftColumn; columnIndex < Math.min(viewLeftColumn + renderColumns, row.size()); columnIndex++) {
                 if(columnIndex > viewLeftColumn) {
@@ -672,7 +740,7 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
                 }
                 V cell = row.get(columnIndex);
                 TerminalPosition cellPosition = new TerminalPosition(leftPosition, topPosition);
-                TerminalSize cellArea = new TerminalSize(columnSizes.get(columnIndex), preferredRowSizes.get(rowIndex));
+                TerminalSize cellArea = new TerminalSize(columnSizes.get(columnIndex), rowSize);
                 tableCellRenderer.drawCell(table, cell, columnIndex, rowIndex, graphics.newTextGraphics(cellPosition, cellArea));
                 leftPosition += cellArea.getColumns();
 
@@ -693,7 +761,7 @@ public class DefaultTableRenderer<V> implements TableRenderer<V> {
                     break;
                 }
             }
-            topPosition += preferredRowSizes.get(rowIndex);
+            topPosition += rowSize;
             if(cellVerticalBorderStyle != TableCellBorderStyle.None) {
                 leftPosition = 0;
                 graphics.applyThemeStyle(themeDefinition.getNormal());
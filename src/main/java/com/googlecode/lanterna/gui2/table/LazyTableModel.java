@@ -0,0 +1,251 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2.table;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only {@link TableModel} that doesn't keep the rows itself but pages them in from a {@link TableDataProvider}
+ * when they are needed. Rows are fetched a page at a time and the most recently used pages are kept in memory, so
+ * scrolling around in a table backed by this model only reads the rows that come into view. Combine it with
+ * {@link DefaultTableRenderer#setSampledRows(int)} so that the renderer doesn't look at every row to figure out the
+ * column sizes.
+ * <p>
+ * The row count is read from the data provider when the model is created. If the data behind the provider changes,
+ * call {@link #refresh()} to read the row count again and drop the cached pages. Since the data lives in the provider,
+ * all methods that would modify rows or columns throw {@code UnsupportedOperationException}; column labels can still be
+ * changed.
+ * @param <V> Value type stored in the table
+ * @author Martin
+ */
+public class LazyTableModel<V> extends TableModel<V> {
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int DEFAULT_CACHED_PAGES = 10;
+
+    private final TableDataProvider<V> dataProvider;
+    private final int pageSize;
+    private final int cachedPages;
+    private volatile PageCache pageCache;
+
+    /**
+     * Creates a new lazy table model that reads rows from the data provider 100 at a time and
+     * keeps up to 10 pages in memory
+     * @param dataProvider Data provider to read the rows from
+     * @param columnLabels Labels for the column headers
+     */
+    public LazyTableModel(TableDataProvider<V> dataProvider, String... columnLabels) {
+        this(dataProvider, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES, columnLabels);
+    }
+
+    /**
+     * Creates a new lazy table model
+     * @param dataProvider Data provider to read the rows from
+     * @param pageSize How many rows to read from the data provider at a time
+     * @param cachedPages How many pages of rows to keep in memory, the least recently used page is dropped when a new
+     *                    page needs to be read
+     * @param columnLabels Labels for the column headers
+     */
+    public LazyTableModel(TableDataProvider<V> dataProvider, int pageSize, int cachedPages, String... columnLabels) {
+        super(columnLabels);
+        if(dataProvider == null) {
+            throw new IllegalArgumentException("Cannot create a LazyTableModel without a TableDataProvider");
+        }
+        if(pageSize < 1 || cachedPages < 1) {
+            throw new IllegalArgumentException("LazyTableModel needs a page size and page cache of at least 1, got " +
+                    pageSize + " and " + cachedPages);
+        }
+        this.dataProvider = dataProvider;
+        this.pageSize = pageSize;
+        this.cachedPages = cachedPages;
+        this.pageCache = new PageCache(dataProvider.getRowCount());
+    }
+
+    /**
+     * Returns the data provider this model reads its rows from
+     * @return Data provider backing this model
+     */
+    public TableDataProvider<V> getDataProvider() {
+        return dataProvider;
+    }
+
+    /**
+     * Reads the row count from the data provider again and drops all cached rows, so that they are read from the data
+     * provider again when needed. Call this when the data behind the provider has changed. Batch listeners are notified
+     * that all rows have been replaced, the other listeners are not notified.
+     * @return Itself
+     */
+    public synchronized LazyTableModel<V> refresh() {
+        int oldRowCount = pageCache.rowCount;
+        pageCache = new PageCache(dataProvider.getRowCount());
+        rowsChanged(0, oldRowCount, pageCache.rowCount);
+        return this;
+    }
+
+    @Override
+    public synchronized int getRowCount() {
+        return pageCache.rowCount;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Note that this will read every row from the data provider, which defeats the purpose of using a lazy model.
+     */
+    @Override
+    public synchronized List<List<V>> getRows() {
+        List<List<V>> copy = new ArrayList<>(getRowCount());
+        for(int i = 0; i < getRowCount(); i++) {
+            copy.add(getRow(i));
+        }
+        return copy;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The rows are read from the data provider when they are accessed through the snapshot, the snapshot keeps the
+     * row count it had when it was taken even if the model is refreshed.
+     */
+    @Override
+    public List<List<V>> getSnapshot() {
+        final PageCache snapshotPageCache = pageCache;
+        return new AbstractList<List<V>>() {
+            @Override
+            public List<V> get(int index) {
+                synchronized(LazyTableModel.this) {
+                    return snapshotPageCache.getRow(index);
+                }
+            }
+
+            @Override
+            public int size() {
+                return snapshotPageCache.rowCount;
+            }
+        };
+    }
+
+    @Override
+    public synchronized List<V> getRow(int index) {
+        List<V> row = new ArrayList<>(getRowView(index));
+        while(row.size() < getColumnCount()) {
+            row.add(null);
+        }
+        return row;
+    }
+
+    @Override
+    public synchronized List<V> getRowView(int index) {
+        return pageCache.getRow(index);
+    }
+
+    @Override
+    public synchronized V getCell(int columnIndex, int rowIndex) {
+        if(rowIndex < 0 || columnIndex < 0) {
+            throw new IndexOutOfBoundsException("Invalid row or column index: " + rowIndex + " " + columnIndex);
+        }
+        if(columnIndex >= getColumnCount()) {
+            throw new IndexOutOfBoundsException("TableModel has " + columnIndex + " columns, invalid access at columnIndex " + columnIndex);
+        }
+        List<V> row = pageCache.getRow(rowIndex);
+        return columnIndex < row.size() ? row.get(columnIndex) : null;
+    }
+
+    @Override
+    public synchronized TableModel<V> insertRow(int index, Collection<V> values) {
+        throw new UnsupportedOperationException("Cannot add rows to a LazyTableModel");
+    }
+
+    @Override
+    public synchronized TableModel<V> removeRow(int index) {
+        throw new UnsupportedOperationException("Cannot remove rows from a LazyTableModel");
+    }
+
+    @Override
+    public synchronized TableModel<V> replaceRows(int fromIndex, int toIndex, Collection<? extends Collection<V>> newRows) {
+        throw new UnsupportedOperationException("Cannot modify rows of a LazyTableModel");
+    }
+
+    @Override
+    public synchronized TableModel<V> clear() {
+        throw new UnsupportedOperationException("Cannot remove rows from a LazyTableModel");
+    }
+
+    @Override
+    public synchronized TableModel<V> insertColumn(int index, String label, V[] newColumnValues) {
+        throw new UnsupportedOperationException("Cannot add columns to a LazyTableModel");
+    }
+
+    @Override
+    public synchronized TableModel<V> removeColumn(int index) {
+        throw new UnsupportedOperationException("Cannot remove columns from a LazyTableModel");
+    }
+
+    @Override
+    public synchronized TableModel<V> setCell(int columnIndex, int rowIndex, V value) {
+        throw new UnsupportedOperationException("Cannot modify cells of a LazyTableModel");
+    }
+
+    /**
+     * The pages read from the data provider since the last refresh, along with the row count at that time. Must only be
+     * used while holding the lock on the model.
+     */
+    private class PageCache {
+        private final int rowCount;
+        private final Map<Integer, List<List<V>>> pages;
+
+        private PageCache(int rowCount) {
+            this.rowCount = rowCount;
+            this.pages = new LinkedHashMap<Integer, List<List<V>>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, List<List<V>>> eldest) {
+                    return size() > cachedPages;
+                }
+            };
+        }
+
+        private List<V> getRow(int rowIndex) {
+            if(rowIndex < 0 || rowIndex >= rowCount) {
+                throw new IndexOutOfBoundsException("TableModel has " + rowCount + " rows, invalid access at rowIndex " + rowIndex);
+            }
+            int pageIndex = rowIndex / pageSize;
+            List<List<V>> page = pages.get(pageIndex);
+            if(page == null) {
+                int firstRow = pageIndex * pageSize;
+                int pageRows = Math.min(pageSize, rowCount - firstRow);
+                List<List<V>> providedRows = dataProvider.getRows(firstRow, pageRows);
+                if(providedRows.size() != pageRows) {
+                    throw new IllegalStateException("TableDataProvider returned " + providedRows.size() +
+                            " rows when asked for " + pageRows + " rows starting at " + firstRow);
+                }
+                page = new ArrayList<>(pageRows);
+                for(List<V> row: providedRows) {
+                    page.add(Collections.unmodifiableList(row));
+                }
+                pages.put(pageIndex, page);
+            }
+            return page.get(rowIndex - pageIndex * pageSize);
+        }
+    }
+}
@@ -18,8 +18,6 @@
  */
 package com.googlecode.lanterna.gui2.table;
 
-import java.util.List;
-
 import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.gui2.AbstractInteractableComponent;
 import com.googlecode.lanterna.input.KeyStroke;
@@ -36,7 +34,7 @@ import com.googlecode.lanterna.input.MouseAction;
  */
 public class Table<V> extends AbstractInteractableComponent<Table<V>> {
     private TableModel<V> tableModel;
-    private TableModel.Listener<V> tableModelListener;  // Used to invalidate the table whenever the model changes
+    private TableModel.BatchListener<V> tableModelListener;  // Used to invalidate the table whenever the model changes
     private TableHeaderRenderer<V> tableHeaderRenderer;
     private TableCellRenderer<V> tableCellRenderer;
     private Runnable selectAction;
@@ -46,6 +44,7 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
     private int selectedRow;
     private int selectedColumn;
     private boolean escapeByArrowKey;
+    private int version;    // Incremented on every invalidation, so the renderer can tell if it needs to recalculate
 
     /**
      * Creates a new {@code Table} with the number of columns as specified by the array of labels
@@ -66,45 +65,22 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
         this.selectedColumn = -1;
         this.escapeByArrowKey = true;
 
-        this.tableModelListener = new TableModel.Listener<V>() {
+        this.tableModelListener = new TableModel.BatchListener<V>() {
             @Override
-            public void onRowAdded(TableModel<V> model, int index) {
-                if (index <= selectedRow) {
-                    selectedRow = Math.min(model.getRowCount() - 1, selectedRow + 1);
+            public void onRowsChanged(TableModel<V> model, int firstRow, int removedRows, int addedRows) {
+                int rowCount = model.getRowCount();
+                if (selectedRow >= firstRow + removedRows) {
+                    // Rows were added or removed above the selected row, make sure the same row is still selected
+                    selectedRow = Math.max(0, Math.min(rowCount - 1, selectedRow + addedRows - removedRows));
                 }
-                invalidate();
-            }
-
-            @Override
-            public void onRowRemoved(TableModel<V> model, int index, List<V> oldRow) {
-                if (index < selectedRow) {
-                    selectedRow = Math.max(0, selectedRow-1);
-                } else {
+                else if (selectedRow > rowCount - 1) {
                     // We may have deleted the selected row
-                    int rowCount = model.getRowCount();
-                    if (selectedRow > rowCount - 1) {
-                        selectedRow = Math.max(0, rowCount - 1);
-                    }
+                    selectedRow = Math.max(0, rowCount - 1);
                 }
                 invalidate();
             }
-
-            @Override
-            public void onColumnAdded(TableModel<V> model, int index) {
-                invalidate();
-            }
-
-            @Override
-            public void onColumnRemoved(TableModel<V> model, int index, String oldHeader, List<V> oldColumn) {
-                invalidate();
-            }
-
-            @Override
-            public void onCellChanged(TableModel<V> model, int row, int column, V oldValue, V newValue) {
-                invalidate();
-            }
         };
-        this.tableModel.addListener(tableModelListener);
+        this.tableModel.addBatchListener(tableModelListener);
     }
 
     /**
@@ -124,9 +100,9 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
         if(tableModel == null) {
             throw new IllegalArgumentException("Cannot assign a null TableModel");
         }
-        this.tableModel.removeListener(tableModelListener);
+        this.tableModel.removeBatchListener(tableModelListener);
         this.tableModel = tableModel;
-        this.tableModel.addListener(tableModelListener);
+        this.tableModel.addBatchListener(tableModelListener);
         invalidate();
         return this;
     }
@@ -229,6 +205,7 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
     @Deprecated
     public synchronized Table<V> setViewTopRow(int viewTopRow) {
         getRenderer().setViewTopRow(viewTopRow);
+        invalidate();
         return this;
     }
 
@@ -255,6 +232,7 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
     @Deprecated
     public synchronized Table<V> setViewLeftColumn(int viewLeftColumn) {
         getRenderer().setViewLeftColumn(viewLeftColumn);
+        invalidate();
         return this;
     }
 
@@ -275,6 +253,7 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
     public synchronized Table<V> setSelectedColumn(int selectedColumn) {
         if(cellSelection) {
             this.selectedColumn = selectedColumn;
+            invalidate();
         }
         return this;
     }
@@ -303,6 +282,7 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
             selectedRow = rowCount - 1;
         }
         this.selectedRow = selectedRow;
+        invalidate();
         return this;
     }
 
@@ -320,6 +300,7 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
         else if(!cellSelection) {
             selectedColumn = -1;
         }
+        invalidate();
         return this;
     }
 
@@ -366,6 +347,22 @@ public class Table<V> extends AbstractInteractableComponent<Table<V>> {
         return this;
     }
 
+    @Override
+    public void invalidate() {
+        version++;
+        super.invalidate();
+    }
+
+    /**
+     * Returns a number that changes every time this table is invalidated. A renderer can compare it with the value it
+     * saw last time to find out if the table has changed since then, even if the table is still invalid because it
+     * hasn't been drawn yet.
+     * @return Number that changes every time the table is invalidated
+     */
+    int getVersion() {
+        return version;
+    }
+
     @Override
     protected TableRenderer<V> createDefaultRenderer() {
         return new DefaultTableRenderer<>();
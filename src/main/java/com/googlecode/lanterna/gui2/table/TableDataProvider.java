@@ -0,0 +1,48 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2.table;
+
+import java.util.List;
+
+/**
+ * Source of rows for a {@link LazyTableModel}. Instead of holding all the data in memory like {@link TableModel} does,
+ * a lazy table model asks its data provider for a page of rows at a time, when the table needs to look at them, and
+ * only keeps a limited number of pages around. This makes it possible to display very large data sets, like the result
+ * of a database query or the lines of a big file, while only paying for the rows that are actually looked at.
+ * @param <V> Value type stored in the table
+ * @author Martin
+ */
+public interface TableDataProvider<V> {
+    /**
+     * Returns the total number of rows available from this data provider
+     * @return Total number of rows available
+     */
+    int getRowCount();
+
+    /**
+     * Returns a range of rows from the data provider. Each row is a list of the cell values, column by column in order;
+     * a row with fewer values than there are columns in the table is treated as having {@code null} in the remaining
+     * cells.
+     * @param firstRow Index of the first row to return
+     * @param rowCount Number of rows to return, this will never go beyond the row count reported by
+     * {@link #getRowCount()}
+     * @return List of the requested rows, must contain exactly {@code rowCount} rows
+     */
+    List<List<V>> getRows(int firstRow, int rowCount);
+}
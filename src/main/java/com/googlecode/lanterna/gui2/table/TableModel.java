@@ -19,10 +19,22 @@
 package com.googlecode.lanterna.gui2.table;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * A {@code TableModel} contains the data model behind a table, here is where all the action cell values and header
  * labels are stored.
+ * <p>
+ * The rows are stored as read-only lists which are never modified once they are in the model; changing a cell replaces
+ * the row. This means the model can hand out views of its rows without copying them, see {@link #getRowView(int)} and
+ * {@link #getSnapshot()}. A snapshot keeps showing the rows as they were when it was taken, so it can be read without
+ * holding any lock while other threads keep modifying the model. This is how the table renderer reads the model, so a
+ * thread feeding the model with data doesn't block the GUI thread from drawing.
+ * <p>
+ * Many rows can be added, removed or replaced in one call with {@link #addRows(Collection)},
+ * {@link #insertRows(int, Collection)}, {@link #removeRows(int, int)} and {@link #replaceRows(int, int, Collection)}, and
+ * any set of changes can be grouped together with {@link #runBatch(Runnable)}. A {@link BatchListener} is notified only
+ * once for each such operation.
  *
  * @author Martin
  */
@@ -74,25 +86,59 @@ public class TableModel<V> {
         void onCellChanged(TableModel<V> model, int row, int column, V oldValue, V newValue);
     }
 
-    private final List<String> columns;
+    /**
+     * Listener interface for the {@link TableModel} class that is notified once per change, no matter how many rows
+     * were affected. A batch of changes made through {@link TableModel#runBatch(Runnable)} is reported as one change,
+     * after the batch has completed. The change is described as a range of rows that has been replaced: starting at
+     * {@code firstRow}, {@code removedRows} rows from before the change have been replaced by {@code addedRows} rows;
+     * the rows before the range are the same as before and the rows after it have only moved. Changes to the columns
+     * are reported as all rows having been replaced.
+     * @param <V> Value type stored in the table
+     */
+    public interface BatchListener<V> {
+        /**
+         * Called when rows in the model have been added, removed or modified
+         * @param model Model that was modified
+         * @param firstRow Index of the first row that was changed
+         * @param removedRows Number of rows, starting at {@code firstRow}, that were there before the change and have
+         *                    been removed or modified
+         * @param addedRows Number of rows, starting at {@code firstRow}, that have been added or modified instead
+         */
+        void onRowsChanged(TableModel<V> model, int firstRow, int removedRows, int addedRows);
+    }
+
+    private volatile List<String> columns;
     private final List<List<V>> rows;
     private final List<Listener<V>> listeners;
+    private final List<BatchListener<V>> batchListeners;
+
+    private volatile List<List<V>> snapshot;
+    private boolean snapshotStale;
+    private int batchDepth;
+    private int changedFirstRow;
+    private int changedRemovedRows;
+    private int changedAddedRows;
 
     /**
      * Default constructor, creates a new model with same number of columns as labels supplied
      * @param columnLabels Labels for the column headers
      */
     public TableModel(String... columnLabels) {
-        this.columns = new ArrayList<>(Arrays.asList(columnLabels));
+        this.columns = Collections.unmodifiableList(new ArrayList<>(Arrays.asList(columnLabels)));
         this.rows = new ArrayList<>();
-        this.listeners = new ArrayList<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.batchListeners = new CopyOnWriteArrayList<>();
+        this.snapshot = null;
+        this.snapshotStale = false;
+        this.batchDepth = 0;
+        this.changedFirstRow = -1;
     }
 
     /**
      * Returns the number of columns in the model
      * @return Number of columns in the model
      */
-    public synchronized int getColumnCount() {
+    public int getColumnCount() {
         return columns.size();
     }
 
@@ -116,11 +162,32 @@ public class TableModel<V> {
         return copy;
     }
 
+    /**
+     * Returns a read-only view of all rows in the model, as they are right now. Unlike {@link #getRows()} nothing is
+     * copied except the list of rows itself, and that only once after each change to the model; until the model is
+     * changed again the same snapshot is returned. The snapshot isn't affected by later changes to the model and can be
+     * read without any locking. Inside a batch started with {@link #runBatch(Runnable)}, the snapshot keeps showing the
+     * rows from before the batch until the batch has completed.
+     * @return Read-only snapshot of all rows in the model
+     */
+    public List<List<V>> getSnapshot() {
+        List<List<V>> snapshot = this.snapshot;
+        if(snapshot != null) {
+            return snapshot;
+        }
+        synchronized(this) {
+            if(this.snapshot == null) {
+                this.snapshot = Collections.unmodifiableList(new ArrayList<>(rows));
+            }
+            return this.snapshot;
+        }
+    }
+
     /**
      * Returns all column header label as a list of strings
      * @return All column header label as a list of strings
      */
-    public synchronized List<String> getColumnLabels() {
+    public List<String> getColumnLabels() {
         return new ArrayList<>(columns);
     }
 
@@ -133,6 +200,16 @@ public class TableModel<V> {
         return new ArrayList<>(rows.get(index));
     }
 
+    /**
+     * Returns a read-only view of a row from the table, without copying it. Since rows in the model are never modified,
+     * the view will keep showing the row as it was when this method was called.
+     * @param index Index of the row to return
+     * @return Read-only view of the row
+     */
+    public synchronized List<V> getRowView(int index) {
+        return rows.get(index);
+    }
+
     /**
      * Adds a new row to the table model at the end. This may update the selection to make sure the same row is selected.
      * @param values Data to associate with the new row, mapped column by column in order
@@ -154,6 +231,16 @@ public class TableModel<V> {
         return this;
     }
 
+    /**
+     * Adds new rows to the table model at the end. Listeners are notified as if the rows had been added one by one,
+     * except for {@link BatchListener}s which are only notified once.
+     * @param newRows Data to associate with the new rows, each row mapped column by column in order
+     * @return Itself
+     */
+    public synchronized TableModel<V> addRows(Collection<? extends Collection<V>> newRows) {
+        return insertRows(getRowCount(), newRows);
+    }
+
     /**
      * Inserts a new row to the table model at a particular index. This may update the selection to make sure the same row is selected.
      * @param index Index the new row should have, 0 means the first row and <i>row count</i> will append the row at the
@@ -162,12 +249,19 @@ public class TableModel<V> {
      * @return Itself
      */
     public synchronized TableModel<V> insertRow(int index, Collection<V> values) {
-        ArrayList<V> list = new ArrayList<>(values);
-        rows.add(index, list);
-        for(Listener<V> listener: listeners) {
-            listener.onRowAdded(this, index);
-        }
-        return this;
+        return insertRows(index, Collections.singletonList(values));
+    }
+
+    /**
+     * Inserts new rows to the table model at a particular index. Listeners are notified as if the rows had been
+     * inserted one by one, except for {@link BatchListener}s which are only notified once.
+     * @param index Index the first new row should have, 0 means the first row and <i>row count</i> will append the rows
+     *              at the end
+     * @param newRows Data to associate with the new rows, each row mapped column by column in order
+     * @return Itself
+     */
+    public synchronized TableModel<V> insertRows(int index, Collection<? extends Collection<V>> newRows) {
+        return replaceRows(index, index, newRows);
     }
 
     /**
@@ -176,10 +270,57 @@ public class TableModel<V> {
      * @return Itself
      */
     public synchronized TableModel<V> removeRow(int index) {
-        List<V> removedRow = rows.remove(index);
-        for(Listener<V> listener: listeners) {
-            listener.onRowRemoved(this, index, removedRow);
+        return removeRows(index, index + 1);
+    }
+
+    /**
+     * Removes a range of rows from the table model. Listeners are notified as if the rows had been removed one by one,
+     * except for {@link BatchListener}s which are only notified once.
+     * @param fromIndex Index of the first row to remove
+     * @param toIndex Index after the last row to remove
+     * @return Itself
+     */
+    public synchronized TableModel<V> removeRows(int fromIndex, int toIndex) {
+        return replaceRows(fromIndex, toIndex, Collections.<Collection<V>>emptyList());
+    }
+
+    /**
+     * Replaces a range of rows in the table model with new rows, the number of new rows doesn't have to be the same as
+     * the number of rows replaced. Listeners are notified as if the old rows had been removed one by one and then the
+     * new rows inserted one by one, except for {@link BatchListener}s which are only notified once.
+     * @param fromIndex Index of the first row to replace
+     * @param toIndex Index after the last row to replace, same as {@code fromIndex} to only insert rows
+     * @param newRows Data to associate with the new rows, each row mapped column by column in order
+     * @return Itself
+     */
+    public synchronized TableModel<V> replaceRows(int fromIndex, int toIndex, Collection<? extends Collection<V>> newRows) {
+        if(fromIndex < 0 || toIndex > rows.size() || fromIndex > toIndex) {
+            throw new IndexOutOfBoundsException("TableModel has " + rows.size() + " rows, invalid row range " + fromIndex + " to " + toIndex);
+        }
+        if(fromIndex == toIndex && newRows.isEmpty()) {
+            return this;
+        }
+        List<List<V>> range = rows.subList(fromIndex, toIndex);
+        List<List<V>> removedRows = listeners.isEmpty() ? Collections.<List<V>>emptyList() : new ArrayList<>(range);
+        range.clear();
+        List<List<V>> addedRows = new ArrayList<>(newRows.size());
+        for(Collection<V> values: newRows) {
+            addedRows.add(Collections.unmodifiableList(new ArrayList<>(values)));
         }
+        rows.addAll(fromIndex, addedRows);
+        onRowsModified();
+
+        for(List<V> removedRow: removedRows) {
+            for(Listener<V> listener: listeners) {
+                listener.onRowRemoved(this, fromIndex, removedRow);
+            }
+        }
+        for(int i = 0; i < addedRows.size() && !listeners.isEmpty(); i++) {
+            for(Listener<V> listener: listeners) {
+                listener.onRowAdded(this, fromIndex + i);
+            }
+        }
+        rowsChanged(fromIndex, toIndex - fromIndex, addedRows.size());
         return this;
     }
 
@@ -188,10 +329,7 @@ public class TableModel<V> {
      * @return Itself
      */
     public synchronized TableModel<V> clear() {
-        while (rows.size() > 0) {
-            removeRow(0);
-        }
-        return this;
+        return removeRows(0, rows.size());
     }
 
     /**
@@ -199,7 +337,7 @@ public class TableModel<V> {
      * @param index Index of the column to retrieve the header label for
      * @return Label of the column selected
      */
-    public synchronized String getColumnLabel(int index) {
+    public String getColumnLabel(int index) {
         return columns.get(index);
     }
 
@@ -210,7 +348,9 @@ public class TableModel<V> {
      * @return Itself
      */
     public synchronized TableModel<V> setColumnLabel(int index, String newLabel) {
-        columns.set(index, newLabel);
+        List<String> newColumns = new ArrayList<>(columns);
+        newColumns.set(index, newLabel);
+        columns = Collections.unmodifiableList(newColumns);
         return this;
     }
 
@@ -236,9 +376,11 @@ public class TableModel<V> {
      * @return Itself
      */
     public synchronized TableModel<V> insertColumn(int index, String label, V[] newColumnValues) {
-        columns.add(index, label);
+        List<String> newColumns = new ArrayList<>(columns);
+        newColumns.add(index, label);
+        columns = Collections.unmodifiableList(newColumns);
         for(int i = 0; i < rows.size(); i++) {
-            List<V> row = rows.get(i);
+            List<V> row = new ArrayList<>(rows.get(i));
 
             //Pad row with null if necessary
             for(int j = row.size(); j < index; j++) {
@@ -251,11 +393,14 @@ public class TableModel<V> {
             else {
                 row.add(index, null);
             }
+            rows.set(i, Collections.unmodifiableList(row));
         }
+        onRowsModified();
 
         for(Listener<V> listener: listeners) {
             listener.onColumnAdded(this, index);
         }
+        rowsChanged(0, rows.size(), rows.size());
         return this;
     }
 
@@ -265,14 +410,21 @@ public class TableModel<V> {
      * @return Itself
      */
     public synchronized TableModel<V> removeColumn(int index) {
-        String removedColumnHeader = columns.remove(index);
+        List<String> newColumns = new ArrayList<>(columns);
+        String removedColumnHeader = newColumns.remove(index);
+        columns = Collections.unmodifiableList(newColumns);
         List<V> removedColumn = new ArrayList<>();
-        for(List<V> row : rows) {
+        for(int i = 0; i < rows.size(); i++) {
+            List<V> row = new ArrayList<>(rows.get(i));
             removedColumn.add(row.remove(index));
+            rows.set(i, Collections.unmodifiableList(row));
         }
+        onRowsModified();
+
         for(Listener<V> listener: listeners) {
             listener.onColumnRemoved(this, index, removedColumnHeader, removedColumn);
         }
+        rowsChanged(0, rows.size(), rows.size());
         return this;
     }
 
@@ -303,22 +455,48 @@ public class TableModel<V> {
      * @return Itself
      */
     public synchronized TableModel<V> setCell(int columnIndex, int rowIndex, V value) {
-        getCell(columnIndex, rowIndex);
-        List<V> row = rows.get(rowIndex);
-
-        //Pad row with null if necessary
-        for(int j = row.size(); j < columnIndex; j++) {
-            row.add(null);
-        }
-
-        V existingValue = row.get(columnIndex);
+        V existingValue = getCell(columnIndex, rowIndex);
         if(existingValue == value) {
             return this;
         }
+        List<V> row = new ArrayList<>(rows.get(rowIndex));
         row.set(columnIndex, value);
+        rows.set(rowIndex, Collections.unmodifiableList(row));
+        onRowsModified();
+
         for(Listener<V> listener: listeners) {
             listener.onCellChanged(this, rowIndex, columnIndex, existingValue, value);
         }
+        rowsChanged(rowIndex, 1, 1);
+        return this;
+    }
+
+    /**
+     * Runs a batch of changes to the model as one operation. The model is locked while the batch runs, so other threads
+     * will see either none or all of the changes; the only exception is {@link #getSnapshot()}, which doesn't wait for
+     * the batch but keeps returning the rows from before it until it has completed. {@link Listener}s are notified of
+     * each change as it happens, like they would be outside of a batch, while {@link BatchListener}s are notified only
+     * once, after the batch has completed. Batches can be nested, in which case everything is reported when the
+     * outermost batch completes. If the batch throws an exception, the changes it made up to that point are kept and
+     * reported to the listeners.
+     * @param changes Code making the changes to the model
+     * @return Itself
+     */
+    public synchronized TableModel<V> runBatch(Runnable changes) {
+        batchDepth++;
+        try {
+            changes.run();
+        }
+        finally {
+            batchDepth--;
+            if(batchDepth == 0) {
+                if(snapshotStale) {
+                    snapshot = null;
+                    snapshotStale = false;
+                }
+                fireRowsChanged();
+            }
+        }
         return this;
     }
 
@@ -341,4 +519,75 @@ public class TableModel<V> {
         listeners.remove(listener);
         return this;
     }
+
+    /**
+     * Adds a listener to this table model that will be notified once for every change to the model, no matter how many
+     * rows it affects
+     * @param listener {@link BatchListener} to register with this model
+     * @return Itself
+     */
+    public TableModel<V> addBatchListener(BatchListener<V> listener) {
+        batchListeners.add(listener);
+        return this;
+    }
+
+    /**
+     * Removes a batch listener from this model so that it will no longer receive any notifications when the model
+     * changes
+     * @param listener {@link BatchListener} to deregister from this model
+     * @return Itself
+     */
+    public TableModel<V> removeBatchListener(BatchListener<V> listener) {
+        batchListeners.remove(listener);
+        return this;
+    }
+
+    private void onRowsModified() {
+        if(batchDepth == 0) {
+            snapshot = null;
+        }
+        else {
+            snapshotStale = true;
+        }
+    }
+
+    /**
+     * Records a change to the rows, to be reported to the batch listeners right away or when the batch completes. The
+     * change is merged with any earlier change in the same batch into one range of rows covering both.
+     * @param firstRow Index of the first row that was changed
+     * @param removedRows Number of rows from before the change that were removed or modified
+     * @param addedRows Number of rows that were added or modified instead
+     */
+    synchronized void rowsChanged(int firstRow, int removedRows, int addedRows) {
+        if(changedFirstRow == -1) {
+            changedFirstRow = firstRow;
+            changedRemovedRows = removedRows;
+            changedAddedRows = addedRows;
+        }
+        else {
+            // The range changed so far and the new range, in the current row indexes, then mapped back to the row
+            // indexes from before the batch. Rows after the end of the range have only moved.
+            int start = Math.min(changedFirstRow, firstRow);
+            int end = Math.max(changedFirstRow + changedAddedRows, firstRow + removedRows);
+            changedRemovedRows = end - changedAddedRows + changedRemovedRows - start;
+            changedAddedRows = end - removedRows + addedRows - start;
+            changedFirstRow = start;
+        }
+        if(batchDepth == 0) {
+            fireRowsChanged();
+        }
+    }
+
+    private void fireRowsChanged() {
+        if(changedFirstRow == -1) {
+            return;
+        }
+        int firstRow = changedFirstRow;
+        int removedRows = changedRemovedRows;
+        int addedRows = changedAddedRows;
+        changedFirstRow = -1;
+        for(BatchListener<V> listener: batchListeners) {
+            listener.onRowsChanged(this, firstRow, removedRows, addedRows);
+        }
+    }
 }
@@ -36,10 +36,20 @@ public class AltAndCharacterPattern implements CharacterPattern {
         if (size == 1) {
             return Matching.NOT_YET; // maybe later
         }
-        if ( Character.isISOControl(seq.get(1)) ) {
+        KeyStroke ks = getKeyStroke(seq.get(1));
+        return ks != null ? new Matching( ks ) : null; // depends
+    }
+
+    /**
+     * Decodes the character following an escape the same way as {@code match} does, without building a list of
+     * characters
+     * @param ch Character that came after the escape
+     * @return Key stroke for the character, or {@code null} if this pattern doesn't match it
+     */
+    static KeyStroke getKeyStroke(char ch) {
+        if ( Character.isISOControl(ch) ) {
             return null; // nope
         }
-        KeyStroke ks = new KeyStroke(seq.get(1), false, true);
-        return new Matching( ks ); // yep
+        return new KeyStroke(ch, false, true); // yep
     }
 }
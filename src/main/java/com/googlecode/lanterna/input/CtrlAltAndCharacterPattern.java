@@ -36,7 +36,17 @@ public class CtrlAltAndCharacterPattern implements CharacterPattern {
         if (size == 1) {
             return Matching.NOT_YET; // maybe later
         }
-        char ch = seq.get(1);
+        KeyStroke ks = getKeyStroke(seq.get(1));
+        return ks != null ? new Matching( ks ) : null; // depends
+    }
+
+    /**
+     * Decodes the character following an escape the same way as {@code match} does, without building a list of
+     * characters
+     * @param ch Character that came after the escape
+     * @return Key stroke for the character, or {@code null} if this pattern doesn't match it
+     */
+    static KeyStroke getKeyStroke(char ch) {
         if (ch < 32 && ch != 0x08) {
             // Control-chars: exclude Esc(^[), but still include ^\, ^], ^^ and ^_
             char ctrlCode;
@@ -49,11 +59,9 @@ public class CtrlAltAndCharacterPattern implements CharacterPattern {
             case 31: /* ^_ */ ctrlCode = '_'; break;
             default: ctrlCode = (char)('a' - 1 + ch);
             }
-            KeyStroke ks = new KeyStroke( ctrlCode, true, true);
-            return new Matching( ks ); // yep
+            return new KeyStroke( ctrlCode, true, true); // yep
         } else if (ch == 0x7f || ch == 0x08) {
-            KeyStroke ks = new KeyStroke( KeyType.Backspace, false, true);
-            return new Matching( ks ); // yep
+            return new KeyStroke( KeyType.Backspace, false, true); // yep
         } else {
             return null; // nope
         }
@@ -28,10 +28,19 @@ import java.util.List;
 public class CtrlAndCharacterPattern implements CharacterPattern {
     @Override
     public Matching match(List<Character> seq) {
-        int size = seq.size(); char ch = seq.get(0);
-        if (size != 1) {
+        if (seq.size() != 1) {
             return null; // nope
         }
+        KeyStroke ks = getKeyStroke(seq.get(0));
+        return ks != null ? new Matching( ks ) : null; // depends
+    }
+
+    /**
+     * Decodes a single character the same way as {@code match} does, without building a list of characters
+     * @param ch Character to decode
+     * @return Key stroke for the character, or {@code null} if this pattern doesn't match it
+     */
+    static KeyStroke getKeyStroke(char ch) {
         if (ch < 32) {
             // Control-chars: exclude lf,cr,Tab,Esc(^[), but still include ^\, ^], ^^ and ^_
             char ctrlCode;
@@ -45,8 +54,7 @@ public class CtrlAndCharacterPattern implements CharacterPattern {
             case 31: /* ^_ */ ctrlCode = '_'; break;
             default: ctrlCode = (char)('a' - 1 + ch);
             }
-            KeyStroke ks = new KeyStroke( ctrlCode, true, false);
-            return new Matching( ks ); // yep
+            return new KeyStroke( ctrlCode, true, false); // yep
         } else {
             return null; // nope
         }
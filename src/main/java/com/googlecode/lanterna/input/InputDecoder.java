@@ -18,24 +18,38 @@
  */
 package com.googlecode.lanterna.input;
 
-import com.googlecode.lanterna.input.CharacterPattern.Matching;
-
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Used to read the input stream character by character and generate {@code Key} objects to be put in the input queue.
+ * The registered patterns are compiled into a {@link KeyDecodingTable} the first time input is decoded after they
+ * have changed, so every character read is matched against all patterns in roughly constant time.
+ * <p>
+ * Some input is ambiguous until more characters arrive, most notably a lone escape which could be the Escape key or the
+ * start of an escape sequence. How long to wait for the rest of a sequence is set with
+ * {@link #setEscapeTimeout(Duration)}; the wait is done through an {@link InputWaiter}, which by default checks the
+ * source for input every millisecond but can be replaced by one that waits on the underlying stream or channel.
  *
  * @author Martin, Andreas
  */
 public class InputDecoder {
     private final Reader source;
     private final List<CharacterPattern> bytePatterns;
-    private final List<Character> currentMatching;
+    private volatile KeyDecodingTable decodingTable;
+    // Characters read but not yet turned into a KeyStroke
+    private char[] currentMatching;
+    private int currentMatchingLength;
     private boolean seenEOF;
-    private int timeoutUnits;
+    private long escapeTimeoutNanos;
+    private InputWaiter inputWaiter;
+    // When to give up waiting for the rest of an ambiguous sequence, only valid while waitingForInput is set
+    private long escapeDeadline;
+    private boolean waitingForInput;
 
     /**
      * Creates a new input decoder using a specified Reader as the source to read characters from
@@ -44,9 +58,14 @@ public class InputDecoder {
     public InputDecoder(final Reader source) {
         this.source = new BufferedReader(source);
         this.bytePatterns = new ArrayList<>();
-        this.currentMatching = new ArrayList<>();
+        this.decodingTable = null;
+        this.currentMatching = new char[16];
+        this.currentMatchingLength = 0;
         this.seenEOF = false;
-        this.timeoutUnits = 0; // default is no wait at all
+        this.escapeTimeoutNanos = 0; // default is no wait at all
+        this.inputWaiter = null;
+        this.escapeDeadline = 0;
+        this.waitingForInput = false;
     }
 
     /**
@@ -60,6 +79,7 @@ public class InputDecoder {
                 //If an equivalent pattern already exists, remove it first
                 bytePatterns.remove(pattern);
                 bytePatterns.add(pattern);
+                decodingTable = null;
             }
         }
     }
@@ -81,6 +101,7 @@ public class InputDecoder {
      */
     public boolean removePattern(CharacterPattern pattern) {
         synchronized(bytePatterns) {
+            decodingTable = null;
             return bytePatterns.remove(pattern);
         }
     }
@@ -92,18 +113,57 @@ public class InputDecoder {
      * Negative numbers are mapped to 0 (no wait at all), and unreasonably high
      * values are mapped to a maximum of 240 (1 minute).
      * @param units New timeout to use, in 250ms units
+     * @see #setEscapeTimeout(Duration)
      */
     public void setTimeoutUnits(int units) {
-        timeoutUnits = (units < 0) ? 0 :
-                       (units > 240) ? 240 :
-                        units;
+        setEscapeTimeout(Duration.ofMillis(250L * ((units < 0) ? 0 : (units > 240) ? 240 : units)));
     }
     /**
      * queries the current timeoutUnits value. One unit is 1/4 second.
-     * @return The timeout this InputDecoder will use when waiting for additional input, in units of 1/4 seconds
+     * @return The timeout this InputDecoder will use when waiting for additional input, in units of 1/4 seconds,
+     * rounded up
+     * @see #getEscapeTimeout()
      */
     public int getTimeoutUnits() {
-        return timeoutUnits;
+        return (int)((TimeUnit.NANOSECONDS.toMillis(escapeTimeoutNanos) + 249) / 250);
+    }
+
+    /**
+     * Sets for how long to wait for further input when what has been read so far is a complete key stroke but could
+     * also be the start of a longer sequence, like a lone escape. If no more input arrives within this time, the
+     * shorter key stroke is returned. The wait starts over for every character read. A zero timeout, which is the
+     * default, means input that isn't already available is never waited for; on a local terminal something like
+     * 25 ms (the default of {@code ESCDELAY} in ncurses) is plenty, slow network connections may need more.
+     * <p>
+     * Negative timeouts are treated as zero and timeouts above one minute are capped to one minute.
+     * @param escapeTimeout How long to wait for the rest of an ambiguous sequence
+     */
+    public void setEscapeTimeout(Duration escapeTimeout) {
+        if(escapeTimeout.isNegative()) {
+            escapeTimeout = Duration.ZERO;
+        }
+        else if(escapeTimeout.compareTo(Duration.ofMinutes(1)) > 0) {
+            escapeTimeout = Duration.ofMinutes(1);
+        }
+        escapeTimeoutNanos = escapeTimeout.toNanos();
+    }
+
+    /**
+     * Returns for how long the decoder waits for the rest of an ambiguous sequence
+     * @return Current escape timeout
+     * @see #setEscapeTimeout(Duration)
+     */
+    public Duration getEscapeTimeout() {
+        return Duration.ofNanos(escapeTimeoutNanos);
+    }
+
+    /**
+     * Sets how the decoder waits for more input when it needs the next character to decide what key stroke it has read,
+     * see {@link InputWaiter}. Pass {@code null} to go back to checking the source for input every millisecond.
+     * @param inputWaiter Waiter to use, or {@code null} for the default
+     */
+    public void setInputWaiter(InputWaiter inputWaiter) {
+        this.inputWaiter = inputWaiter;
     }
 
     /**
@@ -113,6 +173,8 @@ public class InputDecoder {
      * @throws IOException If there was an I/O error when reading from the input stream
      */
     public synchronized KeyStroke getNextCharacter(boolean blockingIO) throws IOException {
+        KeyDecodingTable table = getDecodingTable();
+        table.reset();
 
         KeyStroke bestMatch = null;
         int bestLen = 0;
@@ -120,21 +182,20 @@ public class InputDecoder {
 
         while(true) {
 
-            if ( curLen < currentMatching.size() ) {
+            if ( curLen < currentMatchingLength ) {
                 // (re-)consume characters previously read:
                 curLen++;
             }
             else {
                 // If we already have a bestMatch but a chance for a longer match
-                //   then we poll for the configured number of timeout units:
-                // It would be much better, if we could just read with a timeout,
-                //   but lacking that, we wait 1/4s units and check for readiness.
-                if (bestMatch != null) {
-                    int timeout = getTimeoutUnits();
-                    while (timeout > 0 && ! source.ready() ) {
-                        try {
-                            timeout--; Thread.sleep(250);
-                        } catch (InterruptedException e) { timeout = 0; }
+                //   then we wait for the configured escape timeout:
+                if (bestMatch != null && !source.ready() && !waitForInput()) {
+                    if (!isEscapeTimeoutExpired()) {
+                        // The waiter couldn't wait this time, try again later
+                        if (!blockingIO) {
+                            return null;
+                        }
+                        continue;
                     }
                 }
                 // if input is available, we can just read a char without waiting,
@@ -144,16 +205,21 @@ public class InputDecoder {
                     int readChar = source.read();
                     if (readChar == -1) {
                         seenEOF = true;
-                        if(currentMatching.isEmpty()) {
+                        if(currentMatchingLength == 0) {
                             return new KeyStroke(KeyType.EOF);
                         }
                         break;
                     }
-                    currentMatching.add( (char)readChar );
+                    if(currentMatchingLength == currentMatching.length) {
+                        currentMatching = Arrays.copyOf(currentMatching, currentMatching.length * 2);
+                    }
+                    currentMatching[currentMatchingLength++] = (char)readChar;
                     curLen++;
+                    waitingForInput = false;
                 } else { // no more available input at this time.
                     // already found something:
                     if (bestMatch != null) {
+                        waitingForInput = false;
                         break; // it's something...
                     }
                     // otherwise: no KeyStroke yet
@@ -161,40 +227,30 @@ public class InputDecoder {
                 }
             }
 
-            List<Character> curSub = currentMatching.subList(0, curLen);
-            Matching matching = getBestMatch( curSub );
+            int matching = table.advance(currentMatching, curLen);
 
             // fullMatch found...
-            if (matching.fullMatch != null) {
-                bestMatch = matching.fullMatch;
+            if ((matching & KeyDecodingTable.FULL_MATCH) != 0) {
+                bestMatch = table.getFullMatch();
                 bestLen = curLen;
 
-                if (! matching.partialMatch) {
+                if ((matching & KeyDecodingTable.PARTIAL_MATCH) == 0) {
                     // that match and no more
                     break;
-                } else {
-                    // that match, but maybe more
-
-                    //noinspection UnnecessaryContinue
-                    continue;
                 }
+                // that match, but maybe more
             }
             // No match found yet, but there's still potential...
-            else if ( matching.partialMatch ) {
-                //noinspection UnnecessaryContinue
-                continue;
-            }
-            // no longer match possible at this point:
-            else {
+            else if ((matching & KeyDecodingTable.PARTIAL_MATCH) == 0) {
+                // no longer match possible at this point:
                 if (bestMatch != null ) {
                     // there was already a previous full-match, use it:
                     break;
                 } else { // invalid input!
                     // remove the whole fail and re-try finding a KeyStroke...
-                    curSub.clear(); // or just 1 char?  currentMatching.remove(0);
+                    removeMatched(curLen);
                     curLen = 0;
-                    //noinspection UnnecessaryContinue
-                    continue;
+                    table.reset();
                 }
             }
         }
@@ -202,29 +258,69 @@ public class InputDecoder {
         //Did we find anything? Otherwise return null
         if(bestMatch == null) {
             if(seenEOF) {
-                currentMatching.clear();
+                currentMatchingLength = 0;
                 return new KeyStroke(KeyType.EOF);
             }
             return null;
         }
 
-        List<Character> bestSub = currentMatching.subList(0, bestLen );
-        bestSub.clear(); // remove matched characters from input
+        removeMatched(bestLen); // remove matched characters from input
         return bestMatch;
     }
 
-    private Matching getBestMatch(List<Character> characterSequence) {
-        boolean partialMatch = false;
-        KeyStroke bestMatch = null;
-        synchronized(bytePatterns) {
-            for(CharacterPattern pattern : bytePatterns) {
-                Matching res = pattern.match(characterSequence);
-                if (res != null) {
-                    if (res.partialMatch) { partialMatch = true; }
-                    if (res.fullMatch != null) { bestMatch = res.fullMatch; }
-                }
+    /**
+     * Waits for more input until the escape timeout expires, starting the timeout if this is the first wait since the
+     * last character was read
+     * @return {@code true} if reading from the source won't block
+     */
+    private boolean waitForInput() throws IOException {
+        if(!waitingForInput) {
+            waitingForInput = true;
+            escapeDeadline = System.nanoTime() + escapeTimeoutNanos;
+        }
+        long remaining = escapeDeadline - System.nanoTime();
+        if(remaining <= 0) {
+            return false;
+        }
+        // Round up so we never give up before the deadline
+        long timeoutMillis = (remaining + 999999) / 1000000;
+        if(inputWaiter != null) {
+            return inputWaiter.waitForInput(timeoutMillis);
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while(!source.ready()) {
+            if(System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(1);
+            }
+            catch(InterruptedException e) {
+                // Stop waiting altogether
+                escapeDeadline = System.nanoTime();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isEscapeTimeoutExpired() {
+        return escapeDeadline - System.nanoTime() <= 0;
+    }
+
+    private void removeMatched(int length) {
+        System.arraycopy(currentMatching, length, currentMatching, 0, currentMatchingLength - length);
+        currentMatchingLength -= length;
+    }
+
+    private KeyDecodingTable getDecodingTable() {
+        KeyDecodingTable table = decodingTable;
+        if(table == null) {
+            synchronized(bytePatterns) {
+                table = new KeyDecodingTable(bytePatterns);
+                decodingTable = table;
             }
         }
-        return new Matching(partialMatch, bestMatch);
+        return table;
     }
 }
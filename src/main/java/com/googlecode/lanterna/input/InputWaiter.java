@@ -0,0 +1,44 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.input;
+
+import java.io.IOException;
+
+/**
+ * Used by {@link InputDecoder} to wait for more input when it can't tell what key stroke it has read without looking at
+ * the next character, for example after a lone escape. Terminals that can wait on their underlying stream or channel
+ * more efficiently than checking it over and over set one of these on their decoder.
+ * <p>
+ * An implementation doesn't have to block at all: if it returns {@code false} before the timeout has expired, a
+ * non-blocking read from the decoder returns {@code null} and keeps the characters read so far, expecting to be called
+ * again later. A blocking read will call the waiter again right away, so the waiter should block if it's used for
+ * blocking reads.
+ * @see InputDecoder#setInputWaiter(InputWaiter)
+ * @author Martin
+ */
+public interface InputWaiter {
+    /**
+     * Waits until there is more input to read or the timeout expires, whichever happens first
+     * @param timeoutMillis How long to wait at most, in milliseconds, always greater than zero
+     * @return {@code true} if reading from the input won't block, because there is input available or the input has
+     * reached its end
+     * @throws IOException If there was an I/O error while waiting
+     */
+    boolean waitForInput(long timeoutMillis) throws IOException;
+}
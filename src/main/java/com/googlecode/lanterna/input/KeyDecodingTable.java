@@ -0,0 +1,414 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.input;
+
+import static com.googlecode.lanterna.input.KeyDecodingProfile.ESC_CODE;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The character patterns of an {@link InputDecoder}, compiled into a form where each new input character can be
+ * matched against all patterns at once without looking at the characters before it again. All
+ * {@link BasicCharacterPattern}s are merged into a prefix trie, {@link EscapeSequenceCharacterPattern}s (which
+ * includes the cursor position reports) and mouse events are run as state machines and the remaining built-in patterns
+ * only look at the one or two characters they care about. Patterns this class doesn't know about, including subclasses
+ * of the built-in patterns that override {@code match}, are asked to match the whole sequence like before, but only for
+ * as long as they say a longer sequence could still match.
+ * <p>
+ * Matching gives the same result as running every pattern on the sequence and, when several patterns match, taking the
+ * one that was added last. The table keeps the state of the sequence being matched, so it can only be used by one
+ * thread at a time.
+ *
+ * @author Martin
+ */
+class KeyDecodingTable {
+    /**
+     * Returned by {@link #advance(char[], int)} if a longer sequence could still match
+     */
+    static final int PARTIAL_MATCH = 1;
+    /**
+     * Returned by {@link #advance(char[], int)} if the sequence so far matched a pattern, see {@link #getFullMatch()}
+     */
+    static final int FULL_MATCH = 2;
+
+    private final TrieNode trieRoot;
+    private final Matcher[] matchers;
+    private final boolean[] alive;
+    private TrieNode trieNode;
+    private KeyStroke fullMatch;
+
+    KeyDecodingTable(List<CharacterPattern> patterns) {
+        this.trieRoot = new TrieNode();
+        List<Matcher> matcherList = new ArrayList<>();
+        for(int order = 0; order < patterns.size(); order++) {
+            CharacterPattern pattern = patterns.get(order);
+            if(pattern instanceof BasicCharacterPattern && !overridesMatch(pattern, BasicCharacterPattern.class)) {
+                trieRoot.add((BasicCharacterPattern)pattern, order);
+            }
+            else if(pattern instanceof EscapeSequenceCharacterPattern && !overridesMatch(pattern, EscapeSequenceCharacterPattern.class)) {
+                matcherList.add(new EscapeSequenceMatcher((EscapeSequenceCharacterPattern)pattern, order));
+            }
+            else if(pattern instanceof MouseCharacterPattern && !overridesMatch(pattern, MouseCharacterPattern.class)) {
+                matcherList.add(new MouseMatcher(order));
+            }
+            else if(pattern instanceof NormalCharacterPattern && !overridesMatch(pattern, NormalCharacterPattern.class)) {
+                matcherList.add(new CharacterMatcher(order, false, false));
+            }
+            else if(pattern instanceof CtrlAndCharacterPattern && !overridesMatch(pattern, CtrlAndCharacterPattern.class)) {
+                matcherList.add(new CharacterMatcher(order, true, false));
+            }
+            else if(pattern instanceof AltAndCharacterPattern && !overridesMatch(pattern, AltAndCharacterPattern.class)) {
+                matcherList.add(new CharacterMatcher(order, false, true));
+            }
+            else if(pattern instanceof CtrlAltAndCharacterPattern && !overridesMatch(pattern, CtrlAltAndCharacterPattern.class)) {
+                matcherList.add(new CharacterMatcher(order, true, true));
+            }
+            else {
+                matcherList.add(new GenericMatcher(pattern, order));
+            }
+        }
+        this.matchers = matcherList.toArray(new Matcher[0]);
+        this.alive = new boolean[matchers.length];
+        reset();
+    }
+
+    /**
+     * Forgets the sequence matched so far, the next call to {@link #advance(char[], int)} starts a new sequence
+     */
+    void reset() {
+        trieNode = trieRoot;
+        Arrays.fill(alive, true);
+        for(Matcher matcher: matchers) {
+            matcher.reset();
+        }
+        fullMatch = null;
+    }
+
+    /**
+     * Matches the patterns against one more character
+     * @param sequence Characters of the sequence being matched
+     * @param length Length of the sequence, the character to match is the last one ({@code sequence[length - 1]})
+     * @return Combination of {@link #PARTIAL_MATCH} and {@link #FULL_MATCH}, or 0 if no pattern can match
+     */
+    int advance(char[] sequence, int length) {
+        char c = sequence[length - 1];
+        int result = 0;
+        int bestOrder = -1;
+        fullMatch = null;
+        if(trieNode != null) {
+            trieNode = trieNode.get(c);
+            if(trieNode != null) {
+                if(trieNode.pattern != null) {
+                    fullMatch = trieNode.pattern.getResult();
+                    bestOrder = trieNode.order;
+                }
+                if(trieNode.hasChildren()) {
+                    result |= PARTIAL_MATCH;
+                }
+            }
+        }
+        for(int i = 0; i < matchers.length; i++) {
+            if(!alive[i]) {
+                continue;
+            }
+            Matcher matcher = matchers[i];
+            int matcherResult = matcher.advance(sequence, length);
+            if((matcherResult & FULL_MATCH) != 0 && matcher.order > bestOrder) {
+                fullMatch = matcher.fullMatch;
+                bestOrder = matcher.order;
+            }
+            if((matcherResult & PARTIAL_MATCH) == 0) {
+                alive[i] = false;
+            }
+            result |= matcherResult & PARTIAL_MATCH;
+        }
+        if(fullMatch != null) {
+            result |= FULL_MATCH;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the key stroke that the sequence matched, if the last call to {@link #advance(char[], int)} reported a
+     * full match
+     * @return Key stroke matched by the sequence, or {@code null}
+     */
+    KeyStroke getFullMatch() {
+        return fullMatch;
+    }
+
+    private static boolean overridesMatch(CharacterPattern pattern, Class<?> baseClass) {
+        try {
+            return pattern.getClass().getMethod("match", List.class).getDeclaringClass() != baseClass;
+        }
+        catch(NoSuchMethodException e) {
+            return true;
+        }
+    }
+
+    private static class TrieNode {
+        private char[] keys = new char[0];
+        private TrieNode[] children = new TrieNode[0];
+        private BasicCharacterPattern pattern = null;
+        private int order = -1;
+
+        void add(BasicCharacterPattern pattern, int order) {
+            TrieNode node = this;
+            for(char c: pattern.getPattern()) {
+                TrieNode child = node.get(c);
+                if(child == null) {
+                    child = new TrieNode();
+                    node.keys = Arrays.copyOf(node.keys, node.keys.length + 1);
+                    node.children = Arrays.copyOf(node.children, node.children.length + 1);
+                    node.keys[node.keys.length - 1] = c;
+                    node.children[node.children.length - 1] = child;
+                }
+                node = child;
+            }
+            node.pattern = pattern;
+            node.order = order;
+        }
+
+        TrieNode get(char c) {
+            for(int i = 0; i < keys.length; i++) {
+                if(keys[i] == c) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        boolean hasChildren() {
+            return keys.length > 0;
+        }
+    }
+
+    private static abstract class Matcher {
+        final int order;
+        KeyStroke fullMatch;
+
+        Matcher(int order) {
+            this.order = order;
+        }
+
+        abstract void reset();
+
+        abstract int advance(char[] sequence, int length);
+    }
+
+    /**
+     * Matches a pattern we don't know anything about by calling it with the whole sequence, like InputDecoder used to do
+     */
+    private static class GenericMatcher extends Matcher {
+        private final CharacterPattern pattern;
+        private final SequenceView sequenceView;
+
+        GenericMatcher(CharacterPattern pattern, int order) {
+            super(order);
+            this.pattern = pattern;
+            this.sequenceView = new SequenceView();
+        }
+
+        @Override
+        void reset() {
+            fullMatch = null;
+        }
+
+        @Override
+        int advance(char[] sequence, int length) {
+            sequenceView.sequence = sequence;
+            sequenceView.length = length;
+            CharacterPattern.Matching matching = pattern.match(sequenceView);
+            if(matching == null) {
+                fullMatch = null;
+                return 0;
+            }
+            fullMatch = matching.fullMatch;
+            return (matching.partialMatch ? PARTIAL_MATCH : 0) | (fullMatch != null ? FULL_MATCH : 0);
+        }
+    }
+
+    private static class SequenceView extends AbstractList<Character> {
+        private char[] sequence;
+        private int length;
+
+        @Override
+        public Character get(int index) {
+            if(index >= length) {
+                throw new IndexOutOfBoundsException("Index " + index + ", size " + length);
+            }
+            return sequence[index];
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+    }
+
+    /**
+     * Matches the patterns decoding a single character, optionally prefixed by an escape
+     */
+    private static class CharacterMatcher extends Matcher {
+        private final boolean ctrl;
+        private final boolean escapePrefix;
+
+        CharacterMatcher(int order, boolean ctrl, boolean escapePrefix) {
+            super(order);
+            this.ctrl = ctrl;
+            this.escapePrefix = escapePrefix;
+        }
+
+        @Override
+        void reset() {
+            fullMatch = null;
+        }
+
+        @Override
+        int advance(char[] sequence, int length) {
+            char ch = sequence[length - 1];
+            if(escapePrefix && length == 1) {
+                return ch == ESC_CODE ? PARTIAL_MATCH : 0;
+            }
+            if(escapePrefix) {
+                fullMatch = ctrl ? CtrlAltAndCharacterPattern.getKeyStroke(ch) : AltAndCharacterPattern.getKeyStroke(ch);
+            }
+            else {
+                fullMatch = ctrl ? CtrlAndCharacterPattern.getKeyStroke(ch) : NormalCharacterPattern.getKeyStroke(ch);
+            }
+            return fullMatch != null ? FULL_MATCH : 0;
+        }
+    }
+
+    /**
+     * Matches {@link MouseCharacterPattern}, which is {@code ESC [ M} followed by three characters of data
+     */
+    private static class MouseMatcher extends Matcher {
+        MouseMatcher(int order) {
+            super(order);
+        }
+
+        @Override
+        void reset() {
+            fullMatch = null;
+        }
+
+        @Override
+        int advance(char[] sequence, int length) {
+            char ch = sequence[length - 1];
+            switch(length) {
+                case 1:
+                    return ch == ESC_CODE ? PARTIAL_MATCH : 0;
+                case 2:
+                    return ch == '[' ? PARTIAL_MATCH : 0;
+                case 3:
+                    return ch == 'M' ? PARTIAL_MATCH : 0;
+                case 4:
+                case 5:
+                    return PARTIAL_MATCH;
+                case 6:
+                    fullMatch = MouseCharacterPattern.getMouseAction(sequence[3], sequence[4], sequence[5]);
+                    return FULL_MATCH;
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * Incremental version of {@link EscapeSequenceCharacterPattern#match(List)}, the pattern is still responsible for
+     * turning the parsed sequence into a key stroke
+     */
+    private static class EscapeSequenceMatcher extends Matcher {
+        private enum State {
+            START, INTRO, NUM1, NUM2
+        }
+
+        private final EscapeSequenceCharacterPattern pattern;
+        private State state;
+        private int num1;
+        private int num2;
+        private char first;
+        private boolean bEsc;
+
+        EscapeSequenceMatcher(EscapeSequenceCharacterPattern pattern, int order) {
+            super(order);
+            this.pattern = pattern;
+        }
+
+        @Override
+        void reset() {
+            state = State.START;
+            num1 = 0;
+            num2 = 0;
+            first = '\0';
+            bEsc = false;
+            fullMatch = null;
+        }
+
+        @Override
+        int advance(char[] sequence, int length) {
+            char ch = sequence[length - 1];
+            switch(state) {
+                case START:
+                    if(ch != ESC_CODE) {
+                        return 0;
+                    }
+                    state = State.INTRO;
+                    return PARTIAL_MATCH;
+                case INTRO:
+                    if(pattern.useEscEsc && ch == ESC_CODE && !bEsc) {
+                        bEsc = true;
+                        return PARTIAL_MATCH;
+                    }
+                    if(ch != '[' && ch != 'O') {
+                        return 0;
+                    }
+                    first = ch;
+                    state = State.NUM1;
+                    return PARTIAL_MATCH;
+                case NUM1:
+                    if(ch == ';') {
+                        state = State.NUM2;
+                        return PARTIAL_MATCH;
+                    }
+                    else if(Character.isDigit(ch)) {
+                        num1 = num1 * 10 + Character.digit(ch, 10);
+                        return PARTIAL_MATCH;
+                    }
+                    return done(ch);
+                case NUM2:
+                    if(Character.isDigit(ch)) {
+                        num2 = num2 * 10 + Character.digit(ch, 10);
+                        return PARTIAL_MATCH;
+                    }
+                    return done(ch);
+            }
+            return 0;
+        }
+
+        private int done(char last) {
+            fullMatch = pattern.getKeyStrokeRaw(first, num1, num2, last, bEsc);
+            return fullMatch != null ? FULL_MATCH : 0;
+        }
+    }
+}
@@ -49,13 +49,25 @@ public class MouseCharacterPattern implements CharacterPattern {
         if (size < 6) {
             return Matching.NOT_YET; // maybe later
         }
+        return new Matching( getMouseAction(seq.get(3), seq.get(4), seq.get(5)) ); // yep
+    }
+
+    /**
+     * Decodes the three characters following {@code ESC [ M} the same way as {@code match} does, without building a
+     * list of characters
+     * @param buttonCode Character encoding the button and action
+     * @param columnCode Character encoding the column
+     * @param rowCode Character encoding the row
+     * @return Mouse action described by the characters
+     */
+    static MouseAction getMouseAction(char buttonCode, char columnCode, char rowCode) {
         MouseActionType actionType = null;
-        int button = (seq.get(3) & 0x3) + 1;
+        int button = (buttonCode & 0x3) + 1;
         if(button == 4) {
             //If last two bits are both set, it means button click release
             button = 0;
         }
-        int actionCode = (seq.get(3) & 0x60) >> 5;
+        int actionCode = (buttonCode & 0x60) >> 5;
         switch(actionCode) {
             case(1):
                 if(button > 0) {
@@ -84,9 +96,7 @@ public class MouseCharacterPattern implements CharacterPattern {
                 }
                 break;
         }
-        TerminalPosition pos = new TerminalPosition( seq.get(4) - 33, seq.get(5) - 33 );
-
-        MouseAction ma = new MouseAction(actionType, button, pos );
-        return new Matching( ma ); // yep
+        TerminalPosition pos = new TerminalPosition( columnCode - 33, rowCode - 33 );
+        return new MouseAction(actionType, button, pos );
     }
 }
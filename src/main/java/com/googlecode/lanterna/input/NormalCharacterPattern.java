@@ -31,10 +31,18 @@ public class NormalCharacterPattern implements CharacterPattern {
         if (seq.size() != 1) {
             return null; // nope
         }
-        char ch = seq.get(0);
+        KeyStroke ks = getKeyStroke(seq.get(0));
+        return ks != null ? new Matching( ks ) : null; // depends
+    }
+
+    /**
+     * Decodes a single character the same way as {@code match} does, without building a list of characters
+     * @param ch Character to decode
+     * @return Key stroke for the character, or {@code null} if this pattern doesn't match it
+     */
+    static KeyStroke getKeyStroke(char ch) {
         if (isPrintableChar(ch)) {
-            KeyStroke ks = new KeyStroke(ch, false, false);
-            return new Matching( ks );
+            return new KeyStroke(ch, false, false);
         } else {
             return null; // nope
         }
@@ -46,6 +54,7 @@ public class NormalCharacterPattern implements CharacterPattern {
      * @return True if this is a 'normal', printable character, false otherwise
      */
     private static boolean isPrintableChar(char c) {
+        if (c >= 0x20 && c < 0x7f) { return true; } // Printable ASCII, no need to look up the block
         if (Character.isISOControl(c)) { return false; }
         Character.UnicodeBlock block = Character.UnicodeBlock.of(c);
         return block != null && block != Character.UnicodeBlock.SPECIALS;
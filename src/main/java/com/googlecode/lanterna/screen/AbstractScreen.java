@@ -21,6 +21,7 @@ package com.googlecode.lanterna.screen;
 import com.googlecode.lanterna.TerminalTextUtils;
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextStyle;
 import com.googlecode.lanterna.graphics.TextGraphics;
 import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.graphics.TextImage;
@@ -133,6 +134,31 @@ public abstract class AbstractScreen implements Screen {
                 backBuffer.copyFrom(image, sourceImageTopLeft.getRow(), sourceImageSize.getRows(), sourceImageTopLeft.getColumn(), sourceImageSize.getColumns(), topLeft.getRow(), topLeft.getColumn());
                 return this;
             }
+
+            @Override
+            public TextGraphics putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+                for(int i = start; i < end; i++) {
+                    if(text.charAt(i) == '\t') {
+                        // setCharacter(..) knows how to expand the tab
+                        return super.putRun(column, row, text, start, end, style);
+                    }
+                }
+                synchronized(AbstractScreen.this) {
+                    backBuffer.putRun(column, row, text, start, end, style);
+                }
+                return this;
+            }
+
+            @Override
+            public TextGraphics fillRow(int column, int row, int length, TextCharacter character) {
+                if(character.getCharacter() == '\t') {
+                    return super.fillRow(column, row, length, character);
+                }
+                synchronized(AbstractScreen.this) {
+                    backBuffer.fillRow(column, row, length, character);
+                }
+                return this;
+            }
         };
     }
 
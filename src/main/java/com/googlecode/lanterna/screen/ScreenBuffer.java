@@ -21,18 +21,20 @@ package com.googlecode.lanterna.screen;
 import com.googlecode.lanterna.TerminalPosition;
 import com.googlecode.lanterna.TextCharacter;
 import com.googlecode.lanterna.TerminalSize;
-import com.googlecode.lanterna.graphics.BasicTextImage;
+import com.googlecode.lanterna.TextStyle;
+import com.googlecode.lanterna.graphics.PackedTextImage;
 import com.googlecode.lanterna.graphics.TextGraphics;
 import com.googlecode.lanterna.graphics.TextImage;
 
 /**
  * Defines a buffer used by AbstractScreen and its subclasses to keep its state of what's currently displayed and what 
  * the edit buffer looks like. A ScreenBuffer is essentially a two-dimensional array of TextCharacter with some utility
- * methods to inspect and manipulate it in a safe way.
+ * methods to inspect and manipulate it in a safe way. The content is kept in a {@link PackedTextImage} so that the
+ * two buffers of a screen can be compared and copied without creating any {@code TextCharacter} objects.
  * @author martin
  */
 public class ScreenBuffer implements TextImage {    
-    private final BasicTextImage backend;
+    private final PackedTextImage backend;
     
     /**
      * Creates a new ScreenBuffer with a given size and a TextCharacter to initially fill it with
@@ -40,39 +42,38 @@ public class ScreenBuffer implements TextImage {
      * @param filler What character to set as the initial content of the buffer
      */
     public ScreenBuffer(TerminalSize size, TextCharacter filler) {
-        this(new BasicTextImage(size, filler));
+        this(new PackedTextImage(size, filler));
     }
     
-    private ScreenBuffer(BasicTextImage backend) {
+    private ScreenBuffer(PackedTextImage backend) {
         this.backend = backend;
     }
     
     @Override
     public ScreenBuffer resize(TerminalSize newSize, TextCharacter filler) {
-        BasicTextImage resizedBackend = backend.resize(newSize, filler);
+        PackedTextImage resizedBackend = backend.resize(newSize, filler);
         return new ScreenBuffer(resizedBackend);
     }
     
+    /**
+     * Returns the packed image holding the content of this buffer, so that the screen can compare buffers directly on
+     * the primitive cell data
+     * @return Backing {@code PackedTextImage} of this buffer
+     */
+    PackedTextImage getBackend() {
+        return backend;
+    }
+
     boolean isVeryDifferent(ScreenBuffer other, int threshold) {
         if(!getSize().equals(other.getSize())) {
             throw new IllegalArgumentException("Can only call isVeryDifferent comparing two ScreenBuffers of the same size!"
                     + " This is probably a bug in Lanterna.");
         }
-        int differences = 0;
-        for(int y = 0; y < getSize().getRows(); y++) {
-            for(int x = 0; x < getSize().getColumns(); x++) {
-                if(!getCharacterAt(x, y).equals(other.getCharacterAt(x, y))) {
-                    if(++differences >= threshold) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return backend.countDifferences(other.backend, threshold) >= threshold;
     }
 
     ///////////////////////////////////////////////////////////////////////////////
-    //  Delegate all TextImage calls (except resize) to the backend BasicTextImage
+    //  Delegate all TextImage calls (except resize) to the backend PackedTextImage
     @Override
     public TerminalSize getSize() {
         return backend.getSize();
@@ -98,6 +99,16 @@ public class ScreenBuffer implements TextImage {
         backend.setCharacterAt(column, row, character);
     }
 
+    @Override
+    public void fillRow(int column, int row, int length, TextCharacter character) {
+        backend.fillRow(column, row, length, character);
+    }
+
+    @Override
+    public void putRun(int column, int row, CharSequence text, int start, int end, TextStyle style) {
+        backend.putRun(column, row, text, start, end, style);
+    }
+
     @Override
     public void setAll(TextCharacter character) {
         backend.setAll(character);
@@ -111,7 +122,7 @@ public class ScreenBuffer implements TextImage {
     @Override
     public void copyTo(TextImage destination) {
         if(destination instanceof ScreenBuffer) {
-            //This will allow the BasicTextImage's copy method to use System.arraycopy (micro-optimization?)
+            //This will allow the PackedTextImage's copy method to use System.arraycopy
             destination = ((ScreenBuffer)destination).backend;
         }
         backend.copyTo(destination);
@@ -120,7 +131,7 @@ public class ScreenBuffer implements TextImage {
     @Override
     public void copyTo(TextImage destination, int startRowIndex, int rows, int startColumnIndex, int columns, int destinationRowOffset, int destinationColumnOffset) {
         if(destination instanceof ScreenBuffer) {
-            //This will allow the BasicTextImage's copy method to use System.arraycopy (micro-optimization?)
+            //This will allow the PackedTextImage's copy method to use System.arraycopy
             destination = ((ScreenBuffer)destination).backend;
         }
         backend.copyTo(destination, startRowIndex, rows, startColumnIndex, columns, destinationRowOffset, destinationColumnOffset);
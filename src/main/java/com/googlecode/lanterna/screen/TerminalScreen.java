@@ -19,17 +19,16 @@
 package com.googlecode.lanterna.screen;
 
 import com.googlecode.lanterna.*;
+import com.googlecode.lanterna.graphics.PackedTextImage;
 import com.googlecode.lanterna.graphics.Scrollable;
 import com.googlecode.lanterna.input.KeyStroke;
 import com.googlecode.lanterna.input.KeyType;
 import com.googlecode.lanterna.terminal.Terminal;
 import com.googlecode.lanterna.terminal.TerminalResizeListener;
+import com.googlecode.lanterna.terminal.ansi.ANSIOutputOptimizer;
+import com.googlecode.lanterna.terminal.ansi.ANSITerminal;
 
 import java.io.IOException;
-import java.util.Comparator;
-import java.util.EnumSet;
-import java.util.Map;
-import java.util.TreeMap;
 
 /**
  * This is the default concrete implementation of the Screen interface, a buffered layer sitting on top of a Terminal.
@@ -39,11 +38,22 @@ import java.util.TreeMap;
  * @author martin
  */
 public class TerminalScreen extends AbstractScreen {
+    private static final SGR[] SGR_VALUES = SGR.values();
+    private static final long DEFAULT_STYLE = PackedTextImage.encodeStyle(DEFAULT_CHARACTER);
+
     private final Terminal terminal;
+    //Only available for ANSI terminals, others are written to through the Terminal interface
+    private final ANSIOutputOptimizer outputOptimizer;
     private boolean isStarted;
     private boolean fullRedrawHint;
     private ScrollHint scrollHint;
 
+    //What we believe the terminal's cursor position and text style is while writing out a refresh
+    private int outputColumn;
+    private int outputRow;
+    private long outputStyle;
+    private boolean outputStyleKnown;
+
     /**
      * Creates a new Screen on top of a supplied terminal, will query the terminal for its size. The screen is initially
      * blank. The default character used for unused space (the newly initialized state of the screen and new areas after
@@ -76,6 +86,7 @@ public class TerminalScreen extends AbstractScreen {
     public TerminalScreen(Terminal terminal, TextCharacter defaultCharacter) throws IOException {
         super(terminal.getTerminalSize(), defaultCharacter);
         this.terminal = terminal;
+        this.outputOptimizer = terminal instanceof ANSITerminal ? new ANSIOutputOptimizer((ANSITerminal)terminal) : null;
         this.terminal.addResizeListener(new TerminalScreenResizeListener());
         this.isStarted = false;
         this.fullRedrawHint = true;
@@ -151,8 +162,11 @@ public class TerminalScreen extends AbstractScreen {
         if(cursorPosition != null) {
             getTerminal().setCursorVisible(true);
             //If we are trying to move the cursor to the padding of a CJK character, put it on the actual character instead
-            if(cursorPosition.getColumn() > 0 && TerminalTextUtils.isCharCJK(getFrontBuffer().getCharacterAt(cursorPosition.withRelativeColumn(-1)).getCharacter())) {
-                getTerminal().setCursorPosition(cursorPosition.getColumn() - 1, cursorPosition.getRow());
+            if(cursorPosition.getColumn() > 0 && getFrontBuffer().getCharacterAt(cursorPosition.withRelativeColumn(-1)).isDoubleWidth()) {
+                cursorPosition = cursorPosition.withRelativeColumn(-1);
+            }
+            if(outputOptimizer != null) {
+                outputOptimizer.moveCursor(cursorPosition.getColumn(), cursorPosition.getRow());
             }
             else {
                 getTerminal().setCursorPosition(cursorPosition.getColumn(), cursorPosition.getRow());
@@ -181,133 +195,183 @@ public class TerminalScreen extends AbstractScreen {
     }
 
     private void refreshByDelta() throws IOException {
-        Map<TerminalPosition, TextCharacter> updateMap = new TreeMap<>(new ScreenPointComparator());
         TerminalSize terminalSize = getTerminalSize();
 
         useScrollHint();
 
+        PackedTextImage backBuffer = getBackBuffer().getBackend();
+        PackedTextImage frontBuffer = getFrontBuffer().getBackend();
+        int columns = terminalSize.getColumns();
+        outputColumn = -1;
+        outputStyleKnown = false;
+        if(outputOptimizer != null) {
+            outputOptimizer.reset(columns);
+        }
+
+        // Scan row by row and write out each contiguous run of changed cells as soon as we find the end of it
         for(int y = 0; y < terminalSize.getRows(); y++) {
-            for(int x = 0; x < terminalSize.getColumns(); x++) {
-                TextCharacter backBufferCharacter = getBackBuffer().getCharacterAt(x, y);
-                TextCharacter frontBufferCharacter = getFrontBuffer().getCharacterAt(x, y);
-                if(!backBufferCharacter.equals(frontBufferCharacter)) {
-                    updateMap.put(new TerminalPosition(x, y), backBufferCharacter);
+            if(backBuffer.isRowEqual(frontBuffer, y)) {
+                continue;
+            }
+            int runStart = -1;
+            boolean forceUpdate = false;
+            for(int x = 0; x < columns; x++) {
+                int backBufferCharacter = backBuffer.getRawCharacterAt(x, y);
+                int frontBufferCharacter = frontBuffer.getRawCharacterAt(x, y);
+                boolean changed = forceUpdate ||
+                        backBufferCharacter != frontBufferCharacter ||
+                        backBuffer.getRawStyleAt(x, y) != frontBuffer.getRawStyleAt(x, y);
+                if(changed && runStart == -1) {
+                    runStart = x;
+                }
+                else if(!changed && runStart != -1) {
+                    writeRun(backBuffer, y, runStart, x);
+                    runStart = -1;
                 }
-                if(TerminalTextUtils.isCharCJK(backBufferCharacter.getCharacter())) {
+                if(PackedTextImage.isDoubleWidth(backBufferCharacter)) {
                     x++;    //Skip the trailing padding
-                } else if (TerminalTextUtils.isCharCJK(frontBufferCharacter.getCharacter())) {
-                    if (x+1 < terminalSize.getColumns()) {
-                        updateMap.put(new TerminalPosition(x+1, y), frontBufferCharacter.withCharacter(' '));
-                    }
+                    forceUpdate = false;
+                }
+                else {
+                    //If the front buffer had a CJK character here, the padding after it needs to be redrawn as well
+                    forceUpdate = PackedTextImage.isDoubleWidth(frontBufferCharacter);
                 }
             }
+            if(runStart != -1) {
+                writeRun(backBuffer, y, runStart, columns);
+            }
         }
+    }
 
-        if(updateMap.isEmpty()) {
-            return;
+    private void refreshFull() throws IOException {
+        int columns = getTerminalSize().getColumns();
+        if(outputOptimizer != null) {
+            outputOptimizer.reset(columns);
+            outputOptimizer.clearScreen();
         }
-        TerminalPosition currentPosition = updateMap.keySet().iterator().next();
-        getTerminal().setCursorPosition(currentPosition.getColumn(), currentPosition.getRow());
-
-        TextCharacter firstScreenCharacterToUpdate = updateMap.values().iterator().next();
-        EnumSet<SGR> currentSGR = firstScreenCharacterToUpdate.getModifiers();
-        getTerminal().resetColorAndSGR();
-        for(SGR sgr: currentSGR) {
-            getTerminal().enableSGR(sgr);
+        else {
+            getTerminal().setForegroundColor(TextColor.ANSI.DEFAULT);
+            getTerminal().setBackgroundColor(TextColor.ANSI.DEFAULT);
+            getTerminal().clearScreen();
+            getTerminal().resetColorAndSGR();
         }
-        TextColor currentForegroundColor = firstScreenCharacterToUpdate.getForegroundColor();
-        TextColor currentBackgroundColor = firstScreenCharacterToUpdate.getBackgroundColor();
-        getTerminal().setForegroundColor(currentForegroundColor);
-        getTerminal().setBackgroundColor(currentBackgroundColor);
-        for(TerminalPosition position: updateMap.keySet()) {
-            if(!position.equals(currentPosition)) {
-                getTerminal().setCursorPosition(position.getColumn(), position.getRow());
-                currentPosition = position;
-            }
-            TextCharacter newCharacter = updateMap.get(position);
-            if(!currentForegroundColor.equals(newCharacter.getForegroundColor())) {
-                getTerminal().setForegroundColor(newCharacter.getForegroundColor());
-                currentForegroundColor = newCharacter.getForegroundColor();
-            }
-            if(!currentBackgroundColor.equals(newCharacter.getBackgroundColor())) {
-                getTerminal().setBackgroundColor(newCharacter.getBackgroundColor());
-                currentBackgroundColor = newCharacter.getBackgroundColor();
-            }
-            for(SGR sgr: SGR.values()) {
-                if(currentSGR.contains(sgr) && !newCharacter.getModifiers().contains(sgr)) {
-                    getTerminal().disableSGR(sgr);
-                    currentSGR.remove(sgr);
+        scrollHint = null; // discard any scroll hint for full refresh
+
+        // The terminal is blank now, so only the runs of cells that aren't the default character need to be written
+        PackedTextImage backBuffer = getBackBuffer().getBackend();
+        outputColumn = -1;
+        outputStyle = DEFAULT_STYLE;
+        outputStyleKnown = true;
+        for(int y = 0; y < getTerminalSize().getRows(); y++) {
+            int runStart = -1;
+            for(int x = 0; x < columns; x++) {
+                int character = backBuffer.getRawCharacterAt(x, y);
+                boolean blank = character == DEFAULT_CHARACTER.getCharacter() && backBuffer.getRawStyleAt(x, y) == DEFAULT_STYLE;
+                if(!blank && runStart == -1) {
+                    runStart = x;
                 }
-                else if(!currentSGR.contains(sgr) && newCharacter.getModifiers().contains(sgr)) {
-                    getTerminal().enableSGR(sgr);
-                    currentSGR.add(sgr);
+                else if(blank && runStart != -1) {
+                    writeRun(backBuffer, y, runStart, x);
+                    runStart = -1;
+                }
+                if(PackedTextImage.isDoubleWidth(character)) {
+                    x++;
                 }
             }
-            getTerminal().putCharacter(newCharacter.getCharacter());
-            if(TerminalTextUtils.isCharCJK(newCharacter.getCharacter())) {
-                //CJK characters advances two columns
-                currentPosition = currentPosition.withRelativeColumn(2);
-            }
-            else {
-                //Normal characters advances one column
-                currentPosition = currentPosition.withRelativeColumn(1);
+            if(runStart != -1) {
+                writeRun(backBuffer, y, runStart, columns);
             }
         }
     }
 
-    private void refreshFull() throws IOException {
-        getTerminal().setForegroundColor(TextColor.ANSI.DEFAULT);
-        getTerminal().setBackgroundColor(TextColor.ANSI.DEFAULT);
-        getTerminal().clearScreen();
-        getTerminal().resetColorAndSGR();
-        scrollHint = null; // discard any scroll hint for full refresh
+    /**
+     * Writes a run of cells from a row of the back buffer to the terminal
+     * @param source Back buffer to take the content from
+     * @param row Row of the run
+     * @param startColumn First column of the run
+     * @param endColumn Column after the last column of the run
+     * @throws IOException If there was an underlying I/O error
+     */
+    private void writeRun(PackedTextImage source, int row, int startColumn, int endColumn) throws IOException {
+        if(outputOptimizer != null) {
+            outputOptimizer.writeCells(source, row, startColumn, endColumn);
+            return;
+        }
+        for(int x = startColumn; x < endColumn; x++) {
+            if(writeCharacter(source, x, row) == 2) {
+                x++;
+            }
+        }
+    }
 
-        EnumSet<SGR> currentSGR = EnumSet.noneOf(SGR.class);
-        TextColor currentForegroundColor = TextColor.ANSI.DEFAULT;
-        TextColor currentBackgroundColor = TextColor.ANSI.DEFAULT;
-        for(int y = 0; y < getTerminalSize().getRows(); y++) {
-            getTerminal().setCursorPosition(0, y);
-            int currentColumn = 0;
-            for(int x = 0; x < getTerminalSize().getColumns(); x++) {
-                TextCharacter newCharacter = getBackBuffer().getCharacterAt(x, y);
-                if(newCharacter.equals(DEFAULT_CHARACTER)) {
-                    continue;
-                }
+    /**
+     * Writes a single cell of the back buffer to the terminal, first moving the cursor and changing colors and
+     * modifiers if the terminal isn't already in the right state
+     * @param source Back buffer to take the content from
+     * @param column Column of the cell
+     * @param row Row of the cell
+     * @return Number of columns the cursor advanced
+     * @throws IOException If there was an underlying I/O error
+     */
+    private int writeCharacter(PackedTextImage source, int column, int row) throws IOException {
+        if(outputColumn != column || outputRow != row) {
+            getTerminal().setCursorPosition(column, row);
+            outputColumn = column;
+            outputRow = row;
+        }
+        applyStyle(source.getRawStyleAt(column, row));
+        int character = source.getRawCharacterAt(column, row);
+        if(character >= 0 && character < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            getTerminal().putCharacter((char)character);
+        }
+        else {
+            // Code points outside the BMP and grapheme clusters are sent one char at a time
+            String cluster = GraphemeClusters.toString(character);
+            for(int i = 0; i < cluster.length(); i++) {
+                getTerminal().putCharacter(cluster.charAt(i));
+            }
+        }
+        //CJK characters advances two columns, normal characters one column
+        int width = PackedTextImage.isDoubleWidth(character) ? 2 : 1;
+        outputColumn += width;
+        return width;
+    }
 
-                if(!currentForegroundColor.equals(newCharacter.getForegroundColor())) {
-                    getTerminal().setForegroundColor(newCharacter.getForegroundColor());
-                    currentForegroundColor = newCharacter.getForegroundColor();
-                }
-                if(!currentBackgroundColor.equals(newCharacter.getBackgroundColor())) {
-                    getTerminal().setBackgroundColor(newCharacter.getBackgroundColor());
-                    currentBackgroundColor = newCharacter.getBackgroundColor();
-                }
-                for(SGR sgr: SGR.values()) {
-                    if(currentSGR.contains(sgr) && !newCharacter.getModifiers().contains(sgr)) {
-                        getTerminal().disableSGR(sgr);
-                        currentSGR.remove(sgr);
-                    }
-                    else if(!currentSGR.contains(sgr) && newCharacter.getModifiers().contains(sgr)) {
-                        getTerminal().enableSGR(sgr);
-                        currentSGR.add(sgr);
-                    }
-                }
-                if(currentColumn != x) {
-                    getTerminal().setCursorPosition(x, y);
-                    currentColumn = x;
+    private void applyStyle(long style) throws IOException {
+        if(!outputStyleKnown) {
+            getTerminal().resetColorAndSGR();
+            for(SGR sgr: SGR_VALUES) {
+                if(PackedTextImage.hasModifier(style, sgr)) {
+                    getTerminal().enableSGR(sgr);
                 }
-                getTerminal().putCharacter(newCharacter.getCharacter());
-                if(TerminalTextUtils.isCharCJK(newCharacter.getCharacter())) {
-                    //CJK characters take up two columns
-                    currentColumn += 2;
-                    x++;
+            }
+            getTerminal().setForegroundColor(PackedTextImage.getForegroundColor(style));
+            getTerminal().setBackgroundColor(PackedTextImage.getBackgroundColor(style));
+            outputStyle = style;
+            outputStyleKnown = true;
+            return;
+        }
+        if(style == outputStyle) {
+            return;
+        }
+        if(!PackedTextImage.hasSameForegroundColor(style, outputStyle)) {
+            getTerminal().setForegroundColor(PackedTextImage.getForegroundColor(style));
+        }
+        if(!PackedTextImage.hasSameBackgroundColor(style, outputStyle)) {
+            getTerminal().setBackgroundColor(PackedTextImage.getBackgroundColor(style));
+        }
+        for(SGR sgr: SGR_VALUES) {
+            boolean enabled = PackedTextImage.hasModifier(style, sgr);
+            if(enabled != PackedTextImage.hasModifier(outputStyle, sgr)) {
+                if(enabled) {
+                    getTerminal().enableSGR(sgr);
                 }
                 else {
-                    //Normal characters take up one column
-                    currentColumn += 1;
+                    getTerminal().disableSGR(sgr);
                 }
             }
         }
+        outputStyle = style;
     }
     
     /**
@@ -387,21 +451,6 @@ public class TerminalScreen extends AbstractScreen {
         }
     }
 
-    private static class ScreenPointComparator implements Comparator<TerminalPosition> {
-        @Override
-        public int compare(TerminalPosition o1, TerminalPosition o2) {
-            if(o1.getRow() == o2.getRow()) {
-                if(o1.getColumn() == o2.getColumn()) {
-                    return 0;
-                } else {
-                    return Integer.compare(o1.getColumn(), o2.getColumn());
-                }
-            } else {
-                return Integer.compare(o1.getRow(), o2.getRow());
-            }
-        }
-    }
-
     private static class ScrollHint {
         public static final ScrollHint INVALID = new ScrollHint(-1,-1,0);
         public final int firstLine;
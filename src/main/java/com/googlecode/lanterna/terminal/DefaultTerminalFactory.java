@@ -32,6 +32,7 @@ import java.io.OutputStream;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
+import java.time.Duration;
 import java.util.EnumSet;
 
 /**
@@ -56,7 +57,7 @@ public class DefaultTerminalFactory implements TerminalFactory {
     private boolean preferTerminalEmulator;
     private boolean forceAWTOverSwing;
     private int telnetPort;
-    private int inputTimeout;
+    private Duration escapeTimeout;
     private String title;
     private boolean autoOpenTerminalFrame;
     private final EnumSet<TerminalEmulatorAutoCloseTrigger> autoCloseTriggers;
@@ -90,7 +91,7 @@ public class DefaultTerminalFactory implements TerminalFactory {
         this.forceAWTOverSwing = false;
 
         this.telnetPort = -1;
-        this.inputTimeout = -1;
+        this.escapeTimeout = null;
         this.autoOpenTerminalFrame = true;
         this.title = null;
         this.autoCloseTriggers = EnumSet.of(TerminalEmulatorAutoCloseTrigger.CloseOnExitPrivateMode);
@@ -204,8 +205,8 @@ public class DefaultTerminalFactory implements TerminalFactory {
             if(mouseCaptureMode != null) {
                 rawTerminal.setMouseCaptureMode(mouseCaptureMode);
             }
-            if(inputTimeout >= 0) {
-                rawTerminal.getInputDecoder().setTimeoutUnits(inputTimeout);
+            if(escapeTimeout != null) {
+                rawTerminal.getInputDecoder().setEscapeTimeout(escapeTimeout);
             }
             return rawTerminal;
         } catch(IOException ioe) {
@@ -323,7 +324,24 @@ public class DefaultTerminalFactory implements TerminalFactory {
      * @return Reference to itself, so multiple .set-calls can be chained
      */
     public DefaultTerminalFactory setInputTimeout(int inputTimeout) {
-        this.inputTimeout = inputTimeout;
+        this.escapeTimeout = inputTimeout >= 0 ? Duration.ofMillis(250L * inputTimeout) : null;
+        return this;
+    }
+
+    /**
+     * Only for StreamBasedTerminals: After seeing e.g. an Escape (but nothing
+     *         else yet), wait up to this long for more input to make up a
+     *         complete sequence before deciding it was just the Escape key.
+     *         Something like 25 milliseconds works well for local terminals,
+     *         slow channels may need more.
+     *
+     * @param escapeTimeout how long to wait for possible completions of sequences,
+     *         or {@code null} to keep the terminal's default
+     * @return Reference to itself, so multiple .set-calls can be chained
+     * @see com.googlecode.lanterna.input.InputDecoder#setEscapeTimeout(Duration)
+     */
+    public DefaultTerminalFactory setEscapeTimeout(Duration escapeTimeout) {
+        this.escapeTimeout = escapeTimeout;
         return this;
     }
 
@@ -461,8 +479,8 @@ public class DefaultTerminalFactory implements TerminalFactory {
     
     private Terminal createCygwinTerminal(OutputStream outputStream, InputStream inputStream, Charset charset) throws IOException {
         CygwinTerminal cygTerminal = new CygwinTerminal(inputStream, outputStream, charset);
-        if(inputTimeout >= 0) {
-            cygTerminal.getInputDecoder().setTimeoutUnits(inputTimeout);
+        if(escapeTimeout != null) {
+            cygTerminal.getInputDecoder().setEscapeTimeout(escapeTimeout);
         }
         return cygTerminal;
     }
@@ -480,8 +498,8 @@ public class DefaultTerminalFactory implements TerminalFactory {
         if(mouseCaptureMode != null) {
             unixTerminal.setMouseCaptureMode(mouseCaptureMode);
         }
-        if(inputTimeout >= 0) {
-            unixTerminal.getInputDecoder().setTimeoutUnits(inputTimeout);
+        if(escapeTimeout != null) {
+            unixTerminal.getInputDecoder().setEscapeTimeout(escapeTimeout);
         }
         return unixTerminal;
     }
@@ -82,9 +82,12 @@ class TerminalTextGraphics extends AbstractTextGraphics {
                 terminal.setCursorPosition(position.getColumn(), position.getRow());
                 applyGraphicState(textCharacter);
             }
-            terminal.putCharacter(textCharacter.getCharacter());
+            String character = textCharacter.getCharacterString();
+            for(int i = 0; i < character.length(); i++) {
+                terminal.putCharacter(character.charAt(i));
+            }
             if(manageCallStackSize.get() > 0) {
-                lastPosition = position.withRelativeColumn(1);
+                lastPosition = position.withRelativeColumn(textCharacter.isDoubleWidth() ? 2 : 1);
             }
             writeHistory.put(position, textCharacter);
         }
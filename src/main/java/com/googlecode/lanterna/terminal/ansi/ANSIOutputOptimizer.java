@@ -0,0 +1,588 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.ansi;
+
+import com.googlecode.lanterna.GraphemeClusters;
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.graphics.PackedTextImage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Writes cells of a {@link PackedTextImage} to an {@link ANSITerminal} using as few bytes as possible. The optimizer
+ * keeps track of where the terminal cursor is and which colors and modifiers are active, and picks the cheapest way of
+ * getting the terminal into the state needed for the next cell:
+ * <ul>
+ *     <li>Relative cursor movements (CUF, CUB, CUU, CUD, carriage return and line feed) when they are shorter than
+ *     absolute positioning</li>
+ *     <li>Writing out a few unchanged cells again when that is shorter than moving the cursor past them</li>
+ *     <li>Erase to end of line (EL) when a row ends with blank cells</li>
+ *     <li>Repeat preceding character (REP) for runs of identical characters, if the terminal has been told it supports
+ *     it through {@link ANSITerminal#setRepeatCharacterSupported(boolean)}</li>
+ *     <li>All color and modifier changes in one combined SGR sequence, either as a difference from the current state
+ *     or as a reset followed by the new state, whichever is shorter</li>
+ * </ul>
+ * Cells that the optimizer isn't asked to write are assumed to already show on the terminal what the source image
+ * holds, which is the case when writing out the difference between the back and the front buffer of a screen. This
+ * class is not thread-safe.
+ * @author Martin
+ */
+public class ANSIOutputOptimizer {
+    private static final SGR[] SGR_VALUES = SGR.values();
+    private static final long DEFAULT_STYLE = PackedTextImage.encodeStyle(TextCharacter.DEFAULT_CHARACTER);
+    private static final byte[] RESET_SGR_PARAMETER = { '0' };
+    private static final byte[][] ENABLE_SGR_PARAMETERS = new byte[SGR_VALUES.length][];
+    private static final byte[][] DISABLE_SGR_PARAMETERS = new byte[SGR_VALUES.length][];
+    // Which modifiers are turned off by the disable code of each modifier, BORDERED/CIRCLED and ITALIC/FRAKTUR share one
+    private static final int[] DISABLED_SGR_MASKS = new int[SGR_VALUES.length];
+    private static final byte[][] ANSI_FOREGROUND_PARAMETERS = new byte[TextColor.ANSI.values().length][];
+    private static final byte[][] ANSI_BACKGROUND_PARAMETERS = new byte[TextColor.ANSI.values().length][];
+    static {
+        for(SGR sgr: SGR_VALUES) {
+            ENABLE_SGR_PARAMETERS[sgr.ordinal()] = ANSITerminal.getEnableSGRCode(sgr).getBytes(StandardCharsets.US_ASCII);
+            DISABLE_SGR_PARAMETERS[sgr.ordinal()] = ANSITerminal.getDisableSGRCode(sgr).getBytes(StandardCharsets.US_ASCII);
+        }
+        for(SGR sgr: SGR_VALUES) {
+            for(SGR other: SGR_VALUES) {
+                if(Arrays.equals(DISABLE_SGR_PARAMETERS[sgr.ordinal()], DISABLE_SGR_PARAMETERS[other.ordinal()])) {
+                    DISABLED_SGR_MASKS[sgr.ordinal()] |= 1 << other.ordinal();
+                }
+            }
+        }
+        for(TextColor.ANSI color: TextColor.ANSI.values()) {
+            ANSI_FOREGROUND_PARAMETERS[color.ordinal()] = color.getForegroundSGRSequence();
+            ANSI_BACKGROUND_PARAMETERS[color.ordinal()] = color.getBackgroundSGRSequence();
+        }
+    }
+
+    private static final int CARRIAGE_RETURN_COST = 1;
+    private static final int LINE_FEED_COST = 2;    // Always sent together with a carriage return
+    private static final int ERASE_TO_END_OF_LINE_COST = 3;
+
+    private final ANSITerminal terminal;
+    // Scratch buffers for building escape sequences, there are two for styles to compare different ways of changing it
+    private final byte[] sequenceBuffer;
+    private final SGRSequenceBuilder styleChange;
+    private final SGRSequenceBuilder styleReset;
+
+    private int columns;
+    // Cursor column is equal to the number of columns after writing to the last column (pending wrap), -1 if unknown
+    private int cursorColumn;
+    private int cursorRow;
+    private long style;
+    private boolean styleKnown;
+    private int blankTailRow;
+    private int blankTailStart;
+
+    /**
+     * Creates a new optimizer writing to the specified terminal. Call {@link #reset(int)} before using it.
+     * @param terminal Terminal to write to
+     */
+    public ANSIOutputOptimizer(ANSITerminal terminal) {
+        this.terminal = terminal;
+        this.sequenceBuffer = new byte[64];
+        this.styleChange = new SGRSequenceBuilder();
+        this.styleReset = new SGRSequenceBuilder();
+        reset(0);
+    }
+
+    /**
+     * Forgets everything the optimizer knows about the state of the terminal, the cursor position and style will be
+     * set explicitly the next time they are needed. Call this at the beginning of every refresh, since the terminal may
+     * have been used directly in between.
+     * @param columns Number of columns of the area being written to
+     */
+    public void reset(int columns) {
+        this.columns = columns;
+        this.cursorColumn = -1;
+        this.cursorRow = -1;
+        this.style = DEFAULT_STYLE;
+        this.styleKnown = false;
+        this.blankTailRow = -1;
+    }
+
+    /**
+     * Resets colors and modifiers and clears the terminal, leaving the cursor in the top-left corner
+     * @throws IOException If there was an underlying I/O error
+     */
+    public void clearScreen() throws IOException {
+        terminal.resetColorAndSGR();
+        writeControlSequence(0, 'H');
+        terminal.clearScreen();
+        cursorColumn = 0;
+        cursorRow = 0;
+        style = DEFAULT_STYLE;
+        styleKnown = true;
+    }
+
+    /**
+     * Moves the terminal cursor to a position, using the shortest sequence available
+     * @param column Column to move the cursor to
+     * @param row Row to move the cursor to
+     * @throws IOException If there was an underlying I/O error
+     */
+    public void moveCursor(int column, int row) throws IOException {
+        moveCursor(null, column, row);
+    }
+
+    /**
+     * Writes a range of cells from one row of an image to the terminal. The image is expected to have as many columns
+     * as given to {@link #reset(int)} and cells outside the range to match what the terminal is showing.
+     * @param source Image to take the content from
+     * @param row Row of the cells
+     * @param startColumn First column to write
+     * @param endColumn Column after the last column to write
+     * @throws IOException If there was an underlying I/O error
+     */
+    public void writeCells(PackedTextImage source, int row, int startColumn, int endColumn) throws IOException {
+        // If the row ends with blank cells from somewhere in this range, erase them instead of writing them, this is
+        // safe also for the cells after the range since they are blank on the terminal already
+        int blankTail = Math.max(startColumn, getBlankTailStart(source, row));
+        if(endColumn - blankTail <= ERASE_TO_END_OF_LINE_COST) {
+            blankTail = endColumn;
+        }
+        int column = startColumn;
+        while(column < blankTail) {
+            moveCursor(source, column, row);
+            long cellStyle = source.getRawStyleAt(column, row);
+            applyStyle(cellStyle);
+            int character = source.getRawCharacterAt(column, row);
+            putCharacter(character);
+            if(PackedTextImage.isDoubleWidth(character)) {
+                column += 2;
+                if(column >= columns) {
+                    // Terminals don't agree on where the cursor ends up after a double-width character in the last
+                    // column, some wrap it to the next row, so position the cursor absolutely next time
+                    cursorColumn = -1;
+                    cursorRow = -1;
+                }
+                else {
+                    cursorColumn += 2;
+                }
+                continue;
+            }
+            cursorColumn++;
+            column++;
+            if(isPlainAscii(character) && terminal.isRepeatCharacterSupported()) {
+                int repeats = 0;
+                while(column + repeats < blankTail &&
+                        source.getRawCharacterAt(column + repeats, row) == character &&
+                        source.getRawStyleAt(column + repeats, row) == cellStyle) {
+                    repeats++;
+                }
+                if(repeats > getControlSequenceCost(repeats)) {
+                    writeControlSequence(repeats, 'b');
+                    cursorColumn += repeats;
+                    column += repeats;
+                }
+            }
+        }
+        if(blankTail < endColumn) {
+            moveCursor(source, blankTail, row);
+            if(!styleKnown || !isErasingStyle(style)) {
+                applyStyle(source.getRawStyleAt(blankTail, row));
+            }
+            writeControlSequence(0, 'K');
+        }
+    }
+
+    private void putCharacter(int character) throws IOException {
+        if(character >= 0 && character < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            terminal.putCharacter((char)character);
+            return;
+        }
+        // Code points outside the BMP and grapheme clusters are sent one char at a time, the terminal encodes
+        // surrogate pairs together
+        String cluster = GraphemeClusters.toString(character);
+        for(int i = 0; i < cluster.length(); i++) {
+            terminal.putCharacter(cluster.charAt(i));
+        }
+    }
+
+    /**
+     * Returns the first column of the blank cells at the end of a row, the result is remembered for the last row asked
+     * for since every range written on that row needs it
+     */
+    private int getBlankTailStart(PackedTextImage source, int row) {
+        if(row == blankTailRow) {
+            return blankTailStart;
+        }
+        int tailStart = columns;
+        while(tailStart > 0 &&
+                source.getRawCharacterAt(tailStart - 1, row) == ' ' &&
+                isErasingStyle(source.getRawStyleAt(tailStart - 1, row))) {
+            tailStart--;
+        }
+        // Don't erase the right half of a double-width character
+        if(tailStart > 0 && tailStart < columns && PackedTextImage.isDoubleWidth(source.getRawCharacterAt(tailStart - 1, row))) {
+            tailStart++;
+        }
+        blankTailRow = row;
+        blankTailStart = tailStart;
+        return tailStart;
+    }
+
+    /**
+     * Erasing fills cells with the current background color on most terminals but the default background color on
+     * some, so only use it where both give the same result. Modifiers could also carry over on some terminals.
+     */
+    private static boolean isErasingStyle(long style) {
+        if(!PackedTextImage.hasSameBackgroundColor(style, DEFAULT_STYLE)) {
+            return false;
+        }
+        for(SGR sgr: SGR_VALUES) {
+            if(PackedTextImage.hasModifier(style, sgr)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPlainAscii(int character) {
+        return character >= 0x20 && character < 0x7f;
+    }
+
+    private void moveCursor(PackedTextImage source, int column, int row) throws IOException {
+        if(column == cursorColumn && row == cursorRow) {
+            return;
+        }
+        int rowDistance = row - cursorRow;
+        boolean columnKnown = cursorColumn >= 0 && cursorColumn < columns;
+
+        int cost = getAbsoluteMoveCost(column, row);
+        MoveType moveType = MoveType.ABSOLUTE;
+        if(cursorRow >= 0) {
+            int verticalCost = rowDistance == 0 ? 0 : getControlSequenceCost(Math.abs(rowDistance));
+            if(columnKnown) {
+                int relativeCost = verticalCost + getHorizontalMoveCost(cursorColumn, column);
+                if(relativeCost < cost) {
+                    cost = relativeCost;
+                    moveType = MoveType.RELATIVE;
+                }
+            }
+            int fromLineStartCost = CARRIAGE_RETURN_COST + verticalCost + getMoveFromLineStartCost(column);
+            if(fromLineStartCost < cost) {
+                cost = fromLineStartCost;
+                moveType = MoveType.FROM_LINE_START;
+            }
+            if(rowDistance > 0) {
+                int lineFeedCost = rowDistance * LINE_FEED_COST + getMoveFromLineStartCost(column);
+                if(lineFeedCost < cost) {
+                    cost = lineFeedCost;
+                    moveType = MoveType.LINE_FEED;
+                }
+            }
+            if(source != null && rowDistance == 0 && columnKnown && column > cursorColumn && column - cursorColumn < cost &&
+                    canRewrite(source, row, cursorColumn, column)) {
+                moveType = MoveType.REWRITE;
+            }
+        }
+
+        int length = 0;
+        switch(moveType) {
+            case ABSOLUTE:
+                if(column == 0) {
+                    length = appendControlSequence(sequenceBuffer, length, row + 1, 'H');
+                }
+                else {
+                    length = appendAbsolutePosition(sequenceBuffer, length, column, row);
+                }
+                break;
+            case RELATIVE:
+                length = appendVerticalMove(sequenceBuffer, length, rowDistance);
+                if(column > cursorColumn) {
+                    length = appendControlSequence(sequenceBuffer, length, column - cursorColumn, 'C');
+                }
+                else if(column < cursorColumn) {
+                    if(CARRIAGE_RETURN_COST + getMoveFromLineStartCost(column) < getControlSequenceCost(cursorColumn - column)) {
+                        sequenceBuffer[length++] = '\r';
+                        length = appendMoveFromLineStart(sequenceBuffer, length, column);
+                    }
+                    else {
+                        length = appendControlSequence(sequenceBuffer, length, cursorColumn - column, 'D');
+                    }
+                }
+                break;
+            case FROM_LINE_START:
+                sequenceBuffer[length++] = '\r';
+                length = appendVerticalMove(sequenceBuffer, length, rowDistance);
+                length = appendMoveFromLineStart(sequenceBuffer, length, column);
+                break;
+            case LINE_FEED:
+                for(int i = 0; i < rowDistance; i++) {
+                    sequenceBuffer[length++] = '\r';
+                    sequenceBuffer[length++] = '\n';
+                }
+                length = appendMoveFromLineStart(sequenceBuffer, length, column);
+                break;
+            case REWRITE:
+                for(int x = cursorColumn; x < column; x++) {
+                    terminal.putCharacter((char)source.getRawCharacterAt(x, row));
+                }
+                break;
+        }
+        if(length > 0) {
+            terminal.writeToTerminal(sequenceBuffer, 0, length);
+        }
+        cursorColumn = column;
+        cursorRow = row;
+    }
+
+    private boolean canRewrite(PackedTextImage source, int row, int fromColumn, int toColumn) {
+        if(!styleKnown) {
+            return false;
+        }
+        for(int x = fromColumn; x < toColumn; x++) {
+            if(!isPlainAscii(source.getRawCharacterAt(x, row)) || source.getRawStyleAt(x, row) != style) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private enum MoveType {
+        ABSOLUTE,
+        RELATIVE,
+        FROM_LINE_START,
+        LINE_FEED,
+        REWRITE,
+    }
+
+    private static int getAbsoluteMoveCost(int column, int row) {
+        if(column == 0) {
+            return row == 0 ? 3 : 3 + getDigitCount(row + 1);
+        }
+        return 4 + getDigitCount(row + 1) + getDigitCount(column + 1);
+    }
+
+    private static int getHorizontalMoveCost(int fromColumn, int toColumn) {
+        if(toColumn > fromColumn) {
+            return getControlSequenceCost(toColumn - fromColumn);
+        }
+        else if(toColumn < fromColumn) {
+            return Math.min(getControlSequenceCost(fromColumn - toColumn), CARRIAGE_RETURN_COST + getMoveFromLineStartCost(toColumn));
+        }
+        return 0;
+    }
+
+    private static int getMoveFromLineStartCost(int column) {
+        return column == 0 ? 0 : getControlSequenceCost(column);
+    }
+
+    /**
+     * Cost of a control sequence with a single numeric parameter, which can be left out if it is 1
+     */
+    private static int getControlSequenceCost(int parameter) {
+        return parameter == 1 ? 3 : 3 + getDigitCount(parameter);
+    }
+
+    private static int getDigitCount(int number) {
+        int digits = 1;
+        while(number >= 10) {
+            number /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static int appendAbsolutePosition(byte[] buffer, int position, int column, int row) {
+        buffer[position++] = 0x1b;
+        buffer[position++] = '[';
+        position = appendNumber(buffer, position, row + 1);
+        buffer[position++] = ';';
+        position = appendNumber(buffer, position, column + 1);
+        buffer[position++] = 'H';
+        return position;
+    }
+
+    private static int appendVerticalMove(byte[] buffer, int position, int rowDistance) {
+        if(rowDistance > 0) {
+            return appendControlSequence(buffer, position, rowDistance, 'B');
+        }
+        else if(rowDistance < 0) {
+            return appendControlSequence(buffer, position, -rowDistance, 'A');
+        }
+        return position;
+    }
+
+    private static int appendMoveFromLineStart(byte[] buffer, int position, int column) {
+        return column == 0 ? position : appendControlSequence(buffer, position, column, 'C');
+    }
+
+    /**
+     * Appends a control sequence with a single numeric parameter, which is left out if it is 1 or less
+     */
+    private static int appendControlSequence(byte[] buffer, int position, int parameter, char terminator) {
+        buffer[position++] = 0x1b;
+        buffer[position++] = '[';
+        if(parameter > 1) {
+            position = appendNumber(buffer, position, parameter);
+        }
+        buffer[position++] = (byte)terminator;
+        return position;
+    }
+
+    private void writeControlSequence(int parameter, char terminator) throws IOException {
+        terminal.writeToTerminal(sequenceBuffer, 0, appendControlSequence(sequenceBuffer, 0, parameter, terminator));
+    }
+
+    private static int appendNumber(byte[] buffer, int position, int number) {
+        if(number >= 10) {
+            position = appendNumber(buffer, position, number / 10);
+        }
+        buffer[position] = (byte)('0' + number % 10);
+        return position + 1;
+    }
+
+    private void applyStyle(long newStyle) throws IOException {
+        if(styleKnown && newStyle == style) {
+            return;
+        }
+        buildStyleReset(newStyle);
+        if(styleKnown) {
+            buildStyleChange(style, newStyle);
+        }
+        SGRSequenceBuilder shortest = styleKnown && styleChange.length < styleReset.length ? styleChange : styleReset;
+        terminal.writeToTerminal(shortest.bytes, 0, shortest.length);
+        style = newStyle;
+        styleKnown = true;
+    }
+
+    /**
+     * Builds an SGR sequence that resets everything and then sets up the new style
+     */
+    private void buildStyleReset(long newStyle) {
+        styleReset.clear();
+        styleReset.appendParameter(RESET_SGR_PARAMETER);
+        for(SGR sgr: SGR_VALUES) {
+            if(PackedTextImage.hasModifier(newStyle, sgr)) {
+                styleReset.appendParameter(ENABLE_SGR_PARAMETERS[sgr.ordinal()]);
+            }
+        }
+        if(!PackedTextImage.hasSameForegroundColor(newStyle, DEFAULT_STYLE)) {
+            styleReset.appendColor(PackedTextImage.getForegroundColor(newStyle), true);
+        }
+        if(!PackedTextImage.hasSameBackgroundColor(newStyle, DEFAULT_STYLE)) {
+            styleReset.appendColor(PackedTextImage.getBackgroundColor(newStyle), false);
+        }
+        styleReset.terminate();
+    }
+
+    /**
+     * Builds an SGR sequence that only changes what differs between the two styles
+     */
+    private void buildStyleChange(long oldStyle, long newStyle) {
+        styleChange.clear();
+        int disabled = 0;
+        for(SGR sgr: SGR_VALUES) {
+            if(PackedTextImage.hasModifier(oldStyle, sgr) &&
+                    !PackedTextImage.hasModifier(newStyle, sgr) &&
+                    (disabled & (1 << sgr.ordinal())) == 0) {
+                styleChange.appendParameter(DISABLE_SGR_PARAMETERS[sgr.ordinal()]);
+                disabled |= DISABLED_SGR_MASKS[sgr.ordinal()];
+            }
+        }
+        for(SGR sgr: SGR_VALUES) {
+            // Modifiers that were turned off by a shared disable code have to be turned back on
+            if(PackedTextImage.hasModifier(newStyle, sgr) &&
+                    (!PackedTextImage.hasModifier(oldStyle, sgr) || (disabled & (1 << sgr.ordinal())) != 0)) {
+                styleChange.appendParameter(ENABLE_SGR_PARAMETERS[sgr.ordinal()]);
+            }
+        }
+        if(!PackedTextImage.hasSameForegroundColor(oldStyle, newStyle)) {
+            styleChange.appendColor(PackedTextImage.getForegroundColor(newStyle), true);
+        }
+        if(!PackedTextImage.hasSameBackgroundColor(oldStyle, newStyle)) {
+            styleChange.appendColor(PackedTextImage.getBackgroundColor(newStyle), false);
+        }
+        styleChange.terminate();
+    }
+
+    /**
+     * Reusable buffer for building an SGR sequence with any number of parameters
+     */
+    private static class SGRSequenceBuilder {
+        private static final int MAX_CACHED_COLORS = 256;
+
+        private final Map<TextColor, byte[]> foregroundParameters;
+        private final Map<TextColor, byte[]> backgroundParameters;
+        private byte[] bytes;
+        private int length;
+
+        SGRSequenceBuilder() {
+            this.foregroundParameters = new HashMap<>();
+            this.backgroundParameters = new HashMap<>();
+            this.bytes = new byte[128];
+            this.length = 0;
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        void appendColor(TextColor color, boolean foreground) {
+            if(color instanceof TextColor.ANSI) {
+                byte[][] parameters = foreground ? ANSI_FOREGROUND_PARAMETERS : ANSI_BACKGROUND_PARAMETERS;
+                appendParameter(parameters[((TextColor.ANSI)color).ordinal()]);
+                return;
+            }
+            // Other colors create their parameters on every call, so keep the ones used recently
+            Map<TextColor, byte[]> cache = foreground ? foregroundParameters : backgroundParameters;
+            byte[] parameters = cache.get(color);
+            if(parameters == null) {
+                if(cache.size() >= MAX_CACHED_COLORS) {
+                    cache.clear();
+                }
+                parameters = foreground ? color.getForegroundSGRSequence() : color.getBackgroundSGRSequence();
+                cache.put(color, parameters);
+            }
+            appendParameter(parameters);
+        }
+
+        void appendParameter(byte[] parameter) {
+            ensureCapacity(length + parameter.length + 3);
+            if(length == 0) {
+                bytes[length++] = 0x1b;
+                bytes[length++] = '[';
+            }
+            else {
+                bytes[length++] = ';';
+            }
+            System.arraycopy(parameter, 0, bytes, length, parameter.length);
+            length += parameter.length;
+        }
+
+        void terminate() {
+            ensureCapacity(length + 1);
+            bytes[length++] = 'm';
+        }
+
+        private void ensureCapacity(int capacity) {
+            if(capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+}
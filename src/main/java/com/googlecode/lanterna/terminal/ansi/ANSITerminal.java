@@ -40,10 +40,32 @@ import java.nio.charset.StandardCharsets;
  * @author Martin
  */
 public abstract class ANSITerminal extends StreamBasedTerminal implements ExtendedTerminal {
+    private static final byte[] RESET_COLOR_AND_SGR = toCSISequence("0m");
+    private static final byte[] CLEAR_SCREEN = toCSISequence("2J");
+    private static final byte[] SHOW_CURSOR = toCSISequence("?25h");
+    private static final byte[] HIDE_CURSOR = toCSISequence("?25l");
+    private static final byte[][] ENABLE_SGR = new byte[SGR.values().length][];
+    private static final byte[][] DISABLE_SGR = new byte[SGR.values().length][];
+    private static final byte[][] ANSI_FOREGROUND = new byte[TextColor.ANSI.values().length][];
+    private static final byte[][] ANSI_BACKGROUND = new byte[TextColor.ANSI.values().length][];
+    static {
+        for(SGR sgr: SGR.values()) {
+            ENABLE_SGR[sgr.ordinal()] = toCSISequence(getEnableSGRCode(sgr) + "m");
+            DISABLE_SGR[sgr.ordinal()] = toCSISequence(getDisableSGRCode(sgr) + "m");
+        }
+        for(TextColor.ANSI color: TextColor.ANSI.values()) {
+            ANSI_FOREGROUND[color.ordinal()] = toCSISequence(new String(color.getForegroundSGRSequence()) + "m");
+            ANSI_BACKGROUND[color.ordinal()] = toCSISequence(new String(color.getBackgroundSGRSequence()) + "m");
+        }
+    }
+
+    // Reused when building escape sequences that aren't constant, guarded by itself
+    private final byte[] sequenceBuffer;
 
     private MouseCaptureMode requestedMouseCaptureMode;
     private MouseCaptureMode mouseCaptureMode;
     private boolean inPrivateMode;
+    private boolean repeatCharacterSupported;
 
     @SuppressWarnings("WeakerAccess")
     protected ANSITerminal(
@@ -55,6 +77,8 @@ public abstract class ANSITerminal extends StreamBasedTerminal implements Extend
         this.inPrivateMode = false;
         this.requestedMouseCaptureMode = null;
         this.mouseCaptureMode = null;
+        this.repeatCharacterSupported = false;
+        this.sequenceBuffer = new byte[64];
         getInputDecoder().addProfile(getDefaultKeyDecodingProfile());
     }
 
@@ -66,21 +90,38 @@ public abstract class ANSITerminal extends StreamBasedTerminal implements Extend
         return new DefaultKeyDecodingProfile();
     }
 
+    private static byte[] toCSISequence(String tail) {
+        return ("\033[" + tail).getBytes(StandardCharsets.US_ASCII);
+    }
+
     private void writeCSISequenceToTerminal(byte... tail) throws IOException {
-        byte[] completeSequence = new byte[tail.length + 2];
-        completeSequence[0] = (byte)0x1b;
-        completeSequence[1] = (byte)'[';
-        System.arraycopy(tail, 0, completeSequence, 2, tail.length);
-        writeToTerminal(completeSequence);
+        writeSequenceToTerminal((byte)'[', tail, (byte)0);
     }
 
     private void writeSGRSequenceToTerminal(byte... sgrParameters) throws IOException {
-        byte[] completeSequence = new byte[sgrParameters.length + 3];
-        completeSequence[0] = (byte)0x1b;
-        completeSequence[1] = (byte)'[';
-        completeSequence[completeSequence.length - 1] = (byte)'m';
-        System.arraycopy(sgrParameters, 0, completeSequence, 2, sgrParameters.length);
-        writeToTerminal(completeSequence);
+        writeSequenceToTerminal((byte)'[', sgrParameters, (byte)'m');
+    }
+
+    private void writeSequenceToTerminal(byte introducer, byte[] body, byte terminator) throws IOException {
+        int length = body.length + (terminator != 0 ? 3 : 2);
+        synchronized(sequenceBuffer) {
+            byte[] completeSequence = length <= sequenceBuffer.length ? sequenceBuffer : new byte[length];
+            completeSequence[0] = (byte)0x1b;
+            completeSequence[1] = introducer;
+            System.arraycopy(body, 0, completeSequence, 2, body.length);
+            if(terminator != 0) {
+                completeSequence[length - 1] = terminator;
+            }
+            writeToTerminal(completeSequence, 0, length);
+        }
+    }
+
+    private static int appendNumber(byte[] buffer, int position, int number) {
+        if(number >= 10) {
+            position = appendNumber(buffer, position, number / 10);
+        }
+        buffer[position] = (byte)('0' + number % 10);
+        return position + 1;
     }
 
     private void writeOSCSequenceToTerminal(byte... tail) throws IOException {
@@ -130,88 +171,88 @@ public abstract class ANSITerminal extends StreamBasedTerminal implements Extend
 
     @Override
     public void setForegroundColor(TextColor color) throws IOException {
+        if(color instanceof TextColor.ANSI) {
+            writeToTerminal(ANSI_FOREGROUND[((TextColor.ANSI)color).ordinal()]);
+            return;
+        }
         writeSGRSequenceToTerminal(color.getForegroundSGRSequence());
     }
 
     @Override
     public void setBackgroundColor(TextColor color) throws IOException {
+        if(color instanceof TextColor.ANSI) {
+            writeToTerminal(ANSI_BACKGROUND[((TextColor.ANSI)color).ordinal()]);
+            return;
+        }
         writeSGRSequenceToTerminal(color.getBackgroundSGRSequence());
     }
 
     @Override
     public void enableSGR(SGR sgr) throws IOException {
+        writeToTerminal(ENABLE_SGR[sgr.ordinal()]);
+    }
+
+    @Override
+    public void disableSGR(SGR sgr) throws IOException {
+        writeToTerminal(DISABLE_SGR[sgr.ordinal()]);
+    }
+
+    static String getEnableSGRCode(SGR sgr) {
         switch(sgr) {
             case BLINK:
-                writeCSISequenceToTerminal((byte) '5', (byte) 'm');
-                break;
+                return "5";
             case BOLD:
-                writeCSISequenceToTerminal((byte) '1', (byte) 'm');
-                break;
+                return "1";
             case BORDERED:
-                writeCSISequenceToTerminal((byte) '5', (byte) '1', (byte) 'm');
-                break;
+                return "51";
             case CIRCLED:
-                writeCSISequenceToTerminal((byte) '5', (byte) '2', (byte) 'm');
-                break;
+                return "52";
             case CROSSED_OUT:
-                writeCSISequenceToTerminal((byte) '9', (byte) 'm');
-                break;
+                return "9";
             case FRAKTUR:
-                writeCSISequenceToTerminal((byte) '2', (byte) '0', (byte) 'm');
-                break;
+                return "20";
             case REVERSE:
-                writeCSISequenceToTerminal((byte) '7', (byte) 'm');
-                break;
+                return "7";
             case UNDERLINE:
-                writeCSISequenceToTerminal((byte) '4', (byte) 'm');
-                break;
+                return "4";
             case ITALIC:
-                writeCSISequenceToTerminal((byte) '3', (byte) 'm');
-                break;
+                return "3";
         }
+        throw new IllegalArgumentException("Unknown SGR " + sgr);
     }
 
-    @Override
-    public void disableSGR(SGR sgr) throws IOException {
+    static String getDisableSGRCode(SGR sgr) {
         switch(sgr) {
             case BLINK:
-                writeCSISequenceToTerminal((byte) '2', (byte) '5', (byte) 'm');
-                break;
+                return "25";
             case BOLD:
-                writeCSISequenceToTerminal((byte) '2', (byte) '2', (byte) 'm');
-                break;
+                return "22";
             case BORDERED:
-                writeCSISequenceToTerminal((byte) '5', (byte) '4', (byte) 'm');
-                break;
+                return "54";
             case CIRCLED:
-                writeCSISequenceToTerminal((byte) '5', (byte) '4', (byte) 'm');
-                break;
+                return "54";
             case CROSSED_OUT:
-                writeCSISequenceToTerminal((byte) '2', (byte) '9', (byte) 'm');
-                break;
+                return "29";
             case FRAKTUR:
-                writeCSISequenceToTerminal((byte) '2', (byte) '3', (byte) 'm');
-                break;
+                return "23";
             case REVERSE:
-                writeCSISequenceToTerminal((byte) '2', (byte) '7', (byte) 'm');
-                break;
+                return "27";
             case UNDERLINE:
-                writeCSISequenceToTerminal((byte) '2', (byte) '4', (byte) 'm');
-                break;
+                return "24";
             case ITALIC:
-                writeCSISequenceToTerminal((byte) '2', (byte) '3', (byte) 'm');
-                break;
+                return "23";
         }
+        throw new IllegalArgumentException("Unknown SGR " + sgr);
     }
 
     @Override
     public void resetColorAndSGR() throws IOException {
-        writeCSISequenceToTerminal((byte) '0', (byte) 'm');
+        writeToTerminal(RESET_COLOR_AND_SGR);
     }
 
     @Override
     public void clearScreen() throws IOException {
-        writeCSISequenceToTerminal((byte) '2', (byte) 'J');
+        writeToTerminal(CLEAR_SCREEN);
     }
 
     @Override
@@ -254,7 +295,16 @@ public abstract class ANSITerminal extends StreamBasedTerminal implements Extend
 
     @Override
     public void setCursorPosition(int x, int y) throws IOException {
-        writeCSISequenceToTerminal(((y + 1) + ";" + (x + 1) + "H").getBytes());
+        synchronized(sequenceBuffer) {
+            int length = 0;
+            sequenceBuffer[length++] = (byte)0x1b;
+            sequenceBuffer[length++] = (byte)'[';
+            length = appendNumber(sequenceBuffer, length, y + 1);
+            sequenceBuffer[length++] = (byte)';';
+            length = appendNumber(sequenceBuffer, length, x + 1);
+            sequenceBuffer[length++] = (byte)'H';
+            writeToTerminal(sequenceBuffer, 0, length);
+        }
     }
 
     @Override
@@ -277,7 +327,7 @@ public abstract class ANSITerminal extends StreamBasedTerminal implements Extend
 
     @Override
     public void setCursorVisible(boolean visible) throws IOException {
-        writeCSISequenceToTerminal(("?25" + (visible ? "h" : "l")).getBytes());
+        writeToTerminal(visible ? SHOW_CURSOR : HIDE_CURSOR);
     }
 
     @Override
@@ -422,6 +472,26 @@ public abstract class ANSITerminal extends StreamBasedTerminal implements Extend
         writeToTerminal(sb.toString().getBytes());
     }
 
+    /**
+     * Tells lanterna whether the terminal emulator on the other end understands the REP (repeat preceding character)
+     * control sequence. If it does, screens drawn on this terminal will use it to send long runs of the same character
+     * in fewer bytes. This is off by default since many terminal emulators don't support it.
+     * @param repeatCharacterSupported {@code true} if REP can be used with this terminal
+     */
+    public void setRepeatCharacterSupported(boolean repeatCharacterSupported) {
+        this.repeatCharacterSupported = repeatCharacterSupported;
+    }
+
+    /**
+     * Returns whether the terminal emulator on the other end has been declared to support the REP (repeat preceding
+     * character) control sequence.
+     * @return {@code true} if REP can be used with this terminal
+     * @see #setRepeatCharacterSupported(boolean)
+     */
+    public boolean isRepeatCharacterSupported() {
+        return repeatCharacterSupported;
+    }
+
     /**
      * Method to test if the terminal (as far as the library knows) is in private mode.
      *
@@ -0,0 +1,615 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.ansi;
+
+import static com.googlecode.lanterna.terminal.ansi.TelnetProtocol.*;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Terminal for a client connected to a {@link NIOTelnetTerminalServer}. It works like {@link TelnetTerminal} but
+ * doesn't need a thread of its own to read from the client: the server's I/O threads read from the socket when data
+ * arrives, handle the Telnet negotiation and decode the input into {@code KeyStroke}s which are queued up in this
+ * terminal. {@code pollInput()} never touches the network and {@code readInput()} just waits for the queue.
+ * <p>
+ * Register an input listener with {@link #addInputListener(Runnable)} to be told when there is new input, rather than
+ * having a thread blocking in {@code readInput()} for every client; {@code EventDrivenTextGUIThread} does this
+ * automatically. Resize notifications from the client are applied the next time input is read, which means the resize
+ * listeners are invoked on the thread reading input and not on the server's I/O threads.
+ * <p>
+ * The I/O threads never wait for input. If an escape timeout has been set on the input decoder and the input so far
+ * could be the start of a longer sequence, the decoding is picked up again when either more input arrives or the
+ * timeout expires.
+ * <p>
+ * Output is buffered as usual and handed to the I/O thread when the terminal is flushed. If the client can't keep up
+ * and too much output is waiting to be sent, {@code flush()} will block until the backlog has been reduced.
+ * @see NIOTelnetTerminalServer
+ * @author Martin
+ */
+public class NIOTelnetTerminal extends ANSITerminal {
+    // When more than this is waiting to be sent to the client, flush() blocks until the I/O thread has caught up
+    private static final int MAX_PENDING_OUTPUT = 1024 * 1024;
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private final SocketChannel channel;
+    private final NIOTelnetTerminalServer.IOThread ioThread;
+    private final TelnetTerminal.NegotiationState negotiationState;
+    private final TelnetInputFilter inputFilter;
+    private final ChannelInputStream channelInput;
+    private final CharsetDecoder completeCharacterDecoder;
+    private final List<Runnable> inputListeners;
+
+    // Decoded input, guarded by itself
+    private final Queue<KeyStroke> decodedInput;
+    // Set once the end of input has been queued, after that reading returns EOF every time, like InputDecoder does
+    private boolean endOfInputQueued;
+    private volatile TerminalSize clientReportedSize;
+    private volatile boolean resizePending;
+
+    // Output waiting to be written to the channel, guarded by pendingOutput
+    private final ArrayDeque<ByteBuffer> pendingOutput;
+    private int pendingOutputBytes;
+    private boolean writeScheduled;
+    private volatile boolean closed;
+
+    // Only used by the I/O thread
+    private SelectionKey selectionKey;
+    private byte[] incompleteCharacter;
+    private CharBuffer decodeCheckBuffer;
+    private boolean decodeScheduled;
+    private long decodeDeadline;
+
+    NIOTelnetTerminal(SocketChannel channel, NIOTelnetTerminalServer.IOThread ioThread, Charset terminalCharset) throws IOException {
+        this(channel, ioThread, new ChannelInputStream(), new ChannelOutputStream(), terminalCharset);
+    }
+
+    //Same construction as in TelnetTerminal, so we can keep a reference to the streams we pass to the super class
+    private NIOTelnetTerminal(
+            SocketChannel channel,
+            NIOTelnetTerminalServer.IOThread ioThread,
+            ChannelInputStream channelInput,
+            ChannelOutputStream channelOutput,
+            Charset terminalCharset) throws IOException {
+
+        super(channelInput, channelOutput, terminalCharset);
+        this.channel = channel;
+        this.ioThread = ioThread;
+        this.channelInput = channelInput;
+        this.negotiationState = new TelnetTerminal.NegotiationState();
+        this.inputFilter = new TelnetInputFilter(negotiationState, new TelnetInputFilter.Listener() {
+            @Override
+            public void onResize(int columns, int rows) {
+                clientReportedSize = new TerminalSize(columns, rows);
+                resizePending = true;
+            }
+
+            @Override
+            public void requestReply(boolean will, byte option) {
+                // Goes straight to the channel so the I/O thread never waits for the terminal's output lock
+                enqueueOutput(new byte[] { COMMAND_IAC, will ? COMMAND_WILL : COMMAND_WONT, option });
+                sendPendingOutput();
+            }
+        });
+        this.completeCharacterDecoder = getCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.inputListeners = new CopyOnWriteArrayList<>();
+        this.decodedInput = new ArrayDeque<>();
+        this.clientReportedSize = null;
+        this.resizePending = false;
+        this.pendingOutput = new ArrayDeque<>();
+        this.pendingOutputBytes = 0;
+        this.writeScheduled = false;
+        this.closed = false;
+        this.endOfInputQueued = false;
+        this.selectionKey = null;
+        this.incompleteCharacter = NO_BYTES;
+        this.decodeCheckBuffer = CharBuffer.allocate(1024);
+        this.decodeScheduled = false;
+        this.decodeDeadline = 0;
+        channelOutput.terminal = this;
+        getInputDecoder().setInputWaiter(this::waitForInput);
+
+        writeToTerminal(
+                COMMAND_IAC, COMMAND_DO, OPTION_LINEMODE,
+                COMMAND_IAC, COMMAND_SUBNEGOTIATION, OPTION_LINEMODE, (byte)1, (byte)0, COMMAND_IAC, COMMAND_SUBNEGOTIATION_END,
+                COMMAND_IAC, COMMAND_WILL, OPTION_ECHO,
+                COMMAND_IAC, COMMAND_DO, OPTION_NAWS);
+        flush();
+    }
+
+    /**
+     * Returns the socket address for the remote endpoint of the telnet connection
+     * @return SocketAddress representing the remote client
+     */
+    public SocketAddress getRemoteSocketAddress() {
+        return channel.socket().getRemoteSocketAddress();
+    }
+
+    /**
+     * Retrieves the current negotiation state with the client, containing details on what options have been enabled
+     * and what the client has said it supports.
+     * @return The current negotiation state for this client
+     */
+    public TelnetTerminal.NegotiationState getNegotiationState() {
+        return negotiationState;
+    }
+
+    /**
+     * Adds a listener that is invoked every time new input (including EOF and resize notifications) has arrived from
+     * the client. The listener is called on one of the server's I/O threads, so it must return quickly and must not
+     * read input or write output itself; typically it will just wake up another thread that does the work.
+     * @param listener Listener to invoke when there is new input
+     */
+    public void addInputListener(Runnable listener) {
+        if(listener != null) {
+            inputListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes an input listener previously added with {@link #addInputListener(Runnable)}
+     * @param listener Listener to remove
+     */
+    public void removeInputListener(Runnable listener) {
+        inputListeners.remove(listener);
+    }
+
+    @Override
+    public KeyStroke pollInput() throws IOException {
+        applyPendingResize();
+        synchronized(decodedInput) {
+            KeyStroke keyStroke = decodedInput.poll();
+            if(keyStroke == null) {
+                if(endOfInputQueued) {
+                    return new KeyStroke(KeyType.EOF);
+                }
+                else if(!closed) {
+                    // Pick up anything another thread left in the decoder, like while waiting for a cursor position report
+                    keyStroke = super.pollInput();
+                }
+            }
+            return keyStroke;
+        }
+    }
+
+    @Override
+    public KeyStroke readInput() throws IOException {
+        while(true) {
+            KeyStroke keyStroke = pollInput();
+            if(keyStroke != null) {
+                return keyStroke;
+            }
+            synchronized(decodedInput) {
+                while(decodedInput.isEmpty() && !resizePending && !endOfInputQueued) {
+                    try {
+                        decodedInput.wait();
+                    }
+                    catch(InterruptedException e) {
+                        throw new InterruptedIOException("Interrupted while waiting for input");
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    protected TerminalSize findTerminalSize() throws IOException {
+        // If the client supports NAWS, we already know the size and don't need to ask for a cursor position report
+        TerminalSize size = clientReportedSize;
+        if(size != null) {
+            return size;
+        }
+        return super.findTerminalSize();
+    }
+
+    /**
+     * Closes the connection to the client, effectively ending the telnet session and the terminal. Output that can't be
+     * sent without blocking at this point is discarded.
+     * @throws IOException If there was an underlying I/O error
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            super.close();
+        }
+        finally {
+            closeChannel();
+        }
+    }
+
+    private void applyPendingResize() {
+        if(resizePending) {
+            resizePending = false;
+            TerminalSize size = clientReportedSize;
+            if(size != null) {
+                onResized(size);
+            }
+        }
+    }
+
+    /**
+     * Called by the I/O thread once the channel has been registered with its selector
+     */
+    void onRegistered(SelectionKey selectionKey) {
+        this.selectionKey = selectionKey;
+        synchronized(pendingOutput) {
+            if(writeScheduled) {
+                selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        }
+    }
+
+    /**
+     * Called by the I/O thread when the channel has data to read
+     * @param readBuffer Buffer owned by the I/O thread to read into, it can be overwritten after this method returns
+     */
+    void onReadable(ByteBuffer readBuffer) {
+        int bytesRead;
+        try {
+            readBuffer.clear();
+            bytesRead = channel.read(readBuffer);
+        }
+        catch(IOException e) {
+            bytesRead = -1;
+        }
+        if(bytesRead < 0) {
+            closeChannel();
+            return;
+        }
+        readBuffer.flip();
+        int dataLength = inputFilter.filter(readBuffer, readBuffer.array());
+        if(dataLength > 0) {
+            appendInput(readBuffer.array(), dataLength);
+        }
+        decodeInput(false);
+    }
+
+    /**
+     * Called by the I/O thread when the channel can accept more output
+     */
+    void onWritable() {
+        synchronized(pendingOutput) {
+            writePendingOutput();
+            if(pendingOutput.isEmpty()) {
+                writeScheduled = false;
+                if(selectionKey.isValid()) {
+                    selectionKey.interestOps(SelectionKey.OP_READ);
+                }
+            }
+        }
+    }
+
+    /**
+     * Called by the I/O thread when handling the I/O of this terminal failed unexpectedly, which closes the connection
+     * to this client and leaves the other clients on the same I/O thread alone
+     */
+    void onError() {
+        try {
+            closeChannel();
+        }
+        catch(RuntimeException ignore) {
+            // The input listener that failed in the first place may well fail again on the end of input
+        }
+    }
+
+    /**
+     * Closes the channel and wakes up anyone waiting for input or to write output. Reading input from this terminal
+     * will return EOF once everything received before the connection was closed has been read, and keep returning EOF
+     * after that.
+     */
+    void closeChannel() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        try {
+            channel.close();
+        }
+        catch(IOException ignore) {}
+        synchronized(pendingOutput) {
+            pendingOutput.clear();
+            pendingOutputBytes = 0;
+            pendingOutput.notifyAll();
+        }
+        channelInput.close();
+        decodeInput(true);
+    }
+
+    /**
+     * Passes the data bytes on to the input decoder, holding back any incomplete character at the end so the decoder
+     * never has to wait for the rest of it; the decoding itself happens on the I/O thread and must not block.
+     */
+    private void appendInput(byte[] data, int length) {
+        ByteBuffer input;
+        if(incompleteCharacter.length > 0) {
+            byte[] joined = Arrays.copyOf(incompleteCharacter, incompleteCharacter.length + length);
+            System.arraycopy(data, 0, joined, incompleteCharacter.length, length);
+            input = ByteBuffer.wrap(joined);
+        }
+        else {
+            input = ByteBuffer.wrap(data, 0, length);
+        }
+        int start = input.position();
+        if(decodeCheckBuffer.capacity() < input.remaining()) {
+            decodeCheckBuffer = CharBuffer.allocate(input.remaining());
+        }
+        decodeCheckBuffer.clear();
+        completeCharacterDecoder.reset();
+        completeCharacterDecoder.decode(input, decodeCheckBuffer, false);
+        int completeLength = input.position() - start;
+        channelInput.append(input.array(), start, completeLength);
+        incompleteCharacter = input.hasRemaining() ? Arrays.copyOfRange(input.array(), input.position(), input.limit()) : NO_BYTES;
+    }
+
+    /**
+     * Input waiter for the decoder, which never blocks; instead the I/O thread will decode the input again once the
+     * timeout has expired
+     */
+    private boolean waitForInput(long timeoutMillis) {
+        if(closed) {
+            // Reading will return the end of input right away
+            return true;
+        }
+        if(Thread.currentThread() == ioThread) {
+            scheduleDecode(timeoutMillis);
+        }
+        else {
+            ioThread.execute(() -> scheduleDecode(timeoutMillis));
+        }
+        return false;
+    }
+
+    // Only called on the I/O thread
+    private void scheduleDecode(long delayMillis) {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis);
+        if(decodeScheduled && decodeDeadline - deadline <= 0) {
+            return;
+        }
+        decodeScheduled = true;
+        decodeDeadline = deadline;
+        ioThread.schedule(() -> {
+            // Ignore this if it has been replaced by an earlier deadline
+            if(decodeScheduled && decodeDeadline == deadline) {
+                decodeScheduled = false;
+                try {
+                    decodeInput(false);
+                }
+                catch(RuntimeException e) {
+                    onError();
+                    throw e;
+                }
+            }
+        }, delayMillis);
+    }
+
+    private void decodeInput(boolean endOfInput) {
+        synchronized(decodedInput) {
+            try {
+                KeyStroke keyStroke;
+                while((keyStroke = super.pollInput()) != null) {
+                    decodedInput.add(keyStroke);
+                }
+            }
+            catch(IOException ignore) {
+                // The input stream is in memory and can't fail
+            }
+            if(endOfInput) {
+                decodedInput.add(new KeyStroke(KeyType.EOF));
+                endOfInputQueued = true;
+            }
+            decodedInput.notifyAll();
+        }
+        for(Runnable listener: inputListeners) {
+            listener.run();
+        }
+    }
+
+    private void enqueueOutput(byte[] bytes) {
+        synchronized(pendingOutput) {
+            if(closed) {
+                return;
+            }
+            pendingOutput.add(ByteBuffer.wrap(bytes));
+            pendingOutputBytes += bytes.length;
+        }
+    }
+
+    /**
+     * Tries to send the pending output right away and leaves what couldn't be sent to the I/O thread. Unless this is
+     * called on the I/O thread, it then waits until the backlog is below the limit.
+     */
+    private void sendPendingOutput() {
+        synchronized(pendingOutput) {
+            if(!writeScheduled) {
+                writePendingOutput();
+                if(!pendingOutput.isEmpty()) {
+                    writeScheduled = true;
+                    ioThread.execute(() -> {
+                        if(selectionKey != null && selectionKey.isValid()) {
+                            selectionKey.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        }
+                    });
+                }
+            }
+            if(Thread.currentThread() == ioThread) {
+                return;
+            }
+            while(pendingOutputBytes > MAX_PENDING_OUTPUT && !closed) {
+                try {
+                    pendingOutput.wait();
+                }
+                catch(InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Must be called while holding the lock on pendingOutput
+    private void writePendingOutput() {
+        if(pendingOutput.isEmpty() || closed) {
+            return;
+        }
+        try {
+            long written = channel.write(pendingOutput.toArray(new ByteBuffer[0]));
+            pendingOutputBytes -= (int)written;
+            while(!pendingOutput.isEmpty() && !pendingOutput.peek().hasRemaining()) {
+                pendingOutput.poll();
+            }
+            if(pendingOutputBytes <= MAX_PENDING_OUTPUT) {
+                pendingOutput.notifyAll();
+            }
+        }
+        catch(IOException e) {
+            // The client is gone, the read side will notice and report EOF
+            ioThread.execute(this::closeChannel);
+            pendingOutput.clear();
+            pendingOutputBytes = 0;
+            pendingOutput.notifyAll();
+        }
+    }
+
+    /**
+     * Input stream the I/O thread fills with the data bytes received from the client. The input decoder only reads
+     * from it when it's ready, but a blocking read waits for data like a socket stream would.
+     */
+    private static class ChannelInputStream extends InputStream {
+        private byte[] buffer = new byte[256];
+        private int start = 0;
+        private int end = 0;
+        private boolean endOfStream = false;
+
+        synchronized void append(byte[] data, int offset, int length) {
+            if(length == 0) {
+                return;
+            }
+            if(end + length > buffer.length) {
+                int available = end - start;
+                if(available + length > buffer.length) {
+                    buffer = Arrays.copyOfRange(buffer, start, Math.max(buffer.length * 2, available + length));
+                }
+                else {
+                    System.arraycopy(buffer, start, buffer, 0, available);
+                }
+                start = 0;
+                end = available;
+            }
+            System.arraycopy(data, offset, buffer, end, length);
+            end += length;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void close() {
+            endOfStream = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized int available() {
+            return end - start;
+        }
+
+        @Override
+        public synchronized int read() throws IOException {
+            if(!waitForData()) {
+                return -1;
+            }
+            return buffer[start++] & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] b, int off, int len) throws IOException {
+            if(len == 0) {
+                return 0;
+            }
+            if(!waitForData()) {
+                return -1;
+            }
+            int bytesToCopy = Math.min(len, end - start);
+            System.arraycopy(buffer, start, b, off, bytesToCopy);
+            start += bytesToCopy;
+            return bytesToCopy;
+        }
+
+        private boolean waitForData() throws IOException {
+            while(start == end) {
+                if(endOfStream) {
+                    return false;
+                }
+                try {
+                    wait();
+                }
+                catch(InterruptedException e) {
+                    throw new InterruptedIOException("Interrupted while waiting for input");
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Output stream that hands everything written to it over to the channel. The terminal's output buffer calls
+     * {@code write} with large chunks, followed by {@code flush} which sends it all in one gathering write.
+     */
+    private static class ChannelOutputStream extends OutputStream {
+        private NIOTelnetTerminal terminal;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte)b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if(terminal.closed) {
+                throw new ClosedChannelException();
+            }
+            terminal.enqueueOutput(Arrays.copyOfRange(b, off, off + len));
+        }
+
+        @Override
+        public void flush() {
+            terminal.sendPendingOutput();
+        }
+    }
+}
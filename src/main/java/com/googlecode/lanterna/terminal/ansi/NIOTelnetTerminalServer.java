@@ -0,0 +1,367 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.ansi;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Telnet server built on non-blocking channels, for when you want to serve a large number of clients at the same time.
+ * It's used the same way as {@link TelnetTerminalServer}: call {@code acceptConnection()} to wait for the next client
+ * and you get back a terminal that represents it. The difference is that all the network I/O for every client is done
+ * by a small, fixed number of I/O threads, each multiplexing its share of the connections through a {@code Selector}.
+ * These threads read what the clients send, take care of the Telnet negotiation and resize notifications, decode the
+ * input into {@code KeyStroke}s and write the output, using gathering writes to send everything that has been flushed
+ * in as few system calls as possible.
+ * <p>
+ * To avoid having a thread per client waiting for input, drive the text GUI of each client with an
+ * {@code EventDrivenTextGUIThread} or register an input listener on the {@link NIOTelnetTerminal}.
+ * <p>
+ * An exception thrown while handling one client, for example by an input listener, disconnects only that client. The
+ * exception is passed to the uncaught exception handler of the I/O thread, which can be replaced with
+ * {@link #setUncaughtExceptionHandler(Thread.UncaughtExceptionHandler)}.
+ * @author Martin
+ * @see NIOTelnetTerminal
+ * @see TelnetTerminalServer
+ */
+@SuppressWarnings("WeakerAccess")
+public class NIOTelnetTerminalServer {
+    private final Charset charset;
+    private final ServerSocketChannel serverSocketChannel;
+    private final IOThread[] ioThreads;
+    private final Queue<NIOTelnetTerminal> acceptedConnections;
+    private int nextIOThread;
+    private volatile boolean closed;
+
+    /**
+     * Creates a new NIOTelnetTerminalServer on a specific port, with one I/O thread per available processor
+     * @param port Port to listen for incoming telnet connections
+     * @throws IOException If there was an underlying I/O exception
+     */
+    public NIOTelnetTerminalServer(int port) throws IOException {
+        this(port, Charset.defaultCharset());
+    }
+
+    /**
+     * Creates a new NIOTelnetTerminalServer on a specific port using a certain character set, with one I/O thread per
+     * available processor
+     * @param port Port to listen for incoming telnet connections
+     * @param charset Character set to use
+     * @throws IOException If there was an underlying I/O exception
+     */
+    public NIOTelnetTerminalServer(int port, Charset charset) throws IOException {
+        this(new InetSocketAddress(port), charset, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a new NIOTelnetTerminalServer listening on a specific address, using a certain character set and number
+     * of I/O threads
+     * @param address Address to listen for incoming telnet connections on
+     * @param charset Character set to use
+     * @param ioThreadCount How many threads to use for network I/O, the clients are spread evenly over them
+     * @throws IOException If there was an underlying I/O exception
+     */
+    public NIOTelnetTerminalServer(SocketAddress address, Charset charset, int ioThreadCount) throws IOException {
+        if(ioThreadCount < 1) {
+            throw new IllegalArgumentException("NIOTelnetTerminalServer needs at least one I/O thread, got " + ioThreadCount);
+        }
+        this.charset = charset;
+        this.acceptedConnections = new ArrayDeque<>();
+        this.nextIOThread = 0;
+        this.closed = false;
+        this.serverSocketChannel = ServerSocketChannel.open();
+        this.ioThreads = new IOThread[ioThreadCount];
+        try {
+            serverSocketChannel.bind(address);
+            serverSocketChannel.configureBlocking(false);
+            for(int i = 0; i < ioThreadCount; i++) {
+                ioThreads[i] = new IOThread(i);
+            }
+            // The first I/O thread also accepts new connections
+            serverSocketChannel.register(ioThreads[0].selector, SelectionKey.OP_ACCEPT);
+        }
+        catch(IOException e) {
+            serverSocketChannel.close();
+            for(IOThread ioThread: ioThreads) {
+                if(ioThread != null) {
+                    ioThread.selector.close();
+                }
+            }
+            throw e;
+        }
+        for(IOThread ioThread: ioThreads) {
+            ioThread.start();
+        }
+    }
+
+    /**
+     * Returns the actual server socket channel used by this object. Can be used to tweak settings but be careful!
+     * @return Underlying ServerSocketChannel
+     */
+    public ServerSocketChannel getServerSocketChannel() {
+        return serverSocketChannel;
+    }
+
+    /**
+     * Sets the handler for exceptions thrown while the I/O threads handle the clients. Such an exception disconnects
+     * only the client it was thrown for, unless it was an I/O error of the selector itself, which ends the I/O thread
+     * and every connection on it. By default the exceptions go to the default uncaught exception handler, like for any
+     * other thread.
+     * @param handler Handler to pass the exceptions to, or {@code null} for the default handler
+     */
+    public void setUncaughtExceptionHandler(Thread.UncaughtExceptionHandler handler) {
+        for(IOThread ioThread: ioThreads) {
+            ioThread.setUncaughtExceptionHandler(handler);
+        }
+    }
+
+    /**
+     * Waits for the next client to connect in to our server and returns a Terminal implementation, NIOTelnetTerminal,
+     * that represents the remote terminal this client is running. The terminal can be used just like any other
+     * Terminal, but keep in mind that all operations are sent over the network.
+     * @return NIOTelnetTerminal for the remote client's terminal
+     * @throws IOException If the server has been closed or the calling thread was interrupted
+     */
+    public NIOTelnetTerminal acceptConnection() throws IOException {
+        synchronized(acceptedConnections) {
+            while(acceptedConnections.isEmpty()) {
+                if(closed) {
+                    throw new ClosedChannelException();
+                }
+                try {
+                    acceptedConnections.wait();
+                }
+                catch(InterruptedException e) {
+                    throw new InterruptedIOException("Interrupted while waiting for a connection");
+                }
+            }
+            return acceptedConnections.poll();
+        }
+    }
+
+    /**
+     * Closes the server socket and stops the I/O threads, which closes the connection to all clients. Any call to
+     * acceptConnection() after this will fail.
+     * @throws IOException If there was an underlying I/O exception
+     */
+    public void close() throws IOException {
+        closed = true;
+        synchronized(acceptedConnections) {
+            acceptedConnections.notifyAll();
+        }
+        for(IOThread ioThread: ioThreads) {
+            ioThread.selector.wakeup();
+        }
+        serverSocketChannel.close();
+    }
+
+    private void acceptConnections() {
+        while(true) {
+            SocketChannel channel;
+            try {
+                channel = serverSocketChannel.accept();
+            }
+            catch(IOException e) {
+                // Typically too many open files, try again next time the selector reports the channel as ready
+                return;
+            }
+            if(channel == null) {
+                return;
+            }
+            final IOThread ioThread = ioThreads[nextIOThread];
+            nextIOThread = (nextIOThread + 1) % ioThreads.length;
+            try {
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                final NIOTelnetTerminal terminal = new NIOTelnetTerminal(channel, ioThread, charset);
+                ioThread.execute(() -> ioThread.register(terminal, channel));
+                synchronized(acceptedConnections) {
+                    acceptedConnections.add(terminal);
+                    acceptedConnections.notifyAll();
+                }
+            }
+            catch(IOException e) {
+                try {
+                    channel.close();
+                }
+                catch(IOException ignore) {}
+            }
+        }
+    }
+
+    /**
+     * One of the threads doing the network I/O for the clients. Everything touching the selector, including changes to
+     * the interest set of a client, is done on this thread; other threads hand such work over through
+     * {@link #execute(Runnable)}. Work that should happen later, like giving up on waiting for the rest of an escape
+     * sequence, is scheduled with {@link #schedule(Runnable, long)} and run when the selector's timeout expires.
+     */
+    class IOThread extends Thread implements Executor {
+        private final Selector selector;
+        private final Queue<Runnable> tasks;
+        private final PriorityQueue<ScheduledTask> scheduledTasks;
+        private final ByteBuffer readBuffer;
+
+        private IOThread(int index) throws IOException {
+            super("LanternaTelnetIO-" + index);
+            this.selector = Selector.open();
+            this.tasks = new ConcurrentLinkedQueue<>();
+            this.scheduledTasks = new PriorityQueue<>();
+            this.readBuffer = ByteBuffer.allocate(16 * 1024);
+            setDaemon(true);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        /**
+         * Runs a task on this thread after a delay. Must be called on this thread, use {@link #execute(Runnable)} to
+         * get there first if needed.
+         * @param task Task to run
+         * @param delayMillis How many milliseconds to wait before running the task
+         */
+        void schedule(Runnable task, long delayMillis) {
+            scheduledTasks.add(new ScheduledTask(task, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMillis)));
+        }
+
+        private void register(NIOTelnetTerminal terminal, SocketChannel channel) {
+            try {
+                terminal.onRegistered(channel.register(selector, SelectionKey.OP_READ, terminal));
+            }
+            catch(ClosedChannelException e) {
+                terminal.closeChannel();
+            }
+        }
+
+        // A failing task mustn't take down the thread, which would disconnect every client it serves
+        private void runTask(Runnable task) {
+            try {
+                task.run();
+            }
+            catch(RuntimeException e) {
+                reportException(e);
+            }
+        }
+
+        private void reportException(Exception e) {
+            getUncaughtExceptionHandler().uncaughtException(this, e);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while(!closed) {
+                    ScheduledTask nextScheduledTask = scheduledTasks.peek();
+                    if(nextScheduledTask == null) {
+                        selector.select();
+                    }
+                    else {
+                        long timeoutNanos = nextScheduledTask.deadline - System.nanoTime();
+                        if(timeoutNanos > 0) {
+                            // select(0) means no timeout, so wait at least a millisecond
+                            selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(timeoutNanos)));
+                        }
+                        else {
+                            selector.selectNow();
+                        }
+                    }
+                    Runnable task;
+                    while((task = tasks.poll()) != null) {
+                        runTask(task);
+                    }
+                    long now = System.nanoTime();
+                    while(!scheduledTasks.isEmpty() && scheduledTasks.peek().deadline - now <= 0) {
+                        runTask(scheduledTasks.poll().task);
+                    }
+                    for(SelectionKey key: selector.selectedKeys()) {
+                        if(!key.isValid()) {
+                            continue;
+                        }
+                        if(key.isAcceptable()) {
+                            acceptConnections();
+                            continue;
+                        }
+                        NIOTelnetTerminal terminal = (NIOTelnetTerminal)key.attachment();
+                        try {
+                            if(key.isWritable()) {
+                                terminal.onWritable();
+                            }
+                            if(key.isValid() && key.isReadable()) {
+                                terminal.onReadable(readBuffer);
+                            }
+                        }
+                        catch(RuntimeException e) {
+                            // Typically thrown by an input listener, only this client is disconnected
+                            reportException(e);
+                            terminal.onError();
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                }
+            }
+            catch(IOException e) {
+                reportException(e);
+            }
+            finally {
+                for(SelectionKey key: new ArrayList<>(selector.keys())) {
+                    if(key.attachment() instanceof NIOTelnetTerminal) {
+                        ((NIOTelnetTerminal)key.attachment()).closeChannel();
+                    }
+                }
+                try {
+                    selector.close();
+                }
+                catch(IOException ignore) {}
+            }
+        }
+    }
+
+    private static class ScheduledTask implements Comparable<ScheduledTask> {
+        private final Runnable task;
+        private final long deadline;
+
+        private ScheduledTask(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public int compareTo(ScheduledTask other) {
+            return Long.signum(deadline - other.deadline);
+        }
+    }
+}
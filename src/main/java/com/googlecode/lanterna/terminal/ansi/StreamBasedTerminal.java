@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 
 import com.googlecode.lanterna.Symbols;
@@ -35,6 +36,7 @@ import com.googlecode.lanterna.TerminalPosition;
 
 import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.Queue;
 import java.util.concurrent.TimeUnit;
@@ -52,10 +54,27 @@ import java.util.concurrent.locks.ReentrantLock;
 public abstract class StreamBasedTerminal extends AbstractTerminal {
 
     private static final Charset UTF8_REFERENCE = StandardCharsets.UTF_8;
+    private static final int DEFAULT_OUTPUT_BUFFER_THRESHOLD = 8192;
+    private static final byte[][] ASCII_BYTES = new byte[128][];
+    static {
+        for(int i = 0; i < ASCII_BYTES.length; i++) {
+            ASCII_BYTES[i] = new byte[] { (byte)i };
+        }
+    }
 
     private final InputStream terminalInput;
     private final OutputStream terminalOutput;
     private final Charset terminalCharset;
+    private final boolean asciiCompatibleCharset;
+
+    // Output is collected here and written to the output stream in larger chunks, guarded by terminalOutput
+    private byte[] outputBuffer;
+    private int outputBufferLength;
+    private int outputBufferThreshold;
+    private long bytesWritten;
+    private long flushCount;
+    // The high surrogate of a code point outside the BMP, waiting for the low surrogate to be put
+    private char pendingHighSurrogate;
 
     private final InputDecoder inputDecoder;
     private final Queue<KeyStroke> keyQueue;
@@ -73,6 +92,12 @@ public abstract class StreamBasedTerminal extends AbstractTerminal {
         else {
             this.terminalCharset = terminalCharset;
         }
+        this.asciiCompatibleCharset = isAsciiCompatible(this.terminalCharset);
+        this.outputBuffer = new byte[1024];
+        this.outputBufferLength = 0;
+        this.outputBufferThreshold = DEFAULT_OUTPUT_BUFFER_THRESHOLD;
+        this.bytesWritten = 0;
+        this.flushCount = 0;
         this.inputDecoder = new InputDecoder(new InputStreamReader(this.terminalInput, this.terminalCharset));
         this.keyQueue = new LinkedList<>();
         this.readLock = new ReentrantLock();
@@ -83,31 +108,126 @@ public abstract class StreamBasedTerminal extends AbstractTerminal {
      * {@inheritDoc}
      *
      * The {@code StreamBasedTerminal} class will attempt to translate some unicode characters to VT100 if the encoding
-     * attached to this {@code Terminal} isn't UTF-8.
+     * attached to this {@code Terminal} isn't UTF-8. Code points outside the BMP are put as a surrogate pair, with
+     * one call for each {@code char}, and written once both halves have been put.
      */
     @Override
     public void putCharacter(char c) throws IOException {
+        if(Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+            return;
+        }
+        if(Character.isLowSurrogate(c)) {
+            if(pendingHighSurrogate != 0) {
+                writeToTerminal(encode(new String(new char[] { pendingHighSurrogate, c })));
+                pendingHighSurrogate = 0;
+            }
+            return;
+        }
+        pendingHighSurrogate = 0;
         if(TerminalTextUtils.isPrintableCharacter(c)) {
             writeToTerminal(translateCharacter(c));
         }
     }
 
     /**
-     * This method will write a list of bytes directly to the output stream of the terminal.
+     * This method will write a list of bytes to the terminal. The bytes are collected in an output buffer and sent to
+     * the output stream when the terminal is flushed or when the buffer has reached the output buffer threshold.
      * @param bytes Bytes to write to the terminal (synchronized)
      * @throws java.io.IOException If there was an underlying I/O error
      */
     @SuppressWarnings("WeakerAccess")
     protected void writeToTerminal(byte... bytes) throws IOException {
+        writeToTerminal(bytes, 0, bytes.length);
+    }
+
+    /**
+     * This method will write a range of bytes from an array to the terminal. The bytes are copied into the output
+     * buffer, so the array can be reused as soon as this method returns.
+     * @param bytes Array holding the bytes to write to the terminal (synchronized)
+     * @param offset Index of the first byte to write
+     * @param length Number of bytes to write
+     * @throws java.io.IOException If there was an underlying I/O error
+     */
+    protected void writeToTerminal(byte[] bytes, int offset, int length) throws IOException {
         synchronized(terminalOutput) {
-            terminalOutput.write(bytes);
+            if(outputBufferLength + length > outputBuffer.length) {
+                outputBuffer = Arrays.copyOf(outputBuffer, Math.max(outputBuffer.length * 2, outputBufferLength + length));
+            }
+            System.arraycopy(bytes, offset, outputBuffer, outputBufferLength, length);
+            outputBufferLength += length;
+            if(outputBufferLength >= outputBufferThreshold) {
+                writeOutputBuffer();
+            }
         }
     }
 
+    /**
+     * Sets how many bytes may be collected in the output buffer before they are written to the output stream, even
+     * though {@code flush()} hasn't been called. Setting this to 0 will write everything to the output stream right
+     * away, like older versions of lanterna did.
+     * @param outputBufferThreshold Number of bytes to buffer before writing to the output stream
+     * @throws IOException If there was an underlying I/O error when writing out what was already buffered
+     */
+    public void setOutputBufferThreshold(int outputBufferThreshold) throws IOException {
+        if(outputBufferThreshold < 0) {
+            throw new IllegalArgumentException("Cannot set output buffer threshold to " + outputBufferThreshold);
+        }
+        synchronized(terminalOutput) {
+            this.outputBufferThreshold = outputBufferThreshold;
+            if(outputBufferLength >= outputBufferThreshold) {
+                writeOutputBuffer();
+            }
+        }
+    }
+
+    /**
+     * Returns how many bytes may be collected in the output buffer before they are written to the output stream
+     * @return Output buffer threshold, in bytes
+     */
+    public int getOutputBufferThreshold() {
+        synchronized(terminalOutput) {
+            return outputBufferThreshold;
+        }
+    }
+
+    /**
+     * Returns the total number of bytes this terminal has written to its output stream
+     * @return Number of bytes written to the output stream
+     */
+    public long getBytesWritten() {
+        synchronized(terminalOutput) {
+            return bytesWritten;
+        }
+    }
+
+    /**
+     * Returns how many times this terminal has written its output buffer to the output stream. Without buffering this
+     * would be one for every escape sequence and character.
+     * @return Number of writes to the output stream
+     */
+    public long getFlushCount() {
+        synchronized(terminalOutput) {
+            return flushCount;
+        }
+    }
+
+    private void writeOutputBuffer() throws IOException {
+        if(outputBufferLength == 0) {
+            return;
+        }
+        int length = outputBufferLength;
+        // If the write fails the content is dropped anyway, so that a broken stream doesn't make the buffer grow forever
+        outputBufferLength = 0;
+        terminalOutput.write(outputBuffer, 0, length);
+        bytesWritten += length;
+        flushCount++;
+    }
+
     @Override
     public byte[] enquireTerminal(int timeout, TimeUnit timeoutTimeUnit) throws IOException {
         synchronized(terminalOutput) {
-            terminalOutput.write(5);    //ENQ
+            writeToTerminal((byte)5);    //ENQ
             flush();
         }
         
@@ -135,8 +255,8 @@ public abstract class StreamBasedTerminal extends AbstractTerminal {
 
     @Override
     public void bell() throws IOException {
-        terminalOutput.write((byte)7);
-        terminalOutput.flush();
+        writeToTerminal((byte)7);
+        flush();
     }
 
     /**
@@ -164,6 +284,8 @@ public abstract class StreamBasedTerminal extends AbstractTerminal {
      * @throws IOException If there was an I/O error
      */
     synchronized TerminalPosition waitForCursorPositionReport() throws IOException {
+        // Make sure the request for the report has actually been sent
+        flush();
         long startTime = System.currentTimeMillis();
         TerminalPosition cursorPosition = lastReportedCursorPosition;
         while(cursorPosition == null) {
@@ -229,12 +351,14 @@ public abstract class StreamBasedTerminal extends AbstractTerminal {
     @Override
     public void flush() throws IOException {
         synchronized(terminalOutput) {
+            writeOutputBuffer();
             terminalOutput.flush();
         }
     }
 
     @Override
     public void close() throws IOException {
+        flush();
         // Should we close the input/output streams here?
         // If someone uses lanterna just temporarily and want to switch back to using System.out/System.in manually,
         // they won't be too happy if we closed the streams
@@ -327,6 +451,28 @@ public abstract class StreamBasedTerminal extends AbstractTerminal {
     }
 
     private byte[] convertToCharset(char input) {
-        return terminalCharset.encode(Character.toString(input)).array();
+        if(input < ASCII_BYTES.length && asciiCompatibleCharset) {
+            return ASCII_BYTES[input];
+        }
+        return encode(Character.toString(input));
+    }
+
+    private byte[] encode(String text) {
+        // The backing array of the encoded buffer can be larger than the actual encoded data, so only take what's used
+        ByteBuffer encoded = terminalCharset.encode(text);
+        byte[] bytes = new byte[encoded.remaining()];
+        encoded.get(bytes);
+        return bytes;
+    }
+
+    private static boolean isAsciiCompatible(Charset charset) {
+        byte[] encoded;
+        try {
+            encoded = new String(new char[] { ' ', '0', '9', 'A', 'Z', 'a', 'z', '~' }).getBytes(charset);
+        }
+        catch(UnsupportedOperationException e) {
+            return false;
+        }
+        return Arrays.equals(encoded, new byte[] { ' ', '0', '9', 'A', 'Z', 'a', 'z', '~' });
     }
 }
@@ -0,0 +1,209 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.ansi;
+
+import static com.googlecode.lanterna.terminal.ansi.TelnetProtocol.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental parser that separates Telnet commands from the data a client sends. Unlike the filter used by
+ * {@link TelnetTerminal}, which expects every command to arrive in one read, this class keeps its state between calls
+ * so commands and subnegotiations may be split over any number of network reads. It's used by
+ * {@link NIOTelnetTerminal}, where the input is handed over in whatever chunks the selector delivers.
+ * @author Martin
+ */
+class TelnetInputFilter {
+    // Subnegotiations we care about are a few bytes long, anything longer is dropped rather than buffered
+    private static final int MAX_SUBNEGOTIATION_LENGTH = 256;
+
+    interface Listener {
+        /**
+         * Called when the client has reported a new window size through NAWS
+         * @param columns Number of columns
+         * @param rows Number of rows
+         */
+        void onResize(int columns, int rows);
+
+        /**
+         * Called when the client asked us to do or not do something that we support, so we need to reply
+         * @param will {@code true} if we should reply WILL, {@code false} for WON'T
+         * @param option Option to reply about
+         */
+        void requestReply(boolean will, byte option);
+    }
+
+    private enum State {
+        DATA,
+        COMMAND,
+        OPTION,
+        SUBNEGOTIATION_OPTION,
+        SUBNEGOTIATION_DATA,
+        SUBNEGOTIATION_COMMAND,
+    }
+
+    private final TelnetTerminal.NegotiationState negotiationState;
+    private final Listener listener;
+    private final ByteArrayOutputStream subnegotiationData;
+    private State state;
+    private byte command;
+    private byte subnegotiationOption;
+
+    TelnetInputFilter(TelnetTerminal.NegotiationState negotiationState, Listener listener) {
+        this.negotiationState = negotiationState;
+        this.listener = listener;
+        this.subnegotiationData = new ByteArrayOutputStream();
+        this.state = State.DATA;
+        this.command = 0;
+        this.subnegotiationOption = 0;
+    }
+
+    /**
+     * Parses all remaining bytes in the buffer, acting on any Telnet commands and writing everything else to
+     * {@code data}. The data bytes are written in place, so {@code input} and {@code data} may be the same array.
+     * @param input Bytes received from the client
+     * @param data Array to write the data bytes to, must be at least as large as the remaining input
+     * @return Number of data bytes written to {@code data}
+     */
+    int filter(ByteBuffer input, byte[] data) {
+        int dataLength = 0;
+        while(input.hasRemaining()) {
+            byte b = input.get();
+            switch(state) {
+                case DATA:
+                    if(b == COMMAND_IAC) {
+                        state = State.COMMAND;
+                    }
+                    else {
+                        data[dataLength++] = b;
+                    }
+                    break;
+
+                case COMMAND:
+                    if(b == COMMAND_IAC) {
+                        //Double IAC = 255
+                        data[dataLength++] = b;
+                        state = State.DATA;
+                    }
+                    else if(b == COMMAND_DO || b == COMMAND_DONT || b == COMMAND_WILL || b == COMMAND_WONT) {
+                        command = b;
+                        state = State.OPTION;
+                    }
+                    else if(b == COMMAND_SUBNEGOTIATION) {
+                        state = State.SUBNEGOTIATION_OPTION;
+                    }
+                    else {
+                        // NOP, GA and friends carry no data for us
+                        state = State.DATA;
+                    }
+                    break;
+
+                case OPTION:
+                    onCommand(command, b);
+                    state = State.DATA;
+                    break;
+
+                case SUBNEGOTIATION_OPTION:
+                    subnegotiationOption = b;
+                    subnegotiationData.reset();
+                    state = State.SUBNEGOTIATION_DATA;
+                    break;
+
+                case SUBNEGOTIATION_DATA:
+                    if(b == COMMAND_IAC) {
+                        state = State.SUBNEGOTIATION_COMMAND;
+                    }
+                    else if(subnegotiationData.size() < MAX_SUBNEGOTIATION_LENGTH) {
+                        subnegotiationData.write(b);
+                    }
+                    break;
+
+                case SUBNEGOTIATION_COMMAND:
+                    if(b == COMMAND_IAC) {
+                        //Escaped IAC
+                        if(subnegotiationData.size() < MAX_SUBNEGOTIATION_LENGTH) {
+                            subnegotiationData.write(b);
+                        }
+                        state = State.SUBNEGOTIATION_DATA;
+                    }
+                    else {
+                        if(b == COMMAND_SUBNEGOTIATION_END) {
+                            onSubnegotiation(subnegotiationOption, subnegotiationData.toByteArray());
+                        }
+                        state = State.DATA;
+                    }
+                    break;
+            }
+        }
+        return dataLength;
+    }
+
+    private void onCommand(byte command, byte value) {
+        switch(command) {
+            case COMMAND_DO:
+            case COMMAND_DONT:
+                if(value == OPTION_SUPPRESS_GO_AHEAD) {
+                    negotiationState.suppressGoAhead = (command == COMMAND_DO);
+                    listener.requestReply(command == COMMAND_DO, value);
+                }
+                else if(value == OPTION_EXTEND_ASCII) {
+                    negotiationState.extendedAscii = (command == COMMAND_DO);
+                    listener.requestReply(command == COMMAND_DO, value);
+                }
+                else {
+                    negotiationState.onUnsupportedRequestCommand(command == COMMAND_DO, value);
+                }
+                break;
+            case COMMAND_WILL:
+            case COMMAND_WONT:
+                if(value == OPTION_ECHO) {
+                    negotiationState.clientEcho = (command == COMMAND_WILL);
+                }
+                else if(value == OPTION_LINEMODE) {
+                    negotiationState.clientLineMode0 = (command == COMMAND_WILL);
+                }
+                else if(value == OPTION_NAWS) {
+                    negotiationState.clientResizeNotification = (command == COMMAND_WILL);
+                }
+                else {
+                    negotiationState.onUnsupportedStateCommand(command == COMMAND_WILL, value);
+                }
+                break;
+        }
+    }
+
+    private void onSubnegotiation(byte option, byte[] additionalData) {
+        switch(option) {
+            case OPTION_NAWS:
+                if(additionalData.length >= 4) {
+                    listener.onResize(
+                            ((additionalData[0] & 0xFF) << 8) | (additionalData[1] & 0xFF),
+                            ((additionalData[2] & 0xFF) << 8) | (additionalData[3] & 0xFF));
+                }
+                break;
+            case OPTION_LINEMODE:
+                //We don't parse this, as this is a very complicated command :(
+                break;
+            default:
+                negotiationState.onUnsupportedSubnegotiation(option, additionalData);
+                break;
+        }
+    }
+}
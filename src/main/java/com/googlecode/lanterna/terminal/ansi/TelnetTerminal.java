@@ -25,6 +25,7 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.ArrayList;
@@ -65,8 +66,10 @@ public class TelnetTerminal extends ANSITerminal {
             @Override
             public void requestReply(boolean will, byte option) throws IOException {
                 writeToTerminal(COMMAND_IAC, will ? COMMAND_WILL : COMMAND_WONT, option);
+                flush();
             }
         });
+        getInputDecoder().setInputWaiter(inputStream::waitForInput);
         setLineMode0();
         setEchoOff();
         setResizeNotificationOn();
@@ -122,11 +125,11 @@ public class TelnetTerminal extends ANSITerminal {
      * support all of them but the more common ones are represented.
      */
     public static class NegotiationState {
-        private boolean clientEcho;
-        private boolean clientLineMode0;
-        private boolean clientResizeNotification;
-        private boolean suppressGoAhead;
-        private boolean extendedAscii;
+        boolean clientEcho;
+        boolean clientLineMode0;
+        boolean clientResizeNotification;
+        boolean suppressGoAhead;
+        boolean extendedAscii;
 
         NegotiationState() {
             this.clientEcho = true;
@@ -178,15 +181,15 @@ public class TelnetTerminal extends ANSITerminal {
             return extendedAscii;
         }
         
-        private void onUnsupportedStateCommand(boolean enabling, byte value) {
+        void onUnsupportedStateCommand(boolean enabling, byte value) {
             System.err.println("Unsupported operation: Client says it " + (enabling ? "will" : "won't") + " do " + TelnetProtocol.CODE_TO_NAME.get(value));
         }
 
-        private void onUnsupportedRequestCommand(boolean askedToDo, byte value) {
+        void onUnsupportedRequestCommand(boolean askedToDo, byte value) {
             System.err.println("Unsupported request: Client asks us, " + (askedToDo ? "do" : "don't") + " " + TelnetProtocol.CODE_TO_NAME.get(value));
         }
 
-        private void onUnsupportedSubnegotiation(byte option, byte[] additionalData) {
+        void onUnsupportedSubnegotiation(byte option, byte[] additionalData) {
             System.err.println("Unsupported subnegotiation: Client send " + TelnetProtocol.CODE_TO_NAME.get(option) + " with extra data " +
                     toList(additionalData));
         }
@@ -268,6 +271,28 @@ public class TelnetTerminal extends ANSITerminal {
             return bytesToCopy;
         }
 
+        /**
+         * Waits on the socket for up to the given time, used by the input decoder while waiting for the rest of an
+         * escape sequence
+         */
+        boolean waitForInput(long timeoutMillis) throws IOException {
+            if(bytesInBuffer != 0) {
+                return true;
+            }
+            int oldTimeout = socket.getSoTimeout();
+            socket.setSoTimeout((int)Math.min(Integer.MAX_VALUE, timeoutMillis));
+            try {
+                fillBuffer(true);
+            }
+            catch(SocketTimeoutException e) {
+                return false;
+            }
+            finally {
+                socket.setSoTimeout(oldTimeout);
+            }
+            return bytesInBuffer != 0;
+        }
+
         private void fillBuffer(boolean block) throws IOException {
             int maxFill = Math.min(workingBuffer.length, buffer.length - bytesInBuffer);
 
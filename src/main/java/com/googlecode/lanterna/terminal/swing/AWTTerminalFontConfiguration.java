@@ -244,7 +244,7 @@ public class AWTTerminalFontConfiguration {
      * @return Font which the {@code character} should be drawn using
      */
     Font getFontForCharacter(TextCharacter character) {
-        Font normalFont = getFontForCharacter(character.getCharacter());
+        Font normalFont = getFontForCharacter(character.getCharacterString());
         if(boldMode == BoldMode.EVERYTHING || (boldMode == BoldMode.EVERYTHING_BUT_SYMBOLS && isNotASymbol(character.getCharacter()))) {
             if(character.isBold()) {
                 normalFont = normalFont.deriveFont(Font.BOLD);
@@ -256,9 +256,9 @@ public class AWTTerminalFontConfiguration {
         return normalFont;
     }
 
-    private Font getFontForCharacter(char c) {
+    private Font getFontForCharacter(String character) {
         for(Font font: fontPriority) {
-            if(font.canDisplay(c)) {
+            if(font.canDisplayUpTo(character) == -1) {
                 return font;
             }
         }
@@ -126,6 +126,16 @@ class AWTTerminalImplementation extends GraphicalTerminalImplementation {
         }
     }
 
+    @Override
+    protected void repaint(Rectangle area) {
+        if(EventQueue.isDispatchThread()) {
+            component.repaint(area.x, area.y, area.width, area.height);
+        }
+        else {
+            EventQueue.invokeLater(() -> component.repaint(area.x, area.y, area.width, area.height));
+        }
+    }
+
     @Override
     public KeyStroke readInput() {
         if(EventQueue.isDispatchThread()) {
@@ -0,0 +1,204 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.swing;
+
+import com.googlecode.lanterna.TextCharacter;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.function.Function;
+
+/**
+ * Cache of pre-rendered character cells for {@link GraphicalTerminalImplementation}. The cells are kept in an atlas, a
+ * single image divided into slots large enough for one CJK character. Each slot holds a cell with the background filled
+ * in and the character, together with any underline or strike-through line, drawn on top, exactly as it would have been
+ * drawn directly into the back buffer. Drawing a cell that has been seen before is then a copy from the atlas, without
+ * looking up the font or laying out any text.
+ * <p>
+ * Cells are keyed on the character, the style attributes that affect how it's drawn, the final foreground and background
+ * colors and the cell width. When the atlas is full, the slot of the least recently used cell is drawn over. If a single
+ * frame needs more different cells than the atlas can hold, they would just keep pushing each other out, so after
+ * enough of them the rest of that frame is drawn directly instead. This class is not thread safe, the terminal
+ * implementation only uses it while holding its own lock.
+ */
+class GlyphCache {
+    private static final int BOLD = 1;
+    private static final int ITALIC = 2;
+    private static final int UNDERLINED = 4;
+    private static final int CROSSED_OUT = 8;
+    private static final int ATLAS_COLUMNS = 32;
+
+    private final Function<TextCharacter, Font> fontProvider;
+    private final int fontHeight;
+    private final int slotWidth;
+    private final int slotCount;
+    private final BufferedImage atlas;
+    private final Graphics2D atlasGraphics;
+    private final LinkedHashMap<TileKey, Integer> slots;
+    private final TileKey lookupKey;
+    private int evictionsInFrame;
+
+    /**
+     * Creates a new, empty, glyph cache
+     * @param fontProvider Function that picks the font to draw a character with
+     * @param antiAliased If {@code true}, text is drawn anti-aliased
+     * @param fontWidth Width of a normal cell, in pixels
+     * @param fontHeight Height of a cell, in pixels
+     * @param slotCount How many cells the atlas can hold
+     */
+    GlyphCache(Function<TextCharacter, Font> fontProvider, boolean antiAliased, int fontWidth, int fontHeight, int slotCount) {
+        this.fontProvider = fontProvider;
+        this.fontHeight = fontHeight;
+        this.slotWidth = fontWidth * 2;
+        this.slotCount = slotCount;
+        this.atlas = new BufferedImage(
+                slotWidth * ATLAS_COLUMNS,
+                fontHeight * ((slotCount + ATLAS_COLUMNS - 1) / ATLAS_COLUMNS),
+                BufferedImage.TYPE_INT_RGB);
+        this.atlasGraphics = atlas.createGraphics();
+        if(antiAliased) {
+            atlasGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            atlasGraphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        }
+        this.slots = new LinkedHashMap<>(slotCount * 4 / 3 + 1, 0.75f, true);
+        this.lookupKey = new TileKey();
+        this.evictionsInFrame = 0;
+    }
+
+    /**
+     * Called before drawing a new frame, to reset the count of how many cells have been replaced in the atlas
+     */
+    void startFrame() {
+        evictionsInFrame = 0;
+    }
+
+    /**
+     * Draws a character cell, taking it from the atlas if it's there and otherwise rendering it into the atlas first
+     * @param g Graphics to draw the cell on
+     * @param character Character to draw
+     * @param foregroundColor Color to draw the character with
+     * @param backgroundColor Color to fill the cell with
+     * @param width Width of the cell, in pixels, either one or two times the font width
+     * @param x Left edge of the cell on {@code g}
+     * @param y Top edge of the cell on {@code g}
+     */
+    void drawCell(Graphics g, TextCharacter character, Color foregroundColor, Color backgroundColor, int width, int x, int y) {
+        int style = (character.isBold() ? BOLD : 0) |
+                (character.isItalic() ? ITALIC : 0) |
+                (character.isUnderlined() ? UNDERLINED : 0) |
+                (character.isCrossedOut() ? CROSSED_OUT : 0);
+        lookupKey.set(character.getCharacterCode(), style, foregroundColor.getRGB(), backgroundColor.getRGB(), width);
+        Integer slot = slots.get(lookupKey);
+        if(slot == null) {
+            if(slots.size() < slotCount) {
+                slot = slots.size();
+            }
+            else if(evictionsInFrame >= slotCount / 2) {
+                // This frame doesn't fit in the atlas, caching more of it would only throw out cells we need again
+                renderCell(g, character, foregroundColor, backgroundColor, width, x, y);
+                g.setClip(null);
+                return;
+            }
+            else {
+                Iterator<Integer> leastRecentlyUsed = slots.values().iterator();
+                slot = leastRecentlyUsed.next();
+                leastRecentlyUsed.remove();
+                evictionsInFrame++;
+            }
+            renderCell(atlasGraphics, character, foregroundColor, backgroundColor, width,
+                    (slot % ATLAS_COLUMNS) * slotWidth, (slot / ATLAS_COLUMNS) * fontHeight);
+            slots.put(lookupKey.copy(), slot);
+        }
+        int sourceX = (slot % ATLAS_COLUMNS) * slotWidth;
+        int sourceY = (slot / ATLAS_COLUMNS) * fontHeight;
+        g.drawImage(atlas,
+                x, y, x + width, y + fontHeight,
+                sourceX, sourceY, sourceX + width, sourceY + fontHeight,
+                null);
+    }
+
+    private void renderCell(Graphics g, TextCharacter character, Color foregroundColor, Color backgroundColor, int width, int x, int y) {
+        g.setColor(backgroundColor);
+        g.setClip(x, y, width, fontHeight);
+        g.fillRect(x, y, width, fontHeight);
+
+        g.setColor(foregroundColor);
+        g.setFont(fontProvider.apply(character));
+        FontMetrics fontMetrics = g.getFontMetrics();
+        int baseline = y + fontHeight - fontMetrics.getDescent() + 1;
+        g.drawString(character.getCharacterString(), x, baseline);
+
+        if(character.isCrossedOut()) {
+            g.drawLine(x, y + (fontHeight / 2), x + width, y + (fontHeight / 2));
+        }
+        if(character.isUnderlined()) {
+            g.drawLine(x, baseline, x + width, baseline);
+        }
+    }
+
+    private static class TileKey {
+        private int character;
+        private int style;
+        private int foregroundRGB;
+        private int backgroundRGB;
+        private int width;
+
+        void set(int character, int style, int foregroundRGB, int backgroundRGB, int width) {
+            this.character = character;
+            this.style = style;
+            this.foregroundRGB = foregroundRGB;
+            this.backgroundRGB = backgroundRGB;
+            this.width = width;
+        }
+
+        TileKey copy() {
+            TileKey copy = new TileKey();
+            copy.set(character, style, foregroundRGB, backgroundRGB, width);
+            return copy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if(this == o) {
+                return true;
+            }
+            if(o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            TileKey other = (TileKey)o;
+            return character == other.character &&
+                    style == other.style &&
+                    foregroundRGB == other.foregroundRGB &&
+                    backgroundRGB == other.backgroundRGB &&
+                    width == other.width;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = character;
+            result = 31 * result + style;
+            result = 31 * result + foregroundRGB;
+            result = 31 * result + backgroundRGB;
+            result = 31 * result + width;
+            return result;
+        }
+    }
+}
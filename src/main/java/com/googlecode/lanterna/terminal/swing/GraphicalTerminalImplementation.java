@@ -50,6 +50,9 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * @author martin
  */
 abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
+    // How many pre-rendered character cells to keep, a full screen of mixed colors rarely needs more than a few hundred
+    private static final int GLYPH_CACHE_SIZE = 2048;
+
     private final TerminalEmulatorDeviceConfiguration deviceConfiguration;
     private final TerminalEmulatorColorConfiguration colorConfiguration;
     private final DefaultVirtualTerminal virtualTerminal;
@@ -61,8 +64,9 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
 
     private boolean cursorIsVisible;
     private boolean enableInput;
-    private Timer blinkTimer;
+    private AnimationScheduler.Animation blinkAnimation;
     private boolean hasBlinkingText;
+    private boolean hasBlinkingCharacters;
     private boolean blinkOn;
     private boolean bellOn;
     private boolean needFullRedraw;
@@ -83,6 +87,13 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
     // Used as a middle-ground when copying large segments when scrolling
     private BufferedImage copybuffer;
 
+    // Area of the back buffer changed by the last update, null if the whole back buffer may have changed
+    private Rectangle updatedArea;
+
+    // Pre-rendered character cells, created on the first update since the font configuration isn't available earlier.
+    // The font configuration never changes after that, so neither does the cell size.
+    private GlyphCache glyphCache;
+
     /**
      * Creates a new GraphicalTerminalImplementation component using custom settings and a custom scroll controller. The
      * scrolling controller will be notified when the terminal's history size grows and will be called when this class
@@ -122,7 +133,8 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
         this.lastComponentWidth = 0;
         this.backbuffer = null;  // We don't know the dimensions yet
         this.copybuffer = null;
-        this.blinkTimer = null;
+        this.glyphCache = null;
+        this.blinkAnimation = null;
         this.hasBlinkingText = false;   // Assume initial content doesn't have any blinking text
         this.blinkOn = true;
         this.needFullRedraw = false;
@@ -187,6 +199,13 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
      */
     abstract void repaint();
 
+    /**
+     * Called by the {@code GraphicalTerminalImplementation} when it would like the OS to schedule a repaint of a part of
+     * the window
+     * @param area Area to repaint, in pixels
+     */
+    abstract void repaint(Rectangle area);
+
     synchronized void onCreated() {
         startBlinkTimer();
         enableInput = true;
@@ -204,35 +223,32 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
     }
 
     /**
-     * Start the timer that triggers blinking
+     * Start the timer that triggers blinking, on the default {@link AnimationScheduler} so that all terminals blinking
+     * at the same rate share one timer
      */
     synchronized void startBlinkTimer() {
-        if(blinkTimer != null) {
+        if(blinkAnimation != null) {
             // Already on!
             return;
         }
-        blinkTimer = new Timer("LanternaTerminalBlinkTimer", true);
-        blinkTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                blinkOn = !blinkOn;
-                if(hasBlinkingText) {
-                    repaint();
-                }
+        blinkAnimation = AnimationScheduler.getDefault().schedule(() -> {
+            blinkOn = !blinkOn;
+            if(hasBlinkingText) {
+                repaint();
             }
-        }, deviceConfiguration.getBlinkLengthInMilliSeconds(), deviceConfiguration.getBlinkLengthInMilliSeconds());
+        }, deviceConfiguration.getBlinkLengthInMilliSeconds());
     }
 
     /**
      * Stops the timer the triggers blinking
      */
     synchronized void stopBlinkTimer() {
-        if(blinkTimer == null) {
+        if(blinkAnimation == null) {
             // Already off!
             return;
         }
-        blinkTimer.cancel();
-        blinkTimer = null;
+        blinkAnimation.cancel();
+        blinkAnimation = null;
     }
 
     ///////////
@@ -278,15 +294,19 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
             needToUpdateBackBuffer = true;
         }
 
+        Rectangle clipBounds = componentGraphics.getClipBounds();
+        if(clipBounds == null) {
+            clipBounds = new Rectangle(0, 0, getWidth(), getHeight());
+        }
         if(needToUpdateBackBuffer) {
             updateBackBuffer(scrollController.getScrollingOffset());
+            if(updatedArea == null || (!updatedArea.isEmpty() && !clipBounds.contains(updatedArea))) {
+                // We were only asked to paint a part of the component but more than that has changed
+                repaint();
+            }
         }
 
         ensureGraphicBufferHasRightSize();
-        Rectangle clipBounds = componentGraphics.getClipBounds();
-        if(clipBounds == null) {
-            clipBounds = new Rectangle(0, 0, getWidth(), getHeight());
-        }
         componentGraphics.drawImage(
                 backbuffer,
                 // Destination coordinates
@@ -337,8 +357,14 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
             backbufferGraphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
         }
 
-        final AtomicBoolean foundBlinkingCharacters = new AtomicBoolean(deviceConfiguration.isCursorBlinking());
+        if(glyphCache == null) {
+            glyphCache = new GlyphCache(this::getFontForCharacter, isTextAntiAliased(), fontWidth, fontHeight, GLYPH_CACHE_SIZE);
+        }
+        glyphCache.startFrame();
+
+        final AtomicBoolean foundBlinkingCharacters = new AtomicBoolean(false);
         buildDirtyCellsLookupTable(firstVisibleRowIndex, lastVisibleRowIndex);
+        updatedArea = new Rectangle();
 
         // Detect scrolling
         if(lastBufferUpdateScrollPosition < scrollOffsetFromTopInPixels) {
@@ -349,6 +375,7 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
                 graphics.drawImage(backbuffer, 0, -gap, null);
                 graphics.dispose();
                 backbufferGraphics.drawImage(copybuffer, 0, 0, getWidth(), getHeight(), 0, 0, getWidth(), getHeight(), null);
+                updatedArea = null;
                 if(!dirtyCellsLookupTable.isAllDirty()) {
                     //Mark bottom rows as dirty so they are repainted
                     int previousLastVisibleRowIndex = (lastBufferUpdateScrollPosition + getHeight()) / fontHeight;
@@ -369,6 +396,7 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
                 graphics.drawImage(backbuffer, 0, 0, null);
                 graphics.dispose();
                 backbufferGraphics.drawImage(copybuffer, 0, gap, getWidth(), getHeight(), 0, 0, getWidth(), getHeight() - gap, null);
+                updatedArea = null;
                 if(!dirtyCellsLookupTable.isAllDirty()) {
                     //Mark top rows as dirty so they are repainted
                     int previousFirstVisibleRowIndex = lastBufferUpdateScrollPosition / fontHeight;
@@ -403,24 +431,33 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
             }
         }
 
+        if(dirtyCellsLookupTable.isAllDirty()) {
+            updatedArea = null;
+        }
+        // Unless there is blinking text, which needs to be redrawn everywhere, we only need to look at dirty rows
+        final boolean onlyDirtyRows = !dirtyCellsLookupTable.isAllDirty() && !hasBlinkingCharacters;
         virtualTerminal.forEachLine(firstVisibleRowIndex, lastVisibleRowIndex, (rowNumber, bufferLine) -> {
+            if(onlyDirtyRows && !dirtyCellsLookupTable.isRowDirty(rowNumber)) {
+                return;
+            }
             for(int column = 0; column < viewportSize.getColumns(); column++) {
                 TextCharacter textCharacter = bufferLine.getCharacterAt(column);
                 boolean atCursorLocation = cursorPosition.equals(column, rowNumber);
                 //If next position is the cursor location and this is a CJK character (i.e. cursor is on the padding),
                 //consider this location the cursor position since otherwise the cursor will be skipped
+                boolean isDoubleWidth = textCharacter.isDoubleWidth();
                 if(!atCursorLocation &&
                         cursorPosition.getColumn() == column + 1 &&
                         cursorPosition.getRow() == rowNumber &&
-                        TerminalTextUtils.isCharCJK(textCharacter.getCharacter())) {
+                        isDoubleWidth) {
                     atCursorLocation = true;
                 }
-                boolean isBlinking = textCharacter.getModifiers().contains(SGR.BLINK);
+                boolean isBlinking = textCharacter.isBlinking();
                 if(isBlinking) {
                     foundBlinkingCharacters.set(true);
                 }
                 if(dirtyCellsLookupTable.isAllDirty() || dirtyCellsLookupTable.isDirty(rowNumber, column) || isBlinking) {
-                    int characterWidth = fontWidth * (TerminalTextUtils.isCharCJK(textCharacter.getCharacter()) ? 2 : 1);
+                    int characterWidth = fontWidth * (isDoubleWidth ? 2 : 1);
                     Color foregroundColor = deriveTrueForegroundColor(textCharacter, atCursorLocation);
                     Color backgroundColor = deriveTrueBackgroundColor(textCharacter, atCursorLocation);
                     //Always draw if the cursor isn't blinking
@@ -444,8 +481,16 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
                             characterWidth,
                             scrollOffsetFromTopInPixels,
                             drawCursor);
+                    if(updatedArea != null) {
+                        Rectangle cellArea = new Rectangle(
+                                column * fontWidth,
+                                rowNumber * fontHeight - scrollOffsetFromTopInPixels,
+                                characterWidth,
+                                fontHeight);
+                        updatedArea = updatedArea.isEmpty() ? cellArea : updatedArea.union(cellArea);
+                    }
                 }
-                if(TerminalTextUtils.isCharCJK(textCharacter.getCharacter())) {
+                if(isDoubleWidth) {
                     column++; //Skip the trailing space after a CJK character
                 }
             }
@@ -454,7 +499,8 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
         backbufferGraphics.dispose();
 
         // Update the blink status according to if there were any blinking characters or not
-        this.hasBlinkingText = foundBlinkingCharacters.get();
+        this.hasBlinkingCharacters = foundBlinkingCharacters.get();
+        this.hasBlinkingText = hasBlinkingCharacters || deviceConfiguration.isCursorBlinking();
         this.lastDrawnCursorPosition = cursorPosition;
         this.lastBufferUpdateScrollPosition = scrollOffsetFromTopInPixels;
         this.needFullRedraw = false;
@@ -483,10 +529,7 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
             dirtyCellsLookupTable.setDirty(lastDrawnCursorPosition);
         }
 
-        TreeSet<TerminalPosition> dirtyCells = virtualTerminal.getAndResetDirtyCells();
-        for(TerminalPosition position: dirtyCells) {
-            dirtyCellsLookupTable.setDirty(position);
-        }
+        virtualTerminal.getAndResetDirtyCellSpans().forEachSpan(dirtyCellsLookupTable::setDirty);
     }
 
     private void ensureGraphicBufferHasRightSize() {
@@ -530,30 +573,9 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
 
         int x = columnIndex * fontWidth;
         int y = rowIndex * fontHeight - scrollingOffsetInPixels;
-        g.setColor(backgroundColor);
-        g.setClip(x, y, characterWidth, fontHeight);
-        g.fillRect(x, y, characterWidth, fontHeight);
-
-        g.setColor(foregroundColor);
-        Font font = getFontForCharacter(character);
-        g.setFont(font);
-        FontMetrics fontMetrics = g.getFontMetrics();
-        g.drawString(Character.toString(character.getCharacter()), x, y + fontHeight - fontMetrics.getDescent() + 1);
-
-        if(character.isCrossedOut()) {
-            //noinspection UnnecessaryLocalVariable
-            int lineStartX = x;
-            int lineStartY = y + (fontHeight / 2);
-            int lineEndX = lineStartX + characterWidth;
-            g.drawLine(lineStartX, lineStartY, lineEndX, lineStartY);
-        }
-        if(character.isUnderlined()) {
-            //noinspection UnnecessaryLocalVariable
-            int lineStartX = x;
-            int lineStartY = y + fontHeight - fontMetrics.getDescent() + 1;
-            int lineEndX = lineStartX + characterWidth;
-            g.drawLine(lineStartX, lineStartY, lineEndX, lineStartY);
-        }
+
+        // The background, the character and any underline or strike-through are all part of the cached cell
+        glyphCache.drawCell(g, character, foregroundColor, backgroundColor, characterWidth, x, y);
 
         if(drawCursor) {
             if(deviceConfiguration.getCursorColor() == null) {
@@ -770,20 +792,12 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
         needFullRedraw = true;
         updateBackBuffer(scrollController.getScrollingOffset());
         repaint();
-        // Unify this with the blink timer and just do the whole timer logic ourselves?
-        new Thread("BellSilencer") {
-            @Override
-            public void run() {
-                try {
-                    Thread.sleep(100);
-                }
-                catch(InterruptedException ignore) {}
-                bellOn = false;
-                needFullRedraw = true;
-                updateBackBuffer(scrollController.getScrollingOffset());
-                repaint();
-            }
-        }.start();
+        AnimationScheduler.getDefault().scheduleOnce(() -> {
+            bellOn = false;
+            needFullRedraw = true;
+            updateBackBuffer(scrollController.getScrollingOffset());
+            repaint();
+        }, 100);
 
         // ...and make a sound
         Toolkit.getDefaultToolkit().beep();
@@ -792,7 +806,13 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
     @Override
     public synchronized void flush() {
         updateBackBuffer(scrollController.getScrollingOffset());
-        repaint();
+        if(updatedArea == null) {
+            repaint();
+        }
+        else if(!updatedArea.isEmpty()) {
+            // Only copy the part of the back buffer that has changed to the screen, typically a single line
+            repaint(updatedArea);
+        }
     }
 
     @Override
@@ -1052,6 +1072,16 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
             }
         }
 
+        void setDirty(int row, int firstColumn, int lastColumn) {
+            if(row < firstRowIndex || row >= firstRowIndex + table.size()) {
+                return;
+            }
+            BitSet tableRow = table.get(row - firstRowIndex);
+            if(firstColumn < tableRow.size()) {
+                tableRow.set(firstColumn, Math.min(lastColumn + 1, tableRow.size()));
+            }
+        }
+
         void setRowDirty(int rowNumber) {
             BitSet row = table.get(rowNumber - firstRowIndex);
             row.set(0, row.size());
@@ -1065,6 +1095,13 @@ abstract class GraphicalTerminalImplementation implements IOSafeTerminal {
             }
         }
 
+        boolean isRowDirty(int row) {
+            if(row < firstRowIndex || row >= firstRowIndex + table.size()) {
+                return false;
+            }
+            return !table.get(row - firstRowIndex).isEmpty();
+        }
+
         boolean isDirty(int row, int column) {
             if(row < firstRowIndex || row >= firstRowIndex + table.size()) {
                 return false;
@@ -133,6 +133,16 @@ class SwingTerminalImplementation extends GraphicalTerminalImplementation {
         }
     }
 
+    @Override
+    protected void repaint(Rectangle area) {
+        if(SwingUtilities.isEventDispatchThread()) {
+            component.repaint(area);
+        }
+        else {
+            SwingUtilities.invokeLater(() -> component.repaint(area));
+        }
+    }
+
     @Override
     public com.googlecode.lanterna.input.KeyStroke readInput() {
         if(SwingUtilities.isEventDispatchThread()) {
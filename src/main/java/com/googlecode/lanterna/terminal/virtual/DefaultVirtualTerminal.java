@@ -32,7 +32,7 @@ import java.util.concurrent.TimeUnit;
 public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualTerminal {
     private final TextBuffer regularTextBuffer;
     private final TextBuffer privateModeTextBuffer;
-    private final TreeSet<TerminalPosition> dirtyTerminalCells;
+    private DirtyCells dirtyTerminalCells;
     private final List<VirtualTerminalListener> listeners;
 
     private TextBuffer currentTextBuffer;
@@ -53,6 +53,14 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
     // Used when switching back from private mode, to restore the earlier cursor position
     private TerminalPosition savedCursorPosition;
 
+    // The high surrogate of a code point outside the BMP, waiting for the low surrogate to be put
+    private char pendingHighSurrogate;
+    // The last character put through putCharacter(char) and where it went, so that combining marks and anything else
+    // continuing its grapheme cluster can be added to the same cell
+    private TextCharacter lastCharacter;
+    private TerminalPosition lastCharacterPosition;
+    private TerminalPosition cursorPositionAfterLastCharacter;
+
 
     /**
      * Creates a new virtual terminal with an initial size set
@@ -68,7 +76,7 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
     public DefaultVirtualTerminal(TerminalSize initialTerminalSize) {
         this.regularTextBuffer = new TextBuffer();
         this.privateModeTextBuffer = new TextBuffer();
-        this.dirtyTerminalCells = new TreeSet<>();
+        this.dirtyTerminalCells = new DirtyCells();
         this.listeners = new ArrayList<>();
 
         // Terminal state
@@ -164,12 +172,62 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
 
     @Override
     public synchronized void putCharacter(char c)  {
+        if(Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+            return;
+        }
+        int codePoint = c;
+        if(Character.isLowSurrogate(c)) {
+            if(pendingHighSurrogate == 0) {
+                return;
+            }
+            codePoint = Character.toCodePoint(pendingHighSurrogate, c);
+        }
+        pendingHighSurrogate = 0;
         if(c == '\n') {
             moveCursorToNextLine();
         }
         else if(TerminalTextUtils.isPrintableCharacter(c)) {
-            putCharacter(new TextCharacter(c, activeForegroundColor, activeBackgroundColor, activeModifiers));
+            // Nothing below U+0300 continues a grapheme cluster
+            if(codePoint >= 0x300 && continueLastCharacter(codePoint)) {
+                return;
+            }
+            TextCharacter textCharacter = TextCharacter.fromCharacterCode(codePoint, activeForegroundColor, activeBackgroundColor, activeModifiers);
+            putCharacter(textCharacter);
+            rememberLastCharacter(textCharacter);
+        }
+    }
+
+    /**
+     * Adds a code point to the grapheme cluster of the character that was put just before, if nothing else has
+     * happened to the terminal in between and the code point is one that continues a cluster, like a combining mark
+     */
+    private boolean continueLastCharacter(int codePoint) {
+        if(lastCharacter == null ||
+                !cursorPosition.equals(cursorPositionAfterLastCharacter) ||
+                !currentTextBuffer.getCharacter(lastCharacterPosition.getRow(), lastCharacterPosition.getColumn()).equals(lastCharacter)) {
+            return false;
         }
+        String cluster = new StringBuilder(lastCharacter.getCharacterString()).appendCodePoint(codePoint).toString();
+        if(TerminalTextUtils.getGraphemeClusterEnd(cluster, 0) != cluster.length()) {
+            return false;
+        }
+        TextCharacter textCharacter = TextCharacter.fromCharacterCode(
+                GraphemeClusters.toCharacterCode(cluster),
+                lastCharacter.getForegroundColor(),
+                lastCharacter.getBackgroundColor(),
+                lastCharacter.getModifiers());
+        // The cluster can become wider, so put it again at the same place
+        cursorPosition = lastCharacterPosition;
+        putCharacter(textCharacter);
+        rememberLastCharacter(textCharacter);
+        return true;
+    }
+
+    private void rememberLastCharacter(TextCharacter textCharacter) {
+        lastCharacter = textCharacter;
+        lastCharacterPosition = cursorPosition.withRelativeColumn(textCharacter.isDoubleWidth() ? -2 : -1);
+        cursorPositionAfterLastCharacter = cursorPosition;
     }
 
     @Override
@@ -226,12 +284,13 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
     }
 
     @Override
-    public synchronized KeyStroke pollInput() {
+    public KeyStroke pollInput() {
         return inputQueue.poll();
     }
 
     @Override
-    public synchronized KeyStroke readInput() {
+    public KeyStroke readInput() {
+        // Not synchronized, the queue is thread-safe and holding the terminal lock here would block all output
         try {
             return inputQueue.take();
         }
@@ -277,13 +336,23 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
     }
 
     public synchronized TreeSet<TerminalPosition> getDirtyCells() {
-        return new TreeSet<>(dirtyTerminalCells);
+        return dirtyTerminalCells.toPositions();
     }
 
     public synchronized TreeSet<TerminalPosition> getAndResetDirtyCells() {
-        TreeSet<TerminalPosition> copy = new TreeSet<>(dirtyTerminalCells);
-        dirtyTerminalCells.clear();
-        return copy;
+        return getAndResetDirtyCellSpans().toPositions();
+    }
+
+    /**
+     * Returns the cells that have changed since the last time this method (or {@link #getAndResetDirtyCells()}) was
+     * called and starts over with no dirty cells. Unlike {@link #getAndResetDirtyCells()}, this doesn't create an
+     * object for every cell, and the cells can be read back as spans of columns on each row.
+     * @return Cells that have changed, this object isn't modified by the terminal afterwards
+     */
+    public synchronized DirtyCells getAndResetDirtyCellSpans() {
+        DirtyCells dirtyCells = dirtyTerminalCells;
+        dirtyTerminalCells = new DirtyCells();
+        return dirtyCells;
     }
 
     public synchronized boolean isWholeBufferDirtyThenReset() {
@@ -323,17 +392,11 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
     @Override
     public synchronized void forEachLine(int startRow, int endRow, BufferWalker bufferWalker) {
         final BufferLine emptyLine = column -> TextCharacter.DEFAULT_CHARACTER;
-        ListIterator<List<TextCharacter>> iterator = currentTextBuffer.getLinesFrom(startRow);
+        int lineCount = currentTextBuffer.getLineCount();
         for(int row = startRow; row <= endRow; row++) {
             BufferLine bufferLine = emptyLine;
-            if(iterator.hasNext()) {
-                final List<TextCharacter> list = iterator.next();
-                bufferLine = column -> {
-                    if(column >= list.size()) {
-                        return TextCharacter.DEFAULT_CHARACTER;
-                    }
-                    return list.get(column);
-                };
+            if(row < lineCount) {
+                bufferLine = currentTextBuffer.getLine(row);
             }
             bufferWalker.onLine(row, bufferLine);
         }
@@ -347,7 +410,7 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
             }
         }
         else {
-            boolean doubleWidth = TerminalTextUtils.isCharDoubleWidth(terminalCharacter.getCharacter());
+            boolean doubleWidth = terminalCharacter.isDoubleWidth();
             // If we're at the last column and the user tries to print a double-width character, reset the cell and move
             // to the next line
             if(cursorPosition.getColumn() == terminalSize.getColumns() - 1 && doubleWidth) {
@@ -361,12 +424,12 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
             // Update the buffer
             int i = currentTextBuffer.setCharacter(cursorPosition.getRow(), cursorPosition.getColumn(), terminalCharacter);
             if(!wholeBufferDirty) {
-                dirtyTerminalCells.add(new TerminalPosition(cursorPosition.getColumn(), cursorPosition.getRow()));
+                dirtyTerminalCells.add(cursorPosition.getColumn(), cursorPosition.getRow());
                 if(i == 1) {
-                    dirtyTerminalCells.add(new TerminalPosition(cursorPosition.getColumn() + 1, cursorPosition.getRow()));
+                    dirtyTerminalCells.add(cursorPosition.getColumn() + 1, cursorPosition.getRow());
                 }
                 else if(i == 2) {
-                    dirtyTerminalCells.add(new TerminalPosition(cursorPosition.getColumn() - 1, cursorPosition.getRow()));
+                    dirtyTerminalCells.add(cursorPosition.getColumn() - 1, cursorPosition.getRow());
                 }
                 if(dirtyTerminalCells.size() > (terminalSize.getColumns() * terminalSize.getRows() * 0.9)) {
                     setWholeBufferDirty();
@@ -416,15 +479,7 @@ public class DefaultVirtualTerminal extends AbstractTerminal implements VirtualT
             correctCursor();
             if(!wholeBufferDirty) {
                 // Adjust all "dirty" positions
-                TreeSet<TerminalPosition> newDirtySet = new TreeSet<>();
-                for(TerminalPosition dirtyPosition: dirtyTerminalCells) {
-                    TerminalPosition adjustedPosition = dirtyPosition.withRelativeRow(-trimBacklogRows);
-                    if(adjustedPosition.getRow() >= 0) {
-                        newDirtySet.add(adjustedPosition);
-                    }
-                }
-                dirtyTerminalCells.clear();
-                dirtyTerminalCells.addAll(newDirtySet);
+                dirtyTerminalCells.removeTopRows(trimBacklogRows);
             }
         }
     }
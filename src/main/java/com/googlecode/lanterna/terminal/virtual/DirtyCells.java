@@ -0,0 +1,215 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.virtual;
+
+import com.googlecode.lanterna.TerminalPosition;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Set of cells in a {@link DefaultVirtualTerminal} that have changed, stored as one bit set of columns per row that has
+ * any changes. Marking a cell is cheap, it doesn't allocate anything unless it's the first change on that row, and the
+ * changes can be read back as spans of consecutive columns, which is how a terminal emulator wants to redraw them.
+ * Rows are in buffer coordinates, i.e. relative to the top of the backlog.
+ * <p>
+ * Objects of this class are not thread-safe; the ones handed out by
+ * {@link DefaultVirtualTerminal#getAndResetDirtyCellSpans()} are no longer touched by the terminal.
+ *
+ * @author Martin
+ */
+public class DirtyCells {
+    /**
+     * Callback used by {@link #forEachSpan(SpanVisitor)}
+     */
+    public interface SpanVisitor {
+        /**
+         * Called for a span of dirty cells on a row
+         * @param row Row of the span
+         * @param firstColumn First dirty column of the span
+         * @param lastColumn Last dirty column of the span, inclusive
+         */
+        void onSpan(int row, int firstColumn, int lastColumn);
+    }
+
+    /**
+     * Callback used by {@link #forEachRowRange(RowRangeVisitor)}
+     */
+    public interface RowRangeVisitor {
+        /**
+         * Called for a range of consecutive rows that all have at least one dirty cell
+         * @param firstRow First row of the range
+         * @param lastRow Last row of the range, inclusive
+         */
+        void onRowRange(int firstRow, int lastRow);
+    }
+
+    // Keyed by the row number plus rowOffset, so removing rows from the top doesn't need to touch every entry
+    private final TreeMap<Integer, BitSet> rows;
+    private int rowOffset;
+    private int size;
+    // The row that was marked last, since changes usually come in long runs on the same row
+    private int lastRow;
+    private BitSet lastRowColumns;
+
+    DirtyCells() {
+        this.rows = new TreeMap<>();
+        this.rowOffset = 0;
+        this.size = 0;
+        this.lastRow = -1;
+        this.lastRowColumns = null;
+    }
+
+    void add(int column, int row) {
+        if(column < 0 || row < 0) {
+            return;
+        }
+        BitSet columns;
+        if(row == lastRow && lastRowColumns != null) {
+            columns = lastRowColumns;
+        }
+        else {
+            columns = rows.get(row + rowOffset);
+            if(columns == null) {
+                columns = new BitSet();
+                rows.put(row + rowOffset, columns);
+            }
+            lastRow = row;
+            lastRowColumns = columns;
+        }
+        if(!columns.get(column)) {
+            columns.set(column);
+            size++;
+        }
+    }
+
+    void clear() {
+        rows.clear();
+        size = 0;
+        lastRowColumns = null;
+    }
+
+    /**
+     * Moves all rows up, the way the text buffer does when lines are removed from the top of the backlog. Cells that
+     * end up above the first row are dropped.
+     * @param numberOfRows How many rows to move up
+     */
+    void removeTopRows(int numberOfRows) {
+        rowOffset += numberOfRows;
+        lastRowColumns = null;
+        Map<Integer, BitSet> removed = rows.headMap(rowOffset);
+        for(BitSet columns: removed.values()) {
+            size -= columns.cardinality();
+        }
+        removed.clear();
+    }
+
+    /**
+     * Returns {@code true} if there are no dirty cells
+     * @return {@code true} if there are no dirty cells
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns how many cells are dirty
+     * @return Number of dirty cells
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if a particular cell is dirty
+     * @param column Column of the cell
+     * @param row Row of the cell
+     * @return {@code true} if the cell is dirty
+     */
+    public boolean isDirty(int column, int row) {
+        BitSet columns = rows.get(row + rowOffset);
+        return column >= 0 && columns != null && columns.get(column);
+    }
+
+    /**
+     * Checks if a row has any dirty cells
+     * @param row Row to check
+     * @return {@code true} if at least one cell on the row is dirty
+     */
+    public boolean isRowDirty(int row) {
+        return rows.containsKey(row + rowOffset);
+    }
+
+    /**
+     * Calls the visitor once for every span of consecutive dirty cells, from the top row to the bottom and from left
+     * to right on each row
+     * @param visitor Visitor to call
+     */
+    public void forEachSpan(SpanVisitor visitor) {
+        for(Map.Entry<Integer, BitSet> entry: rows.entrySet()) {
+            int row = entry.getKey() - rowOffset;
+            BitSet columns = entry.getValue();
+            int firstColumn = columns.nextSetBit(0);
+            while(firstColumn >= 0) {
+                int endColumn = columns.nextClearBit(firstColumn);
+                visitor.onSpan(row, firstColumn, endColumn - 1);
+                firstColumn = columns.nextSetBit(endColumn);
+            }
+        }
+    }
+
+    /**
+     * Calls the visitor once for every range of consecutive rows that have dirty cells, from the top to the bottom
+     * @param visitor Visitor to call
+     */
+    public void forEachRowRange(RowRangeVisitor visitor) {
+        int firstRow = -1;
+        int lastRow = -1;
+        for(int key: rows.keySet()) {
+            int row = key - rowOffset;
+            if(firstRow >= 0 && row != lastRow + 1) {
+                visitor.onRowRange(firstRow, lastRow);
+                firstRow = -1;
+            }
+            if(firstRow < 0) {
+                firstRow = row;
+            }
+            lastRow = row;
+        }
+        if(firstRow >= 0) {
+            visitor.onRowRange(firstRow, lastRow);
+        }
+    }
+
+    /**
+     * Returns all dirty cells as a set of positions, with the column as x and the row as y
+     * @return Set of all dirty cells
+     */
+    public TreeSet<TerminalPosition> toPositions() {
+        TreeSet<TerminalPosition> positions = new TreeSet<>();
+        forEachSpan((row, firstColumn, lastColumn) -> {
+            for(int column = firstColumn; column <= lastColumn; column++) {
+                positions.add(new TerminalPosition(column, row));
+            }
+        });
+        return positions;
+    }
+}
@@ -18,48 +18,96 @@
  */
 package com.googlecode.lanterna.terminal.virtual;
 
+import com.googlecode.lanterna.GraphemeClusters;
 import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.graphics.PackedTextImage;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.Arrays;
 
 /**
  * This class is used to store lines of text inside of a terminal emulator. As used by {@link DefaultVirtualTerminal}, it keeps
  * two {@link TextBuffer}s, one for private mode and one for normal mode and it can switch between them as needed.
+ * <p>
+ * The lines are kept in a ring buffer, so looking up a line takes the same time no matter how long the backlog is and
+ * removing lines from the top only moves the start of the ring. The arrays of removed lines are kept in the ring and
+ * reused by the lines added after them, so once the backlog is full, scrolling doesn't allocate any more memory. When
+ * most of the ring is unused after lines have been removed, it's shrunk again.
+ * <p>
+ * Each line stores its cells the same way as {@link PackedTextImage}, as an array of raw characters and an array of
+ * packed styles, and {@code TextCharacter}s are only created when they are read back.
  */
 class TextBuffer {
-    private static final TextCharacter DOUBLE_WIDTH_CHAR_PADDING = new TextCharacter(' ');
+    private static final int MINIMUM_RING_SIZE = 32;
+    // Not a valid character code, marks the column to the right of a double-width character
+    private static final int DOUBLE_WIDTH_CHAR_PADDING = Integer.MAX_VALUE;
+    private static final long DEFAULT_STYLE = PackedTextImage.encodeStyle(TextCharacter.DEFAULT_CHARACTER);
 
-    private final LinkedList<List<TextCharacter>> lines;
+    private Line[] lines;
+    // Index in lines of the first line in the buffer
+    private int firstLine;
+    private int lineCount;
 
     TextBuffer() {
-        this.lines = new LinkedList<>();
+        this.lines = new Line[MINIMUM_RING_SIZE];
+        this.firstLine = 0;
+        this.lineCount = 0;
         newLine();
     }
 
     synchronized void newLine() {
-        lines.add(new ArrayList<>(200));
+        if(lineCount == lines.length) {
+            resizeRing(lines.length * 2);
+        }
+        int index = (firstLine + lineCount) % lines.length;
+        if(lines[index] == null) {
+            lines[index] = new Line();
+        }
+        else {
+            // Reuse what's left of a line that has been removed
+            lines[index].clear();
+        }
+        lineCount++;
     }
 
     synchronized void removeTopLines(int numberOfLinesToRemove) {
-        for(int i = 0; i < numberOfLinesToRemove; i++) {
-            lines.removeFirst();
+        numberOfLinesToRemove = Math.min(numberOfLinesToRemove, lineCount);
+        firstLine = (firstLine + numberOfLinesToRemove) % lines.length;
+        lineCount -= numberOfLinesToRemove;
+        // Only shrink when a quarter is used, so that a backlog that goes up and down a bit doesn't resize all the time
+        if(lines.length > MINIMUM_RING_SIZE && lineCount <= lines.length / 4) {
+            resizeRing(Math.max(MINIMUM_RING_SIZE, lines.length / 2));
         }
     }
 
     synchronized void clear() {
-        lines.clear();
+        lines = new Line[MINIMUM_RING_SIZE];
+        firstLine = 0;
+        lineCount = 0;
         newLine();
     }
 
-    ListIterator<List<TextCharacter>> getLinesFrom(int rowNumber) {
-        return lines.listIterator(rowNumber);
+    private void resizeRing(int newSize) {
+        // The lines that aren't in use are dropped here, they will be allocated again if the ring fills up
+        Line[] newLines = new Line[newSize];
+        for(int i = 0; i < lineCount; i++) {
+            newLines[i] = lines[(firstLine + i) % lines.length];
+        }
+        lines = newLines;
+        firstLine = 0;
+    }
+
+    /**
+     * Returns a line in the buffer, as it's currently stored. Double-width characters are followed by a padding
+     * character in the column to their right.
+     * @param lineNumber Line to return, must be less than the line count
+     * @return Line in the buffer
+     */
+    synchronized VirtualTerminal.BufferLine getLine(int lineNumber) {
+        return getLineInternal(lineNumber);
     }
 
     synchronized int getLineCount() {
-        return lines.size();
+        return lineCount;
     }
 
     synchronized int setCharacter(int lineNumber, int columnIndex, TextCharacter textCharacter) {
@@ -70,31 +118,37 @@ class TextBuffer {
         if(textCharacter == null) {
             textCharacter = TextCharacter.DEFAULT_CHARACTER;
         }
-        while(lineNumber >= lines.size()) {
+        while(lineNumber >= lineCount) {
             newLine();
         }
-        List<TextCharacter> line = lines.get(lineNumber);
-        while(line.size() <= columnIndex) {
-            line.add(TextCharacter.DEFAULT_CHARACTER);
-        }
+        return setCell(getLineInternal(lineNumber), columnIndex, textCharacter.getCharacterCode(), PackedTextImage.encodeStyle(textCharacter));
+    }
+
+    private int setCell(Line line, int columnIndex, int character, long style) {
+        line.ensureLength(columnIndex + 1);
 
         // Default
         int returnStyle = 0;
 
         // Check if we are overwriting a double-width character, in that case we need to reset the other half
-        if(line.get(columnIndex).isDoubleWidth()) {
-            line.set(columnIndex + 1, line.get(columnIndex).withCharacter(' '));
+        int previous = line.characters[columnIndex];
+        if(previous != DOUBLE_WIDTH_CHAR_PADDING && PackedTextImage.isDoubleWidth(previous)) {
+            line.ensureLength(columnIndex + 2);
+            line.characters[columnIndex + 1] = ' ';
+            line.styles[columnIndex + 1] = line.styles[columnIndex];
             returnStyle = 1; // this character and the one to the right
         }
-        else if(line.get(columnIndex) == DOUBLE_WIDTH_CHAR_PADDING) {
-            line.set(columnIndex - 1, TextCharacter.DEFAULT_CHARACTER);
+        else if(previous == DOUBLE_WIDTH_CHAR_PADDING) {
+            line.characters[columnIndex - 1] = ' ';
+            line.styles[columnIndex - 1] = DEFAULT_STYLE;
             returnStyle = 2; // this character and the one to the left
         }
-        line.set(columnIndex, textCharacter);
+        line.characters[columnIndex] = character;
+        line.styles[columnIndex] = style;
 
-        if(textCharacter.isDoubleWidth()) {
+        if(character != DOUBLE_WIDTH_CHAR_PADDING && PackedTextImage.isDoubleWidth(character)) {
             // We don't report this column as dirty (yet), it's implied since a double-width character is reported
-            setCharacter(lineNumber, columnIndex + 1, DOUBLE_WIDTH_CHAR_PADDING);
+            setCell(line, columnIndex + 1, DOUBLE_WIDTH_CHAR_PADDING, style);
         }
         return returnStyle;
     }
@@ -104,31 +158,83 @@ class TextBuffer {
             throw new IllegalArgumentException("Illegal argument to TextBuffer.getCharacter(..), lineNumber = " +
                     lineNumber + ", columnIndex = " + columnIndex);
         }
-        if(lineNumber >= lines.size()) {
+        if(lineNumber >= lineCount) {
             return TextCharacter.DEFAULT_CHARACTER;
         }
-        List<TextCharacter> line = lines.get(lineNumber);
-        if(line.size() <= columnIndex) {
+        Line line = getLineInternal(lineNumber);
+        if(line.length <= columnIndex) {
             return TextCharacter.DEFAULT_CHARACTER;
         }
-        TextCharacter textCharacter = line.get(columnIndex);
-        if(textCharacter == DOUBLE_WIDTH_CHAR_PADDING) {
-            return line.get(columnIndex - 1);
+        if(line.characters[columnIndex] == DOUBLE_WIDTH_CHAR_PADDING) {
+            columnIndex--;
         }
-        return textCharacter;
+        return PackedTextImage.toTextCharacter(line.characters[columnIndex], line.styles[columnIndex]);
+    }
+
+    private Line getLineInternal(int lineNumber) {
+        return lines[(firstLine + lineNumber) % lines.length];
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder bo = new StringBuilder();
-        for (List<TextCharacter> line : lines) {
+        for(int i = 0; i < lineCount; i++) {
+            Line line = getLineInternal(i);
             StringBuilder b = new StringBuilder();
-            for (TextCharacter c : line) {
-                b.append(c.getCharacter());
+            for(int column = 0; column < line.length; column++) {
+                int character = line.characters[column];
+                if(character == DOUBLE_WIDTH_CHAR_PADDING) {
+                    b.append(' ');
+                }
+                else {
+                    GraphemeClusters.appendTo(b, character);
+                }
             }
             bo.append(b.toString().replaceFirst("\\s+$", ""));
             bo.append('\n');
         }
         return bo.toString();
     }
+
+    private static class Line implements VirtualTerminal.BufferLine {
+        private int[] characters;
+        private long[] styles;
+        private int length;
+
+        Line() {
+            this.characters = new int[80];
+            this.styles = new long[80];
+            this.length = 0;
+        }
+
+        void clear() {
+            length = 0;
+        }
+
+        void ensureLength(int newLength) {
+            if(newLength <= length) {
+                return;
+            }
+            if(newLength > characters.length) {
+                int capacity = Math.max(newLength, characters.length * 2);
+                characters = Arrays.copyOf(characters, capacity);
+                styles = Arrays.copyOf(styles, capacity);
+            }
+            Arrays.fill(characters, length, newLength, ' ');
+            Arrays.fill(styles, length, newLength, DEFAULT_STYLE);
+            length = newLength;
+        }
+
+        @Override
+        public TextCharacter getCharacterAt(int column) {
+            if(column >= length) {
+                return TextCharacter.DEFAULT_CHARACTER;
+            }
+            int character = characters[column];
+            if(character == DOUBLE_WIDTH_CHAR_PADDING) {
+                return PackedTextImage.toTextCharacter(' ', DEFAULT_STYLE);
+            }
+            return PackedTextImage.toTextCharacter(character, styles[column]);
+        }
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+import com.googlecode.lanterna.gui2.AnimatedLabel;
+import com.googlecode.lanterna.gui2.BasicWindow;
+import com.googlecode.lanterna.gui2.MultiWindowTextGUI;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class AnimationSchedulerTest {
+    @Test
+    public void tasksWithTheSameIntervalShareOneFrame() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        try {
+            AnimationScheduler scheduler = new AnimationScheduler(executor);
+            List<AnimationScheduler.Animation> animations = new ArrayList<>();
+            for(int i = 0; i < 100; i++) {
+                animations.add(scheduler.schedule(() -> {}, 60000));
+            }
+            animations.add(scheduler.schedule(() -> {}, 120000));
+            assertEquals(2, executor.getQueue().size());
+
+            for(AnimationScheduler.Animation animation: animations.subList(0, 99)) {
+                animation.cancel();
+            }
+            assertEquals(2, executor.getQueue().size());
+            animations.get(99).cancel();
+            animations.get(100).cancel();
+            assertEquals(0, executor.getQueue().size());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void everyTaskInAFrameRuns() throws InterruptedException {
+        AnimationScheduler scheduler = new AnimationScheduler();
+        final CountDownLatch latch = new CountDownLatch(10);
+        List<AnimationScheduler.Animation> animations = new ArrayList<>();
+        for(int i = 0; i < 10; i++) {
+            final AtomicInteger ticks = new AtomicInteger();
+            animations.add(scheduler.schedule(() -> {
+                if(ticks.incrementAndGet() == 2) {
+                    latch.countDown();
+                }
+            }, 5));
+        }
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for(AnimationScheduler.Animation animation: animations) {
+            animation.cancel();
+        }
+    }
+
+    @Test
+    public void pausingEveryTaskInAFrameCancelsItUntilOneIsResumed() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        try {
+            AnimationScheduler scheduler = new AnimationScheduler(executor);
+            AnimationScheduler.Animation first = scheduler.schedule(() -> {}, 60000);
+            AnimationScheduler.Animation second = scheduler.schedule(() -> {}, 60000);
+            assertEquals(1, executor.getQueue().size());
+
+            first.pause();
+            assertTrue(first.isPaused());
+            assertEquals(1, executor.getQueue().size());
+            second.pause();
+            assertEquals(0, executor.getQueue().size());
+
+            // A new task at the same interval gets the frame going again
+            AnimationScheduler.Animation third = scheduler.schedule(() -> {}, 60000);
+            assertEquals(1, executor.getQueue().size());
+            third.cancel();
+            assertEquals(0, executor.getQueue().size());
+
+            second.resume();
+            assertFalse(second.isPaused());
+            assertEquals(1, executor.getQueue().size());
+            second.cancel();
+            assertEquals(0, executor.getQueue().size());
+
+            // Cancelled animations stay cancelled
+            second.resume();
+            first.cancel();
+            first.resume();
+            assertEquals(0, executor.getQueue().size());
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void pausedTasksDontRun() throws InterruptedException {
+        AnimationScheduler scheduler = new AnimationScheduler();
+        final AtomicInteger pausedTicks = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(3);
+        AnimationScheduler.Animation paused = scheduler.schedule(pausedTicks::incrementAndGet, 5);
+        paused.pause();
+        AnimationScheduler.Animation running = scheduler.schedule(latch::countDown, 5);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        running.cancel();
+        paused.cancel();
+        assertEquals(0, pausedTicks.get());
+    }
+
+    @Test
+    public void exceptionsGoToTheUncaughtExceptionHandlerOfTheSchedulerThread() throws InterruptedException {
+        final AtomicReference<Throwable> caught = new AtomicReference<>();
+        AnimationScheduler scheduler = new AnimationScheduler(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            thread.setUncaughtExceptionHandler((t, e) -> caught.compareAndSet(null, e));
+            return thread;
+        });
+        final RuntimeException exception = new RuntimeException("Expected");
+        final CountDownLatch latch = new CountDownLatch(2);
+        AnimationScheduler.Animation failing = scheduler.schedule(() -> {
+            throw exception;
+        }, 5);
+        // The failing task comes first in the frame, this one must still run and keep running
+        AnimationScheduler.Animation running = scheduler.schedule(latch::countDown, 5);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        failing.cancel();
+        running.cancel();
+        assertSame(exception, caught.get());
+    }
+
+    @Test
+    public void animatedLabelPausesWhileItsWindowIsHidden() throws IOException, InterruptedException {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        AnimationScheduler previousDefault = AnimationScheduler.getDefault();
+        AnimationScheduler.setDefault(new AnimationScheduler(executor));
+        TerminalScreen screen = new TerminalScreen(new DefaultVirtualTerminal(new TerminalSize(40, 10)));
+        try {
+            screen.startScreen();
+            MultiWindowTextGUI textGUI = new MultiWindowTextGUI(screen);
+            BasicWindow window = new BasicWindow();
+            window.setComponent(AnimatedLabel.createClassicSpinningLine(5));
+            textGUI.addWindow(window);
+            textGUI.updateScreen();
+            assertEquals(1, executor.getQueue().size());
+
+            window.setVisible(false);
+            textGUI.updateScreen();
+            assertTrue(waitForQueueSize(executor, 0));
+
+            window.setVisible(true);
+            textGUI.updateScreen();
+            assertEquals(1, executor.getQueue().size());
+
+            textGUI.removeWindow(window);
+            assertTrue(waitForQueueSize(executor, 0));
+        }
+        finally {
+            AnimationScheduler.setDefault(previousDefault);
+            screen.stopScreen();
+            executor.shutdownNow();
+        }
+    }
+
+    private static boolean waitForQueueSize(ScheduledThreadPoolExecutor executor, int size) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while(executor.getQueue().size() != size) {
+            if(System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+}
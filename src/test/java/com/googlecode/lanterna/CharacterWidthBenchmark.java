@@ -0,0 +1,96 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+/**
+ * Measures how long it takes to find out how many columns a character takes up, comparing the width table behind
+ * {@link TerminalTextUtils#getColumnWidth(int)} with the Unicode block lookup Lanterna used to do for every cell. Run it
+ * as a normal program, optionally passing the number of passes over the sample text as the first argument.
+ */
+public class CharacterWidthBenchmark {
+    private static final String[][] SAMPLES = {
+            { "English", "The quick brown fox jumps over the lazy dog, 0123456789 times! " },
+            { "Russian", "Съешь же ещё этих мягких французских булок, да выпей чаю. " },
+            { "Japanese", "端末（英: computer terminal）は、コンピュータシステムの入出力装置です。" },
+            { "Korean", "한국어 텍스트와 English text가 섞여 있습니다. " },
+    };
+
+    public static void main(String[] args) {
+        int passes = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        for(String[] sample: SAMPLES) {
+            char[] text = sample[1].toCharArray();
+            run(text, passes / 4);  // Warm-up
+            long[] result = run(text, passes);
+            long characters = (long)passes * text.length;
+            System.out.printf("%-9s Unicode blocks %6.2f ns/char, width table %6.2f ns/char (%d wide)%n",
+                    sample[0],
+                    (double)result[0] / characters,
+                    (double)result[1] / characters,
+                    result[2] / passes);
+        }
+    }
+
+    private static long[] run(char[] text, int passes) {
+        int blockCount = 0;
+        long startTime = System.nanoTime();
+        for(int pass = 0; pass < passes; pass++) {
+            for(char c: text) {
+                if(isCharCJKUsingUnicodeBlocks(c)) {
+                    blockCount++;
+                }
+            }
+        }
+        long blockNanos = System.nanoTime() - startTime;
+
+        int tableCount = 0;
+        startTime = System.nanoTime();
+        for(int pass = 0; pass < passes; pass++) {
+            for(char c: text) {
+                if(TerminalTextUtils.getColumnWidth(c) == 2) {
+                    tableCount++;
+                }
+            }
+        }
+        long tableNanos = System.nanoTime() - startTime;
+        if(blockCount != tableCount) {
+            System.out.println("Unicode blocks found " + blockCount + " wide characters but the width table " + tableCount);
+        }
+        return new long[] { blockNanos, tableNanos, tableCount };
+    }
+
+    // This is how TerminalTextUtils.isCharCJK used to work
+    private static boolean isCharCJKUsingUnicodeBlocks(char c) {
+        Character.UnicodeBlock unicodeBlock = Character.UnicodeBlock.of(c);
+        return (unicodeBlock == Character.UnicodeBlock.HIRAGANA)
+                || (unicodeBlock == Character.UnicodeBlock.KATAKANA)
+                || (unicodeBlock == Character.UnicodeBlock.KATAKANA_PHONETIC_EXTENSIONS)
+                || (unicodeBlock == Character.UnicodeBlock.HANGUL_COMPATIBILITY_JAMO)
+                || (unicodeBlock == Character.UnicodeBlock.HANGUL_JAMO)
+                || (unicodeBlock == Character.UnicodeBlock.HANGUL_SYLLABLES)
+                || (unicodeBlock == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS)
+                || (unicodeBlock == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A)
+                || (unicodeBlock == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_B)
+                || (unicodeBlock == Character.UnicodeBlock.CJK_COMPATIBILITY_FORMS)
+                || (unicodeBlock == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS)
+                || (unicodeBlock == Character.UnicodeBlock.CJK_RADICALS_SUPPLEMENT)
+                || (unicodeBlock == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION)
+                || (unicodeBlock == Character.UnicodeBlock.ENCLOSED_CJK_LETTERS_AND_MONTHS)
+                || (unicodeBlock == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS && c < 0xFF61);
+    }
+}
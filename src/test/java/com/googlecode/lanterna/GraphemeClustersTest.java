@@ -0,0 +1,99 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GraphemeClustersTest {
+    @Test
+    public void clustersAreInterned() {
+        int code = GraphemeClusters.toCharacterCode("e\u0301");
+        assertTrue(GraphemeClusters.isCluster(code));
+        assertEquals(code, GraphemeClusters.toCharacterCode("xe\u0301", 1, 3));
+        assertEquals("e\u0301", GraphemeClusters.toString(code));
+        assertEquals('a', GraphemeClusters.toCharacterCode("a"));
+    }
+
+    @Test
+    public void longClustersAreCutShort() {
+        StringBuilder cluster = new StringBuilder("a");
+        for(int i = 0; i < 5000; i++) {
+            cluster.append('\u0301');
+        }
+        assertEquals("a\uFFFD", GraphemeClusters.toString(GraphemeClusters.toCharacterCode(cluster.toString())));
+
+        cluster.setLength(32);
+        assertEquals(cluster.toString(), GraphemeClusters.toString(GraphemeClusters.toCharacterCode(cluster.toString())));
+    }
+
+    @Test
+    public void fullTableEvictsClustersThatHaveNotBeenUsedRecently() {
+        GraphemeClusters.Table table = new GraphemeClusters.Table(3);
+        int a = table.intern("a\u0301");
+        int b = table.intern("b\u0301");
+        int c = table.intern("c\u0301");
+
+        // All of them are new, so the clock goes round once and then takes the first slot
+        int d = table.intern("d\u0301");
+        // Only c is used before the next cluster comes, so b goes next
+        table.getCluster(c);
+        int e = table.intern("e\u0301");
+
+        assertEquals("\uFFFD", table.getCluster(a));
+        assertEquals("\uFFFD", table.getCluster(b));
+        assertEquals("c\u0301", table.getCluster(c));
+        assertEquals("d\u0301", table.getCluster(d));
+        assertEquals("e\u0301", table.getCluster(e));
+
+        // An evicted cluster gets a new code when it comes back
+        int aAgain = table.intern("a\u0301");
+        assertNotEquals(a, aAgain);
+        assertEquals("a\u0301", table.getCluster(aAgain));
+        assertEquals(aAgain, table.intern("a\u0301"));
+        assertEquals("\uFFFD", table.getCluster(a));
+    }
+
+    @Test
+    public void evictedClustersKeepTheirWidth() {
+        GraphemeClusters.Table table = new GraphemeClusters.Table(1);
+        // Thumbs up with a skin tone modifier is double-width
+        int wide = table.intern("\uD83D\uDC4D\uD83C\uDFFD");
+        assertTrue(GraphemeClusters.Table.isDoubleWidth(wide));
+        int narrow = table.intern("e\u0301");
+        assertFalse(GraphemeClusters.Table.isDoubleWidth(narrow));
+        assertEquals("\u3013", table.getCluster(wide));
+        assertTrue(GraphemeClusters.Table.isDoubleWidth(wide));
+        assertEquals("e\u0301", table.getCluster(narrow));
+    }
+
+    @Test
+    public void tableKeepsWorkingAfterManyEvictions() {
+        GraphemeClusters.Table table = new GraphemeClusters.Table(16);
+        int recent = 0;
+        String cluster = null;
+        for(int i = 0; i < 100000; i++) {
+            cluster = new StringBuilder().appendCodePoint(0x4E00 + i).append('\u0301').toString();
+            recent = table.intern(cluster);
+        }
+        assertTrue(GraphemeClusters.isCluster(recent));
+        assertEquals(cluster, table.getCluster(recent));
+    }
+}
@@ -107,6 +107,85 @@ public class TerminalTextUtilsTest {
         assertEquals(29, TerminalTextUtils.getColumnWidth("端末（英: computer terminal）"));
     }
 
+    @Test
+    public void isCharCJKMatchesTheCJKUnicodeBlocks() {
+        for(char c = 0; c < Character.MAX_VALUE; c++) {
+            Character.UnicodeBlock unicodeBlock = Character.UnicodeBlock.of(c);
+            boolean expected = (unicodeBlock == Character.UnicodeBlock.HIRAGANA)
+                    || (unicodeBlock == Character.UnicodeBlock.KATAKANA)
+                    || (unicodeBlock == Character.UnicodeBlock.KATAKANA_PHONETIC_EXTENSIONS)
+                    || (unicodeBlock == Character.UnicodeBlock.HANGUL_COMPATIBILITY_JAMO)
+                    || (unicodeBlock == Character.UnicodeBlock.HANGUL_JAMO)
+                    || (unicodeBlock == Character.UnicodeBlock.HANGUL_SYLLABLES)
+                    || (unicodeBlock == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS)
+                    || (unicodeBlock == Character.UnicodeBlock.CJK_UNIFIED_IDEOGRAPHS_EXTENSION_A)
+                    || (unicodeBlock == Character.UnicodeBlock.CJK_COMPATIBILITY_FORMS)
+                    || (unicodeBlock == Character.UnicodeBlock.CJK_COMPATIBILITY_IDEOGRAPHS)
+                    || (unicodeBlock == Character.UnicodeBlock.CJK_RADICALS_SUPPLEMENT)
+                    || (unicodeBlock == Character.UnicodeBlock.CJK_SYMBOLS_AND_PUNCTUATION)
+                    || (unicodeBlock == Character.UnicodeBlock.ENCLOSED_CJK_LETTERS_AND_MONTHS)
+                    || (unicodeBlock == Character.UnicodeBlock.HALFWIDTH_AND_FULLWIDTH_FORMS && c < 0xFF61);
+            assertEquals("Character " + Integer.toHexString(c), expected, TerminalTextUtils.isCharCJK(c));
+        }
+    }
+
+    @Test
+    public void getColumnWidthOfCodePoints() {
+        assertEquals(1, TerminalTextUtils.getColumnWidth('a'));
+        assertEquals(1, TerminalTextUtils.getColumnWidth(0xE9));        // Latin small letter e with acute
+        assertEquals(1, TerminalTextUtils.getColumnWidth(0xFF76));      // Half-width katakana ka
+        assertEquals(2, TerminalTextUtils.getColumnWidth(0x7AEF));      // CJK ideograph
+        assertEquals(2, TerminalTextUtils.getColumnWidth(0xFF21));      // Full-width latin capital a
+        assertEquals(2, TerminalTextUtils.getColumnWidth(0x20000));     // CJK ideograph extension B
+        assertEquals(2, TerminalTextUtils.getColumnWidth(0x2615));      // Hot beverage
+        assertEquals(2, TerminalTextUtils.getColumnWidth(0x1F600));     // Grinning face
+        assertEquals(0, TerminalTextUtils.getColumnWidth(0x0301));      // Combining acute accent
+        assertEquals(0, TerminalTextUtils.getColumnWidth(0x200D));      // Zero width joiner
+        assertEquals(0, TerminalTextUtils.getColumnWidth(0xFE0F));      // Variation selector 16
+        assertEquals(0, TerminalTextUtils.getColumnWidth(0x1160));      // Hangul jungseong filler
+        assertEquals(0, TerminalTextUtils.getColumnWidth('\n'));
+        assertEquals(1, TerminalTextUtils.getColumnWidth(0xAD));        // Soft hyphen
+        assertEquals(1, TerminalTextUtils.getColumnWidth(-1));
+        assertEquals(1, TerminalTextUtils.getColumnWidth(Character.MAX_CODE_POINT + 1));
+
+        assertTrue(TerminalTextUtils.isCharDoubleWidth((char)0x2615));
+        assertFalse(TerminalTextUtils.isCharDoubleWidth((char)0x1160));
+    }
+
+    @Test
+    public void graphemeClusters() {
+        // a, grinning face, e with combining acute, family (man ZWJ woman ZWJ girl), Swedish flag, thumbs up with skin tone
+        String text = "a\uD83D\uDE00e\u0301\uD83D\uDC68\u200D\uD83D\uDC69\u200D\uD83D\uDC67" +
+                "\uD83C\uDDF8\uD83C\uDDEA\uD83D\uDC4D\uD83C\uDFFD";
+        int[] clusterEnds = { 1, 3, 5, 13, 17, 21 };
+        int[] clusterWidths = { 1, 2, 1, 2, 2, 2 };
+        int index = 0;
+        for(int i = 0; i < clusterEnds.length; i++) {
+            int end = TerminalTextUtils.getGraphemeClusterEnd(text, index);
+            assertEquals(clusterEnds[i], end);
+            assertEquals(clusterWidths[i], TerminalTextUtils.getGraphemeClusterWidth(text, index, end));
+            index = end;
+        }
+        assertEquals(10, TerminalTextUtils.getColumnWidth(text));
+        assertEquals(3, TerminalTextUtils.getColumnIndex(text, 3));
+        assertEquals(3, TerminalTextUtils.getColumnIndex(text, 4));
+        assertEquals(3, TerminalTextUtils.getStringCharacterIndex(text, 3));
+        assertEquals(5, TerminalTextUtils.getStringCharacterIndex(text, 4));
+        assertEquals("a\uD83D\uDE00e\u0301 ", TerminalTextUtils.fitString(text, 5));
+
+        // Zero width space and other format characters are not part of the cluster before them
+        assertEquals(1, TerminalTextUtils.getGraphemeClusterEnd("a\u200Bb", 0));
+        // Two flags are two clusters
+        assertEquals(4, TerminalTextUtils.getGraphemeClusterEnd("\uD83C\uDDF8\uD83C\uDDEA\uD83C\uDDF8\uD83C\uDDEA", 0));
+
+        TextCharacter[] characters = TextCharacter.fromString(text);
+        assertEquals(6, characters.length);
+        assertEquals("\uD83D\uDC68\u200D\uD83D\uDC69\u200D\uD83D\uDC67", characters[3].getCharacterString());
+        assertTrue(characters[3].isDoubleWidth());
+        assertEquals(characters[3], TextCharacter.fromString(text)[3]);
+        assertEquals(0x1F600, characters[1].getCharacterCode());
+    }
+
     @Test
     public void getColumnIndexGeneralTest() {
         String testString = "端末（英: computer terminal）";
@@ -241,6 +320,22 @@ public class TerminalTextUtilsTest {
               TerminalTextUtils.getWordWrappedText(3, "  abc abc"));
     }
 
+    @Test
+    public void textLayoutKeepsLineWidthsAndIsCached() {
+        TextLayout layout = TextLayout.getWordWrapped(6, "abc あい def", "x");
+        assertEquals(Arrays.asList("abc あ", "い def", "x"), layout.getLines());
+        assertEquals(6, layout.getLineWidth(1));
+        assertEquals(1, layout.getLineWidth(2));
+        assertEquals(6, layout.getWidth());
+        assertSame(layout, TextLayout.getWordWrapped(6, "abc あい def", "x"));
+        assertNotSame(layout, TextLayout.getWordWrapped(7, "abc あい def", "x"));
+        assertEquals(layout.getLines(), TextLayout.wordWrap(6, new StringBuilder("abc あい def"), "x").getLines());
+
+        TextLayout unwrapped = TextLayout.getWordWrapped(0, "a\tb", "あいう");
+        assertEquals(6, unwrapped.getWidth());
+        assertEquals(TerminalTextUtils.getColumnWidth("a\tb"), unwrapped.getLineWidth(0));
+    }
+
     @Test
     public void testWordWrappingWithCJK() {
         assertEquals("Incorrect word wrapping",
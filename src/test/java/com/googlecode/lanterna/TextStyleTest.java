@@ -0,0 +1,55 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna;
+
+import org.junit.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.Assert.*;
+
+public class TextStyleTest {
+    @Test
+    public void sameColorsAndModifiersGiveTheSameStyle() {
+        TextStyle style = TextStyle.of(TextColor.ANSI.RED, TextColor.ANSI.BLUE, SGR.BOLD, SGR.UNDERLINE);
+        assertSame(style, TextStyle.of(TextColor.ANSI.RED, TextColor.ANSI.BLUE, EnumSet.of(SGR.UNDERLINE, SGR.BOLD)));
+        assertSame(TextStyle.DEFAULT, TextStyle.of(null, null));
+        assertEquals(EnumSet.of(SGR.BOLD, SGR.UNDERLINE), style.getModifiers());
+        assertNotEquals(style, style.withModifierBits(0));
+        assertEquals(style, style.withBackgroundColor(TextColor.ANSI.GREEN).withBackgroundColor(TextColor.ANSI.BLUE));
+    }
+
+    @Test
+    public void printableCharactersAreReused() {
+        TextStyle style = TextStyle.of(new TextColor.RGB(10, 20, 30), TextColor.ANSI.BLACK, SGR.ITALIC);
+        TextCharacter character = style.toTextCharacter('x');
+        assertSame(character, style.toTextCharacter('x'));
+        assertSame(character, new TextCharacter('y', new TextColor.RGB(10, 20, 30), TextColor.ANSI.BLACK, SGR.ITALIC)
+                .getStyle().toTextCharacter((int)'x'));
+        assertEquals(new TextCharacter('x', new TextColor.RGB(10, 20, 30), TextColor.ANSI.BLACK, SGR.ITALIC), character);
+        assertSame(style, character.getStyle());
+
+        TextCharacter bold = character.withModifier(SGR.BOLD);
+        assertTrue(bold.isBold());
+        assertTrue(bold.isItalic());
+        assertSame(character, bold.withoutModifier(SGR.BOLD));
+        assertEquals(character, character.withModifiers(EnumSet.of(SGR.ITALIC)));
+        assertFalse(character.withModifiers(EnumSet.of(SGR.BLINK)).isItalic());
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.graphics;
+
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.TextStyle;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PackedTextImageTest {
+    @Test
+    public void charactersRoundTripWithColorsAndModifiers() {
+        PackedTextImage image = new PackedTextImage(10, 3);
+        TextCharacter[] characters = new TextCharacter[] {
+                new TextCharacter('A', TextColor.ANSI.RED, TextColor.ANSI.BLUE_BRIGHT, SGR.BOLD, SGR.ITALIC),
+                new TextCharacter('b', new TextColor.RGB(1, 2, 3), TextColor.ANSI.DEFAULT),
+                new TextCharacter('c', new TextColor.Indexed(200), new TextColor.RGB(255, 255, 255), SGR.REVERSE),
+                new TextCharacter('\t', TextColor.ANSI.DEFAULT, new TextColor.Indexed(3), SGR.values()),
+        };
+        for(int i = 0; i < characters.length; i++) {
+            image.setCharacterAt(i, 1, characters[i]);
+        }
+        for(int i = 0; i < characters.length; i++) {
+            assertEquals(characters[i], image.getCharacterAt(i, 1));
+        }
+        assertEquals(TextCharacter.DEFAULT_CHARACTER, image.getCharacterAt(0, 0));
+        assertNull(image.getCharacterAt(10, 0));
+    }
+
+    @Test
+    public void readingTheSameCellTwiceReturnsTheSameObject() {
+        PackedTextImage image = new PackedTextImage(5, 5);
+        image.setCharacterAt(2, 2, new TextCharacter('x', TextColor.ANSI.GREEN, TextColor.ANSI.BLACK, SGR.UNDERLINE));
+        assertSame(image.getCharacterAt(2, 2), image.getCharacterAt(2, 2));
+    }
+
+    @Test
+    public void doubleWidthCharactersAreAdjusted() {
+        PackedTextImage image = new PackedTextImage(5, 1);
+        TextCharacter cjk = new TextCharacter('あ', TextColor.ANSI.RED, TextColor.ANSI.DEFAULT);
+        image.setCharacterAt(1, 0, cjk);
+        assertEquals(cjk, image.getCharacterAt(1, 0));
+        assertEquals(cjk.withCharacter(' '), image.getCharacterAt(2, 0));
+
+        // Overwriting the padding should remove the double-width character
+        image.setCharacterAt(2, 0, new TextCharacter('x'));
+        assertEquals(cjk.withCharacter(' '), image.getCharacterAt(1, 0));
+        assertEquals(new TextCharacter('x'), image.getCharacterAt(2, 0));
+    }
+
+    @Test
+    public void runsGiveTheSameResultAsSingleCells() {
+        TextStyle style = TextStyle.of(TextColor.ANSI.YELLOW, TextColor.ANSI.BLUE, SGR.BOLD);
+        TextCharacter border = new TextCharacter('-', TextColor.ANSI.WHITE, TextColor.ANSI.BLACK);
+        TextImage[] images = { new PackedTextImage(12, 3), new BasicTextImage(12, 3), new PackedTextImage(12, 3) };
+        for(TextImage image: images) {
+            image.setCharacterAt(2, 1, new TextCharacter('あ'));
+            TextGraphics graphics = image.newTextGraphics();
+            if(image == images[2]) {
+                // Reference that only knows how to set one cell at a time
+                graphics = new AbstractTextGraphics() {
+                    @Override
+                    public TextGraphics setCharacter(int column, int row, TextCharacter character) {
+                        image.setCharacterAt(column, row, character);
+                        return this;
+                    }
+
+                    @Override
+                    public TextCharacter getCharacter(int column, int row) {
+                        return image.getCharacterAt(column, row);
+                    }
+
+                    @Override
+                    public TerminalSize getSize() {
+                        return image.getSize();
+                    }
+                };
+            }
+            TextGraphics subGraphics = graphics.newTextGraphics(new TerminalPosition(1, 0), new TerminalSize(8, 3));
+            subGraphics.putRun(-1, 0, "日本 fits", style);
+            subGraphics.putRun(3, 1, "xe\u0301中文 cut", style);
+            subGraphics.fillRow(5, 2, 10, border);
+            subGraphics.putRun(0, 2, "abc", 1, 3, style);
+        }
+        for(int row = 0; row < 3; row++) {
+            for(int column = 0; column < 12; column++) {
+                assertEquals(images[2].getCharacterAt(column, row), images[0].getCharacterAt(column, row));
+                assertEquals(images[2].getCharacterAt(column, row), images[1].getCharacterAt(column, row));
+            }
+        }
+        assertEquals("e\u0301", images[0].getCharacterAt(5, 1).getCharacterString());
+        assertEquals(border, images[0].getCharacterAt(8, 2));
+        assertEquals(TextCharacter.DEFAULT_CHARACTER, images[0].getCharacterAt(9, 2));
+    }
+
+    @Test
+    public void copyAndCompareBetweenPackedImages() {
+        PackedTextImage source = new PackedTextImage(8, 4);
+        PackedTextImage destination = new PackedTextImage(8, 4);
+        assertEquals(0, source.countDifferences(destination, Integer.MAX_VALUE));
+
+        source.newTextGraphics().putString(1, 1, "Hello", SGR.BOLD);
+        assertFalse(source.isRowEqual(destination, 1));
+        assertTrue(source.isRowEqual(destination, 0));
+        assertEquals(5, source.countDifferences(destination, Integer.MAX_VALUE));
+        assertEquals(2, source.countDifferences(destination, 2));
+
+        source.copyTo(destination);
+        assertEquals(0, source.countDifferences(destination, Integer.MAX_VALUE));
+        assertEquals(source.getCharacterAt(3, 1), destination.getCharacterAt(3, 1));
+    }
+
+    @Test
+    public void copyToOtherImageTypesAndResize() {
+        PackedTextImage source = new PackedTextImage(4, 2);
+        source.newTextGraphics().putString(0, 0, "abcd");
+        BasicTextImage destination = new BasicTextImage(6, 3);
+        source.copyTo(destination, 0, 1, 1, 3, 2, 3);
+        assertEquals(new TextCharacter('b'), destination.getCharacterAt(3, 2));
+        assertEquals(new TextCharacter('d'), destination.getCharacterAt(5, 2));
+
+        PackedTextImage resized = source.resize(new TerminalSize(6, 1), new TextCharacter('.'));
+        assertEquals(new TextCharacter('d'), resized.getCharacterAt(3, 0));
+        assertEquals(new TextCharacter('.'), resized.getCharacterAt(5, 0));
+    }
+
+    @Test
+    public void scrollingMovesRows() {
+        PackedTextImage image = new PackedTextImage(3, 3);
+        TextGraphics graphics = image.newTextGraphics();
+        graphics.putString(0, 0, "aaa");
+        graphics.putString(0, 1, "bbb");
+        graphics.putString(0, 2, "ccc");
+        image.scrollLines(0, 2, 1);
+        assertEquals(new TextCharacter('b'), image.getCharacterAt(0, 0));
+        assertEquals(new TextCharacter('c'), image.getCharacterAt(0, 1));
+        assertEquals(TextCharacter.DEFAULT_CHARACTER, image.getCharacterAt(0, 2));
+    }
+}
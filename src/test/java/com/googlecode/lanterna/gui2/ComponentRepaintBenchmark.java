@@ -0,0 +1,87 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how long it takes to update the screen of a {@code MultiWindowTextGUI} showing a large form, when only one
+ * label in the form changes between each update, and how many labels are drawn again each time. The form is a window
+ * with a grid of bordered panels, each holding a column of labels. Run it as a normal program, optionally passing the
+ * number of updates as the first argument.
+ */
+public class ComponentRepaintBenchmark {
+    private static final int PANELS = 20;
+    private static final int LABELS_PER_PANEL = 10;
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        DefaultVirtualTerminal terminal = new DefaultVirtualTerminal(new TerminalSize(200, 80));
+        TerminalScreen screen = new TerminalScreen(terminal);
+        screen.startScreen();
+        MultiWindowTextGUI textGUI = new MultiWindowTextGUI(screen);
+
+        int[] drawnLabels = new int[1];
+        List<Label> labels = new ArrayList<>();
+        Panel form = new Panel(new GridLayout(5));
+        for(int panelIndex = 0; panelIndex < PANELS; panelIndex++) {
+            Panel panel = new Panel();
+            for(int labelIndex = 0; labelIndex < LABELS_PER_PANEL; labelIndex++) {
+                Label label = new Label(String.format("Value %3d: %6d", labels.size(), 0)) {
+                    @Override
+                    protected void onAfterDrawing(TextGUIGraphics graphics) {
+                        drawnLabels[0]++;
+                    }
+                };
+                labels.add(label);
+                panel.addComponent(label);
+            }
+            form.addComponent(panel.withBorder(Borders.singleLine("Panel " + panelIndex)));
+        }
+        BasicWindow window = new BasicWindow("Form");
+        window.setComponent(form);
+        textGUI.addWindow(window);
+        textGUI.updateScreen();
+
+        for(int round = 0; round < 2; round++) {
+            // The first round is warm-up
+            drawnLabels[0] = 0;
+            long startTime = System.nanoTime();
+            for(int frame = 0; frame < iterations; frame++) {
+                Label label = labels.get(frame * 7 % labels.size());
+                label.setText(String.format("Value %3d: %6d", labels.indexOf(label), frame));
+                textGUI.updateScreen();
+            }
+            long nanos = System.nanoTime() - startTime;
+            if(round == 1) {
+                System.out.printf("%d labels, one changed per update: %.1f us/update, %.1f labels drawn/update%n",
+                        labels.size(),
+                        nanos / 1000.0 / iterations,
+                        (double)drawnLabels[0] / iterations);
+            }
+        }
+        screen.stopScreen();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalRectangle;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.graphics.BasicTextImage;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class DamagedAreaTest {
+    @Test
+    public void nestedClippingIntersectsTheClipAreas() {
+        BasicTextImage image = new BasicTextImage(20, 10);
+        DefaultTextGUIGraphics graphics = new DefaultTextGUIGraphics(null, image.newTextGraphics());
+        assertEquals(new TerminalRectangle(0, 0, 20, 10), graphics.getClipArea());
+
+        TextGUIGraphics clipped = graphics.newClippedTextGraphics(new TerminalRectangle(2, 2, 10, 5));
+        TextGUIGraphics nested = clipped.newClippedTextGraphics(new TerminalRectangle(8, 4, 10, 10));
+        assertEquals(new TerminalRectangle(8, 4, 4, 3), nested.getClipArea());
+        assertEquals(new TerminalSize(20, 10), nested.getSize());
+
+        // A sub-graphics is clipped too, in its own coordinates
+        TextGUIGraphics subGraphics = nested.newTextGraphics(new TerminalPosition(9, 5), new TerminalSize(5, 5));
+        assertEquals(new TerminalRectangle(0, 0, 3, 2), subGraphics.getClipArea());
+
+        nested.fill('x');
+        subGraphics.fill('y');
+        for(int row = 0; row < 10; row++) {
+            for(int column = 0; column < 20; column++) {
+                char expected = ' ';
+                if(column >= 9 && column < 12 && row >= 5 && row < 7) {
+                    expected = 'y';
+                }
+                else if(column >= 8 && column < 12 && row >= 4 && row < 7) {
+                    expected = 'x';
+                }
+                assertEquals("Column " + column + ", row " + row, expected, image.getCharacterAt(column, row).getCharacter());
+            }
+        }
+    }
+
+    @Test
+    public void onlyTheDamagedComponentIsRedrawn() throws IOException {
+        DefaultVirtualTerminal terminal = new DefaultVirtualTerminal(new TerminalSize(40, 10));
+        TerminalScreen screen = new TerminalScreen(terminal);
+        screen.startScreen();
+        MultiWindowTextGUI textGUI = new MultiWindowTextGUI(screen);
+
+        final int[] drawCount = new int[3];
+        Label[] labels = new Label[3];
+        Panel panel = new Panel();
+        for(int i = 0; i < labels.length; i++) {
+            final int index = i;
+            labels[i] = new Label("Label " + i) {
+                @Override
+                protected void onAfterDrawing(TextGUIGraphics graphics) {
+                    drawCount[index]++;
+                }
+            };
+            panel.addComponent(labels[i]);
+        }
+        BasicWindow window = new BasicWindow();
+        // Damage along the edge of a decorated window takes the decorations and what's next to them along
+        window.setHints(Arrays.asList(Window.Hint.NO_DECORATIONS));
+        window.setComponent(panel);
+        textGUI.addWindow(window);
+        textGUI.updateScreen();
+        assertNull(window.getDamagedArea());
+
+        Arrays.fill(drawCount, 0);
+        labels[1].setText("Changed");
+        TerminalPosition labelPosition = labels[1].getPosition().withRelative(panel.getPosition());
+        assertEquals(new TerminalRectangle(labelPosition, labels[1].getSize()), window.getDamagedArea());
+
+        textGUI.updateScreen();
+        assertArrayEquals(new int[] { 0, 1, 0 }, drawCount);
+        assertNull(window.getDamagedArea());
+        String screenText = getText(screen);
+        assertTrue(screenText, screenText.contains("Label 0"));
+        assertTrue(screenText, screenText.contains("Changed"));
+        assertTrue(screenText, screenText.contains("Label 2"));
+
+        // Invalidating the panel itself still redraws everything in it
+        Arrays.fill(drawCount, 0);
+        panel.invalidate();
+        assertTrue(labels[0].isInvalid());
+        textGUI.updateScreen();
+        assertArrayEquals(new int[] { 1, 1, 1 }, drawCount);
+        screen.stopScreen();
+    }
+
+    private static String getText(TerminalScreen screen) {
+        StringBuilder text = new StringBuilder();
+        TerminalSize size = screen.getTerminalSize();
+        for(int row = 0; row < size.getRows(); row++) {
+            for(int column = 0; column < size.getColumns(); column++) {
+                text.append(screen.getFrontCharacter(column, row).getCharacterString());
+            }
+            text.append('\n');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+/**
+ * Shows a file in a {@link FileViewer}. Without a {@code --file} argument, a generated log file is shown that gets a
+ * new line every half second, press F to follow it.
+ */
+public class FileViewerTest extends TestBase {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        new FileViewerTest(args).run(args);
+    }
+
+    private final String[] args;
+
+    private FileViewerTest(String[] args) {
+        this.args = args;
+    }
+
+    @Override
+    public void init(WindowBasedTextGUI textGUI) {
+        final BasicWindow window = new BasicWindow("FileViewerTest");
+        window.setHints(Collections.singletonList(Window.Hint.EXPANDED));
+        final FileViewer fileViewer;
+        try {
+            fileViewer = new FileViewer(getFile());
+        }
+        catch(IOException e) {
+            throw new RuntimeException(e);
+        }
+        window.setComponent(
+                Panels.vertical(
+                    fileViewer.setLayoutData(LinearLayout.createLayoutData(LinearLayout.Alignment.Fill, LinearLayout.GrowPolicy.CanGrow)),
+                    new Button("Close", () -> {
+                        try {
+                            fileViewer.close();
+                        }
+                        catch(IOException ignore) {}
+                        window.close();
+                    })));
+        textGUI.addWindow(window);
+    }
+
+    private File getFile() throws IOException {
+        for(int i = 0; i < args.length - 1; i++) {
+            if(args[i].equals("--file")) {
+                return new File(args[i + 1]);
+            }
+        }
+        final File file = File.createTempFile("lanterna", ".log");
+        file.deleteOnExit();
+        try(OutputStream outputStream = new FileOutputStream(file)) {
+            for(int i = 0; i < 200000; i++) {
+                outputStream.write(logLine(i).getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        Thread writer = new Thread(() -> {
+            try(OutputStream outputStream = new FileOutputStream(file, true)) {
+                for(int i = 200000; ; i++) {
+                    Thread.sleep(500);
+                    outputStream.write(logLine(i).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            catch(IOException | InterruptedException ignore) {}
+        });
+        writer.setDaemon(true);
+        writer.start();
+        return file;
+    }
+
+    private static String logLine(int i) {
+        return String.format("%08d\t%s\tRequest %d handled in %d ms%n", i, i % 17 == 0 ? "WARN" : "INFO", i * 7, i % 1000);
+    }
+}
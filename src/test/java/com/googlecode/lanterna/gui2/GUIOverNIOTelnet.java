@@ -0,0 +1,67 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.screen.Screen;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.ansi.NIOTelnetTerminal;
+import com.googlecode.lanterna.terminal.ansi.NIOTelnetTerminalServer;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves a small GUI to every telnet client connecting to port 1024, using the NIO telnet server and event-driven GUI
+ * threads. There is no thread per client reading input, so this can keep a large number of clients connected.
+ */
+public class GUIOverNIOTelnet {
+    public static void main(String[] args) throws IOException {
+        NIOTelnetTerminalServer server = new NIOTelnetTerminalServer(1024);
+        System.out.println("Listening on port 1024, please connect to it with a separate telnet process");
+        final AtomicInteger connected = new AtomicInteger();
+        //noinspection InfiniteLoopStatement
+        while(true) {
+            final NIOTelnetTerminal terminal = server.acceptConnection();
+            System.out.println("Accepted connection from " + terminal.getRemoteSocketAddress() + ", " +
+                    connected.incrementAndGet() + " clients connected");
+            final Screen screen = new TerminalScreen(terminal);
+            screen.startScreen();
+            final MultiWindowTextGUI textGUI = new MultiWindowTextGUI(new EventDrivenTextGUIThread.Factory(), screen);
+            textGUI.setEOFWhenNoWindows(true);
+            final BasicWindow window = new BasicWindow("Text GUI over NIO Telnet") {
+                @Override
+                public void close() {
+                    super.close();
+                    try {
+                        screen.stopScreen();
+                        terminal.close();
+                    }
+                    catch(IOException ignore) {}
+                    connected.decrementAndGet();
+                }
+            };
+            window.setComponent(Panels.vertical(
+                    new Label("You are client number " + connected.get()),
+                    new TextBox("Type here"),
+                    new Button("Close", window::close)));
+            textGUI.addWindow(window);
+            ((AsynchronousTextGUIThread)textGUI.getGUIThread()).start();
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that layout managers that reuse what they worked out last time place the components exactly where a new
+ * layout manager, which has to work everything out from scratch, would place them
+ */
+public class IncrementalLayoutTest {
+    private static final GridLayout.Alignment[] GRID_ALIGNMENTS = GridLayout.Alignment.values();
+    private static final LinearLayout.Alignment[] LINEAR_ALIGNMENTS = LinearLayout.Alignment.values();
+
+    @Test
+    public void gridLayoutGivesTheSameResultAsAFullLayout() {
+        assertSameAsFullLayout(() -> new GridLayout(4), IncrementalLayoutTest::randomGridLayoutData);
+    }
+
+    @Test
+    public void gridLayoutWithRowSpansGivesTheSameResultAsAFullLayout() {
+        assertSameAsFullLayout(() -> new GridLayout(4), IncrementalLayoutTest::randomRowSpanningGridLayoutData);
+    }
+
+    @Test
+    public void gridLayoutWithSpacingAndMarginsGivesTheSameResultAsAFullLayout() {
+        assertSameAsFullLayout(() -> new GridLayout(3)
+                .setHorizontalSpacing(2)
+                .setVerticalSpacing(1)
+                .setTopMarginSize(1)
+                .setLeftMarginSize(0), IncrementalLayoutTest::randomGridLayoutData);
+    }
+
+    @Test
+    public void linearLayoutGivesTheSameResultAsAFullLayout() {
+        assertSameAsFullLayout(() -> new LinearLayout(Direction.VERTICAL), IncrementalLayoutTest::randomLinearLayoutData);
+        assertSameAsFullLayout(() -> new LinearLayout(Direction.HORIZONTAL), IncrementalLayoutTest::randomLinearLayoutData);
+    }
+
+    @Test
+    public void layoutSharedByTwoContainersGivesTheSameResultAsAFullLayout() {
+        Random random = new Random(7);
+        GridLayout sharedLayout = new GridLayout(3);
+        List<Component> first = new ArrayList<>();
+        List<Component> second = new ArrayList<>();
+        for(int i = 0; i < 10; i++) {
+            first.add(randomComponent(random, IncrementalLayoutTest::randomGridLayoutData));
+            second.add(randomComponent(random, IncrementalLayoutTest::randomGridLayoutData));
+        }
+        TerminalSize area = new TerminalSize(40, 20);
+        for(int step = 0; step < 200; step++) {
+            List<Component> components = random.nextBoolean() ? first : second;
+            mutate(random, components, IncrementalLayoutTest::randomGridLayoutData);
+            assertSameLayout("Step " + step, sharedLayout, new GridLayout(3), area, components);
+        }
+    }
+
+    private static void assertSameAsFullLayout(Supplier<LayoutManager> layoutFactory, Function<Random, LayoutData> layoutDataFactory) {
+        for(int seed = 0; seed < 20; seed++) {
+            Random random = new Random(seed);
+            LayoutManager layout = layoutFactory.get();
+            List<Component> components = new ArrayList<>();
+            for(int i = 0; i < 12; i++) {
+                components.add(randomComponent(random, layoutDataFactory));
+            }
+            TerminalSize area = new TerminalSize(40, 20);
+            for(int step = 0; step < 200; step++) {
+                if(random.nextInt(8) == 0) {
+                    // Sometimes too small to fit everything
+                    area = new TerminalSize(5 + random.nextInt(50), 3 + random.nextInt(25));
+                }
+                else {
+                    mutate(random, components, layoutDataFactory);
+                }
+                assertSameLayout("Seed " + seed + ", step " + step, layout, layoutFactory.get(), area, components);
+            }
+        }
+    }
+
+    /**
+     * Makes one random change to the components, or none at all
+     */
+    private static void mutate(Random random, List<Component> components, Function<Random, LayoutData> layoutDataFactory) {
+        int index = components.isEmpty() ? 0 : random.nextInt(components.size());
+        switch(random.nextInt(6)) {
+            case 0:
+                components.add(random.nextInt(components.size() + 1), randomComponent(random, layoutDataFactory));
+                break;
+            case 1:
+                if(!components.isEmpty()) {
+                    components.remove(index);
+                }
+                break;
+            case 2:
+            case 3:
+                if(!components.isEmpty()) {
+                    components.get(index).setPreferredSize(randomSize(random));
+                }
+                break;
+            case 4:
+                if(!components.isEmpty()) {
+                    components.get(index).setLayoutData(layoutDataFactory.apply(random));
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void assertSameLayout(String message, LayoutManager layout, LayoutManager fullLayout, TerminalSize area, List<Component> components) {
+        assertEquals(message, fullLayout.getPreferredSize(components), layout.getPreferredSize(components));
+
+        layout.doLayout(area, components);
+        List<String> result = describe(components);
+        fullLayout.doLayout(area, components);
+        assertEquals(message, describe(components), result);
+    }
+
+    private static List<String> describe(List<Component> components) {
+        List<String> positions = new ArrayList<>();
+        for(Component component: components) {
+            positions.add(component.getPosition() + " " + component.getSize());
+        }
+        return positions;
+    }
+
+    private static Component randomComponent(Random random, Function<Random, LayoutData> layoutDataFactory) {
+        EmptySpace component = new EmptySpace();
+        component.setPreferredSize(randomSize(random));
+        component.setLayoutData(layoutDataFactory.apply(random));
+        return component;
+    }
+
+    private static TerminalSize randomSize(Random random) {
+        return new TerminalSize(random.nextInt(12), random.nextInt(5));
+    }
+
+    // Components spanning columns next to components spanning rows can end up overlapping, which GridLayout doesn't
+    // handle, so the two kinds of spans are tested separately
+    private static LayoutData randomGridLayoutData(Random random) {
+        return randomGridLayoutData(random, random.nextInt(5) == 0 ? 2 + random.nextInt(2) : 1, 1);
+    }
+
+    private static LayoutData randomRowSpanningGridLayoutData(Random random) {
+        return randomGridLayoutData(random, 1, random.nextInt(5) == 0 ? 2 + random.nextInt(2) : 1);
+    }
+
+    private static LayoutData randomGridLayoutData(Random random, int horizontalSpan, int verticalSpan) {
+        return GridLayout.createLayoutData(
+                GRID_ALIGNMENTS[random.nextInt(GRID_ALIGNMENTS.length)],
+                GRID_ALIGNMENTS[random.nextInt(GRID_ALIGNMENTS.length)],
+                random.nextInt(4) == 0,
+                random.nextInt(4) == 0,
+                horizontalSpan,
+                verticalSpan);
+    }
+
+    private static LayoutData randomLinearLayoutData(Random random) {
+        return LinearLayout.createLayoutData(
+                LINEAR_ALIGNMENTS[random.nextInt(LINEAR_ALIGNMENTS.length)],
+                random.nextInt(4) == 0 ? LinearLayout.GrowPolicy.CanGrow : LinearLayout.GrowPolicy.None);
+    }
+}
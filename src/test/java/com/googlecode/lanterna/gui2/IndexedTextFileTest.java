@@ -0,0 +1,135 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IndexedTextFileTest {
+    @Test
+    public void linesAreFoundAcrossCheckpointsAndAppends() throws Exception {
+        File file = File.createTempFile("lanterna", ".log");
+        file.deleteOnExit();
+        List<String> expected = new ArrayList<>();
+        StringBuilder content = new StringBuilder();
+        for(int i = 0; i < IndexedTextFile.LINES_PER_CHECKPOINT * 3 + 17; i++) {
+            StringBuilder line = new StringBuilder();
+            if(i % 7 != 0) {
+                line.append("line ").append(i).append(" ÅÄÖ ");
+                for(int j = 0; j < i % 50; j++) {
+                    line.append('x');
+                }
+            }
+            expected.add(line.toString());
+            content.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        write(file, content.toString(), false);
+
+        try(IndexedTextFile indexedFile = new IndexedTextFile(file, StandardCharsets.UTF_8, () -> {})) {
+            waitForIndexing(indexedFile);
+            assertEquals(expected.size(), indexedFile.getLineCount());
+            for(int line = expected.size() - 1; line >= 0; line -= 13) {
+                assertEquals(expected.subList(line, Math.min(line + 5, expected.size())), indexedFile.getLines(line, 5));
+            }
+            long offset = indexedFile.getLineStart(1000);
+            assertEquals(1000, indexedFile.getLineOfOffset(offset));
+            assertEquals(1000, indexedFile.getLineOfOffset(offset + 3));
+
+            byte[] pattern = "line 1000 ".getBytes(StandardCharsets.UTF_8);
+            assertEquals(offset, indexedFile.find(pattern, false, 0, true, () -> false));
+            assertEquals(offset, indexedFile.find(pattern, false, indexedFile.getIndexedLength(), false, () -> false));
+            assertEquals(-1, indexedFile.find(pattern, false, offset + 1, true, () -> false));
+            assertEquals(-1, indexedFile.find("LINE 1000 ".getBytes(StandardCharsets.UTF_8), false, 0, true, () -> false));
+
+            // An unterminated last line is completed by what's appended later
+            write(file, "partial", true);
+            indexedFile.refresh();
+            waitForIndexing(indexedFile);
+            assertEquals(expected.size() + 1, indexedFile.getLineCount());
+            write(file, " line\nlast\n", true);
+            indexedFile.refresh();
+            waitForIndexing(indexedFile);
+            assertEquals(Arrays.asList("partial line", "last"), indexedFile.getLines(expected.size(), 5));
+
+            // Truncating the file starts over
+            write(file, "one\ntwo", false);
+            indexedFile.refresh();
+            waitForIndexing(indexedFile);
+            assertEquals(Arrays.asList("one", "two"), indexedFile.getLines(0, 5));
+        }
+    }
+
+    @Test
+    public void readingPastTheEndOfATruncatedFileFailsUntilRefreshed() throws Exception {
+        File file = File.createTempFile("lanterna", ".log");
+        file.deleteOnExit();
+        StringBuilder content = new StringBuilder();
+        for(int i = 0; i < 100000; i++) {
+            content.append("line ").append(i).append('\n');
+        }
+        write(file, content.toString(), false);
+
+        try(IndexedTextFile indexedFile = new IndexedTextFile(file, StandardCharsets.UTF_8, () -> {})) {
+            waitForIndexing(indexedFile);
+            assertEquals(Arrays.asList("line 90000"), indexedFile.getLines(90000, 1));
+
+            // Like copytruncate does to a log file, without the file being refreshed before the next read
+            try(RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                randomAccessFile.setLength(0);
+            }
+            try {
+                indexedFile.getLines(90000, 1);
+                fail("Expected reading the truncated part of the file to fail");
+            }
+            catch(IOException expected) {
+            }
+
+            write(file, "new\n", true);
+            indexedFile.refresh();
+            waitForIndexing(indexedFile);
+            assertEquals(1, indexedFile.getLineCount());
+            assertEquals(Arrays.asList("new"), indexedFile.getLines(0, 5));
+        }
+    }
+
+    private static void write(File file, String content, boolean append) throws IOException {
+        try(OutputStream outputStream = new FileOutputStream(file, append)) {
+            outputStream.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void waitForIndexing(IndexedTextFile indexedFile) throws InterruptedException {
+        for(int i = 0; i < 500 && indexedFile.isIndexing(); i++) {
+            Thread.sleep(10);
+        }
+        assertFalse(indexedFile.isIndexing());
+        assertNull(indexedFile.getIndexingError());
+    }
+}
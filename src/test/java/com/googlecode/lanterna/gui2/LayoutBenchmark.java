@@ -0,0 +1,82 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures how long it takes to lay out a grid of 50 rows and 20 columns of labels with {@code GridLayout}, and a
+ * column of the same labels with {@code LinearLayout}, when the text of one label changes between each layout. The
+ * layout manager is used the same way as {@code Panel} uses it, first asking for the preferred size and then doing the
+ * layout. Run it as a normal program, optionally passing the number of layouts per case as the first argument.
+ */
+public class LayoutBenchmark {
+    private static final int ROWS = 50;
+    private static final int COLUMNS = 20;
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        for(Change change: Change.values()) {
+            run(new GridLayout(COLUMNS), change, iterations / 4);    // Warm-up
+            System.out.printf("GridLayout   %-20s %8.1f us/layout%n", change, run(new GridLayout(COLUMNS), change, iterations));
+            run(new LinearLayout(), change, iterations / 4);
+            System.out.printf("LinearLayout %-20s %8.1f us/layout%n", change, run(new LinearLayout(), change, iterations));
+        }
+    }
+
+    private static double run(LayoutManager layoutManager, Change change, int iterations) {
+        List<Component> components = new ArrayList<>();
+        for(int i = 0; i < ROWS * COLUMNS; i++) {
+            components.add(new Label(change.getText(i)));
+        }
+        TerminalSize area = new TerminalSize(250, 60);
+        layoutManager.getPreferredSize(components);
+        layoutManager.doLayout(area, components);
+
+        long startTime = System.nanoTime();
+        for(int frame = 0; frame < iterations; frame++) {
+            Label label = (Label)components.get(frame * 37 % components.size());
+            label.setText(change.getText(frame));
+            layoutManager.getPreferredSize(components);
+            layoutManager.doLayout(area, components);
+        }
+        return (System.nanoTime() - startTime) / 1000.0 / iterations;
+    }
+
+    private enum Change {
+        SAME_SIZE {
+            @Override
+            String getText(int frame) {
+                return String.format("Item %4d", frame % 10000);
+            }
+        },
+        DIFFERENT_SIZE {
+            @Override
+            String getText(int frame) {
+                return frame % 2 == 0 ? "Item " + frame : "Changed item " + frame;
+            }
+        },
+        ;
+
+        abstract String getText(int frame);
+    }
+}
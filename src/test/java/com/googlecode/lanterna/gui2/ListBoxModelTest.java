@@ -0,0 +1,151 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class ListBoxModelTest {
+    @Test
+    public void listBoxOnlyReadsTheItemsItNeeds() {
+        CountingModel model = new CountingModel(1_000_000);
+        ActionListBox listBox = new ActionListBox(new TerminalSize(20, 10));
+        listBox.setModel(model);
+        assertEquals(1_000_000, listBox.getItemCount());
+        assertEquals(0, listBox.getSelectedIndex());
+
+        @SuppressWarnings("unchecked")
+        AbstractListBox.DefaultListBoxRenderer<Runnable, ActionListBox> renderer =
+                (AbstractListBox.DefaultListBoxRenderer<Runnable, ActionListBox>)listBox.getRenderer();
+        renderer.setSampledItems(100);
+        assertEquals(new TerminalSize(7, 1_000_000), renderer.getPreferredSize(listBox));
+        assertEquals(100, model.reads);
+        renderer.setFixedItemWidth(30);
+        assertEquals(new TerminalSize(31, 1_000_000), renderer.getPreferredSize(listBox));
+        assertEquals(100, model.reads);
+
+        listBox.setPrefixIndexEnabled(true);
+        type(listBox, "item42");
+        assertEquals(42, listBox.getSelectedIndex());
+        type(listBox, "item420");
+        assertEquals(420, listBox.getSelectedIndex());
+        // Building the index reads every item once, after that only the selected item is looked at per key
+        assertTrue(model.reads < 1_000_200);
+
+        // Removing items before the selected one moves the selection along, and the index is built again
+        model.remove(0, 10);
+        assertEquals(410, listBox.getSelectedIndex());
+        type(listBox, "item9999");
+        assertEquals(9989, listBox.getSelectedIndex());
+
+        try {
+            listBox.addItem("label", () -> {});
+            fail("Adding items through a list box with a custom model should fail");
+        }
+        catch(UnsupportedOperationException expected) {
+        }
+    }
+
+    @Test
+    public void checkedStatesFollowTheirItems() {
+        DefaultListBoxModel<String> model = new DefaultListBoxModel<>(Arrays.asList("a", "b", "c", "d"));
+        CheckBoxList<String> checkBoxList = new CheckBoxList<>();
+        checkBoxList.setModel(model);
+        checkBoxList.setChecked("b", true);
+        checkBoxList.setChecked("d", true);
+        model.insertItems(1, Arrays.asList("x", "y"));
+        assertEquals(Arrays.asList("b", "d"), checkBoxList.getCheckedItems());
+        model.removeItem(3);
+        assertEquals(Collections.singletonList("d"), checkBoxList.getCheckedItems());
+        checkBoxList.addItem("e", true);
+        assertEquals(Arrays.asList("d", "e"), checkBoxList.getCheckedItems());
+        assertEquals(Boolean.FALSE, checkBoxList.isChecked(0));
+        assertNull(checkBoxList.isChecked(6));
+    }
+
+    private static void type(AbstractListBox<?, ?> listBox, String text) {
+        // Any other key ends what was typed before, so this starts a new search
+        listBox.handleKeyStroke(new KeyStroke(KeyType.Tab));
+        for(char c: text.toCharArray()) {
+            listBox.handleKeyStroke(new KeyStroke(c, false, false));
+        }
+    }
+
+    private static class CountingModel implements ListBoxModel<Runnable> {
+        private final List<Listener<Runnable>> listeners = new CopyOnWriteArrayList<>();
+        private int first;
+        private int size;
+        private int reads;
+
+        private CountingModel(int size) {
+            this.size = size;
+        }
+
+        private void remove(int index, int count) {
+            first += count;
+            size -= count;
+            for(Listener<Runnable> listener: listeners) {
+                listener.onItemsChanged(this, index, count, 0);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public Runnable getItemAt(int index) {
+            if(index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(String.valueOf(index));
+            }
+            reads++;
+            final String label = "item" + (first + index);
+            return new Runnable() {
+                @Override
+                public void run() {
+                }
+
+                @Override
+                public String toString() {
+                    return label;
+                }
+            };
+        }
+
+        @Override
+        public void addListener(Listener<Runnable> listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void removeListener(Listener<Runnable> listener) {
+            listeners.remove(listener);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Makes random changes to the windows of a {@link MultiWindowTextGUI}, which only draws what has changed since the last
+ * update, and checks after each change that the screen looks the same as when a new GUI with the same windows draws
+ * everything from scratch
+ */
+public class MultiWindowRedrawTest {
+    private static final TerminalSize SCREEN_SIZE = new TerminalSize(60, 20);
+
+    @Test
+    public void updatingTheDamagedAreasGivesTheSameScreenAsAFullRedraw() throws IOException {
+        for(int seed = 0; seed < 10; seed++) {
+            Random random = new Random(seed);
+            TerminalScreen screen = new TerminalScreen(new DefaultVirtualTerminal(SCREEN_SIZE));
+            screen.startScreen();
+            MultiWindowTextGUI textGUI = new MultiWindowTextGUI(screen);
+            for(int step = 0; step < 200; step++) {
+                String change = changeWindows(random, textGUI);
+                textGUI.updateScreen();
+                assertSameScreen("Seed " + seed + ", step " + step + " (" + change + ")", drawFromScratch(textGUI), screen);
+            }
+            screen.stopScreen();
+        }
+    }
+
+    private static String changeWindows(Random random, MultiWindowTextGUI textGUI) {
+        List<Window> windows = new ArrayList<>(textGUI.getWindows());
+        if(windows.size() < 2 || random.nextInt(8) == 0) {
+            textGUI.addWindow(new TestWindow(random));
+            return "open";
+        }
+        TestWindow window = (TestWindow)windows.get(random.nextInt(windows.size()));
+        switch(random.nextInt(8)) {
+            case 0:
+                textGUI.removeWindow(window);
+                return "close";
+            case 1:
+                window.setPosition(randomPosition(random));
+                return "move";
+            case 2:
+                textGUI.moveToTop(window);
+                return "move to top";
+            case 3:
+                textGUI.setActiveWindow(window);
+                return "activate";
+            case 4:
+                window.setFixedSize(randomSize(random));
+                return "resize";
+            case 5:
+                window.label.setText(randomText(random));
+                return "change content";
+            case 6:
+                window.setVisible(!window.isVisible());
+                return "show or hide";
+            default:
+                window.setTitle(randomText(random));
+                return "change title";
+        }
+    }
+
+    /**
+     * Creates a new GUI with copies of the windows, in the same order and with the same active window, and draws it
+     */
+    private static TerminalScreen drawFromScratch(MultiWindowTextGUI textGUI) throws IOException {
+        TerminalScreen screen = new TerminalScreen(new DefaultVirtualTerminal(SCREEN_SIZE));
+        screen.startScreen();
+        MultiWindowTextGUI copyGUI = new MultiWindowTextGUI(screen);
+        List<Window> copies = new ArrayList<>();
+        Window activeCopy = null;
+        for(Window window: textGUI.getWindows()) {
+            Window copy = ((TestWindow)window).copy();
+            copyGUI.addWindow(copy);
+            copies.add(copy);
+            if(window == textGUI.getActiveWindow()) {
+                activeCopy = copy;
+            }
+        }
+        // Activating a window moves it to the top, so put the windows that were above it back on top of it
+        copyGUI.setActiveWindow(activeCopy);
+        for(Window copy: copies.subList(copies.indexOf(activeCopy) + 1, copies.size())) {
+            copyGUI.moveToTop(copy);
+        }
+        copyGUI.updateScreen();
+        screen.stopScreen();
+        return screen;
+    }
+
+    private static void assertSameScreen(String message, TerminalScreen expected, TerminalScreen actual) {
+        for(int row = 0; row < SCREEN_SIZE.getRows(); row++) {
+            for(int column = 0; column < SCREEN_SIZE.getColumns(); column++) {
+                assertEquals(message + ", column " + column + ", row " + row,
+                        expected.getFrontCharacter(column, row), actual.getFrontCharacter(column, row));
+            }
+        }
+    }
+
+    private static TerminalPosition randomPosition(Random random) {
+        // Partly off the screen sometimes
+        return new TerminalPosition(random.nextInt(SCREEN_SIZE.getColumns()) - 5, random.nextInt(SCREEN_SIZE.getRows()) - 2);
+    }
+
+    private static TerminalSize randomSize(Random random) {
+        return new TerminalSize(3 + random.nextInt(25), 1 + random.nextInt(8));
+    }
+
+    private static String randomText(Random random) {
+        char[] text = new char[random.nextInt(20)];
+        for(int i = 0; i < text.length; i++) {
+            text[i] = (char)('a' + random.nextInt(26));
+        }
+        return new String(text);
+    }
+
+    private static class TestWindow extends BasicWindow {
+        private final Label label;
+
+        TestWindow(Random random) {
+            this(randomText(random), randomText(random), randomPosition(random), randomSize(random), random.nextInt(4) == 0);
+        }
+
+        private TestWindow(String title, String text, TerminalPosition position, TerminalSize size, boolean undecorated) {
+            super(title);
+            label = new Label(text);
+            setComponent(label);
+            if(undecorated) {
+                setHints(Arrays.asList(Hint.FIXED_POSITION, Hint.NO_DECORATIONS));
+            }
+            else {
+                setHints(Arrays.asList(Hint.FIXED_POSITION));
+            }
+            setPosition(position);
+            setFixedSize(size);
+        }
+
+        TestWindow copy() {
+            TestWindow copy = new TestWindow(getTitle(), label.getText(), getPosition(), getSize(),
+                    getHints().contains(Hint.NO_DECORATIONS));
+            copy.setVisible(isVisible());
+            return copy;
+        }
+    }
+}
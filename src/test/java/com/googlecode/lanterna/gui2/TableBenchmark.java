@@ -0,0 +1,117 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.gui2.table.DefaultTableRenderer;
+import com.googlecode.lanterna.gui2.table.LazyTableModel;
+import com.googlecode.lanterna.gui2.table.Table;
+import com.googlecode.lanterna.gui2.table.TableDataProvider;
+import com.googlecode.lanterna.gui2.table.TableModel;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long it takes to update the screen of a {@code MultiWindowTextGUI} showing a {@code Table} with
+ * 100,000 rows, when the selection moves down one row between each update. The table is tried with a regular
+ * {@code TableModel} where every row is measured, the same model with only a sample of the rows measured and a
+ * {@code LazyTableModel} reading the rows from a data provider. Run it as a normal program, optionally passing the
+ * number of updates as the first argument.
+ */
+public class TableBenchmark {
+    private static final int ROWS = 100000;
+    private static final String[] COLUMNS = { "Id", "Name", "Address", "City", "Balance" };
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        TableModel<String> tableModel = new TableModel<>(COLUMNS);
+        for(int row = 0; row < ROWS; row++) {
+            tableModel.addRow(getRow(row));
+        }
+        run("TableModel, all rows measured", tableModel, 0, iterations);
+        run("TableModel, 100 rows sampled", tableModel, 100, iterations);
+
+        final int[] providedRows = new int[1];
+        TableDataProvider<String> dataProvider = new TableDataProvider<String>() {
+            @Override
+            public int getRowCount() {
+                return ROWS;
+            }
+
+            @Override
+            public List<List<String>> getRows(int firstRow, int rowCount) {
+                providedRows[0] += rowCount;
+                List<List<String>> rows = new ArrayList<>(rowCount);
+                for(int row = firstRow; row < firstRow + rowCount; row++) {
+                    rows.add(getRow(row));
+                }
+                return rows;
+            }
+        };
+        run("LazyTableModel, 100 rows sampled", new LazyTableModel<>(dataProvider, COLUMNS), 100, iterations);
+        System.out.printf("LazyTableModel read %d rows from the data provider%n", providedRows[0]);
+    }
+
+    private static List<String> getRow(int row) {
+        return Arrays.asList(
+                Integer.toString(row),
+                "Customer " + row,
+                (row % 997) + " Main Street",
+                "City " + (row % 50),
+                String.format("%.2f", (row * 7919 % 100000) / 100.0));
+    }
+
+    private static void run(String name, TableModel<String> tableModel, int sampledRows, int iterations) throws IOException {
+        DefaultVirtualTerminal terminal = new DefaultVirtualTerminal(new TerminalSize(120, 40));
+        TerminalScreen screen = new TerminalScreen(terminal);
+        screen.startScreen();
+        MultiWindowTextGUI textGUI = new MultiWindowTextGUI(screen);
+
+        Table<String> table = new Table<>(COLUMNS);
+        table.setTableModel(tableModel);
+        table.setVisibleRows(30);
+        ((DefaultTableRenderer<String>)table.getRenderer()).setSampledRows(sampledRows);
+        BasicWindow window = new BasicWindow("Table");
+        window.setComponent(table);
+        textGUI.addWindow(window);
+        textGUI.updateScreen();
+
+        KeyStroke arrowDown = new KeyStroke(KeyType.ArrowDown);
+        for(int round = 0; round < 2; round++) {
+            // The first round is warm-up
+            long startTime = System.nanoTime();
+            for(int frame = 0; frame < iterations; frame++) {
+                table.handleKeyStroke(arrowDown);
+                textGUI.updateScreen();
+            }
+            long nanos = System.nanoTime() - startTime;
+            if(round == 1) {
+                System.out.printf("%-35s %10.1f us/update%n", name, nanos / 1000.0 / iterations);
+            }
+        }
+        screen.stopScreen();
+    }
+}
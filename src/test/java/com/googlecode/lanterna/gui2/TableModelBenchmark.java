@@ -0,0 +1,111 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.gui2.table.DefaultTableRenderer;
+import com.googlecode.lanterna.gui2.table.Table;
+import com.googlecode.lanterna.gui2.table.TableModel;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures how long it takes to feed rows and cell updates into the {@code TableModel} of a {@code Table} and then
+ * update the screen, like a table showing a stream of market data would. Between each screen update, 100 rows are
+ * appended and 100 cells are changed, either one call at a time or through {@code addRows} and {@code runBatch}. Run it
+ * as a normal program, optionally passing the number of updates as the first argument.
+ */
+public class TableModelBenchmark {
+    private static final int INITIAL_ROWS = 10000;
+    private static final int CHANGES_PER_UPDATE = 100;
+    private static final String[] COLUMNS = { "Symbol", "Bid", "Ask", "Last" };
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        run("One row or cell at a time", false, iterations);
+        run("Bulk add and batched cell updates", true, iterations);
+    }
+
+    private static List<String> getRow(int row) {
+        return Arrays.asList("SYM" + row, Integer.toString(row % 1000), Integer.toString(row % 1000 + 1), Integer.toString(row % 997));
+    }
+
+    private static void run(String name, boolean batched, int iterations) throws IOException {
+        DefaultVirtualTerminal terminal = new DefaultVirtualTerminal(new TerminalSize(120, 40));
+        TerminalScreen screen = new TerminalScreen(terminal);
+        screen.startScreen();
+        MultiWindowTextGUI textGUI = new MultiWindowTextGUI(screen);
+
+        final TableModel<String> tableModel = new TableModel<>(COLUMNS);
+        List<List<String>> initialRows = new ArrayList<>();
+        for(int row = 0; row < INITIAL_ROWS; row++) {
+            initialRows.add(getRow(row));
+        }
+        tableModel.addRows(initialRows);
+        Table<String> table = new Table<>(COLUMNS);
+        table.setTableModel(tableModel);
+        table.setVisibleRows(30);
+        ((DefaultTableRenderer<String>)table.getRenderer()).setSampledRows(100);
+        BasicWindow window = new BasicWindow("Table");
+        window.setComponent(table);
+        textGUI.addWindow(window);
+        textGUI.updateScreen();
+
+        int nextRow = INITIAL_ROWS;
+        for(int round = 0; round < 2; round++) {
+            // The first round is warm-up
+            long startTime = System.nanoTime();
+            for(int frame = 0; frame < iterations; frame++) {
+                final int firstNewRow = nextRow;
+                nextRow += CHANGES_PER_UPDATE;
+                if(batched) {
+                    List<List<String>> newRows = new ArrayList<>(CHANGES_PER_UPDATE);
+                    for(int i = 0; i < CHANGES_PER_UPDATE; i++) {
+                        newRows.add(getRow(firstNewRow + i));
+                    }
+                    tableModel.addRows(newRows);
+                    tableModel.runBatch(() -> {
+                        for(int i = 0; i < CHANGES_PER_UPDATE; i++) {
+                            tableModel.setCell(3, (firstNewRow * 31 + i * 97) % firstNewRow, Integer.toString(i));
+                        }
+                    });
+                }
+                else {
+                    for(int i = 0; i < CHANGES_PER_UPDATE; i++) {
+                        tableModel.addRow(getRow(firstNewRow + i));
+                    }
+                    for(int i = 0; i < CHANGES_PER_UPDATE; i++) {
+                        tableModel.setCell(3, (firstNewRow * 31 + i * 97) % firstNewRow, Integer.toString(i));
+                    }
+                }
+                textGUI.updateScreen();
+            }
+            long nanos = System.nanoTime() - startTime;
+            if(round == 1) {
+                System.out.printf("%-35s %10.1f us/update%n", name, nanos / 1000.0 / iterations);
+            }
+        }
+        screen.stopScreen();
+    }
+}
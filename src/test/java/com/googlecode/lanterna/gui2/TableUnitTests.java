@@ -2,7 +2,10 @@ package com.googlecode.lanterna.gui2;
 
 import com.googlecode.lanterna.TerminalSize;
 import com.googlecode.lanterna.gui2.Window.Hint;
+import com.googlecode.lanterna.gui2.table.DefaultTableRenderer;
+import com.googlecode.lanterna.gui2.table.LazyTableModel;
 import com.googlecode.lanterna.gui2.table.Table;
+import com.googlecode.lanterna.gui2.table.TableDataProvider;
 import com.googlecode.lanterna.gui2.table.TableModel;
 import com.googlecode.lanterna.screen.TerminalScreen;
 import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
@@ -10,7 +13,9 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 
@@ -221,6 +226,77 @@ public class TableUnitTests {
                 "A4 B4                        ▼");
     }
 
+    @Test
+    public void testLazyTableModelOnlyReadsRowsInView() throws Exception {
+        final int[] providedRows = new int[1];
+        table.setTableModel(new LazyTableModel<>(new TableDataProvider<String>() {
+            @Override
+            public int getRowCount() {
+                return 1000;
+            }
+
+            @Override
+            public List<List<String>> getRows(int firstRow, int rowCount) {
+                providedRows[0] += rowCount;
+                List<List<String>> rows = new ArrayList<>();
+                for(int row = firstRow; row < firstRow + rowCount; row++) {
+                    rows.add(Arrays.asList(String.format("A%03d", row), String.format("B%03d", row)));
+                }
+                return rows;
+            }
+        }, 10, 3, "a", "b"));
+        ((DefaultTableRenderer<String>)table.getRenderer()).setSampledRows(2);
+        table.setVisibleRows(2);
+        assertScreenEquals("" +
+                "a    b\n" +
+                "A000 B000                    ▲\n" +
+                "A001 B001                    ▼");
+        table.setSelectedRow(500);
+        assertScreenEquals("" +
+                "a    b\n" +
+                "A499 B499                    ▲\n" +
+                "A500 B500                    ▼");
+        assertEquals(30, providedRows[0]);
+    }
+
+    @Test
+    public void testBatchedChangesAreReportedOnceAndKeepSelection() throws Exception {
+        table.setVisibleRows(2);
+        addFourRows();
+        table.setSelectedRow(2);
+        final List<String> changes = new ArrayList<>();
+        model.addBatchListener((tableModel, firstRow, removedRows, addedRows) ->
+                changes.add(firstRow + " " + removedRows + " " + addedRows));
+        final List<List<String>> snapshot = model.getSnapshot();
+        model.runBatch(() -> {
+            model.removeRows(0, 2);
+            model.insertRows(0, Arrays.asList(Arrays.asList("X1", "Y1"), Arrays.asList("X2", "Y2"), Arrays.asList("X3", "Y3")));
+            model.setCell(1, 0, "Y0");
+            assertEquals(4, snapshot.size());
+            assertEquals(Arrays.asList("A1", "B1"), snapshot.get(0));
+        });
+        assertEquals(Arrays.asList("0 2 3"), changes);
+        assertEquals(3, table.getSelectedRow());
+        assertScreenEquals("" +
+                "a  b\n" +
+                "X3 Y3                        ▲\n" +
+                "A3 B3                        ▼");
+    }
+
+    @Test
+    public void testListenersCanRemoveThemselvesWhileBeingNotified() {
+        final List<String> changes = new ArrayList<>();
+        model.addBatchListener(new TableModel.BatchListener<String>() {
+            @Override
+            public void onRowsChanged(TableModel<String> tableModel, int firstRow, int removedRows, int addedRows) {
+                changes.add(firstRow + " " + removedRows + " " + addedRows);
+                tableModel.removeBatchListener(this);
+            }
+        });
+        addFourRows();
+        assertEquals(Arrays.asList("0 0 1"), changes);
+    }
+
     // ---------------- END OF TESTS ----------------
 
     private void addFourRows() {
@@ -0,0 +1,111 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import com.googlecode.lanterna.screen.TerminalScreen;
+import com.googlecode.lanterna.terminal.virtual.DefaultVirtualTerminal;
+
+import java.io.IOException;
+
+/**
+ * Measures how long common edits take in a multi-line {@code TextBox} holding a 50,000 line document: loading the text,
+ * typing in the middle of it, splitting and joining lines with enter and backspace, reading the text back and pasting
+ * a long line one key stroke at a time, the way terminals deliver pasted text. The screen is updated after each batch
+ * of input, like the text GUI thread would. Run it as a normal program, optionally passing the number of lines as the
+ * first argument.
+ */
+public class TextBoxBenchmark {
+    public static void main(String[] args) throws IOException {
+        int lineCount = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+        StringBuilder bob = new StringBuilder();
+        for(int i = 0; i < lineCount; i++) {
+            if(i > 0) {
+                bob.append('\n');
+            }
+            bob.append("2020-01-01 12:00:00 INFO  [worker-").append(i % 16).append("] Processed request ").append(i);
+        }
+        String text = bob.toString();
+        for(int round = 0; round < 2; round++) {
+            // The first round is warm-up
+            run(text, lineCount, round == 1);
+        }
+    }
+
+    private static void run(String text, int lineCount, boolean print) throws IOException {
+        DefaultVirtualTerminal terminal = new DefaultVirtualTerminal(new TerminalSize(120, 40));
+        TerminalScreen screen = new TerminalScreen(terminal);
+        screen.startScreen();
+        MultiWindowTextGUI textGUI = new MultiWindowTextGUI(screen);
+        TextBox textBox = new TextBox(new TerminalSize(100, 30), "", TextBox.Style.MULTI_LINE);
+        BasicWindow window = new BasicWindow("TextBox");
+        window.setComponent(textBox);
+        textGUI.addWindow(window);
+
+        long startTime = System.nanoTime();
+        textBox.setText(text);
+        textGUI.updateScreen();
+        report(print, "setText", startTime, 1, "load");
+
+        textBox.setCaretPosition(lineCount / 2, 10);
+        textGUI.updateScreen();
+        startTime = System.nanoTime();
+        for(int i = 0; i < 1000; i++) {
+            textBox.handleInput(new KeyStroke((char)('a' + i % 26), false, false));
+            textGUI.updateScreen();
+        }
+        report(print, "Typing", startTime, 1000, "key stroke");
+
+        startTime = System.nanoTime();
+        for(int i = 0; i < 1000; i++) {
+            textBox.handleInput(new KeyStroke(i % 2 == 0 ? KeyType.Enter : KeyType.Backspace));
+            textGUI.updateScreen();
+        }
+        report(print, "Enter and backspace", startTime, 1000, "key stroke");
+
+        startTime = System.nanoTime();
+        int length = 0;
+        for(int i = 0; i < 100; i++) {
+            textBox.handleInput(new KeyStroke(KeyType.ArrowDown));
+            length += textBox.getText().length();
+        }
+        report(print, "getText after moving the caret", startTime, 100, "call");
+
+        startTime = System.nanoTime();
+        for(int i = 0; i < 100000; i++) {
+            textBox.handleInput(new KeyStroke((char)('a' + i % 26), false, false));
+            if(i % 1000 == 999) {
+                textGUI.updateScreen();
+            }
+        }
+        report(print, "Pasting a 100,000 character line", startTime, 1, "paste");
+        if(print) {
+            System.out.println("(" + length + " characters read)");
+        }
+        screen.stopScreen();
+    }
+
+    private static void report(boolean print, String name, long startTime, int count, String unit) {
+        if(print) {
+            System.out.printf("%-35s %12.1f us/%s%n", name, (System.nanoTime() - startTime) / 1000.0 / count, unit);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.gui2;
+
+import com.googlecode.lanterna.TerminalTextUtils;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TextDocumentTest {
+    @Test
+    public void randomEditsMatchAList() {
+        Random random = new Random(42);
+        TextDocument document = new TextDocument();
+        List<String> expected = new ArrayList<>();
+        for(int step = 0; step < 5000; step++) {
+            int operation = random.nextInt(10);
+            if(operation < 4 || expected.isEmpty()) {
+                int index = random.nextInt(expected.size() + 1);
+                List<String> lines = new ArrayList<>();
+                for(int i = random.nextInt(operation == 0 ? 50 : 3); i >= 0; i--) {
+                    lines.add(randomLine(random));
+                }
+                document.insertLines(index, lines);
+                expected.addAll(index, lines);
+            }
+            else if(operation < 7) {
+                int fromIndex = random.nextInt(expected.size());
+                int toIndex = Math.min(expected.size(), fromIndex + random.nextInt(operation == 4 ? 20 : 2));
+                document.removeLines(fromIndex, toIndex);
+                expected.subList(fromIndex, toIndex).clear();
+            }
+            else {
+                int index = random.nextInt(expected.size());
+                String line = randomLine(random);
+                document.setLine(index, line);
+                expected.set(index, line);
+            }
+            assertEquals(expected.size(), document.getLineCount());
+            if(step % 50 == 0) {
+                assertDocumentEquals(expected, document);
+            }
+        }
+        assertDocumentEquals(expected, document);
+    }
+
+    @Test
+    public void combiningMarksAndEmojiAreMeasuredLikeTerminalTextUtils() {
+        List<String> lines = Arrays.asList("e\u0301x", "a\uD83D\uDE00b", "x\u200Dy", "plain", "a\u0001b");
+        TextDocument document = new TextDocument();
+        document.addLines(lines);
+        assertEquals(2, document.getLineWidth(0));
+        assertEquals(1, document.getColumnIndex(1, 2));
+        assertFalse(document.isSingleColumnLine(0));
+        assertTrue(document.isSingleColumnLine(3));
+        for(int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i);
+            assertEquals(line, TerminalTextUtils.getColumnWidth(line), document.getLineWidth(i));
+            for(int characterIndex = 0; characterIndex <= line.length(); characterIndex++) {
+                assertEquals(line, TerminalTextUtils.getColumnIndex(line, characterIndex), document.getColumnIndex(i, characterIndex));
+            }
+        }
+    }
+
+    @Test
+    public void emptyDocument() {
+        TextDocument document = new TextDocument();
+        assertEquals(0, document.getLineCount());
+        assertEquals("", document.getText());
+        assertEquals(0, document.getMaxLineWidth());
+        document.addLines(Arrays.asList("a", "bc"));
+        document.clear();
+        assertEquals(Collections.emptyList(), document.getLines(0, 0));
+    }
+
+    private static void assertDocumentEquals(List<String> expected, TextDocument document) {
+        int maxWidth = 0;
+        StringBuilder text = new StringBuilder();
+        for(int i = 0; i < expected.size(); i++) {
+            String line = expected.get(i);
+            assertEquals(line, document.getLine(i));
+            assertEquals(TerminalTextUtils.getColumnWidth(line), document.getLineWidth(i));
+            assertEquals(TerminalTextUtils.getColumnIndex(line, line.length() / 2), document.getColumnIndex(i, line.length() / 2));
+            maxWidth = Math.max(maxWidth, TerminalTextUtils.getColumnWidth(line));
+            text.append(i > 0 ? "\n" : "").append(line);
+        }
+        assertEquals(maxWidth, document.getMaxLineWidth());
+        assertEquals(text.toString(), document.getText());
+        if(!expected.isEmpty()) {
+            assertEquals(expected.subList(expected.size() / 3, expected.size() / 2), document.getLines(expected.size() / 3, expected.size() / 2));
+        }
+    }
+
+    private static String randomLine(Random random) {
+        StringBuilder line = new StringBuilder();
+        for(int i = random.nextInt(30); i > 0; i--) {
+            line.append("abc \t日本".charAt(random.nextInt(7)));
+        }
+        return line.toString();
+    }
+}
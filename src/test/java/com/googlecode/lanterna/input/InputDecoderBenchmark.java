@@ -0,0 +1,99 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.input;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures how long it takes and how much memory is allocated to decode a few typical kinds of input with the default
+ * key decoding profile: pasted text, a stream of mouse motion events and a mix of special keys. Run it as a normal
+ * program, optionally passing the number of key strokes per input kind as the first argument.
+ */
+public class InputDecoderBenchmark {
+    public static void main(String[] args) throws IOException {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        System.out.printf("%-14s %12s %14s%n", "Input", "ns/key", "alloc B/key");
+        for(Input input: Input.values()) {
+            String data = input.generate(keys);
+            run(data);  // Warm-up
+            long allocatedBefore = getAllocatedBytes();
+            long startTime = System.nanoTime();
+            int decoded = run(data);
+            long nanos = System.nanoTime() - startTime;
+            long allocated = getAllocatedBytes() - allocatedBefore;
+            System.out.printf("%-14s %12.1f %14d%n", input, (double)nanos / decoded, allocated / decoded);
+        }
+    }
+
+    private static int run(String data) throws IOException {
+        InputDecoder inputDecoder = new InputDecoder(new StringReader(data));
+        inputDecoder.addProfile(new DefaultKeyDecodingProfile());
+        int decoded = 0;
+        KeyStroke keyStroke;
+        while((keyStroke = inputDecoder.getNextCharacter(false)) != null && keyStroke.getKeyType() != KeyType.EOF) {
+            decoded++;
+        }
+        return decoded;
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private enum Input {
+        PASTED_TEXT {
+            @Override
+            String generate(int keys) {
+                String text = "The quick brown fox jumps over the lazy dog.\n";
+                StringBuilder builder = new StringBuilder();
+                while(builder.length() < keys) {
+                    builder.append(text);
+                }
+                return builder.substring(0, keys);
+            }
+        },
+        MOUSE_MOTION {
+            @Override
+            String generate(int keys) {
+                StringBuilder builder = new StringBuilder();
+                for(int i = 0; i < keys; i++) {
+                    builder.append("\u001b[M").append((char)(32 + 35)).append((char)(33 + i % 200)).append((char)(33 + i % 50));
+                }
+                return builder.toString();
+            }
+        },
+        SPECIAL_KEYS {
+            @Override
+            String generate(int keys) {
+                String[] sequences = { "\u001b[A", "\u001b[1;5C", "\u001b[24~", "\t", "\u001bOP", "\u001ba", "\u007f", "x" };
+                StringBuilder builder = new StringBuilder();
+                for(int i = 0; i < keys; i++) {
+                    builder.append(sequences[i % sequences.length]);
+                }
+                return builder.toString();
+            }
+        },
+        ;
+
+        abstract String generate(int keys);
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.input;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Compares {@link KeyDecodingTable} and {@link InputDecoder} with matching every sequence against the
+ * {@code match} method of each pattern, which is how input was decoded before the patterns were compiled into a table
+ */
+public class KeyDecodingTableTest {
+    private static final String[] SEQUENCES = {
+            "a", "Z", "1", ";", "[", "O", "~", "ä", "€", " ", " ",
+            "\t", "\n", "\r", "\r\u0000", "\u007f", "\b", "\u0001", "\u001a", "\u0000",
+            "\033", "\033a", "\033\u0001", "\033\033", "\033\r",
+            "\033[A", "\033[D", "\033OA", "\033OP", "\033[Z", "\033[[A", "\033[[E",
+            "\033[1;2A", "\033[1;5C", "\033[1;8D", "\033[3~", "\033[15~", "\033[15;5~", "\033[24;3~",
+            "\033[5;3R", "\033[40;120R", "\033[1;1R",
+            "\033[M !!", "\033[M@#$", "\033[Ma~~", "\033[M#!!",
+    };
+
+    @Test
+    public void everyPrefixOfEverySequenceMatchesLikeThePatterns() {
+        List<CharacterPattern> patterns = getDefaultPatterns();
+        KeyDecodingTable table = new KeyDecodingTable(patterns);
+        for(String first: SEQUENCES) {
+            // Also try each sequence followed by another, so sequences are cut off where a longer one could continue
+            for(String second: SEQUENCES) {
+                assertSameMatches(patterns, table, first + second);
+            }
+        }
+    }
+
+    @Test
+    public void randomSequencesMatchLikeThePatterns() {
+        List<CharacterPattern> patterns = getDefaultPatterns();
+        KeyDecodingTable table = new KeyDecodingTable(patterns);
+        Random random = new Random(4711);
+        for(int i = 0; i < 10000; i++) {
+            assertSameMatches(patterns, table, randomInput(random, 6));
+        }
+    }
+
+    @Test
+    public void inputSplitIntoRandomReadsDecodesLikeThePatterns() throws IOException {
+        Random random = new Random(42);
+        for(int i = 0; i < 2000; i++) {
+            String input = randomInput(random, 20);
+            ChunkedReader tableInput = new ChunkedReader();
+            ChunkedReader patternInput = new ChunkedReader();
+            InputDecoder decoder = new InputDecoder(tableInput);
+            decoder.addProfile(new DefaultKeyDecodingProfile());
+            PatternDecoder reference = new PatternDecoder(patternInput, getDefaultPatterns());
+
+            List<String> decoded = new ArrayList<>();
+            List<String> expected = new ArrayList<>();
+            int position = 0;
+            while(position < input.length()) {
+                int end = Math.min(input.length(), position + 1 + random.nextInt(8));
+                tableInput.append(input.substring(position, end));
+                patternInput.append(input.substring(position, end));
+                position = end;
+                for(KeyStroke keyStroke = decoder.getNextCharacter(false); keyStroke != null; keyStroke = decoder.getNextCharacter(false)) {
+                    decoded.add(describe(keyStroke));
+                }
+                for(KeyStroke keyStroke = reference.getNextCharacter(); keyStroke != null; keyStroke = reference.getNextCharacter()) {
+                    expected.add(describe(keyStroke));
+                }
+            }
+            assertEquals("Decoding " + escape(input), expected, decoded);
+        }
+    }
+
+    private static List<CharacterPattern> getDefaultPatterns() {
+        InputDecoder decoder = new InputDecoder(new ChunkedReader());
+        decoder.addProfile(new DefaultKeyDecodingProfile());
+        return new ArrayList<>(decoder.getPatterns());
+    }
+
+    private static String randomInput(Random random, int parts) {
+        StringBuilder input = new StringBuilder();
+        int count = 1 + random.nextInt(parts);
+        for(int i = 0; i < count; i++) {
+            String sequence = SEQUENCES[random.nextInt(SEQUENCES.length)];
+            switch(random.nextInt(4)) {
+                case 0:
+                    // Cut off, or a character from somewhere else in the sequence
+                    input.append(sequence, 0, 1 + random.nextInt(sequence.length()));
+                    break;
+                case 1:
+                    input.append(sequence.charAt(random.nextInt(sequence.length())));
+                    break;
+                default:
+                    input.append(sequence);
+            }
+        }
+        return input.toString();
+    }
+
+    private static void assertSameMatches(List<CharacterPattern> patterns, KeyDecodingTable table, String input) {
+        char[] sequence = input.toCharArray();
+        List<Character> characters = new ArrayList<>();
+        table.reset();
+        for(int length = 1; length <= sequence.length; length++) {
+            characters.add(sequence[length - 1]);
+            CharacterPattern.Matching expected = matchPatterns(patterns, characters);
+            int matching = table.advance(sequence, length);
+            String message = "Matching " + escape(input.substring(0, length));
+            assertEquals(message, expected.partialMatch, (matching & KeyDecodingTable.PARTIAL_MATCH) != 0);
+            assertEquals(message, expected.fullMatch != null, (matching & KeyDecodingTable.FULL_MATCH) != 0);
+            if(expected.fullMatch != null) {
+                assertEquals(message, describe(expected.fullMatch), describe(table.getFullMatch()));
+            }
+            if(matching == 0) {
+                // The decoder starts over after this
+                return;
+            }
+        }
+    }
+
+    private static CharacterPattern.Matching matchPatterns(List<CharacterPattern> patterns, List<Character> sequence) {
+        boolean partialMatch = false;
+        KeyStroke fullMatch = null;
+        for(CharacterPattern pattern: patterns) {
+            CharacterPattern.Matching matching = pattern.match(sequence);
+            if(matching != null) {
+                partialMatch |= matching.partialMatch;
+                if(matching.fullMatch != null) {
+                    fullMatch = matching.fullMatch;
+                }
+            }
+        }
+        return new CharacterPattern.Matching(partialMatch, fullMatch);
+    }
+
+    private static String describe(KeyStroke keyStroke) {
+        return keyStroke.getClass().getSimpleName() + ":" + keyStroke;
+    }
+
+    private static String escape(String input) {
+        StringBuilder escaped = new StringBuilder();
+        for(char c: input.toCharArray()) {
+            if(c < 0x20 || c == 0x7f) {
+                escaped.append(String.format("\\u%04x", (int)c));
+            }
+            else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Non-blocking decoding as {@link InputDecoder} did it before the table, with no escape timeout
+     */
+    private static class PatternDecoder {
+        private final ChunkedReader source;
+        private final List<CharacterPattern> patterns;
+        private final List<Character> currentMatching;
+
+        PatternDecoder(ChunkedReader source, List<CharacterPattern> patterns) {
+            this.source = source;
+            this.patterns = patterns;
+            this.currentMatching = new ArrayList<>();
+        }
+
+        KeyStroke getNextCharacter() throws IOException {
+            KeyStroke bestMatch = null;
+            int bestLength = 0;
+            int length = 0;
+            while(true) {
+                if(length < currentMatching.size()) {
+                    length++;
+                }
+                else if(source.ready()) {
+                    currentMatching.add((char)source.read());
+                    length++;
+                }
+                else {
+                    break;
+                }
+                List<Character> sequence = currentMatching.subList(0, length);
+                CharacterPattern.Matching matching = matchPatterns(patterns, sequence);
+                if(matching.fullMatch != null) {
+                    bestMatch = matching.fullMatch;
+                    bestLength = length;
+                    if(!matching.partialMatch) {
+                        break;
+                    }
+                }
+                else if(!matching.partialMatch) {
+                    if(bestMatch != null) {
+                        break;
+                    }
+                    sequence.clear();
+                    length = 0;
+                }
+            }
+            if(bestMatch != null) {
+                currentMatching.subList(0, bestLength).clear();
+            }
+            return bestMatch;
+        }
+    }
+
+    /**
+     * Reader that only has the characters appended to it so far available, like a terminal where input arrives in
+     * several reads
+     */
+    private static class ChunkedReader extends Reader {
+        private final StringBuilder available = new StringBuilder();
+
+        void append(String input) {
+            available.append(input);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            int count = Math.min(length, available.length());
+            available.getChars(0, count, buffer, offset);
+            available.delete(0, count);
+            return count;
+        }
+
+        @Override
+        public boolean ready() {
+            return available.length() > 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.screen;
+
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.graphics.PackedTextImage;
+import com.googlecode.lanterna.graphics.TextGraphics;
+import com.googlecode.lanterna.graphics.TextImage;
+import com.googlecode.lanterna.terminal.Terminal;
+import com.googlecode.lanterna.terminal.ansi.ANSITerminal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts how many bytes a {@code TerminalScreen} sends to an ANSI terminal when replaying recorded sequences of frames
+ * resembling typical text GUI usage. Every sequence is replayed three times: through the plain {@code Terminal}
+ * interface (one escape sequence per operation, absolute cursor positioning), through the ANSI output optimizer and
+ * through the optimizer with the REP sequence enabled. Run it as a normal program, optionally passing the number of
+ * frames per sequence as the first argument.
+ */
+public class RefreshByteCountBenchmark {
+    private static final TerminalSize SIZE = new TerminalSize(120, 40);
+
+    public static void main(String[] args) throws IOException {
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        System.out.printf("%-16s %14s %14s %14s %9s%n", "Sequence", "plain B/frame", "optimized", "with REP", "saved");
+        long totalPlain = 0;
+        long totalOptimized = 0;
+        for(Sequence sequence: Sequence.values()) {
+            List<TextImage> recording = sequence.record(frames);
+            long plain = replay(recording, Mode.PLAIN);
+            long optimized = replay(recording, Mode.OPTIMIZED);
+            long withRepeat = replay(recording, Mode.OPTIMIZED_WITH_REPEAT);
+            totalPlain += plain;
+            totalOptimized += optimized;
+            System.out.printf("%-16s %14d %14d %14d %8.1f%%%n",
+                    sequence,
+                    plain / frames,
+                    optimized / frames,
+                    withRepeat / frames,
+                    100.0 - 100.0 * optimized / plain);
+        }
+        System.out.printf("%-16s %14d %14d %14s %8.1f%%%n",
+                "TOTAL",
+                totalPlain / frames / Sequence.values().length,
+                totalOptimized / frames / Sequence.values().length,
+                "",
+                100.0 - 100.0 * totalOptimized / totalPlain);
+    }
+
+    private static long replay(List<TextImage> recording, Mode mode) throws IOException {
+        CountingOutputStream output = new CountingOutputStream();
+        final ANSITerminal ansiTerminal = new ANSITerminal(new ByteArrayInputStream(new byte[0]), output, StandardCharsets.UTF_8) {
+            @Override
+            protected TerminalSize findTerminalSize() {
+                return SIZE;
+            }
+        };
+        ansiTerminal.setRepeatCharacterSupported(mode == Mode.OPTIMIZED_WITH_REPEAT);
+        Terminal terminal = ansiTerminal;
+        if(mode == Mode.PLAIN) {
+            // Hiding the ANSITerminal behind the interface makes the screen use only the generic Terminal operations
+            terminal = (Terminal)Proxy.newProxyInstance(
+                    RefreshByteCountBenchmark.class.getClassLoader(),
+                    new Class[] { Terminal.class },
+                    (proxy, method, methodArgs) -> {
+                        try {
+                            return method.invoke(ansiTerminal, methodArgs);
+                        }
+                        catch(InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+        TerminalScreen screen = new TerminalScreen(terminal);
+        screen.startScreen();
+        screen.setCursorPosition(null);
+        TextGraphics graphics = screen.newTextGraphics();
+        long before = output.count;
+        for(TextImage frame: recording) {
+            graphics.drawImage(TerminalPosition.TOP_LEFT_CORNER, frame);
+            screen.refresh(Screen.RefreshType.DELTA);
+        }
+        return output.count - before;
+    }
+
+    private enum Mode {
+        PLAIN,
+        OPTIMIZED,
+        OPTIMIZED_WITH_REPEAT,
+    }
+
+    private enum Sequence {
+        /**
+         * Text being typed into an editor, one character per frame, with a status line showing the cursor position
+         */
+        EDITOR {
+            @Override
+            void draw(TextGraphics graphics, int frame) {
+                String text = "The quick brown fox jumps over the lazy dog. ";
+                int typed = frame % 2000;
+                int lineLength = SIZE.getColumns() - 10;
+                for(int i = 0; i <= typed; i++) {
+                    graphics.setCharacter(5 + i % lineLength, 2 + (i / lineLength) % (SIZE.getRows() - 4), text.charAt(i % text.length()));
+                }
+                graphics.setForegroundColor(TextColor.ANSI.BLACK);
+                graphics.setBackgroundColor(TextColor.ANSI.WHITE);
+                graphics.putString(0, SIZE.getRows() - 1, String.format("%-" + SIZE.getColumns() + "s", " Ln " + (typed / lineLength + 1) + ", Col " + (typed % lineLength + 1)));
+            }
+        },
+        /**
+         * A list where the selection moves down one item per frame, changing the style of two rows
+         */
+        LIST_SELECTION {
+            @Override
+            void draw(TextGraphics graphics, int frame) {
+                int selected = frame % (SIZE.getRows() - 2);
+                for(int row = 0; row < SIZE.getRows() - 2; row++) {
+                    if(row == selected) {
+                        graphics.setForegroundColor(TextColor.ANSI.WHITE);
+                        graphics.setBackgroundColor(TextColor.ANSI.BLUE);
+                        graphics.enableModifiers(SGR.BOLD);
+                    }
+                    else {
+                        graphics.setForegroundColor(TextColor.ANSI.DEFAULT);
+                        graphics.setBackgroundColor(TextColor.ANSI.DEFAULT);
+                        graphics.disableModifiers(SGR.BOLD);
+                    }
+                    graphics.putString(2, row + 1, String.format("%-40s", "  Item number " + row + (row % 3 == 0 ? " (directory)" : "")));
+                }
+            }
+        },
+        /**
+         * A log view where every frame adds a line at the bottom and moves all other lines up, without scroll hints
+         */
+        LOG_TAIL {
+            @Override
+            void draw(TextGraphics graphics, int frame) {
+                for(int row = 0; row < SIZE.getRows(); row++) {
+                    int line = frame + row;
+                    String level = line % 7 == 0 ? "WARN " : "INFO ";
+                    graphics.setForegroundColor(line % 7 == 0 ? TextColor.ANSI.YELLOW : TextColor.ANSI.DEFAULT);
+                    String message = "2020-01-01 12:" + String.format("%02d", line / 60 % 60) + ":" + String.format("%02d", line % 60) +
+                            " [worker-" + (line % 4) + "] " + level + "Handled request #" + line;
+                    graphics.putString(0, row, String.format("%-" + SIZE.getColumns() + "s", message.substring(0, Math.min(message.length(), 40 + line % 30))));
+                }
+            }
+        },
+        /**
+         * A dashboard with a few counters and a progress bar that are updated every frame
+         */
+        DASHBOARD {
+            @Override
+            void draw(TextGraphics graphics, int frame) {
+                graphics.setForegroundColor(TextColor.ANSI.GREEN);
+                for(int i = 0; i < 6; i++) {
+                    graphics.putString(4, 3 + i * 2, String.format("Counter %d: %8d", i, frame * (i + 1) * 37));
+                    graphics.putString(60, 3 + i * 2, String.format("Rate: %5.1f/s", (frame * (i + 3)) % 1000 / 10.0));
+                }
+                int progress = frame % 100;
+                int width = SIZE.getColumns() - 10;
+                graphics.setBackgroundColor(TextColor.ANSI.GREEN);
+                graphics.fillRectangle(new TerminalPosition(5, SIZE.getRows() - 3), new TerminalSize(width * progress / 100 + 1, 1), ' ');
+                graphics.setBackgroundColor(TextColor.ANSI.DEFAULT);
+                graphics.fillRectangle(new TerminalPosition(6 + width * progress / 100, SIZE.getRows() - 3), new TerminalSize(width - width * progress / 100, 1), ' ');
+            }
+        },
+        /**
+         * Lines of varying length being replaced every frame, mostly leaving blank space at the end of each row
+         */
+        CHANGING_LINES {
+            @Override
+            void draw(TextGraphics graphics, int frame) {
+                for(int row = 0; row < SIZE.getRows(); row++) {
+                    int length = (row * 31 + frame * 17) % SIZE.getColumns();
+                    StringBuilder line = new StringBuilder();
+                    for(int i = 0; i < SIZE.getColumns(); i++) {
+                        line.append(i < length ? (char)('a' + (row + frame) % 26) : ' ');
+                    }
+                    graphics.putString(0, row, line.toString());
+                }
+            }
+        },
+        ;
+
+        abstract void draw(TextGraphics graphics, int frame);
+
+        List<TextImage> record(int frames) {
+            List<TextImage> recording = new ArrayList<>();
+            TextImage canvas = new PackedTextImage(SIZE, TextCharacter.DEFAULT_CHARACTER);
+            for(int frame = 0; frame < frames; frame++) {
+                TextGraphics graphics = canvas.newTextGraphics();
+                draw(graphics, frame);
+                TextImage snapshot = new PackedTextImage(SIZE);
+                canvas.copyTo(snapshot);
+                recording.add(snapshot);
+            }
+            return recording;
+        }
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
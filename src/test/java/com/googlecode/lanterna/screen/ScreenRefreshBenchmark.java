@@ -0,0 +1,162 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.screen;
+
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TerminalPosition;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.graphics.TextGraphics;
+import com.googlecode.lanterna.terminal.ansi.ANSITerminal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Measures how much memory is allocated and how many bytes are sent to the terminal per delta refresh of a
+ * {@code TerminalScreen}, for a few typical update patterns. The terminal is an ANSI terminal writing to an output
+ * stream that only counts the bytes and how many write calls were made. Run it as a normal program, optionally passing
+ * the number of refreshes per pattern as the first argument.
+ */
+public class ScreenRefreshBenchmark {
+    private static final TerminalSize SIZE = new TerminalSize(300, 100);
+
+    public static void main(String[] args) throws IOException {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        System.out.printf("%-14s %14s %14s %14s %12s%n", "Pattern", "alloc B/frame", "output B/frame", "writes/frame", "us/frame");
+        for(Pattern pattern: Pattern.values()) {
+            run(pattern, iterations / 4);    // Warm-up
+            Result result = run(pattern, iterations);
+            System.out.printf("%-14s %14d %14d %14.1f %12.1f%n",
+                    pattern,
+                    result.allocatedBytes / iterations,
+                    result.writtenBytes / iterations,
+                    (double)result.writes / iterations,
+                    result.nanos / 1000.0 / iterations);
+        }
+    }
+
+    private static Result run(Pattern pattern, int iterations) throws IOException {
+        CountingOutputStream output = new CountingOutputStream();
+        ANSITerminal terminal = new ANSITerminal(new ByteArrayInputStream(new byte[0]), output, StandardCharsets.UTF_8) {
+            @Override
+            protected TerminalSize findTerminalSize() {
+                return SIZE;
+            }
+        };
+        TerminalScreen screen = new TerminalScreen(terminal);
+        screen.startScreen();
+        TextGraphics graphics = screen.newTextGraphics();
+        for(int frame = 0; frame < 8; frame++) {
+            pattern.draw(screen, graphics, frame);
+            screen.refresh(Screen.RefreshType.DELTA);
+        }
+
+        // Only the refresh itself is measured, not the drawing
+        Result result = new Result();
+        long writtenBefore = output.count;
+        long writesBefore = output.writes;
+        for(int frame = 0; frame < iterations; frame++) {
+            pattern.draw(screen, graphics, frame);
+            long allocatedBefore = getAllocatedBytes();
+            long startTime = System.nanoTime();
+            screen.refresh(Screen.RefreshType.DELTA);
+            result.nanos += System.nanoTime() - startTime;
+            result.allocatedBytes += getAllocatedBytes() - allocatedBefore;
+        }
+        result.writtenBytes = output.count - writtenBefore;
+        result.writes = output.writes - writesBefore;
+        return result;
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private enum Pattern {
+        SINGLE_CELL {
+            @Override
+            void draw(Screen screen, TextGraphics graphics, int frame) {
+                graphics.setCharacter(SIZE.getColumns() / 2, SIZE.getRows() / 2, "|/-\\".charAt(frame % 4));
+            }
+        },
+        ONE_LINE {
+            @Override
+            void draw(Screen screen, TextGraphics graphics, int frame) {
+                graphics.setForegroundColor(TextColor.ANSI.GREEN);
+                graphics.putString(0, 5, String.format("%-60s", "Status: processed " + frame + " items"));
+            }
+        },
+        SCROLLING_LOG {
+            @Override
+            void draw(Screen screen, TextGraphics graphics, int frame) {
+                screen.scrollLines(0, SIZE.getRows() - 1, 1);
+                graphics.setForegroundColor(frame % 10 == 0 ? TextColor.ANSI.RED : TextColor.ANSI.DEFAULT);
+                graphics.putString(0, SIZE.getRows() - 1, "2020-01-01 12:00:00 [worker-" + (frame % 8) + "] INFO  Handled request #" + frame);
+            }
+        },
+        FULL_REPAINT {
+            @Override
+            void draw(Screen screen, TextGraphics graphics, int frame) {
+                for(int row = 0; row < SIZE.getRows(); row++) {
+                    graphics.setForegroundColor(new TextColor.Indexed((row + frame) % 256));
+                    graphics.setBackgroundColor(row % 2 == 0 ? TextColor.ANSI.BLACK : TextColor.ANSI.BLUE);
+                    if(row % 3 == frame % 3) {
+                        graphics.enableModifiers(SGR.BOLD);
+                    }
+                    else {
+                        graphics.disableModifiers(SGR.BOLD);
+                    }
+                    graphics.fillRectangle(new TerminalPosition(0, row), new TerminalSize(SIZE.getColumns(), 1), (char)('a' + (row + frame) % 26));
+                }
+            }
+        },
+        ;
+
+        abstract void draw(Screen screen, TextGraphics graphics, int frame);
+    }
+
+    private static class Result {
+        private long nanos;
+        private long allocatedBytes;
+        private long writtenBytes;
+        private long writes;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+        private long writes;
+
+        @Override
+        public void write(int b) {
+            count++;
+            writes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+            writes++;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.ansi;
+
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.graphics.PackedTextImage;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class ANSIOutputOptimizerTest {
+    private ByteArrayOutputStream output;
+    private ANSITerminal terminal;
+    private ANSIOutputOptimizer optimizer;
+
+    @Before
+    public void setUp() {
+        output = new ByteArrayOutputStream();
+        terminal = new ANSITerminal(new ByteArrayInputStream(new byte[0]), output, StandardCharsets.UTF_8) {};
+        optimizer = new ANSIOutputOptimizer(terminal);
+    }
+
+    @Test
+    public void cursorIsMovedAbsolutelyWhenThePositionIsUnknown() throws IOException {
+        optimizer.reset(80);
+        optimizer.moveCursor(10, 5);
+        assertOutput("\033[6;11H");
+        optimizer.moveCursor(0, 7);
+        // Moving to the start of a row can leave out the column
+        assertOutput("\033[8H");
+    }
+
+    @Test
+    public void cursorIsMovedRelativelyWhenThatIsShorter() throws IOException {
+        optimizer.reset(80);
+        optimizer.clearScreen();
+        discardOutput();
+
+        optimizer.moveCursor(5, 0);
+        assertOutput("\033[5C");
+        optimizer.moveCursor(5, 3);
+        assertOutput("\033[3B");
+        optimizer.moveCursor(4, 3);
+        assertOutput("\033[D");
+        optimizer.moveCursor(0, 4);
+        assertOutput("\r\n");
+        optimizer.moveCursor(0, 4);
+        assertOutput("");
+        optimizer.moveCursor(2, 2);
+        // Moving both up and right is longer than positioning the cursor
+        assertOutput("\033[3;3H");
+    }
+
+    @Test
+    public void onlyTheChangedPartsOfTheStyleAreSent() throws IOException {
+        PackedTextImage image = new PackedTextImage(80, 1);
+        image.setCharacterAt(0, 0, new TextCharacter('a', TextColor.ANSI.RED, TextColor.ANSI.DEFAULT, SGR.BOLD));
+        image.setCharacterAt(1, 0, new TextCharacter('b', TextColor.ANSI.RED, TextColor.ANSI.DEFAULT));
+        image.setCharacterAt(2, 0, new TextCharacter('c'));
+        optimizer.reset(80);
+        optimizer.clearScreen();
+        discardOutput();
+
+        optimizer.writeCells(image, 0, 0, 3);
+        // Going back to the default style is shorter as a reset than as a change of the foreground color
+        assertOutput("\033[1;31ma\033[22mb\033[0mc");
+    }
+
+    @Test
+    public void styleIsResetWhenItIsUnknown() throws IOException {
+        PackedTextImage image = new PackedTextImage(80, 1);
+        image.setCharacterAt(0, 0, new TextCharacter('a', TextColor.ANSI.RED, TextColor.ANSI.DEFAULT));
+        optimizer.reset(80);
+
+        optimizer.writeCells(image, 0, 0, 1);
+        assertOutput("\033[H\033[0;31ma");
+    }
+
+    @Test
+    public void cursorIsPositionedAbsolutelyAfterADoubleWidthCharacterInTheLastColumn() throws IOException {
+        PackedTextImage image = new PackedTextImage(10, 2);
+        image.setCharacterAt(8, 0, new TextCharacter('漢'));
+        image.setCharacterAt(0, 1, new TextCharacter('x'));
+        optimizer.reset(10);
+        optimizer.clearScreen();
+        discardOutput();
+
+        optimizer.writeCells(image, 0, 8, 10);
+        optimizer.writeCells(image, 1, 0, 1);
+        // Without knowing where the cursor went, a carriage return and line feed could end up one row too far down
+        assertOutput("\033[8C漢\033[2Hx");
+    }
+
+    @Test
+    public void cursorIsMovedRelativelyAfterADoubleWidthCharacterBeforeTheLastColumn() throws IOException {
+        PackedTextImage image = new PackedTextImage(10, 2);
+        image.setCharacterAt(7, 0, new TextCharacter('漢'));
+        image.setCharacterAt(0, 1, new TextCharacter('x'));
+        optimizer.reset(10);
+        optimizer.clearScreen();
+        discardOutput();
+
+        optimizer.writeCells(image, 0, 7, 9);
+        optimizer.writeCells(image, 1, 0, 1);
+        assertOutput("\033[7C漢\r\nx");
+    }
+
+    private void discardOutput() throws IOException {
+        terminal.flush();
+        output.reset();
+    }
+
+    private void assertOutput(String expected) throws IOException {
+        terminal.flush();
+        assertEquals(escape(expected), escape(new String(output.toByteArray(), StandardCharsets.UTF_8)));
+        output.reset();
+    }
+
+    private static String escape(String text) {
+        return text.replace("\033", "ESC").replace("\r", "\\r").replace("\n", "\\n");
+    }
+}
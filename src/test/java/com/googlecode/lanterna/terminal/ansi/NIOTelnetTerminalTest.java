@@ -0,0 +1,211 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.ansi;
+
+import static com.googlecode.lanterna.terminal.ansi.TelnetProtocol.*;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.input.KeyStroke;
+import com.googlecode.lanterna.input.KeyType;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.*;
+
+public class NIOTelnetTerminalTest {
+    private static final byte[] CLIENT_INPUT = {
+            'a',
+            COMMAND_IAC, COMMAND_WILL, OPTION_NAWS,
+            COMMAND_IAC, COMMAND_SUBNEGOTIATION, OPTION_NAWS, 0, 100, 0, 40, COMMAND_IAC, COMMAND_SUBNEGOTIATION_END,
+            COMMAND_IAC, COMMAND_DO, OPTION_SUPPRESS_GO_AHEAD,
+            'b', COMMAND_IAC, COMMAND_IAC,
+            // 255 columns, which has to be escaped inside the subnegotiation
+            COMMAND_IAC, COMMAND_SUBNEGOTIATION, OPTION_NAWS, 0, COMMAND_IAC, COMMAND_IAC, 0, 30, COMMAND_IAC, COMMAND_SUBNEGOTIATION_END,
+            'c'
+    };
+
+    @Test
+    public void commandsSplitAcrossReadsAreParsed() {
+        for(int split = 0; split <= CLIENT_INPUT.length; split++) {
+            assertFilterResult(Arrays.asList(
+                    Arrays.copyOfRange(CLIENT_INPUT, 0, split),
+                    Arrays.copyOfRange(CLIENT_INPUT, split, CLIENT_INPUT.length)));
+        }
+        List<byte[]> singleBytes = new ArrayList<>();
+        for(byte b: CLIENT_INPUT) {
+            singleBytes.add(new byte[] { b });
+        }
+        assertFilterResult(singleBytes);
+    }
+
+    private void assertFilterResult(List<byte[]> reads) {
+        final List<TerminalSize> sizes = new ArrayList<>();
+        final List<String> replies = new ArrayList<>();
+        TelnetTerminal.NegotiationState negotiationState = new TelnetTerminal.NegotiationState();
+        TelnetInputFilter filter = new TelnetInputFilter(negotiationState, new TelnetInputFilter.Listener() {
+            @Override
+            public void onResize(int columns, int rows) {
+                sizes.add(new TerminalSize(columns, rows));
+            }
+
+            @Override
+            public void requestReply(boolean will, byte option) {
+                replies.add((will ? "WILL " : "WONT ") + option);
+            }
+        });
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        for(byte[] read: reads) {
+            byte[] buffer = new byte[read.length];
+            int length = filter.filter(ByteBuffer.wrap(read), buffer);
+            data.write(buffer, 0, length);
+        }
+        assertArrayEquals(new byte[] { 'a', 'b', COMMAND_IAC, 'c' }, data.toByteArray());
+        assertEquals(Arrays.asList(new TerminalSize(100, 40), new TerminalSize(255, 30)), sizes);
+        assertEquals(Arrays.asList("WILL " + OPTION_SUPPRESS_GO_AHEAD), replies);
+        assertTrue(negotiationState.isClientResizeNotification());
+        assertTrue(negotiationState.isSuppressGoAhead());
+    }
+
+    @Test(timeout = 20000)
+    public void inputTrickledInOneByteAtATimeIsDecoded() throws Exception {
+        NIOTelnetTerminalServer server = newServer(1);
+        try(Socket client = connect(server)) {
+            NIOTelnetTerminal terminal = server.acceptConnection();
+            terminal.getInputDecoder().setEscapeTimeout(Duration.ofSeconds(10));
+            final List<TerminalSize> resizes = new ArrayList<>();
+            terminal.addResizeListener((t, size) -> resizes.add(size));
+
+            ByteArrayOutputStream input = new ByteArrayOutputStream();
+            input.write(new byte[] {
+                    COMMAND_IAC, COMMAND_WILL, OPTION_NAWS,
+                    COMMAND_IAC, COMMAND_SUBNEGOTIATION, OPTION_NAWS, 0, 100, 0, 40, COMMAND_IAC, COMMAND_SUBNEGOTIATION_END,
+                    0x1b, '[', 'A' });
+            input.write("ä".getBytes(StandardCharsets.UTF_8));
+            OutputStream out = client.getOutputStream();
+            for(byte b: input.toByteArray()) {
+                out.write(b);
+                out.flush();
+                Thread.sleep(5);
+            }
+
+            assertEquals(KeyType.ArrowUp, terminal.readInput().getKeyType());
+            assertEquals(new KeyStroke('ä', false, false), terminal.readInput());
+            assertEquals(Arrays.asList(new TerminalSize(100, 40)), resizes);
+            assertEquals(new TerminalSize(100, 40), terminal.getTerminalSize());
+        }
+        finally {
+            server.close();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void failingClientDoesNotDisconnectTheOthers() throws Exception {
+        // All clients share the one I/O thread
+        NIOTelnetTerminalServer server = newServer(1);
+        final List<Throwable> exceptions = new CopyOnWriteArrayList<>();
+        server.setUncaughtExceptionHandler((thread, e) -> exceptions.add(e));
+        try(Socket failingClient = connect(server);
+            Socket otherClient = connect(server)) {
+
+            NIOTelnetTerminal failingTerminal = server.acceptConnection();
+            NIOTelnetTerminal otherTerminal = server.acceptConnection();
+            failingTerminal.addInputListener(() -> {
+                throw new IllegalStateException("Expected by the test");
+            });
+
+            failingClient.getOutputStream().write('x');
+            assertEquals(KeyType.EOF, readUntilEndOfInput(failingTerminal).getKeyType());
+            InputStream failingClientInput = failingClient.getInputStream();
+            while(failingClientInput.read() != -1) {
+                // Skip the initial negotiation until the server has closed the connection
+            }
+
+            otherClient.getOutputStream().write('y');
+            assertEquals(new KeyStroke('y', false, false), otherTerminal.readInput());
+            otherTerminal.putCharacter('z');
+            otherTerminal.flush();
+            InputStream otherClientInput = otherClient.getInputStream();
+            int b;
+            do {
+                b = otherClientInput.read();
+                assertNotEquals(-1, b);
+            }
+            while(b != 'z');
+            assertFalse(exceptions.isEmpty());
+            assertEquals("Expected by the test", exceptions.get(0).getMessage());
+        }
+        finally {
+            server.close();
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void readingAfterTheEndOfInputKeepsReturningEOF() throws Exception {
+        NIOTelnetTerminalServer server = newServer(1);
+        try {
+            NIOTelnetTerminal terminal;
+            try(Socket client = connect(server)) {
+                terminal = server.acceptConnection();
+                client.getOutputStream().write('x');
+            }
+            assertEquals(new KeyStroke('x', false, false), terminal.readInput());
+            assertEquals(KeyType.EOF, terminal.readInput().getKeyType());
+            assertEquals(KeyType.EOF, terminal.readInput().getKeyType());
+            assertEquals(KeyType.EOF, terminal.pollInput().getKeyType());
+            assertEquals(KeyType.EOF, terminal.readInput().getKeyType());
+        }
+        finally {
+            server.close();
+        }
+    }
+
+    private static NIOTelnetTerminalServer newServer(int ioThreadCount) throws IOException {
+        return new NIOTelnetTerminalServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), StandardCharsets.UTF_8, ioThreadCount);
+    }
+
+    private static Socket connect(NIOTelnetTerminalServer server) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getServerSocketChannel().socket().getLocalPort());
+        socket.setTcpNoDelay(true);
+        socket.setSoTimeout(10000);
+        return socket;
+    }
+
+    private static KeyStroke readUntilEndOfInput(NIOTelnetTerminal terminal) throws IOException {
+        KeyStroke keyStroke;
+        do {
+            keyStroke = terminal.readInput();
+        }
+        while(keyStroke.getKeyType() != KeyType.EOF);
+        return keyStroke;
+    }
+}
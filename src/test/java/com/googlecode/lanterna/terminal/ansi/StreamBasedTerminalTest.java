@@ -0,0 +1,147 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.ansi;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class StreamBasedTerminalTest {
+    private RecordingOutputStream output;
+    private ANSITerminal terminal;
+
+    @Before
+    public void setUp() {
+        output = new RecordingOutputStream();
+        terminal = new ANSITerminal(new ByteArrayInputStream(new byte[0]), output, StandardCharsets.UTF_8) {};
+    }
+
+    @Test
+    public void outputIsBufferedUntilTheThresholdIsReached() throws IOException {
+        terminal.setOutputBufferThreshold(4);
+        putString("abc");
+        assertEquals("", output.toString());
+        assertEquals(0, terminal.getBytesWritten());
+        assertEquals(0, terminal.getFlushCount());
+
+        putString("d");
+        assertEquals("abcd", output.toString());
+        assertEquals(4, terminal.getBytesWritten());
+        assertEquals(1, terminal.getFlushCount());
+        assertEquals(1, output.writes);
+        // Reaching the threshold writes the buffer but doesn't flush the stream
+        assertEquals(0, output.flushes);
+    }
+
+    @Test
+    public void flushWritesWhatIsBuffered() throws IOException {
+        putString("abc");
+        terminal.flush();
+        assertEquals("abc", output.toString());
+        assertEquals(3, terminal.getBytesWritten());
+        assertEquals(1, terminal.getFlushCount());
+        assertEquals(1, output.flushes);
+
+        // Nothing to write, but the stream is still flushed
+        terminal.flush();
+        assertEquals(1, terminal.getFlushCount());
+        assertEquals(1, output.writes);
+        assertEquals(2, output.flushes);
+    }
+
+    @Test
+    public void loweringTheThresholdWritesWhatIsBuffered() throws IOException {
+        putString("abc");
+        terminal.setOutputBufferThreshold(2);
+        assertEquals("abc", output.toString());
+
+        terminal.setOutputBufferThreshold(0);
+        putString("d");
+        putString("e");
+        assertEquals("abcde", output.toString());
+        assertEquals(3, terminal.getFlushCount());
+    }
+
+    @Test
+    public void failedWritesAreNotCounted() throws IOException {
+        putString("abc");
+        output.failing = true;
+        try {
+            terminal.flush();
+            fail("The write should have failed");
+        }
+        catch(IOException expected) {
+            // Expected
+        }
+        assertEquals(0, terminal.getBytesWritten());
+        assertEquals(0, terminal.getFlushCount());
+
+        // What couldn't be written has been dropped
+        output.failing = false;
+        putString("d");
+        terminal.flush();
+        assertEquals("d", output.toString());
+        assertEquals(1, terminal.getBytesWritten());
+        assertEquals(1, terminal.getFlushCount());
+    }
+
+    private void putString(String string) throws IOException {
+        for(char c: string.toCharArray()) {
+            terminal.putCharacter(c);
+        }
+    }
+
+    private static class RecordingOutputStream extends OutputStream {
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private int writes;
+        private int flushes;
+        private boolean failing;
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte)b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if(failing) {
+                throw new IOException("Broken pipe");
+            }
+            writes++;
+            written.write(bytes, offset, length);
+        }
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+
+        @Override
+        public String toString() {
+            return new String(written.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.swing;
+
+import com.googlecode.lanterna.SGR;
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TextCharacter;
+import com.googlecode.lanterna.TextColor;
+import com.googlecode.lanterna.graphics.TextGraphics;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * Measures how long it takes the graphical terminal emulator to update its back buffer on flush, for a few typical
+ * update patterns. The terminal isn't attached to any window so this can run headless; run it as a normal program,
+ * optionally passing the number of frames per pattern as the first argument.
+ */
+public class GraphicalTerminalBenchmark {
+    private static final TerminalSize SIZE = new TerminalSize(200, 60);
+    private static final String TEXT = "The quick brown fox jumps over the lazy dog 0123456789 {}[]()<>=+-*/ ";
+    private static final TextColor[] COLORS = {
+            TextColor.ANSI.DEFAULT, TextColor.ANSI.RED, TextColor.ANSI.GREEN, TextColor.ANSI.YELLOW,
+            TextColor.ANSI.BLUE, TextColor.ANSI.MAGENTA, TextColor.ANSI.CYAN, TextColor.ANSI.WHITE
+    };
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        int frames = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        System.out.printf("%-14s %12s%n", "Pattern", "us/frame");
+        for(Pattern pattern: Pattern.values()) {
+            run(pattern, frames / 4);     // Warm-up
+            System.out.printf("%-14s %12.1f%n", pattern, run(pattern, frames) / 1000.0 / frames);
+        }
+    }
+
+    private static long run(Pattern pattern, int frames) {
+        HeadlessTerminal terminal = new HeadlessTerminal();
+        TextGraphics graphics = terminal.newTextGraphics();
+        pattern.draw(graphics, 0);
+        terminal.flush();
+
+        // Paint once so the terminal knows the size of the component and stops redrawing everything on every flush
+        BufferedImage component = new BufferedImage(terminal.getWidth(), terminal.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics componentGraphics = component.createGraphics();
+        terminal.paintComponent(componentGraphics);
+        componentGraphics.dispose();
+
+        // Only the flush is measured, not the drawing
+        long nanos = 0;
+        for(int frame = 1; frame <= frames; frame++) {
+            pattern.draw(graphics, frame);
+            long startTime = System.nanoTime();
+            terminal.flush();
+            nanos += System.nanoTime() - startTime;
+        }
+        return nanos;
+    }
+
+    private enum Pattern {
+        ONE_LINE {
+            @Override
+            void draw(TextGraphics graphics, int frame) {
+                graphics.setForegroundColor(TextColor.ANSI.GREEN);
+                graphics.putString(0, 5, String.format("%-60s", "Status: processed " + frame + " items"));
+            }
+        },
+        FULL_REPAINT {
+            @Override
+            void draw(TextGraphics graphics, int frame) {
+                for(int row = 0; row < SIZE.getRows(); row++) {
+                    for(int column = 0; column < SIZE.getColumns(); column++) {
+                        int index = row * 7 + column + frame;
+                        graphics.setCharacter(column, row, new TextCharacter(
+                                TEXT.charAt(index % TEXT.length()),
+                                COLORS[(column / 10 + row + frame) % COLORS.length],
+                                TextColor.ANSI.DEFAULT));
+                    }
+                }
+            }
+        },
+        STYLED_REPAINT {
+            @Override
+            void draw(TextGraphics graphics, int frame) {
+                for(int row = 0; row < SIZE.getRows(); row++) {
+                    for(int column = 0; column < SIZE.getColumns(); column++) {
+                        int index = row * 7 + column + frame;
+                        SGR style = (column / 20) % 3 == 0 ? SGR.BOLD : (column / 20) % 3 == 1 ? SGR.UNDERLINE : SGR.REVERSE;
+                        graphics.setCharacter(column, row, new TextCharacter(
+                                TEXT.charAt(index % TEXT.length()),
+                                COLORS[(column / 10 + row + frame) % COLORS.length],
+                                COLORS[(row + frame) % COLORS.length],
+                                style));
+                    }
+                }
+            }
+        },
+        ;
+
+        abstract void draw(TextGraphics graphics, int frame);
+    }
+
+    private static class HeadlessTerminal extends GraphicalTerminalImplementation {
+        private final AWTTerminalFontConfiguration fontConfiguration;
+
+        HeadlessTerminal() {
+            super(SIZE,
+                    TerminalEmulatorDeviceConfiguration.getDefault(),
+                    TerminalEmulatorColorConfiguration.getDefault(),
+                    new TerminalScrollController.Null());
+            // The default configuration asks the toolkit for the screen resolution, which isn't available headless
+            this.fontConfiguration = AWTTerminalFontConfiguration.newInstance(new Font(Font.MONOSPACED, Font.PLAIN, 14));
+        }
+
+        @Override
+        int getFontHeight() {
+            return fontConfiguration.getFontHeight();
+        }
+
+        @Override
+        int getFontWidth() {
+            return fontConfiguration.getFontWidth();
+        }
+
+        @Override
+        int getHeight() {
+            return SIZE.getRows() * getFontHeight();
+        }
+
+        @Override
+        int getWidth() {
+            return SIZE.getColumns() * getFontWidth();
+        }
+
+        @Override
+        Font getFontForCharacter(TextCharacter character) {
+            return fontConfiguration.getFontForCharacter(character);
+        }
+
+        @Override
+        boolean isTextAntiAliased() {
+            return fontConfiguration.isAntiAliased();
+        }
+
+        @Override
+        void repaint() {
+        }
+
+        @Override
+        void repaint(Rectangle area) {
+        }
+    }
+}
@@ -304,6 +304,34 @@ public class DefaultVirtualTerminalTest {
         assertEquals(new TerminalPosition(0, 3), virtualTerminal.getCursorBufferPosition());
     }
 
+    @Test
+    public void shrinkingTheBacklogKeepsTheRemainingLines() {
+        virtualTerminal.setTerminalSize(new TerminalSize(10, 3));
+        virtualTerminal.setBacklogSize(500);
+        for(int i = 1; i <= 400; i++) {
+            putString("Line " + i + "\n");
+        }
+        assertEquals(401, virtualTerminal.getBufferLineCount());
+
+        // Most of the lines are dropped on the next line feed
+        virtualTerminal.setBacklogSize(1);
+        putString("Line 401\n");
+        assertEquals(4, virtualTerminal.getBufferLineCount());
+        assertBufferLineEquals("Line 399", 0);
+        assertBufferLineEquals("Line 400", 1);
+        assertBufferLineEquals("Line 401", 2);
+        assertBufferLineEquals("", 3);
+
+        // And the buffer can grow again afterwards
+        virtualTerminal.setBacklogSize(100);
+        for(int i = 402; i <= 480; i++) {
+            putString("Line " + i + "\n");
+        }
+        assertEquals(83, virtualTerminal.getBufferLineCount());
+        assertBufferLineEquals("Line 399", 0);
+        assertBufferLineEquals("Line 480", 81);
+    }
+
     @Test
     public void backlogTrimmingAdjustsCursorPositionAndDirtyCells() {
         virtualTerminal.setTerminalSize(new TerminalSize(80, 3));
@@ -542,6 +570,26 @@ public class DefaultVirtualTerminalTest {
         assertEquals(DEFAULT_CHARACTER.withCharacter('C'), virtualTerminal.getCharacter(0, 3));
     }
 
+    @Test
+    public void graphemeClustersArePutInOneCell() {
+        // Grinning face (outside the BMP), e with combining acute accent, thumbs up with a skin tone modifier
+        putString("\uD83D\uDE00e\u0301\uD83D\uDC4D\uD83C\uDFFDx");
+        assertEquals(new TextCharacter("\uD83D\uDE00", null, null), virtualTerminal.getCharacter(0, 0));
+        assertTrue(virtualTerminal.getCharacter(0, 0).isDoubleWidth());
+        assertEquals(new TextCharacter("e\u0301", null, null), virtualTerminal.getCharacter(2, 0));
+        assertEquals(new TextCharacter("\uD83D\uDC4D\uD83C\uDFFD", null, null), virtualTerminal.getCharacter(3, 0));
+        assertEquals(fromChar('x'), virtualTerminal.getCharacter(5, 0));
+        assertEquals(new TerminalPosition(6, 0), virtualTerminal.getCursorPosition());
+
+        // A combining mark after the cursor was moved doesn't join the character before it
+        virtualTerminal.setCursorPosition(0, 1);
+        putString("a");
+        virtualTerminal.setCursorPosition(3, 1);
+        putString("\u0301");
+        assertEquals(fromChar('a'), virtualTerminal.getCharacter(0, 1));
+        assertEquals(fromChar('\u0301'), virtualTerminal.getCharacter(3, 1));
+    }
+
     private void putString(String string) {
         for(char c: string.toCharArray()) {
             virtualTerminal.putCharacter(c);
@@ -0,0 +1,72 @@
+/*
+ * This file is part of lanterna (https://github.com/mabe02/lanterna).
+ *
+ * lanterna is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Copyright (C) 2010-2020 Martin Berglund
+ */
+package com.googlecode.lanterna.terminal.virtual;
+
+import com.googlecode.lanterna.TerminalSize;
+import com.googlecode.lanterna.TextCharacter;
+
+/**
+ * Measures how fast a {@link DefaultVirtualTerminal} with a large backlog can take output and be drawn, the way the
+ * Swing and AWT terminal emulators use it. Lines of text are printed, which scrolls the oldest line out of the backlog
+ * once it's full, and after every few lines the visible part of the buffer is read back, first with the view at the
+ * bottom of the buffer and then with the view scrolled half-way back into the backlog. Run it as a normal program,
+ * optionally passing the backlog size and the number of lines to print as arguments.
+ */
+public class VirtualTerminalBacklogBenchmark {
+    private static final String LINE = "The quick brown fox jumps over the lazy dog, 0123456789 ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    private static final int COLUMNS = 100;
+    private static final int ROWS = 40;
+
+    public static void main(String[] args) {
+        int backlogSize = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int lines = args.length > 1 ? Integer.parseInt(args[1]) : 300000;
+        for(boolean scrolledBack: new boolean[] { false, true }) {
+            run(backlogSize, lines / 10, scrolledBack);  // Warm-up
+            long startTime = System.nanoTime();
+            long checksum = run(backlogSize, lines, scrolledBack);
+            long nanos = System.nanoTime() - startTime;
+            System.out.printf("backlog %d, %d lines, %-14s %8.1f us/line (checksum %d)%n",
+                    backlogSize, lines, scrolledBack ? "scrolled back:" : "at bottom:", nanos / 1000.0 / lines, checksum);
+        }
+    }
+
+    private static long run(int backlogSize, int lines, boolean scrolledBack) {
+        DefaultVirtualTerminal terminal = new DefaultVirtualTerminal(new TerminalSize(COLUMNS, ROWS));
+        terminal.setBacklogSize(backlogSize);
+        long[] checksum = new long[1];
+        for(int i = 0; i < lines; i++) {
+            for(int j = 0; j < LINE.length(); j++) {
+                terminal.putCharacter(LINE.charAt((i + j) % LINE.length()));
+            }
+            terminal.putCharacter('\n');
+            if(i % 10 == 0) {
+                int lineCount = terminal.getBufferLineCount();
+                int firstRow = scrolledBack ? lineCount / 2 : Math.max(0, lineCount - ROWS);
+                terminal.forEachLine(firstRow, firstRow + ROWS - 1, (rowNumber, bufferLine) -> {
+                    for(int column = 0; column < COLUMNS; column++) {
+                        TextCharacter character = bufferLine.getCharacterAt(column);
+                        checksum[0] += character.getCharacter();
+                    }
+                });
+                terminal.getAndResetDirtyCellSpans();
+            }
+        }
+        return checksum[0];
+    }
+}